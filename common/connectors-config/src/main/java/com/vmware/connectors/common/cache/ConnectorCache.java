@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Caches what the connectors fetch from their backends (resolved ids, user
+ * details, action URLs), in a local tier on each node and, if there is one, in
+ * a {@link SharedCacheTier} that all the nodes behind the load balancer see.
+ * <p>
+ * Every entry belongs to the principal of the request that cached it, and is
+ * only ever returned to that principal. Without a principal nothing is cached.
+ * The keys are hashed, so credentials can be part of them.
+ */
+public class ConnectorCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectorCache.class);
+
+    private final Cache<String, String> local;
+    private final SharedCacheTier shared;
+    private final Duration ttl;
+
+    /**
+     * @param maxSize the number of entries kept in the local tier
+     * @param ttl how long entries are kept in both tiers; 0 turns the cache off
+     * @param unit the unit of ttl
+     * @param shared the shared tier, or null for the local one only
+     */
+    public ConnectorCache(long maxSize, long ttl, TimeUnit unit, SharedCacheTier shared) {
+        this.local = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl, unit)
+                .build();
+        this.shared = shared;
+        this.ttl = Duration.ofMillis(unit.toMillis(ttl));
+    }
+
+    /**
+     * @param principal the user the value belongs to
+     * @param key what the value is, including whatever it depends on (like the backend base URL)
+     * @param loader fetches the value when neither tier has it
+     * @return the value, from the local tier, the shared one or the loader
+     */
+    public Mono<String> get(Principal principal, String key, Supplier<Mono<String>> loader) {
+        Optional<String> cacheKey = cacheKey(principal, key);
+        if (!cacheKey.isPresent()) {
+            return Mono.defer(loader);
+        }
+        String partitionedKey = cacheKey.get();
+        return Mono.justOrEmpty(local.getIfPresent(partitionedKey))
+                .switchIfEmpty(getShared(partitionedKey)
+                        .doOnNext(value -> local.put(partitionedKey, value)))
+                .switchIfEmpty(Mono.defer(loader)
+                        .flatMap(value -> store(partitionedKey, value)));
+    }
+
+    public Mono<Void> put(Principal principal, String key, String value) {
+        return Mono.justOrEmpty(cacheKey(principal, key))
+                .flatMap(partitionedKey -> store(partitionedKey, value))
+                .then();
+    }
+
+    public Mono<Void> evict(Principal principal, String key) {
+        return Mono.justOrEmpty(cacheKey(principal, key))
+                .flatMap(partitionedKey -> {
+                    local.invalidate(partitionedKey);
+                    if (shared == null) {
+                        return Mono.empty();
+                    }
+                    return shared.evict(partitionedKey)
+                            .onErrorResume(e -> ignore("evict", e));
+                })
+                .then();
+    }
+
+    private Optional<String> cacheKey(Principal principal, String key) {
+        if (ttl.isZero() || principal == null || StringUtils.isEmpty(principal.getName())) {
+            return Optional.empty();
+        }
+        String name = principal.getName();
+        // The length keeps ("ab", "c") and ("a", "bc") apart
+        return Optional.of(Hashing.sha256().newHasher()
+                .putInt(name.length())
+                .putString(name, UTF_8)
+                .putString(key, UTF_8)
+                .hash()
+                .toString());
+    }
+
+    private Mono<String> getShared(String partitionedKey) {
+        if (shared == null) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> shared.get(partitionedKey))
+                .onErrorResume(e -> ignore("get", e));
+    }
+
+    private Mono<String> store(String partitionedKey, String value) {
+        local.put(partitionedKey, value);
+        if (shared == null) {
+            return Mono.just(value);
+        }
+        return Mono.defer(() -> shared.put(partitionedKey, value, ttl))
+                .onErrorResume(e -> ignore("put", e))
+                .thenReturn(value);
+    }
+
+    private static <T> Mono<T> ignore(String operation, Throwable e) {
+        logger.warn("Shared cache {} failed, carrying on without it", operation, e);
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * A cache shared by all the nodes of a connector, like Redis or Memcached,
+ * behind {@link ConnectorCache}'s local tier. Provide a bean of this type to
+ * turn it on.
+ * <p>
+ * The keys are already partitioned and hashed by {@link ConnectorCache}. An
+ * implementation should fail (or be empty) rather than block, as the cache is
+ * only an optimization and its errors are ignored.
+ */
+public interface SharedCacheTier {
+
+    /**
+     * @return the value, or empty if there is none
+     */
+    Mono<String> get(String key);
+
+    Mono<Void> put(String key, String value, Duration ttl);
+
+    Mono<Void> evict(String key);
+}
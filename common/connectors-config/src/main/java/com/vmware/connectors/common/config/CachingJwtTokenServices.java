@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.config;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.springframework.security.jwt.Jwt;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.InvalidSignatureException;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.common.util.JsonParser;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Checks bearer tokens like the DefaultTokenServices/JwtTokenStore pair that
+ * Spring Boot sets up for a resource server, but verifies each token only once.
+ * <p>
+ * Mail clients send the same token with every card request, so the result of
+ * a successful verification is cached, by the hash of the token, until the
+ * token expires. Tokens are verified with the current key of the
+ * {@link JwtKeySource} and then with the previous one. The cache is emptied
+ * whenever those keys change, so a token verified with a key that is no
+ * longer accepted is verified again.
+ */
+public class CachingJwtTokenServices implements ResourceServerTokenServices {
+
+    private final JwtKeySource keySource;
+    private final AccessTokenConverter converter;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final JsonParser jsonParser = JsonParserFactory.create();
+
+    public CachingJwtTokenServices(JwtKeySource keySource, AccessTokenConverter converter,
+                                   long maxSize, long maxAge, TimeUnit unit) {
+        this.keySource = keySource;
+        this.converter = converter;
+        this.verifiedTokens = CacheBuilder.newBuilder()
+                .expireAfterWrite(maxAge, unit)
+                .maximumSize(maxSize)
+                .build();
+        keySource.addChangeListener(verifiedTokens::invalidateAll);
+    }
+
+    @Override
+    public OAuth2Authentication loadAuthentication(String accessToken) {
+        // Don't hold on to the raw tokens
+        String key = Hashing.sha256().hashString(accessToken, UTF_8).toString();
+        VerifiedToken verified = verifiedTokens.getIfPresent(key);
+        if (verified == null || verified.isExpired()) {
+            verifiedTokens.invalidate(key);
+            verified = verify(accessToken);
+            verifiedTokens.put(key, verified);
+        }
+        return verified.newAuthentication();
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String accessToken) {
+        return converter.extractAccessToken(accessToken, decode(accessToken));
+    }
+
+    private VerifiedToken verify(String accessToken) {
+        Map<String, Object> claims = decode(accessToken);
+        Number exp = (Number) claims.get(AccessTokenConverter.EXP);
+        long expiresAt = exp == null ? Long.MAX_VALUE : TimeUnit.SECONDS.toMillis(exp.longValue());
+        if (System.currentTimeMillis() >= expiresAt) {
+            throw new InvalidTokenException("Access token expired");
+        }
+        return new VerifiedToken(converter.extractAuthentication(claims), expiresAt);
+    }
+
+    private Map<String, Object> decode(String accessToken) {
+        Jwt jwt;
+        Map<String, Object> claims;
+        try {
+            jwt = JwtHelper.decode(accessToken);
+            claims = jsonParser.parseMap(jwt.getClaims());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Cannot convert access token to JSON", e);
+        }
+        if (!hasValidSignature(jwt)) {
+            keySource.requestRefresh();
+            throw new InvalidTokenException("Access token signature doesn't match any verifier key");
+        }
+        // DefaultAccessTokenConverter wants a Long, as JwtAccessTokenConverter gives it
+        Object exp = claims.get(AccessTokenConverter.EXP);
+        if (exp instanceof Integer) {
+            claims.put(AccessTokenConverter.EXP, ((Integer) exp).longValue());
+        }
+        return claims;
+    }
+
+    private boolean hasValidSignature(Jwt jwt) {
+        return keySource.getVerifiers().stream().anyMatch(verifier -> verifies(jwt, verifier));
+    }
+
+    private static boolean verifies(Jwt jwt, SignatureVerifier verifier) {
+        try {
+            jwt.verifySignature(verifier);
+            return true;
+        } catch (InvalidSignatureException e) {
+            return false;
+        }
+    }
+
+    private static final class VerifiedToken {
+
+        private final OAuth2Authentication authentication;
+        private final long expiresAt;
+
+        VerifiedToken(OAuth2Authentication authentication, long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+
+        /*
+         * The resource server sets the details of the authentication it gets, so
+         * every request gets its own copy of the cached one.
+         */
+        OAuth2Authentication newAuthentication() {
+            return new OAuth2Authentication(authentication.getOAuth2Request(), authentication.getUserAuthentication());
+        }
+    }
+}
@@ -5,21 +5,57 @@
 
 package com.vmware.connectors.common.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.vmware.connectors.common.cache.ConnectorCache;
+import com.vmware.connectors.common.cache.SharedCacheTier;
+import com.vmware.connectors.common.json.CardResponseValidator;
 import com.vmware.connectors.common.json.JsonDocumentDecoder;
+import com.vmware.connectors.common.tracing.LoggingSpanExporter;
+import com.vmware.connectors.common.tracing.SpanExporter;
+import com.vmware.connectors.common.tracing.Tracer;
 import com.vmware.connectors.common.utils.CardTextAccessor;
+import com.vmware.connectors.common.utils.IdGenerator;
+import com.vmware.connectors.common.utils.IdGenerators;
+import com.vmware.connectors.common.utils.RetryPolicy;
+import com.vmware.connectors.common.web.BackendIsolation;
+import com.vmware.connectors.common.web.BackendIsolationExchangeFilter;
+import com.vmware.connectors.common.web.BackendTrafficMetrics;
+import com.vmware.connectors.common.web.CardResponseValidationAdvice;
+import com.vmware.connectors.common.web.CardRequestContextArgumentResolver;
+import com.vmware.connectors.common.web.CoalescingExchangeFilter;
 import com.vmware.connectors.common.web.ConnectorRootController;
 import com.vmware.connectors.common.web.ExceptionHandlers;
+import com.vmware.connectors.common.web.HedgingExchangeFilter;
+import com.vmware.connectors.common.web.HedgingPolicy;
+import com.vmware.connectors.common.web.HttpRequestArgumentResolver;
 import com.vmware.connectors.common.web.MdcFilter;
+import com.vmware.connectors.common.web.ResponseCompression;
+import com.vmware.connectors.common.web.ResponseCompressionFilter;
+import com.vmware.connectors.common.web.ServerTimingExchangeFilter;
+import com.vmware.connectors.common.web.ServerTimingFilter;
+import com.vmware.connectors.common.web.StaticResourceEtagFilter;
+import com.vmware.connectors.common.web.StaticResourceEtags;
+import com.vmware.connectors.common.web.TracingExchangeFilter;
+import com.vmware.connectors.common.web.TracingFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.oauth2.OAuth2AutoConfiguration;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.JwtAccessTokenConverterConfigurer;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.JwtAccessTokenConverterRestTemplateCustomizer;
+import org.springframework.boot.autoconfigure.web.reactive.ReactiveWebServerFactoryAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
 import org.springframework.boot.web.codec.CodecCustomizer;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
 import org.springframework.boot.web.server.MimeMappings;
 import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
 import org.springframework.context.MessageSource;
@@ -27,7 +63,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.*;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.http.converter.AbstractHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.HttpMessageNotWritableException;
@@ -36,13 +76,22 @@ import org.springframework.security.oauth2.config.annotation.web.configuration.R
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.GzipResourceResolver;
+import reactor.ipc.netty.resources.PoolResources;
 
 import javax.servlet.Filter;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -53,12 +102,24 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  * Created by Rob Worsnop on 11/29/16.
  */
 @Configuration
-@AutoConfigureBefore(ServletWebServerFactoryAutoConfiguration.class)
-@Import({ExceptionHandlers.class, ConnectorRootController.class})
+@AutoConfigureBefore({ServletWebServerFactoryAutoConfiguration.class, ReactiveWebServerFactoryAutoConfiguration.class,
+        OAuth2AutoConfiguration.class})
+@Import({ExceptionHandlers.class, ConnectorRootController.class, ReactiveConnectorsConfiguration.class})
 public class ConnectorsAutoConfiguration {
 
+    static final List<String> STATIC_PATHS = ImmutableList.of("/templates/", "/discovery/", "/images/");
+
+    static final String CARDS_REQUESTS_PATH = "/cards/requests";
+
+    // The order of the backend call filters, from the outermost
+    private static final int COALESCING_ORDER = 0;
+    private static final int HEDGING_ORDER = 10;
+    private static final int ISOLATION_ORDER = 20;
+    private static final int TRACING_ORDER = 30;
+    private static final int SERVER_TIMING_ORDER = 40;
 
     @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
     public ConfigurableServletWebServerFactory webServerFactory() {
         TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory();
         MimeMappings mappings = new MimeMappings(MimeMappings.DEFAULT);
@@ -69,16 +130,78 @@ public class ConnectorsAutoConfiguration {
     }
 
     @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
     public Filter mdcFilter() {
         return new MdcFilter();
     }
 
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public Filter tracingFilter(Tracer tracer) {
+        return new TracingFilter(tracer, STATIC_PATHS);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public Filter serverTimingFilter() {
+        return new ServerTimingFilter(STATIC_PATHS);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public Filter staticResourceEtagFilter(StaticResourceEtags staticResourceEtags) {
+        return new StaticResourceEtagFilter(staticResourceEtags);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public Filter cardsCompressionFilter(ResponseCompression cardsCompression) {
+        return new ResponseCompressionFilter(CARDS_REQUESTS_PATH, cardsCompression);
+    }
+
+    @Bean
+    public StaticResourceEtags staticResourceEtags(@Value("${static.etags.maxSize:1000}") long maxSize) {
+        return new StaticResourceEtags("static", STATIC_PATHS, maxSize);
+    }
+
+    /*
+     * Card responses are the largest ones, and compress well. Smaller ones are
+     * left to server.compression.
+     */
+    @Bean
+    public ResponseCompression cardsCompression(@Value("${cards.compression.minSize:512}") int minSize,
+                                                @Value("${cards.compression.level:6}") int level) {
+        return new ResponseCompression(minSize, level);
+    }
+
+    /*
+     * Off by default. A sample rate of 0.01 checks one card response in a
+     * hundred against the hero card schema, and logs the invalid ones.
+     */
+    @Bean
+    public CardResponseValidator cardResponseValidator(ObjectMapper mapper,
+                                                       @Value("${cards.validation.sampleRate:0}") double sampleRate) {
+        return new CardResponseValidator(mapper, sampleRate);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public CardResponseValidationAdvice cardResponseValidationAdvice(CardResponseValidator cardResponseValidator) {
+        return new CardResponseValidationAdvice(CARDS_REQUESTS_PATH, cardResponseValidator);
+    }
+
 
+    /*
+     * Spring Boot's resource server still builds its own JwtAccessTokenConverter,
+     * which fetches the key-uri at startup. The key source has just fetched it,
+     * so Boot gets that key instead of making a second call to vIDM.
+     */
     @Bean
-    public JwtAccessTokenConverterRestTemplateCustomizer jwtAccessTokenConverterRestTemplateCustomizer() {
+    public JwtAccessTokenConverterRestTemplateCustomizer jwtAccessTokenConverterRestTemplateCustomizer(JwtKeySource jwtKeySource) {
         return new JwtAccessTokenConverterRestTemplateCustomizer() {
             @Override
             public void customize(RestTemplate template) {
+                template.getInterceptors().add((request, body, execution) -> new FetchedKeyResponse(jwtKeySource.getKey()));
                 template.getMessageConverters().add(0, new AbstractHttpMessageConverter<Map>(MediaType.ALL) {
                     @Override
                     protected boolean supports(Class<?> clazz) {
@@ -121,33 +244,72 @@ public class ConnectorsAutoConfiguration {
         return vIdmPubKeyUrl;
     }
 
+    /*
+     * Fetches the key from the key-uri, if that's how it is configured, in the
+     * background every jwt.keyRefresh.period, so a rotated vIDM key is picked up
+     * without a restart. The previous key is still accepted for
+     * jwt.keyRefresh.previousKeyGrace after a rotation.
+     */
     @Bean
+    public JwtKeySource jwtKeySource(@Value("${security.oauth2.resource.jwt.key-uri:}") String vIdmPubKeyUrl,
+                                     @Value("${security.oauth2.resource.jwt.key-value:}") String vIdmPubKeyValue,
+                                     @Value("${jwt.keyRefresh.period:60}") long period,
+                                     @Value("${jwt.keyRefresh.previousKeyGrace:60}") long previousKeyGrace,
+                                     @Value("${jwt.keyRefresh.unit:MINUTES}") TimeUnit unit) {
+        if (StringUtils.isEmpty(vIdmPubKeyValue)) {
+            RestTemplate restTemplate = new RestTemplate();
+            return JwtKeySource.fetching(() -> restTemplate.getForObject(vIdmPubKeyUrl, String.class),
+                    period, previousKeyGrace, unit);
+        }
+        return JwtKeySource.of(vIdmPubKeyValue);
+    }
+
+    /*
+     * Used instead of the token services of the Spring Boot resource server, on
+     * both the servlet and the WebFlux stack.
+     */
+    @Bean
+    public CachingJwtTokenServices cachingJwtTokenServices(JwtKeySource jwtKeySource,
+                                                           @Value("${jwt.cache.maxSize:10000}") long maxSize,
+                                                           @Value("${jwt.cache.maxAge:60}") long maxAge,
+                                                           @Value("${jwt.cache.unit:MINUTES}") TimeUnit unit) {
+        return new CachingJwtTokenServices(jwtKeySource, new JwtConverter(), maxSize, maxAge, unit);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
     public WebMvcConfigurer webMvcConfigurer(@Value("${static.cacheControl.maxAge:1}") long maxAge,
                                              @Value("${static.cacheControl.unit:DAYS}") TimeUnit unit) {
         return new WebMvcConfigurer() {
             @Override
             public void addResourceHandlers(ResourceHandlerRegistry registry) {
                 CacheControl cacheControl = CacheControl.maxAge(maxAge, unit);
-                registry.addResourceHandler("/templates/**")
-                        .addResourceLocations("classpath:/static/templates/")
-                        .setCacheControl(cacheControl);
-                registry.addResourceHandler("/discovery/**")
-                        .addResourceLocations("classpath:/static/discovery/")
-                        .setCacheControl(cacheControl);
-                registry.addResourceHandler("/images/**")
-                        .addResourceLocations("classpath:/static/images/")
-                        .setCacheControl(cacheControl);
+                for (String path : STATIC_PATHS) {
+                    // Serves the .gz copy written by the build to clients that take gzip
+                    registry.addResourceHandler(path + "**")
+                            .addResourceLocations("classpath:/static" + path)
+                            .setCacheControl(cacheControl)
+                            .resourceChain(true)
+                            .addResolver(new GzipResourceResolver());
+                }
+            }
+
+            @Override
+            public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+                resolvers.add(new HttpRequestArgumentResolver());
+                resolvers.add(new CardRequestContextArgumentResolver());
             }
         };
     }
 
     @Bean
-    public ResourceServerConfigurer resourceServer() {
+    public ResourceServerConfigurer resourceServer(CachingJwtTokenServices tokenServices) {
         return new ResourceServerConfigurerAdapter() {
             @Override
             @SuppressWarnings("PMD.SignatureDeclareThrowsException")
             public void configure(ResourceServerSecurityConfigurer resources) throws Exception {
-                resources.resourceId(null);
+                resources.resourceId(null)
+                        .tokenServices(tokenServices);
             }
 
             @Override
@@ -164,6 +326,18 @@ public class ConnectorsAutoConfiguration {
         };
     }
 
+    /*
+     * Local to each node, unless the connector is given a SharedCacheTier bean
+     * (Redis, Memcached...) that all the nodes share.
+     */
+    @Bean
+    public ConnectorCache connectorCache(ObjectProvider<SharedCacheTier> sharedCacheTier,
+                                         @Value("${cache.local.maxSize:10000}") long maxSize,
+                                         @Value("${cache.ttl:300}") long ttl,
+                                         @Value("${cache.unit:SECONDS}") TimeUnit unit) {
+        return new ConnectorCache(maxSize, ttl, unit, sharedCacheTier.getIfAvailable());
+    }
+
     @Bean
     public MessageSource messageSource() {
         ResourceBundleMessageSource ret = new ResourceBundleMessageSource();
@@ -177,6 +351,156 @@ public class ConnectorsAutoConfiguration {
         return new CardTextAccessor(messageSource);
     }
 
+    /*
+     * The controllers pass it to the card builders. Set cards.idStrategy to
+     * SECURE_RANDOM for the previous UUID.randomUUID() ids or to TIME_ORDERED
+     * for ids that sort by creation time.
+     */
+    @Bean
+    public IdGenerator cardIdGenerator(@Value("${cards.idStrategy:RANDOM}") IdGenerators.Strategy strategy) {
+        return IdGenerators.of(strategy);
+    }
+
+    /*
+     * Backend responses are asked for gzipped, and connections are kept alive in
+     * a pool bounded per backend address, so a fan-out (like GitHub's per-PR
+     * fetches) reuses a few connections instead of opening one per request.
+     */
+    @Bean
+    public WebClientCustomizer backendWebClientCustomizer(ObjectProvider<MeterRegistry> meterRegistry,
+                                                          @Value("${backend.compression:true}") boolean compression,
+                                                          @Value("${backend.pool.maxConnections:50}") int maxConnections,
+                                                          @Value("${backend.pool.acquireTimeout:45000}") long acquireTimeout) {
+        BackendTrafficMetrics metrics = new BackendTrafficMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+        PoolResources pool = PoolResources.fixed("connectors-backend", maxConnections, acquireTimeout);
+        return builder -> builder.clientConnector(new ReactorClientHttpConnector(options -> options
+                .compression(compression)
+                .poolResources(pool)
+                .afterChannelInit(metrics::install)));
+    }
+
+    /*
+     * Off by default. When backend.coalescing.enabled, identical GETs in
+     * progress at the same time, like the card requests of several devices
+     * opening the same email, share one backend call, as long as its body is
+     * at most backend.coalescing.maxBodySize bytes. The shared responses are
+     * read with the same codecs as the WebClient's. Outermost, so hedged calls
+     * are shared too.
+     */
+    @Bean
+    @Order(COALESCING_ORDER)
+    public WebClientCustomizer coalescingWebClientCustomizer(ObjectProvider<MeterRegistry> meterRegistry,
+                                                             ObjectProvider<List<CodecCustomizer>> codecCustomizers,
+                                                             @Value("${backend.coalescing.enabled:false}") boolean enabled,
+                                                             @Value("${backend.coalescing.maxBodySize:262144}") long maxBodySize) {
+        if (!enabled) {
+            return builder -> { };
+        }
+        List<CodecCustomizer> customizers = new ArrayList<>(codecCustomizers.getIfAvailable(Collections::emptyList));
+        AnnotationAwareOrderComparator.sort(customizers);
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(codecs -> customizers.forEach(customizer -> customizer.customize(codecs)))
+                .build();
+        CoalescingExchangeFilter filter = new CoalescingExchangeFilter(strategies, maxBodySize,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+        return builder -> builder.filter(filter);
+    }
+
+    /*
+     * Off by default. When backend.hedging.enabled, a GET or HEAD still in
+     * progress after the backend.hedging.percentile of its backend's latencies
+     * is sent again, and the first response wins. At most backend.hedging.budget
+     * of the calls are hedged, so a slow backend isn't flooded. Ordered before
+     * the isolation, tracing and timing filters, so each hedge goes through
+     * them like any backend call.
+     */
+    @Bean
+    @Order(HEDGING_ORDER)
+    public WebClientCustomizer hedgingWebClientCustomizer(ObjectProvider<MeterRegistry> meterRegistry,
+                                                          @Value("${backend.hedging.enabled:false}") boolean enabled,
+                                                          @Value("${backend.hedging.percentile:95}") double percentile,
+                                                          @Value("${backend.hedging.minDelay:50}") long minDelay,
+                                                          @Value("${backend.hedging.budget:0.05}") double budget) {
+        if (!enabled) {
+            return builder -> { };
+        }
+        HedgingPolicy policy = new HedgingPolicy(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry),
+                percentile, Duration.ofMillis(minDelay), budget);
+        return builder -> builder.filter(new HedgingExchangeFilter(policy));
+    }
+
+    /*
+     * One tenant's backend going down mustn't take the others with it: each
+     * backend base URL gets a circuit breaker, that fails calls fast once half
+     * of the last backend.circuit.window calls failed, and a cap on the calls
+     * in progress. The base URLs come from the callers, so only
+     * backend.isolation.maxBackends of them are remembered.
+     */
+    @Bean
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    public BackendIsolation backendIsolation(ObjectProvider<MeterRegistry> meterRegistry,
+                                             @Value("${backend.circuit.window:20}") int windowSize,
+                                             @Value("${backend.circuit.failureRate:0.5}") double failureRate,
+                                             @Value("${backend.circuit.openDuration:30}") long openDuration,
+                                             @Value("${backend.circuit.halfOpenCalls:3}") int halfOpenCalls,
+                                             @Value("${backend.circuit.slowCall:10}") long slowCall,
+                                             @Value("${backend.bulkhead.maxConcurrentCalls:40}") int maxConcurrentCalls,
+                                             @Value("${backend.isolation.maxBackends:1000}") long maxBackends) {
+        return new BackendIsolation(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), Ticker.systemTicker(),
+                windowSize, failureRate, Duration.ofSeconds(openDuration), halfOpenCalls,
+                Duration.ofSeconds(slowCall), maxConcurrentCalls, maxBackends);
+    }
+
+    @Bean
+    @Order(ISOLATION_ORDER)
+    public WebClientCustomizer backendIsolationWebClientCustomizer(BackendIsolation backendIsolation) {
+        return builder -> builder.filter(new BackendIsolationExchangeFilter(backendIsolation));
+    }
+
+    /*
+     * Idempotent backend calls that fail with a 502, 503 or 429 are retried,
+     * up to backend.retry.maxAttempts calls, within backend.retry.deadline
+     * seconds of the start of the request. Only backend.retry.budget of the
+     * calls to each backend base URL are retried.
+     */
+    @Bean
+    public RetryPolicy retryPolicy(ObjectProvider<MeterRegistry> meterRegistry,
+                                   @Value("${backend.retry.maxAttempts:3}") int maxAttempts,
+                                   @Value("${backend.retry.deadline:10}") long deadline,
+                                   @Value("${backend.retry.budget:0.1}") double budget,
+                                   @Value("${backend.isolation.maxBackends:1000}") long maxBackends) {
+        return new RetryPolicy(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), maxAttempts,
+                Duration.ofMillis(100), Duration.ofSeconds(2), Duration.ofSeconds(deadline), budget, maxBackends);
+    }
+
+    /*
+     * Requests that come with a W3C traceparent follow the caller's sampling
+     * decision. tracing.sampleRate is the share of the other requests that is
+     * traced. The spans are logged at debug level, unless the connector is
+     * given a SpanExporter bean.
+     */
+    @Bean
+    public Tracer tracer(ObjectProvider<SpanExporter> spanExporter,
+                         @Value("${tracing.sampleRate:0}") double sampleRate) {
+        return new Tracer(spanExporter.getIfAvailable(LoggingSpanExporter::new), sampleRate);
+    }
+
+    @Bean
+    @Order(TRACING_ORDER)
+    public WebClientCustomizer tracingWebClientCustomizer() {
+        return builder -> builder.filter(new TracingExchangeFilter());
+    }
+
+    /*
+     * Adds every backend call to the Server-Timing header of the request that
+     * made it.
+     */
+    @Bean
+    @Order(SERVER_TIMING_ORDER)
+    public WebClientCustomizer serverTimingWebClientCustomizer() {
+        return builder -> builder.filter(new ServerTimingExchangeFilter());
+    }
+
     @Bean
     public WebClient webClient(WebClient.Builder builder) {
         return builder.build();
@@ -186,4 +510,43 @@ public class ConnectorsAutoConfiguration {
     public CodecCustomizer codecCustomizer() {
         return configurer -> configurer.customCodecs().decoder(new JsonDocumentDecoder());
     }
+
+    /*
+     * The key-uri response, made of the key already fetched.
+     */
+    private static final class FetchedKeyResponse extends AbstractClientHttpResponse {
+
+        private final byte[] key;
+
+        FetchedKeyResponse(String key) {
+            this.key = key.getBytes(UTF_8);
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return HttpStatus.OK.value();
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(key);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.TEXT_PLAIN);
+            return headers;
+        }
+    }
 }
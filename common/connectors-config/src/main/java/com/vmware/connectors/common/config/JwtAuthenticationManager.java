@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.config;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Authenticates WebFlux requests with the same token services, and so the
+ * same checks, that the servlet resource server uses.
+ */
+public class JwtAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private static final String BEARER = "Bearer ";
+
+    private final ResourceServerTokenServices tokenServices;
+
+    public JwtAuthenticationManager(ResourceServerTokenServices tokenServices) {
+        this.tokenServices = tokenServices;
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        String token = authentication.getCredentials().toString();
+        // Verifying the signature is pure CPU work, so it is fine on the event loop
+        return Mono.<Authentication>fromCallable(() -> tokenServices.loadAuthentication(token))
+                .onErrorMap(OAuth2Exception.class, e -> new BadCredentialsException(e.getMessage(), e));
+    }
+
+    /**
+     * Extracts the bearer token of the request, to be authenticated by this manager.
+     *
+     * @param exchange the current exchange
+     * @return the unauthenticated token, or empty if the request has no bearer token
+     */
+    public static Mono<Authentication> extractToken(ServerWebExchange exchange) {
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (!StringUtils.startsWithIgnoreCase(authorization, BEARER)) {
+            return Mono.empty();
+        }
+        String token = authorization.substring(BEARER.length()).trim();
+        return Mono.just(new PreAuthenticatedAuthenticationToken(token, token));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.config;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.jwt.crypto.sign.MacSigner;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The keys that JWT signatures are verified with.
+ * <p>
+ * A configured key-value never changes. A key fetched from the key-uri is
+ * fetched again in the background, and when it changes the previous key is
+ * kept for a grace period too, so tokens signed just before a vIDM key
+ * rotation still verify and no request ever waits for the key to be fetched.
+ * The previous key is dropped once the grace period is over, so a key that
+ * was rotated because it leaked stops verifying.
+ */
+public final class JwtKeySource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeySource.class);
+
+    // Don't let a stream of bad tokens hammer vIDM
+    private static final long MIN_REFRESH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Supplier<String> fetcher;
+    private final ScheduledExecutorService executor;
+    private final long previousKeyGrace;
+    private final TimeUnit unit;
+    private final AtomicReference<Keys> keys;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong lastRefresh = new AtomicLong(System.currentTimeMillis());
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    private JwtKeySource(String key, Supplier<String> fetcher, ScheduledExecutorService executor,
+                         long previousKeyGrace, TimeUnit unit) {
+        this.keys = new AtomicReference<>(new Keys(key, null));
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.previousKeyGrace = previousKeyGrace;
+        this.unit = unit;
+    }
+
+    /**
+     * @param key the configured key-value
+     * @return a source that always verifies with that key
+     */
+    public static JwtKeySource of(String key) {
+        return new JwtKeySource(key, null, null, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fetches the key now, failing if it can't, and then again on a background thread
+     * every period.
+     *
+     * @param fetcher fetches the key from the key-uri
+     * @param period the time between two fetches
+     * @param previousKeyGrace how long the previous key still verifies once the key changed
+     * @param unit the unit of the period and the grace
+     * @return a source that follows the key returned by the fetcher
+     */
+    public static JwtKeySource fetching(Supplier<String> fetcher, long period, long previousKeyGrace, TimeUnit unit) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwt-key-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        JwtKeySource source = new JwtKeySource(fetcher.get(), fetcher, executor, previousKeyGrace, unit);
+        executor.scheduleWithFixedDelay(source::refresh, period, period, unit);
+        return source;
+    }
+
+    /**
+     * @return the current key's verifier first, then the previous key's, if there is one
+     */
+    public List<SignatureVerifier> getVerifiers() {
+        return keys.get().verifiers;
+    }
+
+    /**
+     * @return the current key
+     */
+    String getKey() {
+        return keys.get().key;
+    }
+
+    /**
+     * @param listener called, on the refresh thread, whenever the keys that verify change
+     */
+    public void addChangeListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Asks for the key to be fetched again soon, without waiting for it. Used when
+     * a token doesn't verify, in case the key was rotated since the last fetch.
+     */
+    public void requestRefresh() {
+        if (executor == null
+                || System.currentTimeMillis() - lastRefresh.get() < MIN_REFRESH_INTERVAL_MILLIS
+                || !refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                refresh();
+            } finally {
+                refreshPending.set(false);
+            }
+        });
+    }
+
+    void refresh() {
+        lastRefresh.set(System.currentTimeMillis());
+        String key;
+        try {
+            key = fetcher.get();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to fetch the JWT verifier key, keeping the current one", e);
+            return;
+        }
+        Keys current = keys.get();
+        if (StringUtils.isBlank(key) || key.equals(current.key)) {
+            return;
+        }
+        logger.info("The JWT verifier key changed, the previous one is still accepted for {} {}",
+                previousKeyGrace, unit);
+        Keys rotated = new Keys(key, current);
+        keys.set(rotated);
+        executor.schedule(() -> dropPreviousKey(rotated), previousKeyGrace, unit);
+        listeners.forEach(Runnable::run);
+    }
+
+    private void dropPreviousKey(Keys rotated) {
+        // Unless the key changed again since, which dropped it already
+        if (keys.compareAndSet(rotated, new Keys(rotated.key, null))) {
+            logger.info("The previous JWT verifier key is no longer accepted");
+            listeners.forEach(Runnable::run);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class Keys {
+
+        private final String key;
+        private final List<SignatureVerifier> verifiers;
+
+        Keys(String key, Keys previous) {
+            this.key = key;
+            this.verifiers = previous == null
+                    ? ImmutableList.of(verifier(key))
+                    : ImmutableList.of(verifier(key), previous.verifiers.get(0));
+        }
+
+        // The same choice as JwtAccessTokenConverter makes for its verifier key
+        private static SignatureVerifier verifier(String key) {
+            return key.startsWith("-----BEGIN") ? new RsaVerifier(key) : new MacSigner(key);
+        }
+    }
+}
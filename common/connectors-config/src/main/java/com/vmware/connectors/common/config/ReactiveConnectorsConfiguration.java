@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.config;
+
+import com.vmware.connectors.common.json.CardResponseValidator;
+import com.vmware.connectors.common.tracing.Tracer;
+import com.vmware.connectors.common.web.CardResponseValidationWebFilter;
+import com.vmware.connectors.common.web.FormParamsWebFilter;
+import com.vmware.connectors.common.web.MdcWebFilter;
+import com.vmware.connectors.common.web.ReactiveCardRequestContextArgumentResolver;
+import com.vmware.connectors.common.web.ReactiveHttpRequestArgumentResolver;
+import com.vmware.connectors.common.web.ResponseCompression;
+import com.vmware.connectors.common.web.ResponseCompressionWebFilter;
+import com.vmware.connectors.common.web.ServerTimingWebFilter;
+import com.vmware.connectors.common.web.StaticResourceEtagWebFilter;
+import com.vmware.connectors.common.web.StaticResourceEtags;
+import com.vmware.connectors.common.web.TracingWebFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.reactive.server.ConfigurableReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.reactive.config.ResourceHandlerRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.resource.GzipResourceResolver;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.vmware.connectors.common.config.ConnectorsAutoConfiguration.CARDS_REQUESTS_PATH;
+import static com.vmware.connectors.common.config.ConnectorsAutoConfiguration.STATIC_PATHS;
+
+/**
+ * The WebFlux (Reactor Netty) runtime of the connectors, used instead of the
+ * servlet one when the application is started with
+ * {@code spring.main.web-application-type=reactive}.
+ * <p>
+ * It mirrors the servlet setup in {@link ConnectorsAutoConfiguration}: the same
+ * static resources, the same JWT checks, the same MDC values for logging, the
+ * same traces and the same Server-Timing header.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableWebFluxSecurity
+public class ReactiveConnectorsConfiguration {
+
+    private static final MediaType HANDLEBARS = MediaType.parseMediaType("text/x-handlebars-template");
+
+    @Bean
+    public ConfigurableReactiveWebServerFactory reactiveWebServerFactory() {
+        // Netty rather than Tomcat, which would otherwise win as it is on the classpath too
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public WebFilter mdcWebFilter() {
+        return new MdcWebFilter();
+    }
+
+    @Bean
+    public WebFilter tracingWebFilter(Tracer tracer) {
+        return new TracingWebFilter(tracer, STATIC_PATHS);
+    }
+
+    @Bean
+    public WebFilter serverTimingWebFilter() {
+        return new ServerTimingWebFilter(STATIC_PATHS);
+    }
+
+    @Bean
+    public WebFilter formParamsWebFilter() {
+        return new FormParamsWebFilter();
+    }
+
+    @Bean
+    public WebFilter staticResourceEtagWebFilter(StaticResourceEtags staticResourceEtags) {
+        return new StaticResourceEtagWebFilter(staticResourceEtags);
+    }
+
+    @Bean
+    public WebFilter cardsCompressionWebFilter(ResponseCompression cardsCompression) {
+        return new ResponseCompressionWebFilter(CARDS_REQUESTS_PATH, cardsCompression);
+    }
+
+    @Bean
+    public WebFilter cardResponseValidationWebFilter(CardResponseValidator cardResponseValidator) {
+        return new CardResponseValidationWebFilter(CARDS_REQUESTS_PATH, cardResponseValidator);
+    }
+
+    /*
+     * WebFlux doesn't know the .hbs extension that the servlet
+     * container is told about, so set the type before the response is committed.
+     */
+    @Bean
+    public WebFilter templateContentTypeWebFilter() {
+        return (exchange, chain) -> {
+            if (exchange.getRequest().getPath().value().endsWith(".hbs")) {
+                ServerHttpResponse response = exchange.getResponse();
+                response.beforeCommit(() -> {
+                    if (response.getStatusCode() == null || response.getStatusCode().is2xxSuccessful()) {
+                        response.getHeaders().setContentType(HANDLEBARS);
+                    }
+                    return Mono.empty();
+                });
+            }
+            return chain.filter(exchange);
+        };
+    }
+
+    @Bean
+    public WebFluxConfigurer webFluxConfigurer(@Value("${static.cacheControl.maxAge:1}") long maxAge,
+                                               @Value("${static.cacheControl.unit:DAYS}") TimeUnit unit) {
+        return new WebFluxConfigurer() {
+            @Override
+            public void addResourceHandlers(ResourceHandlerRegistry registry) {
+                CacheControl cacheControl = CacheControl.maxAge(maxAge, unit);
+                for (String path : STATIC_PATHS) {
+                    // Serves the .gz copy written by the build to clients that take gzip
+                    registry.addResourceHandler(path + "**")
+                            .addResourceLocations("classpath:/static" + path)
+                            .setCacheControl(cacheControl)
+                            .resourceChain(true)
+                            .addResolver(new GzipResourceResolver());
+                }
+            }
+
+            @Override
+            public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+                configurer.addCustomResolver(new ReactiveHttpRequestArgumentResolver());
+                configurer.addCustomResolver(new ReactiveCardRequestContextArgumentResolver());
+            }
+        };
+    }
+
+    /*
+     * The same token services, and so the same checks and cache, as the servlet
+     * resource server.
+     */
+    @Bean
+    public ReactiveAuthenticationManager jwtAuthenticationManager(CachingJwtTokenServices tokenServices) {
+        return new JwtAuthenticationManager(tokenServices);
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         ReactiveAuthenticationManager authenticationManager) {
+        ServerAuthenticationEntryPoint entryPoint = (exchange, e) -> {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            return response.setComplete();
+        };
+
+        AuthenticationWebFilter jwtFilter = new AuthenticationWebFilter(authenticationManager);
+        jwtFilter.setAuthenticationConverter(JwtAuthenticationManager::extractToken);
+        jwtFilter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(entryPoint));
+        jwtFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
+        return http
+                .csrf().disable()
+                .httpBasic().disable()
+                .formLogin().disable()
+                .logout().disable()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling().authenticationEntryPoint(entryPoint)
+                .and()
+                .authorizeExchange()
+                .pathMatchers(HttpMethod.GET, "/health", "/templates/**", "/discovery/**", "/images/**", "/").permitAll()
+                .anyExchange().authenticated()
+                .and()
+                .addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
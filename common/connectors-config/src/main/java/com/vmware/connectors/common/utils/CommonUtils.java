@@ -1,7 +1,5 @@
 package com.vmware.connectors.common.utils;
 
-import com.vmware.connectors.common.payloads.response.Card;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -19,14 +17,6 @@ public final class CommonUtils {
         // Utility class.
     }
 
-    public static void buildConnectorImageUrl(final Card.Builder card, final HttpServletRequest request) {
-        final String uri = buildConnectorImageUrl(request);
-
-        if (StringUtils.isNotBlank(uri)) {
-            card.setImageUrl(uri);
-        }
-    }
-
     public static String buildConnectorImageUrl(final HttpRequest request) {
         return buildConnectorImageUrl(request, DEFAULT_IMAGE_PATH);
     }
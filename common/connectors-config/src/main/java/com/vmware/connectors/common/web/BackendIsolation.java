@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the backends of different tenants from hurting each other: each
+ * backend gets its own {@link CircuitBreaker} and its own bulkhead, a cap on
+ * the calls in progress. A backend is the base URL the request came with,
+ * like its {@code x-jira-base-url} header, so tenants sharing a SaaS host
+ * don't share a circuit. Calls outside of that base URL, or made without
+ * one, fall back to their address (scheme, host and port).
+ * <p>
+ * The base URLs come from the callers, so at most {@code maxBackends} are
+ * remembered, and the metrics aren't tagged with them:
+ * <ul>
+ *     <li>{@code connectors.backend.circuits}, tagged {@code state=half_open|open}: the backends in that state</li>
+ *     <li>{@code connectors.backend.rejected}, tagged {@code reason=circuit_open|bulkhead_full}</li>
+ * </ul>
+ */
+public class BackendIsolation {
+
+    private final Ticker ticker;
+    private final int windowSize;
+    private final double failureRateThreshold;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final Duration slowCallDuration;
+    private final int maxConcurrentCalls;
+    private final LoadingCache<String, Backend> backends;
+    private final Counter circuitOpen;
+    private final Counter bulkheadFull;
+
+    /**
+     * @param windowSize the number of calls a backend's failure rate is computed over
+     * @param failureRateThreshold the failure rate, from 0 to 1, that opens a backend's circuit
+     * @param openDuration how long an open circuit rejects calls
+     * @param halfOpenCalls the trial calls that must succeed to close a circuit again
+     * @param slowCallDuration how long a call can run before its cancellation counts as a failure
+     * @param maxConcurrentCalls the calls that may be in progress to each backend
+     * @param maxBackends the backends remembered, the least recently used are forgotten
+     */
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    public BackendIsolation(MeterRegistry registry, Ticker ticker,
+                            int windowSize, double failureRateThreshold, Duration openDuration, int halfOpenCalls,
+                            Duration slowCallDuration, int maxConcurrentCalls, long maxBackends) {
+        this.ticker = ticker;
+        this.windowSize = windowSize;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenCalls = halfOpenCalls;
+        this.slowCallDuration = slowCallDuration;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        // Idle backends are forgotten, so tenants that leave don't pile up
+        this.backends = CacheBuilder.newBuilder()
+                .maximumSize(maxBackends)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build(CacheLoader.from(this::newBackend));
+        circuitsGauge(registry, "half_open", CircuitBreaker.State.HALF_OPEN);
+        circuitsGauge(registry, "open", CircuitBreaker.State.OPEN);
+        this.circuitOpen = rejectedCounter(registry, "circuit_open");
+        this.bulkheadFull = rejectedCounter(registry, "bulkhead_full");
+    }
+
+    /**
+     * @param baseUrl the backend base URL of the request making the call, if any
+     */
+    public Backend getBackend(URI uri, Optional<String> baseUrl) {
+        return backends.getUnchecked(key(uri, baseUrl));
+    }
+
+    public Duration getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    Ticker getTicker() {
+        return ticker;
+    }
+
+    /**
+     * Forgets every backend's state.
+     */
+    public void reset() {
+        backends.invalidateAll();
+    }
+
+    /**
+     * @return the backend the call goes to: the base URL when the call is
+     * within it, the address of the call otherwise
+     */
+    static String key(URI uri, Optional<String> baseUrl) {
+        String url = uri.toString();
+        return baseUrl
+                .map(base -> StringUtils.removeEnd(base, "/"))
+                .filter(base -> !base.isEmpty() && StringUtils.startsWithIgnoreCase(url, base)
+                        && (url.length() == base.length() || "/?#".indexOf(url.charAt(base.length())) >= 0))
+                .orElseGet(() -> address(uri));
+    }
+
+    static String address(URI uri) {
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+    }
+
+    private Backend newBackend(String key) {
+        CircuitBreaker breaker = new CircuitBreaker(ticker, windowSize, failureRateThreshold, openDuration, halfOpenCalls);
+        return new Backend(key, breaker, new Semaphore(maxConcurrentCalls), circuitOpen, bulkheadFull);
+    }
+
+    private void circuitsGauge(MeterRegistry registry, String state, CircuitBreaker.State breakerState) {
+        Gauge.builder("connectors.backend.circuits", this, isolation -> isolation.backends.asMap().values().stream()
+                        .filter(backend -> backend.getBreaker().getState() == breakerState)
+                        .count())
+                .description("Backends whose circuit is in that state")
+                .tag("state", state)
+                .register(registry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("connectors.backend.rejected")
+                .description("Backend calls rejected without being made")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    public static final class Backend {
+
+        private final String key;
+        private final CircuitBreaker breaker;
+        private final Semaphore bulkhead;
+        private final Counter circuitOpen;
+        private final Counter bulkheadFull;
+
+        Backend(String key, CircuitBreaker breaker, Semaphore bulkhead, Counter circuitOpen, Counter bulkheadFull) {
+            this.key = key;
+            this.breaker = breaker;
+            this.bulkhead = bulkhead;
+            this.circuitOpen = circuitOpen;
+            this.bulkheadFull = bulkheadFull;
+        }
+
+        /**
+         * @return the base URL, or the address, of the backend
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public CircuitBreaker getBreaker() {
+            return breaker;
+        }
+
+        /**
+         * Lets a call through, or says why it can't be made. A call that was
+         * let through must be reported to the breaker, then {@link #release()}d.
+         */
+        public void acquire() {
+            if (!breaker.tryAcquirePermission()) {
+                circuitOpen.increment();
+                throw new BackendUnavailableException(key, "circuit open", breaker.getRetryAfter());
+            }
+            if (!bulkhead.tryAcquire()) {
+                breaker.onIgnored();
+                bulkheadFull.increment();
+                throw new BackendUnavailableException(key, "too many calls in progress", Duration.ZERO);
+            }
+        }
+
+        public void release() {
+            bulkhead.release();
+        }
+    }
+}
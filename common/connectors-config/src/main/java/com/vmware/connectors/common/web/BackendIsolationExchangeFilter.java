@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.utils.Reactive;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Passes each WebClient call through the circuit breaker and the bulkhead of
+ * its backend, found from the request's base URL in the reactive context,
+ * failing fast with a {@link BackendUnavailableException} when the call isn't
+ * allowed.
+ * <p>
+ * Connection errors and 5xx responses are failures. A cancelled call, like
+ * one whose caller timed out, is a failure once it has run for the slow call
+ * duration, and doesn't count otherwise. The bulkhead slot is freed when the
+ * response headers arrive.
+ */
+public class BackendIsolationExchangeFilter implements ExchangeFilterFunction {
+
+    private final BackendIsolation isolation;
+
+    public BackendIsolationExchangeFilter(BackendIsolation isolation) {
+        this.isolation = isolation;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.subscriberContext().flatMap(context -> {
+            BackendIsolation.Backend backend = isolation.getBackend(request.url(), Reactive.getBaseUrl(context));
+            backend.acquire();
+            CircuitBreaker breaker = backend.getBreaker();
+            long start = isolation.getTicker().read();
+            AtomicBoolean reported = new AtomicBoolean();
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        if (reported.compareAndSet(false, true)) {
+                            if (response.statusCode().is5xxServerError()) {
+                                breaker.onFailure();
+                            } else {
+                                breaker.onSuccess();
+                            }
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (reported.compareAndSet(false, true)) {
+                            breaker.onFailure();
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (reported.compareAndSet(false, true)) {
+                            if (isolation.getTicker().read() - start >= isolation.getSlowCallDuration().toNanos()) {
+                                breaker.onFailure();
+                            } else {
+                                breaker.onIgnored();
+                            }
+                        }
+                    })
+                    .doFinally(signal -> backend.release());
+        });
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Counts the connections opened to the backends, and the bytes sent to and
+ * received from them as they go over the wire (so compressed and encrypted).
+ * <p>
+ * It is the first handler of each WebClient connection:
+ * <ul>
+ *     <li>{@code connectors.backend.connections}: the connections opened</li>
+ *     <li>{@code connectors.backend.bytes}, tagged {@code direction=sent|received}</li>
+ * </ul>
+ */
+@ChannelHandler.Sharable
+public class BackendTrafficMetrics extends ChannelDuplexHandler {
+
+    private static final String NAME = "connectors.backend.traffic";
+
+    private final Counter connections;
+    private final Counter sent;
+    private final Counter received;
+
+    public BackendTrafficMetrics(MeterRegistry registry) {
+        this.connections = Counter.builder("connectors.backend.connections")
+                .description("Connections opened to the backends")
+                .register(registry);
+        this.sent = bytesCounter(registry, "sent");
+        this.received = bytesCounter(registry, "received");
+    }
+
+    private static Counter bytesCounter(MeterRegistry registry, String direction) {
+        return Counter.builder("connectors.backend.bytes")
+                .description("Bytes exchanged with the backends")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(registry);
+    }
+
+    /**
+     * Called once for each new connection.
+     */
+    public void install(Channel channel) {
+        connections.increment();
+        channel.pipeline().addFirst(NAME, this);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof ByteBuf) {
+            received.increment(((ByteBuf) msg).readableBytes());
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof ByteBuf) {
+            sent.increment(((ByteBuf) msg).readableBytes());
+        }
+        ctx.write(msg, promise);
+    }
+}
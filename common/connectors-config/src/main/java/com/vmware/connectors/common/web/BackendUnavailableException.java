@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import java.time.Duration;
+
+/**
+ * A backend call that wasn't made, because the backend's circuit is open or
+ * it already has as many calls in progress as it is allowed.
+ */
+public class BackendUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String backend;
+    private final transient Duration retryAfter;
+
+    public BackendUnavailableException(String backend, String reason, Duration retryAfter) {
+        super(backend + " is unavailable: " + reason);
+        this.backend = backend;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return when the backend may be tried again, zero if unknown
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
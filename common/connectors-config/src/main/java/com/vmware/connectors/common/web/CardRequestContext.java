@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.payloads.response.Link;
+import com.vmware.connectors.common.utils.CommonUtils;
+import org.springframework.http.HttpRequest;
+
+/**
+ * The parts of a card that are the same for every card of a request: the
+ * template link, which depends on the routing prefix, and the connector image
+ * link, which depends on the (possibly forwarded) host of the request.
+ * <p>
+ * Both are computed once when the context is created, and the same immutable
+ * {@link Link}s are then handed to every {@link com.vmware.connectors.common.payloads.response.Card.Builder}.
+ * Controllers get it by declaring a parameter of this type; it is resolved at
+ * most once per request.
+ */
+public final class CardRequestContext {
+
+    public static final String ROUTING_PREFIX_HEADER = "x-routing-prefix";
+
+    static final String GENERIC_TEMPLATE = "templates/generic.hbs";
+
+    private final String routingPrefix;
+    private final Link genericTemplate;
+    private final Link image;
+
+    private CardRequestContext(String routingPrefix, Link genericTemplate, Link image) {
+        this.routingPrefix = routingPrefix;
+        this.genericTemplate = genericTemplate;
+        this.image = image;
+    }
+
+    /**
+     * Computes the context of a request. X-Forwarded-* and Forwarded headers
+     * are taken into account when building the image link.
+     *
+     * @param request the incoming request
+     * @return the context of the request
+     */
+    public static CardRequestContext of(HttpRequest request) {
+        String routingPrefix = request.getHeaders().getFirst(ROUTING_PREFIX_HEADER);
+        return new CardRequestContext(
+                routingPrefix,
+                routingPrefix == null ? null : new Link(routingPrefix + GENERIC_TEMPLATE),
+                new Link(CommonUtils.buildConnectorImageUrl(request))
+        );
+    }
+
+    public String getRoutingPrefix() {
+        return routingPrefix;
+    }
+
+    /**
+     * @return the link to the generic card template, or null if the request has no routing prefix
+     */
+    public Link getGenericTemplate() {
+        return genericTemplate;
+    }
+
+    /**
+     * @return the link to the connector image
+     */
+    public Link getImage() {
+        return image;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Lets Spring MVC handler methods take a {@link CardRequestContext} parameter.
+ * The context is kept in a request attribute, so it is computed once per request.
+ *
+ * @see ReactiveCardRequestContextArgumentResolver
+ */
+public class CardRequestContextArgumentResolver implements HandlerMethodArgumentResolver {
+
+    static final String ATTRIBUTE = CardRequestContext.class.getName();
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return CardRequestContext.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object context = webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (context == null) {
+            context = CardRequestContext.of(
+                    new ServletServerHttpRequest(webRequest.getNativeRequest(HttpServletRequest.class)));
+            webRequest.setAttribute(ATTRIBUTE, context, RequestAttributes.SCOPE_REQUEST);
+        }
+        return context;
+    }
+}
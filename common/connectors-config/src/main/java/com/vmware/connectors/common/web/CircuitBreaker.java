@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.base.Ticker;
+
+import java.time.Duration;
+
+/**
+ * The circuit breaker of one backend.
+ * <p>
+ * It is closed while the backend answers: the outcomes of the last calls are
+ * kept in a window, and it opens once the window is full and the failure rate
+ * reaches the threshold. Open, it rejects every call until the open duration
+ * has passed. It then lets a few trial calls through, half-open: it closes if
+ * they all succeed, and opens again as soon as one fails.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final Ticker ticker;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final boolean[] window;
+    private int windowSize;
+    private int windowFailures;
+    private int windowIndex;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    /**
+     * @param windowSize the number of calls the failure rate is computed over
+     * @param failureRateThreshold the failure rate, from 0 to 1, that opens the circuit
+     * @param openDuration how long the circuit stays open
+     * @param halfOpenCalls the trial calls that must succeed to close it again
+     */
+    public CircuitBreaker(Ticker ticker, int windowSize, double failureRateThreshold, Duration openDuration, int halfOpenCalls) {
+        this.ticker = ticker;
+        this.window = new boolean[windowSize];
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * Asks for a call to be let through. A call that was let through must be
+     * followed by one of {@link #onSuccess()}, {@link #onFailure()} or
+     * {@link #onIgnored()}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (ticker.read() - openUntil < 0) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= halfOpenCalls) {
+                return false;
+            }
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            trialsSucceeded++;
+            if (trialsSucceeded >= halfOpenCalls) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+        }
+    }
+
+    /**
+     * For a call that ended without telling whether the backend is healthy,
+     * like a cancelled one.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && trialsStarted > 0) {
+            trialsStarted--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return how long until an open circuit lets trial calls through
+     */
+    public synchronized Duration getRetryAfter() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openUntil - ticker.read()));
+    }
+
+    private void record(boolean failure) {
+        if (windowSize == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowSize++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+        if (windowSize == window.length && windowFailures >= failureRateThreshold * windowSize) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = ticker.read() + openNanos;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowSize = 0;
+        windowFailures = 0;
+        windowIndex = 0;
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.tracing.Span;
+import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.utils.ServerTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunctions;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares one backend call between identical GETs in progress at the same
+ * time, like the card requests of several devices opening the same email.
+ * GETs are identical when they have the same URL, headers (including the
+ * credentials) and cookies.
+ * <p>
+ * Whether the call is shared is settled when its response arrives. A call
+ * that no one joined by then hands its response, unread, to its only caller,
+ * who streams it as usual. Otherwise the body is read once, each buffer
+ * copied and released as it comes, and each caller gets its own response
+ * over the copy. A body over the maximum size isn't shared: when its
+ * Content-Length says so, the caller that started the call gets it unread,
+ * and the others make their own call. When it only shows while reading, what
+ * was read is dropped, and every caller makes its own call. The call is
+ * cancelled once all its callers cancelled, and a response that no caller is
+ * left to take is released.
+ * <p>
+ * The call is made in the context of the caller that started it, through the
+ * filters after this one. A caller that joined it gets its own Server-Timing
+ * backend call and client span, marked as coalesced, from this filter, but
+ * holds no permit of the backend's isolation, since it makes no call.
+ * <p>
+ * Metrics:
+ * <ul>
+ *     <li>{@code connectors.backend.coalesced}, the calls that were shared rather than made</li>
+ * </ul>
+ */
+public class CoalescingExchangeFilter implements ExchangeFilterFunction {
+
+    private final ExchangeStrategies strategies;
+    private final long maxBodySize;
+    private final Counter coalesced;
+    private final Map<String, Call> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param strategies the codecs of the WebClient, to read the shared responses with
+     * @param maxBodySize the largest body, in bytes, that is shared
+     */
+    public CoalescingExchangeFilter(ExchangeStrategies strategies, long maxBodySize, MeterRegistry registry) {
+        this.strategies = strategies;
+        this.maxBodySize = maxBodySize;
+        this.coalesced = Counter.builder("connectors.backend.coalesced")
+                .description("Backend calls shared with an identical call in progress")
+                .register(registry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET) {
+            return next.exchange(request);
+        }
+        return Mono.subscriberContext().flatMap(context -> {
+            String key = request.url() + " " + request.headers() + " " + request.cookies();
+            Call existing = inFlight.get(key);
+            if (existing != null && existing.join()) {
+                return joined(request, next, existing, context);
+            }
+            Call call = new Call();
+            // Made in the context of the caller that started it
+            Mono<Outcome> exchange = next.exchange(request)
+                    .flatMap(response -> call.settle(response, maxBodySize)
+                            ? read(response)
+                            : Mono.just(new Outcome(response)))
+                    .doFinally(signal -> inFlight.remove(key, call))
+                    .subscriberContext(context);
+            // When another identical call got in first, this one just isn't joinable
+            if (existing == null) {
+                inFlight.putIfAbsent(key, call);
+            } else {
+                inFlight.replace(key, existing, call);
+            }
+            return call.start(exchange)
+                    .flatMap(outcome -> outcome.unshared != null
+                            ? Mono.just(outcome.unshared)
+                            : toResponse(request, outcome.shared))
+                    .onErrorResume(TooLargeToShare.class, e -> next.exchange(request));
+        });
+    }
+
+    /*
+     * The call doesn't go through the filters after this one for a caller
+     * that joined it, so its timing and span are recorded here.
+     */
+    private Mono<ClientResponse> joined(ClientRequest request, ExchangeFunction next, Call call, Context context) {
+        ServerTiming serverTiming = Reactive.getServerTiming(context);
+        Span span = Reactive.getSpan(context)
+                .map(parent -> parent.startChild(request.method() + " " + request.url().getHost(), Span.Kind.CLIENT)
+                        .setAttribute("http.method", request.method())
+                        .setAttribute("coalesced", true))
+                .orElse(null);
+        long start = System.nanoTime();
+        return call.await()
+                .flatMap(outcome -> {
+                    if (outcome.shared == null) {
+                        // The response went unread to the caller that started the call
+                        return next.exchange(request);
+                    }
+                    coalesced.increment();
+                    serverTiming.recordBackendCall(System.nanoTime() - start);
+                    if (span != null) {
+                        span.setAttribute("http.status_code", outcome.shared.status.value());
+                    }
+                    return toResponse(request, outcome.shared);
+                })
+                .onErrorResume(TooLargeToShare.class, e -> next.exchange(request))
+                .doFinally(signal -> {
+                    if (span != null) {
+                        span.end();
+                    }
+                });
+    }
+
+    private Mono<ClientResponse> toResponse(ClientRequest request, BufferedResponse response) {
+        return ExchangeFunctions.create((method, uri, requestCallback) -> Mono.just(response.copy()), strategies)
+                .exchange(request);
+    }
+
+    private Mono<Outcome> read(ClientResponse response) {
+        // Each buffer is copied and released as it comes, so none is left behind by an error or a cancel
+        return response.body(BodyExtractors.toDataBuffers())
+                .reduceWith(Chunks::new, (chunks, buffer) -> {
+                    try {
+                        return chunks.add(buffer, maxBodySize);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .map(chunks -> new Outcome(new BufferedResponse(response.statusCode(),
+                        response.headers().asHttpHeaders(), response.cookies(), chunks.list)));
+    }
+
+    private static final class Chunks {
+
+        private final List<byte[]> list = new ArrayList<>();
+        private long size;
+
+        Chunks add(DataBuffer buffer, long maxSize) {
+            size += buffer.readableByteCount();
+            if (size > maxSize) {
+                throw new TooLargeToShare();
+            }
+            byte[] chunk = new byte[buffer.readableByteCount()];
+            buffer.read(chunk);
+            list.add(chunk);
+            return this;
+        }
+    }
+
+    /*
+     * A backend call in progress, that identical calls may join until its
+     * response arrives. It is made once, and cancelled when all its callers
+     * have cancelled.
+     */
+    private static final class Call {
+
+        private final List<Caller> waiting = new ArrayList<>();
+        private Disposable upstream;
+        private int callers = 1;
+        private boolean starterLeft;
+        private boolean settled;
+        private boolean shared;
+        private boolean done;
+        private Outcome outcome;
+        private Throwable error;
+
+        synchronized boolean join() {
+            if (callers == 0 || settled && !shared) {
+                return false;
+            }
+            callers++;
+            return true;
+        }
+
+        /*
+         * @return whether the response is shared, which it is if anyone
+         * joined or the caller that started the call is gone, unless it is
+         * known to be too large
+         */
+        synchronized boolean settle(ClientResponse response, long maxBodySize) {
+            settled = true;
+            shared = (callers > 1 || starterLeft)
+                    && response.headers().contentLength().orElse(0L) <= maxBodySize;
+            return shared;
+        }
+
+        /*
+         * The outcome for the caller that started the call, which makes it.
+         */
+        Mono<Outcome> start(Mono<Outcome> exchange) {
+            return Mono.create(sink -> {
+                Caller caller = new Caller(sink, true);
+                synchronized (this) {
+                    waiting.add(caller);
+                }
+                sink.onCancel(() -> leave(caller));
+                Disposable subscription = exchange.subscribe(this::complete, this::fail, () -> complete(null));
+                boolean abandoned;
+                synchronized (this) {
+                    abandoned = callers == 0;
+                    upstream = subscription;
+                }
+                if (abandoned) {
+                    subscription.dispose();
+                }
+            });
+        }
+
+        /*
+         * The outcome for a caller that joined the call.
+         */
+        Mono<Outcome> await() {
+            return Mono.create(sink -> {
+                Caller caller = new Caller(sink, false);
+                boolean ready;
+                synchronized (this) {
+                    ready = done;
+                    if (!ready) {
+                        waiting.add(caller);
+                    }
+                }
+                if (ready) {
+                    deliver(caller);
+                } else {
+                    sink.onCancel(() -> leave(caller));
+                }
+            });
+        }
+
+        private void leave(Caller caller) {
+            Disposable cancelled = null;
+            ClientResponse unclaimed = null;
+            synchronized (this) {
+                if (!waiting.remove(caller) && !caller.handed) {
+                    return;
+                }
+                callers--;
+                if (caller.starter) {
+                    starterLeft = true;
+                    if (caller.handed) {
+                        // Handed the response just as it cancelled
+                        unclaimed = outcome.unshared;
+                    }
+                }
+                if (callers == 0 && !done) {
+                    cancelled = upstream;
+                }
+            }
+            if (cancelled != null) {
+                cancelled.dispose();
+            }
+            if (unclaimed != null) {
+                release(unclaimed);
+            }
+        }
+
+        private void complete(Outcome outcome) {
+            List<Caller> waiters;
+            boolean unclaimed;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                this.outcome = outcome;
+                waiters = new ArrayList<>(waiting);
+                waiting.clear();
+                unclaimed = outcome != null && outcome.unshared != null && starterLeft;
+                if (outcome != null && outcome.unshared != null) {
+                    waiters.forEach(caller -> caller.handed = caller.starter);
+                }
+            }
+            if (unclaimed) {
+                release(outcome.unshared);
+            }
+            waiters.forEach(this::deliver);
+        }
+
+        private void fail(Throwable error) {
+            List<Caller> waiters;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                this.error = error;
+                waiters = new ArrayList<>(waiting);
+                waiting.clear();
+            }
+            waiters.forEach(this::deliver);
+        }
+
+        private void deliver(Caller caller) {
+            if (error != null) {
+                caller.sink.error(error);
+            } else if (outcome == null) {
+                caller.sink.success();
+            } else {
+                caller.sink.success(outcome);
+            }
+        }
+
+        private static void release(ClientResponse response) {
+            response.body(BodyExtractors.toDataBuffers())
+                    .subscribe(DataBufferUtils::release, e -> { });
+        }
+    }
+
+    private static final class Caller {
+
+        private final MonoSink<Outcome> sink;
+        private final boolean starter;
+        private boolean handed;
+
+        Caller(MonoSink<Outcome> sink, boolean starter) {
+            this.sink = sink;
+            this.starter = starter;
+        }
+    }
+
+    private static final class Outcome {
+
+        private final ClientResponse unshared;
+        private final BufferedResponse shared;
+
+        Outcome(ClientResponse unshared) {
+            this.unshared = unshared;
+            this.shared = null;
+        }
+
+        Outcome(BufferedResponse shared) {
+            this.unshared = null;
+            this.shared = shared;
+        }
+    }
+
+    private static final class TooLargeToShare extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        TooLargeToShare() {
+            super("Response too large to share", null, false, false);
+        }
+    }
+
+    /*
+     * A backend response read whole, that hands a response of its own to each
+     * of its callers.
+     */
+    private static final class BufferedResponse {
+
+        private final HttpStatus status;
+        private final HttpHeaders headers;
+        private final MultiValueMap<String, ResponseCookie> cookies;
+        private final List<byte[]> chunks;
+
+        BufferedResponse(HttpStatus status, HttpHeaders headers,
+                         MultiValueMap<String, ResponseCookie> cookies, List<byte[]> chunks) {
+            this.status = status;
+            HttpHeaders copy = new HttpHeaders();
+            copy.putAll(headers);
+            this.headers = HttpHeaders.readOnlyHttpHeaders(copy);
+            this.cookies = new LinkedMultiValueMap<>(cookies);
+            this.chunks = chunks;
+        }
+
+        ClientHttpResponse copy() {
+            return new ClientHttpResponse() {
+                @Override
+                public HttpStatus getStatusCode() {
+                    return status;
+                }
+
+                @Override
+                public MultiValueMap<String, ResponseCookie> getCookies() {
+                    return cookies;
+                }
+
+                @Override
+                public HttpHeaders getHeaders() {
+                    return headers;
+                }
+
+                @Override
+                public Flux<DataBuffer> getBody() {
+                    // Heap buffers over the shared chunks, which need no release
+                    DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+                    return Flux.fromIterable(chunks).map(bufferFactory::wrap);
+                }
+            };
+        }
+    }
+}
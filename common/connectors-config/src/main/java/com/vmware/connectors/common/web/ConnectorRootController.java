@@ -16,13 +16,10 @@ import org.springframework.hateoas.ResourceSupport;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.servlet.http.HttpServletRequest;
-
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -44,9 +41,12 @@ public class ConnectorRootController {
         this.unit = unit;
     }
 
+    /*
+     * The request is a ServletServerHttpRequest or a ServerHttpRequest,
+     * depending on which stack the connector runs on.
+     */
     @GetMapping(path = "/", produces = MediaTypes.HAL_JSON_VALUE)
-    public ResponseEntity<ResourceSupport> getRoot(HttpServletRequest servletRequest) {
-        HttpRequest request = new ServletServerHttpRequest(servletRequest);
+    public ResponseEntity<ResourceSupport> getRoot(HttpRequest request) {
         ResourceSupport resource = new ResourceSupport();
 
         addMetadata(resource, request);
@@ -7,18 +7,22 @@ package com.vmware.connectors.common.web;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.ResponseEntity.BodyBuilder;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.springframework.http.HttpStatus.*;
@@ -39,7 +43,19 @@ public class ExceptionHandlers {
     @ResponseStatus(BAD_REQUEST)
     @ResponseBody
     public Map<String, Map<String, String>> handleValidationException(MethodArgumentNotValidException e) {
-        Map<String, String> errorMap = e.getBindingResult().getFieldErrors().stream()
+        return toErrors(e.getBindingResult());
+    }
+
+    // The WebFlux flavor of the validation exception
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(BAD_REQUEST)
+    @ResponseBody
+    public Map<String, Map<String, String>> handleValidationException(WebExchangeBindException e) {
+        return toErrors(e.getBindingResult());
+    }
+
+    private static Map<String, Map<String, String>> toErrors(BindingResult bindingResult) {
+        Map<String, String> errorMap = bindingResult.getFieldErrors().stream()
                 .collect(Collectors.toMap(FieldError::getField, FieldError::getDefaultMessage));
         return Collections.singletonMap("errors", errorMap);
     }
@@ -66,4 +82,18 @@ public class ExceptionHandlers {
             return builder.body(e.getResponseBodyAsString());
         }
     }
+
+    // The call was never made, so there is no backend status to pass on
+    @ExceptionHandler
+    @ResponseBody
+    public ResponseEntity<Object> handleBackendUnavailable(BackendUnavailableException e) {
+        logger.warn(e.getMessage());
+        BodyBuilder builder = ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .contentType(APPLICATION_JSON);
+        if (!e.getRetryAfter().isZero()) {
+            long seconds = TimeUnit.MILLISECONDS.toSeconds(e.getRetryAfter().toMillis() + 999);
+            builder.header(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        }
+        return builder.body(Collections.singletonMap("error", "backend_unavailable"));
+    }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * On the servlet stack, fields of a url-encoded form body are request parameters,
+ * and the connectors' action endpoints read them with {@code @RequestParam}.
+ * WebFlux only binds query parameters that way, so this filter copies the form
+ * fields into the query of the request the handlers see.
+ */
+public class FormParamsWebFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!MediaType.APPLICATION_FORM_URLENCODED.isCompatibleWith(request.getHeaders().getContentType())) {
+            return chain.filter(exchange);
+        }
+        // The form data is cached by the exchange, so it can still be read from there later
+        return exchange.getFormData()
+                .flatMap(formData -> {
+                    if (formData.isEmpty()) {
+                        return chain.filter(exchange);
+                    }
+                    ServerHttpRequest withParams = request.mutate()
+                            .uri(withQueryParams(request.getURI(), formData))
+                            .build();
+                    return chain.filter(exchange.mutate().request(withParams).build());
+                });
+    }
+
+    private static URI withQueryParams(URI uri, MultiValueMap<String, String> formData) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUri(uri);
+        formData.forEach((name, values) -> values.forEach(value ->
+                builder.queryParam(UriUtils.encodeQueryParam(name, UTF_8),
+                        value == null ? null : UriUtils.encodeQueryParam(value, UTF_8))));
+        return builder.build(true).toUri();
+    }
+}
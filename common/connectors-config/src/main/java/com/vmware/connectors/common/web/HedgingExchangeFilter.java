@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hedges the slow GET and HEAD calls, as decided by a {@link HedgingPolicy}:
+ * the call is sent a second time, and whichever response comes first is
+ * used. The other call is cancelled, or its response released if it came too.
+ * Both calls, even the cancelled one, add their latency to the policy.
+ * <p>
+ * Only GET and HEAD are hedged, as they are safe to send twice.
+ */
+public class HedgingExchangeFilter implements ExchangeFilterFunction {
+
+    private final HedgingPolicy policy;
+
+    public HedgingExchangeFilter(HedgingPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET && request.method() != HttpMethod.HEAD) {
+            return next.exchange(request);
+        }
+        return Mono.defer(() -> {
+            Optional<Duration> hedgeDelay = policy.getHedgeDelay(request.url());
+            Mono<ClientResponse> primary = timed(request, next);
+            if (!hedgeDelay.isPresent()) {
+                return primary;
+            }
+            Mono<ClientResponse> hedge = Mono.delay(hedgeDelay.get())
+                    .flatMap(tick -> policy.tryHedge() ? timed(request, next) : Mono.<ClientResponse>never());
+            AtomicBoolean answered = new AtomicBoolean();
+            return Flux.merge(primary.map(response -> new Attempt(response, false)),
+                    hedge.map(response -> new Attempt(response, true)))
+                    .filter(attempt -> {
+                        if (answered.compareAndSet(false, true)) {
+                            return true;
+                        }
+                        // Both answered before the slower one was cancelled
+                        attempt.response.bodyToMono(Void.class).subscribe();
+                        return false;
+                    })
+                    .next()
+                    .map(attempt -> {
+                        if (attempt.hedge) {
+                            policy.recordHedgeWon();
+                        }
+                        return attempt.response;
+                    });
+        });
+    }
+
+    /*
+     * A cancelled call, like the slower of a hedged pair, is recorded at the
+     * time it ran for, so the slowest calls aren't left out of the latencies.
+     */
+    private Mono<ClientResponse> timed(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            policy.recordLatency(request.url(), System.nanoTime() - start);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            policy.recordLatency(request.url(), System.nanoTime() - start);
+                        }
+                    });
+        });
+    }
+
+    private static final class Attempt {
+
+        private final ClientResponse response;
+        private final boolean hedge;
+
+        Attempt(ClientResponse response, boolean hedge) {
+            this.response = response;
+            this.hedge = hedge;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a backend call is worth hedging, that is sending it again
+ * while the first one is still in progress.
+ * <p>
+ * A call is hedged once it has taken longer than the given percentile of its
+ * backend's recent latencies, so only the slowest calls are. No call is
+ * hedged before enough latencies are known. Hedges also draw on a budget
+ * shared by all the backends: each call adds a fraction of a hedge to it, so
+ * the hedges never exceed that fraction of the calls, plus a small burst.
+ * <p>
+ * Metrics:
+ * <ul>
+ *     <li>{@code connectors.backend.hedges}, tagged {@code outcome=sent|won|over_budget}</li>
+ * </ul>
+ */
+public class HedgingPolicy {
+
+    private static final int SAMPLES = 100;
+    private static final int MIN_SAMPLES = 20;
+    // The budget counts millionths of a hedge, so it can be updated without a lock
+    private static final long HEDGE = 1_000_000;
+    private static final long MAX_BUDGET = 10 * HEDGE;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long budgetRatio;
+    private final LoadingCache<String, Latencies> latencies;
+
+    private final Counter sent;
+    private final Counter won;
+    private final Counter overBudget;
+
+    private final AtomicLong budget = new AtomicLong();
+
+    /**
+     * @param percentile the percentile of the backend's latencies after which a call is hedged, like 95
+     * @param minDelay the shortest a call waits before being hedged
+     * @param budgetRatio the share of the calls that may be hedged, like 0.05
+     */
+    public HedgingPolicy(MeterRegistry registry, double percentile, Duration minDelay, double budgetRatio) {
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.budgetRatio = Math.round(budgetRatio * HEDGE);
+        this.latencies = CacheBuilder.newBuilder()
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build(CacheLoader.from(address -> new Latencies()));
+        this.sent = hedgesCounter(registry, "sent");
+        this.won = hedgesCounter(registry, "won");
+        this.overBudget = hedgesCounter(registry, "over_budget");
+    }
+
+    private static Counter hedgesCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("connectors.backend.hedges")
+                .description("Backend calls sent again while the first call was slow")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * @return how long a call to this backend waits before being hedged, or
+     * empty when too little is known about the backend
+     */
+    public Optional<Duration> getHedgeDelay(URI uri) {
+        budget.accumulateAndGet(budgetRatio, (current, ratio) -> Math.min(MAX_BUDGET, current + ratio));
+        long delay = latencies.getUnchecked(BackendIsolation.address(uri)).getPercentile(percentile);
+        if (delay < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(Math.max(minDelayNanos, delay)));
+    }
+
+    /**
+     * Takes a hedge from the budget.
+     */
+    public boolean tryHedge() {
+        long current = budget.get();
+        while (current >= HEDGE) {
+            if (budget.compareAndSet(current, current - HEDGE)) {
+                sent.increment();
+                return true;
+            }
+            current = budget.get();
+        }
+        overBudget.increment();
+        return false;
+    }
+
+    /**
+     * @param nanos how long the call took, or ran for before it was cancelled
+     */
+    public void recordLatency(URI uri, long nanos) {
+        latencies.getUnchecked(BackendIsolation.address(uri)).add(nanos);
+    }
+
+    public void recordHedgeWon() {
+        won.increment();
+    }
+
+    /*
+     * The last latencies of a backend, with the percentile worked out again
+     * every few calls rather than on each one.
+     */
+    private static final class Latencies {
+
+        private final long[] samples = new long[SAMPLES];
+        private int count;
+        private int index;
+        private long cachedPercentile = -1;
+        private int sinceComputed;
+
+        synchronized void add(long nanos) {
+            samples[index] = nanos;
+            index = (index + 1) % SAMPLES;
+            count = Math.min(SAMPLES, count + 1);
+            sinceComputed++;
+        }
+
+        synchronized long getPercentile(double percentile) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            if (cachedPercentile < 0 || sinceComputed >= MIN_SAMPLES) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                int rank = (int) Math.ceil(percentile / 100 * count) - 1;
+                cachedPercentile = sorted[Math.max(0, Math.min(count - 1, rank))];
+                sinceComputed = 0;
+            }
+            return cachedPercentile;
+        }
+    }
+}
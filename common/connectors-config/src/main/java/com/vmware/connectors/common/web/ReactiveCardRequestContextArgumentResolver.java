@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Lets WebFlux handler methods take a {@link CardRequestContext} parameter.
+ * The context is kept in the exchange attributes, so it is computed once per request.
+ *
+ * @see CardRequestContextArgumentResolver
+ */
+public class ReactiveCardRequestContextArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return CardRequestContext.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Mono<Object> resolveArgument(MethodParameter parameter, BindingContext bindingContext,
+                                        ServerWebExchange exchange) {
+        return Mono.just(exchange.getAttributes().computeIfAbsent(
+                CardRequestContextArgumentResolver.ATTRIBUTE,
+                key -> CardRequestContext.of(exchange.getRequest())));
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.utils.ServerTiming;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Adds each WebClient call to the {@link ServerTiming} of the request that
+ * made it, timed from the exchange until the response headers, an error or
+ * a cancellation. The time spent reading the body is part of the decoding.
+ */
+public class ServerTimingExchangeFilter implements ExchangeFilterFunction {
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.subscriberContext()
+                .flatMap(context -> {
+                    ServerTiming serverTiming = Reactive.getServerTiming(context);
+                    long start = System.nanoTime();
+                    return next.exchange(request)
+                            .doFinally(signal -> serverTiming.recordBackendCall(System.nanoTime() - start));
+                });
+    }
+}
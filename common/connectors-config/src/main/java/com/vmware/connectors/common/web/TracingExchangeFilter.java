@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.tracing.Span;
+import com.vmware.connectors.common.tracing.TraceContext;
+import com.vmware.connectors.common.utils.Reactive;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Traces each WebClient call in a client span, a child of the span of the
+ * request that made it, and sends the W3C trace-context headers to the
+ * backend so its own spans join the trace.
+ * <p>
+ * Calls made outside of a traced request are left alone.
+ */
+public class TracingExchangeFilter implements ExchangeFilterFunction {
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.subscriberContext()
+                .flatMap(context -> {
+                    Optional<Span> parent = Reactive.getSpan(context);
+                    if (!parent.isPresent()) {
+                        return next.exchange(request);
+                    }
+                    Span span = parent.get().startChild(request.method() + " " + request.url().getHost(), Span.Kind.CLIENT)
+                            .setAttribute("http.method", request.method())
+                            // Without the query, which may carry ids or tokens
+                            .setAttribute("http.url", UriComponentsBuilder.fromUri(request.url())
+                                    .replaceQuery(null).fragment(null).build().toUriString());
+                    return next.exchange(propagate(request, span.getContext()))
+                            .doOnNext(response -> {
+                                span.setAttribute("http.status_code", response.statusCode().value());
+                                if (response.statusCode().is5xxServerError()) {
+                                    span.setError();
+                                }
+                            })
+                            .doOnError(span::setError)
+                            .doFinally(signal -> span.end());
+                });
+    }
+
+    private static ClientRequest propagate(ClientRequest request, TraceContext traceContext) {
+        return ClientRequest.from(request)
+                .headers(headers -> {
+                    headers.set(TraceContext.TRACEPARENT, traceContext.toTraceparent());
+                    if (traceContext.getTraceState() == null) {
+                        headers.remove(TraceContext.TRACESTATE);
+                    } else {
+                        headers.set(TraceContext.TRACESTATE, traceContext.getTraceState());
+                    }
+                })
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConnectorCacheTest {
+
+    private static final Principal JDOE = () -> "jdoe";
+    private static final Principal ASMITH = () -> "asmith";
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final InMemorySharedCacheTier shared = new InMemorySharedCacheTier();
+
+    @Test
+    void loadsOncePerPrincipalAndKey() {
+        ConnectorCache cache = new ConnectorCache(100, 5, TimeUnit.MINUTES, null);
+
+        assertThat(cache.get(JDOE, "sysId", () -> load("jdoe-id")).block(), is("jdoe-id"));
+        assertThat(cache.get(JDOE, "sysId", () -> load("other")).block(), is("jdoe-id"));
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    void neverSharesEntriesBetweenPrincipals() {
+        ConnectorCache cache = new ConnectorCache(100, 5, TimeUnit.MINUTES, shared);
+
+        cache.get(JDOE, "sysId", () -> load("jdoe-id")).block();
+
+        assertThat(cache.get(ASMITH, "sysId", () -> load("asmith-id")).block(), is("asmith-id"));
+        assertThat(cache.get(JDOE, "sysId", () -> load("other")).block(), is("jdoe-id"));
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    void nodesShareEntriesThroughSharedTier() {
+        ConnectorCache firstNode = new ConnectorCache(100, 5, TimeUnit.MINUTES, shared);
+        ConnectorCache secondNode = new ConnectorCache(100, 5, TimeUnit.MINUTES, shared);
+
+        firstNode.get(JDOE, "myself", () -> load("jdoe")).block();
+
+        assertThat(secondNode.get(JDOE, "myself", () -> load("other")).block(), is("jdoe"));
+        assertThat(loads.get(), is(1));
+        assertThat(shared.size(), is(1));
+
+        secondNode.evict(JDOE, "myself").block();
+        assertThat(shared.size(), is(0));
+    }
+
+    @Test
+    void putIsSeenByGet() {
+        ConnectorCache cache = new ConnectorCache(100, 5, TimeUnit.MINUTES, shared);
+
+        cache.put(JDOE, "workflowUrl", "https://concur/workflow/1").block();
+
+        assertThat(cache.get(JDOE, "workflowUrl", () -> load("other")).block(), is("https://concur/workflow/1"));
+        assertThat(loads.get(), is(0));
+    }
+
+    @Test
+    void cachesNothingWithoutPrincipalOrTtl() {
+        ConnectorCache cache = new ConnectorCache(100, 5, TimeUnit.MINUTES, shared);
+        ConnectorCache disabled = new ConnectorCache(100, 0, TimeUnit.MINUTES, shared);
+
+        cache.get(null, "sysId", () -> load("a")).block();
+        cache.get(() -> "", "sysId", () -> load("b")).block();
+        disabled.get(JDOE, "sysId", () -> load("c")).block();
+        disabled.get(JDOE, "sysId", () -> load("d")).block();
+
+        assertThat(loads.get(), is(4));
+        assertThat(shared.size(), is(0));
+    }
+
+    @Test
+    void carriesOnWhenSharedTierFails() {
+        SharedCacheTier broken = new SharedCacheTier() {
+            @Override
+            public Mono<String> get(String key) {
+                return Mono.error(new IllegalStateException("down"));
+            }
+
+            @Override
+            public Mono<Void> put(String key, String value, Duration ttl) {
+                return Mono.error(new IllegalStateException("down"));
+            }
+
+            @Override
+            public Mono<Void> evict(String key) {
+                return Mono.error(new IllegalStateException("down"));
+            }
+        };
+        ConnectorCache cache = new ConnectorCache(100, 5, TimeUnit.MINUTES, broken);
+
+        assertThat(cache.get(JDOE, "sysId", () -> load("jdoe-id")).block(), is("jdoe-id"));
+        assertThat(cache.get(JDOE, "sysId", () -> load("other")).block(), is("jdoe-id"));
+        cache.evict(JDOE, "sysId").block();
+        assertThat(loads.get(), is(1));
+    }
+
+    private Mono<String> load(String value) {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return value;
+        });
+    }
+}
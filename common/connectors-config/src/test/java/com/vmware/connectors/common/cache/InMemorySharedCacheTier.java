@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-process stand-in for a shared cache, for tests: give the same instance
+ * to several {@link ConnectorCache}s and they behave like the nodes of one
+ * connector.
+ */
+public class InMemorySharedCacheTier implements SharedCacheTier {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Clock clock;
+
+    public InMemorySharedCacheTier() {
+        this(Clock.systemUTC());
+    }
+
+    public InMemorySharedCacheTier(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Mono<String> get(String key) {
+        return Mono.fromSupplier(() -> {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt.isAfter(clock.instant())) {
+                return entry.value;
+            }
+            entries.remove(key, entry);
+            return null;
+        });
+    }
+
+    @Override
+    public Mono<Void> put(String key, String value, Duration ttl) {
+        return Mono.fromRunnable(() -> entries.put(key, new Entry(value, clock.instant().plus(ttl))));
+    }
+
+    @Override
+    public Mono<Void> evict(String key) {
+        return Mono.fromRunnable(() -> entries.remove(key));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final String value;
+        private final Instant expiresAt;
+
+        Entry(String value, Instant expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.config;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import static io.jsonwebtoken.SignatureAlgorithm.RS256;
+import static java.time.temporal.ChronoUnit.HOURS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CachingJwtTokenServicesTest {
+
+    private static KeyPair first;
+    private static KeyPair second;
+    private static KeyPair third;
+
+    private final Deque<String> keys = new ArrayDeque<>();
+
+    private JwtKeySource keySource;
+
+    @BeforeAll
+    static void generateKeys() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        first = generator.generateKeyPair();
+        second = generator.generateKeyPair();
+        third = generator.generateKeyPair();
+    }
+
+    @AfterEach
+    void close() {
+        if (keySource != null) {
+            keySource.close();
+        }
+    }
+
+    @Test
+    void remapsPrincipal() {
+        CachingJwtTokenServices tokenServices = tokenServices(first);
+
+        OAuth2Authentication authentication = tokenServices.loadAuthentication(token(first, Instant.now().plus(1, HOURS)));
+
+        assertThat(authentication.getName(), is("fred@acme"));
+        assertThat(authentication.isAuthenticated(), is(true));
+    }
+
+    @Test
+    void acceptsPreviousKeyAfterRotation() {
+        CachingJwtTokenServices tokenServices = tokenServices(first, second);
+        String oldToken = token(first, Instant.now().plus(1, HOURS));
+
+        keySource.refresh();
+
+        assertThat(tokenServices.loadAuthentication(oldToken).getName(), is("fred@acme"));
+        assertThat(tokenServices.loadAuthentication(token(second, Instant.now().plus(1, HOURS))).getName(), is("fred@acme"));
+    }
+
+    @Test
+    void reusesCachedTokens() {
+        CachingJwtTokenServices tokenServices = tokenServices(first);
+        String cachedToken = token(first, Instant.now().plus(1, HOURS));
+        OAuth2Authentication authentication = tokenServices.loadAuthentication(cachedToken);
+
+        OAuth2Authentication cached = tokenServices.loadAuthentication(cachedToken);
+
+        assertThat(cached.getName(), is("fred@acme"));
+        assertThat(cached, not(sameInstance(authentication)));
+    }
+
+    @Test
+    void verifiesCachedTokensAgainAfterRotation() {
+        CachingJwtTokenServices tokenServices = tokenServices(first, second, third);
+        String cachedToken = token(first, Instant.now().plus(1, HOURS));
+        tokenServices.loadAuthentication(cachedToken);
+
+        // The first key is not even the previous one anymore
+        keySource.refresh();
+        keySource.refresh();
+
+        assertThrows(InvalidTokenException.class, () -> tokenServices.loadAuthentication(cachedToken));
+    }
+
+    @Test
+    void dropsPreviousKeyAfterGrace() throws InterruptedException {
+        CachingJwtTokenServices tokenServices = tokenServices(500, first, second);
+        String cachedToken = token(first, Instant.now().plus(1, HOURS));
+        tokenServices.loadAuthentication(cachedToken);
+
+        keySource.refresh();
+        assertThat(tokenServices.loadAuthentication(cachedToken).getName(), is("fred@acme"));
+
+        for (int i = 0; i < 50 && keySource.getVerifiers().size() > 1; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(keySource.getVerifiers().size(), is(1));
+        assertThrows(InvalidTokenException.class, () -> tokenServices.loadAuthentication(cachedToken));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        CachingJwtTokenServices tokenServices = tokenServices(first);
+
+        assertThrows(InvalidTokenException.class,
+                () -> tokenServices.loadAuthentication(token(first, Instant.now().minus(1, HOURS))));
+    }
+
+    @Test
+    void rejectsUnknownKey() {
+        CachingJwtTokenServices tokenServices = tokenServices(first);
+
+        assertThrows(InvalidTokenException.class,
+                () -> tokenServices.loadAuthentication(token(second, Instant.now().plus(1, HOURS))));
+        assertThrows(InvalidTokenException.class, () -> tokenServices.loadAuthentication("not-a-jwt"));
+    }
+
+    private CachingJwtTokenServices tokenServices(KeyPair... keyPairs) {
+        return tokenServices(TimeUnit.HOURS.toMillis(1), keyPairs);
+    }
+
+    private CachingJwtTokenServices tokenServices(long previousKeyGraceMillis, KeyPair... keyPairs) {
+        for (KeyPair keyPair : keyPairs) {
+            keys.add(pem(keyPair));
+        }
+        keySource = JwtKeySource.fetching(() -> keys.size() > 1 ? keys.poll() : keys.peek(),
+                TimeUnit.DAYS.toMillis(1), previousKeyGraceMillis, TimeUnit.MILLISECONDS);
+        return new CachingJwtTokenServices(keySource, new JwtConverter(), 100, 1, TimeUnit.HOURS);
+    }
+
+    private static String pem(KeyPair keyPair) {
+        return "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----";
+    }
+
+    private static String token(KeyPair keyPair, Instant expiry) {
+        return Jwts.builder()
+                .claim("prn", "fred@acme")
+                .claim("scp", "openid profile user email")
+                .setExpiration(Date.from(expiry))
+                .signWith(RS256, keyPair.getPrivate())
+                .compact();
+    }
+}
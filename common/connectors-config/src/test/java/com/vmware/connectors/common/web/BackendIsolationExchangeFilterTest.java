@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.base.Ticker;
+import com.vmware.connectors.common.utils.Reactive;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.mock.http.client.reactive.MockClientHttpResponse;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunctions;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BackendIsolationExchangeFilterTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final BackendIsolation isolation = new BackendIsolation(registry, Ticker.systemTicker(),
+            4, 0.5, Duration.ofSeconds(30), 1, Duration.ofSeconds(10), 2, 100);
+
+    private final BackendIsolationExchangeFilter filter = new BackendIsolationExchangeFilter(isolation);
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void failsFastOnceTheCircuitIsOpen() {
+        ExchangeFunction failing = backend(() -> Mono.just(new MockClientHttpResponse(HttpStatus.SERVICE_UNAVAILABLE)));
+        for (int i = 0; i < 4; i++) {
+            assertThat(exchange(failing, "https://jira.acme.com/rest/api/2/issue/" + i).statusCode(),
+                    is(HttpStatus.SERVICE_UNAVAILABLE));
+        }
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> exchange(failing, "https://jira.acme.com/rest/api/2/issue/5"));
+
+        assertThat(e, instanceOf(BackendUnavailableException.class));
+        assertThat(((BackendUnavailableException) e).getBackend(), is("https://jira.acme.com:443"));
+        assertThat(calls.get(), is(4));
+        assertThat(registry.get("connectors.backend.rejected")
+                .tag("reason", "circuit_open")
+                .counter().count(), is(1.0));
+        assertThat(registry.get("connectors.backend.circuits")
+                .tag("state", "open")
+                .gauge().value(), is(1.0));
+    }
+
+    @Test
+    void isolatesTheBaseUrlsOfAHost() {
+        ExchangeFunction failing = backend(() -> Mono.just(new MockClientHttpResponse(HttpStatus.BAD_GATEWAY)));
+        for (int i = 0; i < 4; i++) {
+            exchange(failing, "https://acme.atlassian.net/jira/rest/api/2/issue/" + i,
+                    "https://acme.atlassian.net/jira/");
+        }
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> exchange(failing, "https://acme.atlassian.net/jira/rest/api/2/issue/5",
+                        "https://acme.atlassian.net/jira/"));
+        assertThat(((BackendUnavailableException) e).getBackend(), is("https://acme.atlassian.net/jira"));
+
+        ExchangeFunction healthy = backend(() -> Mono.just(new MockClientHttpResponse(HttpStatus.OK)));
+        assertThat(exchange(healthy, "https://acme.atlassian.net/jira2/rest/api/2/issue/1",
+                "https://acme.atlassian.net/jira2").statusCode(), is(HttpStatus.OK));
+        // Without a base URL the call falls back to the address, which isn't open either
+        assertThat(exchange(healthy, "https://acme.atlassian.net/jira/rest/api/2/issue/1").statusCode(),
+                is(HttpStatus.OK));
+    }
+
+    @Test
+    void keysOnTheBaseUrlOnlyWithinIt() {
+        URI uri = URI.create("https://jira.acme.com/jira/rest/api/2/issue/1");
+
+        assertThat(BackendIsolation.key(uri, Optional.of("https://jira.acme.com/jira")), is("https://jira.acme.com/jira"));
+        assertThat(BackendIsolation.key(uri, Optional.of("https://jira.acme.com/ji")), is("https://jira.acme.com:443"));
+        assertThat(BackendIsolation.key(uri, Optional.of("https://other.acme.com/jira")), is("https://jira.acme.com:443"));
+        assertThat(BackendIsolation.key(uri, Optional.empty()), is("https://jira.acme.com:443"));
+    }
+
+    @Test
+    void isolatesTheBackends() {
+        ExchangeFunction failing = backend(() -> Mono.just(new MockClientHttpResponse(HttpStatus.BAD_GATEWAY)));
+        for (int i = 0; i < 4; i++) {
+            exchange(failing, "https://jira.acme.com/rest/api/2/issue/" + i);
+        }
+
+        ExchangeFunction healthy = backend(() -> Mono.just(new MockClientHttpResponse(HttpStatus.OK)));
+        assertThat(exchange(healthy, "https://jira.example.com/rest/api/2/issue/1").statusCode(), is(HttpStatus.OK));
+    }
+
+    @Test
+    void countsClientErrorsAsSuccesses() {
+        ExchangeFunction notFound = backend(() -> Mono.just(new MockClientHttpResponse(HttpStatus.NOT_FOUND)));
+        for (int i = 0; i < 5; i++) {
+            assertThat(exchange(notFound, "https://jira.acme.com/rest/api/2/issue/" + i).statusCode(),
+                    is(HttpStatus.NOT_FOUND));
+        }
+    }
+
+    @Test
+    void capsTheCallsInProgress() {
+        ExchangeFunction hanging = backend(Mono::never);
+        Disposable first = filter.filter(request("https://jira.acme.com/1"), hanging).subscribe();
+        Disposable second = filter.filter(request("https://jira.acme.com/2"), hanging).subscribe();
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> exchange(hanging, "https://jira.acme.com/3"));
+        assertThat(e, instanceOf(BackendUnavailableException.class));
+        assertThat(registry.get("connectors.backend.rejected")
+                .tag("reason", "bulkhead_full")
+                .counter().count(), is(1.0));
+
+        // Cancelling a call frees its slot
+        first.dispose();
+        ExchangeFunction healthy = backend(() -> Mono.just(new MockClientHttpResponse(HttpStatus.OK)));
+        assertThat(exchange(healthy, "https://jira.acme.com/4").statusCode(), is(HttpStatus.OK));
+        second.dispose();
+    }
+
+    private ExchangeFunction backend(Supplier<Mono<ClientHttpResponse>> responses) {
+        return ExchangeFunctions.create((method, uri, requestCallback) -> {
+            calls.incrementAndGet();
+            return responses.get();
+        });
+    }
+
+    private ClientResponse exchange(ExchangeFunction backend, String url) {
+        return filter.filter(request(url), backend).block(Duration.ofSeconds(5));
+    }
+
+    private ClientResponse exchange(ExchangeFunction backend, String url, String baseUrl) {
+        return filter.filter(request(url), backend)
+                .subscriberContext(Context.of(Reactive.BASE_URL_KEY, baseUrl))
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static ClientRequest request(String url) {
+        return ClientRequest.method(HttpMethod.GET, URI.create(url)).build();
+    }
+}
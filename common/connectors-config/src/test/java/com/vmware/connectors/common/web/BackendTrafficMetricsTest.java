@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BackendTrafficMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final BackendTrafficMetrics metrics = new BackendTrafficMetrics(registry);
+
+    @Test
+    void countsConnectionsAndBytes() {
+        EmbeddedChannel first = new EmbeddedChannel();
+        EmbeddedChannel second = new EmbeddedChannel();
+        metrics.install(first);
+        metrics.install(second);
+
+        first.writeOutbound(Unpooled.copiedBuffer("GET / HTTP/1.1\r\n\r\n", UTF_8));
+        first.writeInbound(Unpooled.copiedBuffer("HTTP/1.1 204 No Content\r\n\r\n", UTF_8));
+        second.writeInbound(Unpooled.copiedBuffer("HTTP/1.1 204 No Content\r\n\r\n", UTF_8));
+
+        assertThat(registry.get("connectors.backend.connections").counter().count(), is(2.0));
+        assertThat(registry.get("connectors.backend.bytes").tag("direction", "sent").counter().count(), is(18.0));
+        assertThat(registry.get("connectors.backend.bytes").tag("direction", "received").counter().count(), is(54.0));
+
+        // The bytes are passed on untouched
+        ByteBuf read = first.readInbound();
+        assertThat(read.toString(UTF_8), is("HTTP/1.1 204 No Content\r\n\r\n"));
+        read.release();
+        first.finishAndReleaseAll();
+        second.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.payloads.response.Card;
+import com.vmware.connectors.common.payloads.response.Cards;
+import com.vmware.connectors.common.utils.CommonUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares computing the template and image links for every card, as the
+ * connectors used to, with computing them once per request in a
+ * {@link CardRequestContext}, for responses of several sizes.
+ * <p>
+ * Run the main method from the IDE, or from the test classpath after test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardRequestContextBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int cardCount;
+
+    private HttpRequest request;
+
+    @Setup
+    public void setup() {
+        request = MockServerHttpRequest.post("http://localhost:8080/cards/requests")
+                .header("x-routing-prefix", "https://hero.acme.com/connectors/abc123/")
+                .header("X-Forwarded-Proto", "https")
+                .header("X-Forwarded-Host", "connectors.acme.com")
+                .header("X-Forwarded-Port", "443")
+                .build();
+    }
+
+    @Benchmark
+    public Cards perCard() {
+        String routingPrefix = request.getHeaders().getFirst("x-routing-prefix");
+        Cards cards = new Cards();
+        for (int i = 0; i < cardCount; i++) {
+            Card.Builder card = new Card.Builder()
+                    .setName("Benchmark")
+                    .setTemplate(routingPrefix + "templates/generic.hbs")
+                    .setHeader("Header " + i);
+            String imageUrl = CommonUtils.buildConnectorImageUrl(request);
+            if (StringUtils.isNotBlank(imageUrl)) {
+                card.setImageUrl(imageUrl);
+            }
+            cards.getCards().add(card.build());
+        }
+        return cards;
+    }
+
+    @Benchmark
+    public Cards perRequest() {
+        CardRequestContext context = CardRequestContext.of(request);
+        Cards cards = new Cards();
+        for (int i = 0; i < cardCount; i++) {
+            cards.getCards().add(new Card.Builder()
+                    .setName("Benchmark")
+                    .setTemplate(context.getGenericTemplate())
+                    .setHeader("Header " + i)
+                    .setImage(context.getImage())
+                    .build());
+        }
+        return cards;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardRequestContextBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
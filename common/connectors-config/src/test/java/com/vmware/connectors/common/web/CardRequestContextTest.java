@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.payloads.response.Card;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CardRequestContextTest {
+
+    @Test
+    void computesLinksFromRequest() {
+        CardRequestContext context = CardRequestContext.of(MockServerHttpRequest
+                .post("http://localhost:8080/cards/requests")
+                .header("x-routing-prefix", "https://hero/connectors/abc123/")
+                .build());
+
+        assertThat(context.getRoutingPrefix(), is("https://hero/connectors/abc123/"));
+        assertThat(context.getGenericTemplate().getHref(), is("https://hero/connectors/abc123/templates/generic.hbs"));
+        assertThat(context.getImage().getHref(), is("http://localhost:8080/images/connector.png"));
+    }
+
+    @Test
+    void usesForwardedHost() {
+        CardRequestContext context = CardRequestContext.of(MockServerHttpRequest
+                .post("http://localhost:8080/cards/requests")
+                .header("X-Forwarded-Proto", "https")
+                .header("X-Forwarded-Host", "connectors.acme.com")
+                .header("X-Forwarded-Port", "443")
+                .build());
+
+        assertThat(context.getImage().getHref(), is("https://connectors.acme.com/images/connector.png"));
+        assertThat(context.getGenericTemplate(), nullValue());
+    }
+
+    @Test
+    void sharesLinksBetweenCards() {
+        CardRequestContext context = CardRequestContext.of(MockServerHttpRequest
+                .post("http://localhost:8080/cards/requests")
+                .header("x-routing-prefix", "https://hero/connectors/abc123/")
+                .build());
+
+        Card first = new Card.Builder().setTemplate(context.getGenericTemplate()).setImage(context.getImage()).build();
+        Card second = new Card.Builder().setTemplate(context.getGenericTemplate()).setImage(context.getImage()).build();
+
+        assertThat(first.getTemplate(), sameInstance(second.getTemplate()));
+        assertThat(first.getImage(), sameInstance(second.getImage()));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    private final CircuitBreaker breaker = new CircuitBreaker(ticker, 4, 0.5, Duration.ofSeconds(30), 2);
+
+    @Test
+    void staysClosedUntilTheWindowIsFull() {
+        call(false);
+        call(false);
+        call(false);
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    void opensAtTheFailureRate() {
+        call(true);
+        call(false);
+        call(true);
+        call(false);
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(breaker.tryAcquirePermission(), is(false));
+        assertThat(breaker.getRetryAfter(), is(Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void staysClosedBelowTheFailureRate() {
+        call(true);
+        call(false);
+        call(false);
+        call(false);
+        call(false);
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    void letsTrialCallsThroughOnceTheOpenDurationHasPassed() {
+        open();
+        advance(30);
+
+        assertThat(breaker.tryAcquirePermission(), is(true));
+        assertThat(breaker.tryAcquirePermission(), is(true));
+        assertThat(breaker.tryAcquirePermission(), is(false));
+        assertThat(breaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+    }
+
+    @Test
+    void closesWhenTheTrialCallsSucceed() {
+        open();
+        advance(30);
+        call(false);
+        call(false);
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    void opensAgainWhenATrialCallFails() {
+        open();
+        advance(30);
+        call(false);
+        call(true);
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(breaker.tryAcquirePermission(), is(false));
+    }
+
+    @Test
+    void freesTheTrialOfAnIgnoredCall() {
+        open();
+        advance(30);
+        assertThat(breaker.tryAcquirePermission(), is(true));
+        assertThat(breaker.tryAcquirePermission(), is(true));
+        breaker.onIgnored();
+
+        assertThat(breaker.tryAcquirePermission(), is(true));
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+    }
+
+    private void call(boolean failure) {
+        assertThat(breaker.tryAcquirePermission(), is(true));
+        if (failure) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    private void advance(long seconds) {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+}
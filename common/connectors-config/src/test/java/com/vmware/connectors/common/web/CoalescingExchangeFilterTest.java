@@ -0,0 +1,217 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.mock.http.client.reactive.MockClientHttpResponse;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunctions;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CoalescingExchangeFilterTest {
+
+    private static final String URL = "https://github.com/api/v3/repos/vmware/connectors/pulls/1";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final CoalescingExchangeFilter filter = new CoalescingExchangeFilter(ExchangeStrategies.withDefaults(), 1024, registry);
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /*
+     * Answers after a while, so that the calls overlap.
+     */
+    private final ExchangeFunction backend = ExchangeFunctions.create((method, uri, requestCallback) -> {
+        int call = calls.incrementAndGet();
+        MockClientHttpResponse response = new MockClientHttpResponse(HttpStatus.OK);
+        response.setBody("pull " + call);
+        return Mono.<ClientHttpResponse>just(response).delayElement(Duration.ofMillis(200));
+    });
+
+    @Test
+    void sharesIdenticalCalls() {
+        List<String> bodies = Mono.zip(body(HttpMethod.GET, "token-1"), body(HttpMethod.GET, "token-1"),
+                (first, second) -> Arrays.asList(first, second))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(bodies, is(Arrays.asList("pull 1", "pull 1")));
+        assertThat(calls.get(), is(1));
+        assertThat(registry.get("connectors.backend.coalesced").counter().count(), is(1.0));
+    }
+
+    @Test
+    void doesNotShareCallsWithOtherCredentials() {
+        Mono.zip(body(HttpMethod.GET, "token-1"), body(HttpMethod.GET, "token-2"))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(calls.get(), is(2));
+    }
+
+    @Test
+    void doesNotShareOtherMethods() {
+        Mono.zip(body(HttpMethod.POST, "token-1"), body(HttpMethod.POST, "token-1"))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(calls.get(), is(2));
+    }
+
+    @Test
+    void callsAgainOnceTheSharedCallIsDone() {
+        assertThat(body(HttpMethod.GET, "token-1").block(Duration.ofSeconds(5)), is("pull 1"));
+        assertThat(body(HttpMethod.GET, "token-1").block(Duration.ofSeconds(5)), is("pull 2"));
+    }
+
+    @Test
+    void streamsTheBodyOfACallNoOneJoined() {
+        DataBuffer chunk = new DefaultDataBufferFactory().wrap("first chunk".getBytes(StandardCharsets.UTF_8));
+        ExchangeFunction streaming = ExchangeFunctions.create((method, uri, requestCallback) -> {
+            MockClientHttpResponse response = new MockClientHttpResponse(HttpStatus.OK);
+            // The body never ends, so only a caller that isn't made to wait for all of it gets the chunk
+            response.setBody(Flux.concat(Flux.just(chunk), Flux.never()));
+            return Mono.just(response);
+        });
+
+        DataBuffer received = filter.filter(request(HttpMethod.GET, "token-1"), streaming)
+                .flatMapMany(response -> response.body(BodyExtractors.toDataBuffers()))
+                .next()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(received, sameInstance(chunk));
+    }
+
+    @Test
+    void doesNotShareBodiesOverTheMaximumSize() {
+        CoalescingExchangeFilter smallFilter = new CoalescingExchangeFilter(ExchangeStrategies.withDefaults(), 4, registry);
+
+        List<String> bodies = Mono.zip(body(smallFilter, HttpMethod.GET, "token-1"), body(smallFilter, HttpMethod.GET, "token-1"),
+                (first, second) -> Arrays.asList(first, second))
+                .block(Duration.ofSeconds(5));
+
+        // The shared call was dropped, and each caller made its own
+        assertThat(calls.get(), is(3));
+        assertThat(bodies.contains("pull 1"), is(false));
+        assertThat(registry.get("connectors.backend.coalesced").counter().count(), is(0.0));
+    }
+
+    @Test
+    void cancelsTheCallOnceAllItsCallersCancelled() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ExchangeFunction hanging = ExchangeFunctions.create((method, uri, requestCallback) -> {
+            calls.incrementAndGet();
+            return Mono.<ClientHttpResponse>never().doOnCancel(() -> cancelled.set(true));
+        });
+
+        Disposable first = filter.filter(request(HttpMethod.GET, "token-1"), hanging).subscribe();
+        Disposable second = filter.filter(request(HttpMethod.GET, "token-1"), hanging).subscribe();
+        first.dispose();
+        assertThat(cancelled.get(), is(false));
+        second.dispose();
+        assertThat(cancelled.get(), is(true));
+
+        // Nothing is left to join
+        assertThat(body(HttpMethod.GET, "token-1").block(Duration.ofSeconds(5)), is("pull 2"));
+    }
+
+    @Test
+    void sharesTheCallWithACallerThatStayed() {
+        Disposable first = body(HttpMethod.GET, "token-1").subscribe();
+        Mono<String> second = body(HttpMethod.GET, "token-1").cache();
+        second.subscribe();
+        first.dispose();
+
+        assertThat(second.block(Duration.ofSeconds(5)), is("pull 1"));
+        assertThat(calls.get(), is(1));
+    }
+
+    @Test
+    void releasesAResponseNoCallerIsLeftToTake() {
+        AtomicBoolean released = new AtomicBoolean();
+        ExchangeFunction large = ExchangeFunctions.create((method, uri, requestCallback) -> {
+            int call = calls.incrementAndGet();
+            MockClientHttpResponse response = new MockClientHttpResponse(HttpStatus.OK);
+            // Too large to share, so the caller that started the call would get it unread
+            response.getHeaders().setContentLength(2048);
+            response.setBody(Flux.just(new DefaultDataBufferFactory().wrap(("pull " + call).getBytes(StandardCharsets.UTF_8)))
+                    .doFinally(signal -> {
+                        if (call == 1) {
+                            released.set(true);
+                        }
+                    }));
+            return Mono.<ClientHttpResponse>just(response).delayElement(Duration.ofMillis(200));
+        });
+
+        Disposable first = filter.filter(request(HttpMethod.GET, "token-1"), large).subscribe();
+        Mono<String> second = filter.filter(request(HttpMethod.GET, "token-1"), large)
+                .flatMap(response -> response.bodyToMono(String.class))
+                .cache();
+        second.subscribe();
+        first.dispose();
+
+        assertThat(second.block(Duration.ofSeconds(5)), is("pull 2"));
+        assertThat(released.get(), is(true));
+    }
+
+    @Test
+    void cancelsReadingTheSharedBodyOnceAllItsCallersCancelled() throws InterruptedException {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ExchangeFunction slowBody = ExchangeFunctions.create((method, uri, requestCallback) -> {
+            calls.incrementAndGet();
+            MockClientHttpResponse response = new MockClientHttpResponse(HttpStatus.OK);
+            response.setBody(Flux.<DataBuffer>never().doOnCancel(() -> cancelled.set(true)));
+            return Mono.<ClientHttpResponse>just(response).delayElement(Duration.ofMillis(50));
+        });
+
+        Disposable first = filter.filter(request(HttpMethod.GET, "token-1"), slowBody).subscribe();
+        Disposable second = filter.filter(request(HttpMethod.GET, "token-1"), slowBody).subscribe();
+        // The response arrived with both callers, so its body is being read to be shared
+        Thread.sleep(200);
+        first.dispose();
+        second.dispose();
+
+        assertThat(cancelled.get(), is(true));
+        assertThat(calls.get(), is(1));
+    }
+
+    private Mono<String> body(HttpMethod method, String token) {
+        return body(filter, method, token);
+    }
+
+    private Mono<String> body(CoalescingExchangeFilter filter, HttpMethod method, String token) {
+        return filter.filter(request(method, token), backend)
+                .flatMap(response -> response.bodyToMono(String.class));
+    }
+
+    private static ClientRequest request(HttpMethod method, String token) {
+        return ClientRequest.method(method, URI.create(URL))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+    }
+}
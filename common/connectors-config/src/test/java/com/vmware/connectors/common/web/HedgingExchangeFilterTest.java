@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.mock.http.client.reactive.MockClientHttpResponse;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunctions;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class HedgingExchangeFilterTest {
+
+    private static final String URL = "https://jira.acme.com/rest/api/2/issue/1";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /*
+     * Answers at once, except for the given call, which answers with a 503
+     * after a long while.
+     */
+    private ExchangeFunction backend(int slowCall) {
+        return ExchangeFunctions.create((method, uri, requestCallback) -> {
+            if (calls.incrementAndGet() == slowCall) {
+                return Mono.<ClientHttpResponse>just(new MockClientHttpResponse(HttpStatus.SERVICE_UNAVAILABLE))
+                        .delayElement(Duration.ofSeconds(10));
+            }
+            return Mono.just(new MockClientHttpResponse(HttpStatus.OK));
+        });
+    }
+
+    @Test
+    void hedgesASlowCall() {
+        HedgingExchangeFilter filter = new HedgingExchangeFilter(policy(1));
+        ExchangeFunction backend = backend(21);
+        warmUp(filter, backend);
+
+        ClientResponse response = filter.filter(request(HttpMethod.GET), backend).block(Duration.ofSeconds(5));
+
+        assertThat(response.statusCode(), is(HttpStatus.OK));
+        assertThat(calls.get(), is(22));
+        assertThat(hedges("sent"), is(1.0));
+        assertThat(hedges("won"), is(1.0));
+    }
+
+    @Test
+    void recordsTheCancelledCall() {
+        List<Long> latencies = new CopyOnWriteArrayList<>();
+        HedgingPolicy policy = new HedgingPolicy(registry, 95, Duration.ofMillis(50), 1) {
+            @Override
+            public void recordLatency(URI uri, long nanos) {
+                latencies.add(nanos);
+                super.recordLatency(uri, nanos);
+            }
+        };
+        HedgingExchangeFilter filter = new HedgingExchangeFilter(policy);
+        ExchangeFunction backend = backend(21);
+        warmUp(filter, backend);
+
+        filter.filter(request(HttpMethod.GET), backend).block(Duration.ofSeconds(5));
+
+        // The warm-up calls, the hedge and the slow call it beat
+        assertThat(latencies.size(), is(22));
+        assertThat(latencies.stream().mapToLong(Long::longValue).max().getAsLong(),
+                greaterThanOrEqualTo(Duration.ofMillis(50).toNanos()));
+    }
+
+    @Test
+    void doesNotHedgeAFastCall() {
+        HedgingExchangeFilter filter = new HedgingExchangeFilter(policy(1));
+        ExchangeFunction backend = backend(0);
+        warmUp(filter, backend);
+
+        filter.filter(request(HttpMethod.GET), backend).block(Duration.ofSeconds(5));
+
+        assertThat(calls.get(), is(21));
+        assertThat(hedges("sent"), is(0.0));
+    }
+
+    @Test
+    void doesNotHedgeUnknownBackends() {
+        HedgingExchangeFilter filter = new HedgingExchangeFilter(policy(1));
+        ExchangeFunction backend = backend(1);
+
+        ClientResponse response = filter.filter(request(HttpMethod.GET), backend).block(Duration.ofSeconds(15));
+
+        assertThat(response.statusCode(), is(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(calls.get(), is(1));
+    }
+
+    @Test
+    void doesNotHedgeUnsafeMethods() {
+        HedgingExchangeFilter filter = new HedgingExchangeFilter(policy(1));
+        ExchangeFunction backend = backend(21);
+        for (int i = 0; i < 20; i++) {
+            filter.filter(request(HttpMethod.POST), backend).block(Duration.ofSeconds(5));
+        }
+
+        ClientResponse response = filter.filter(request(HttpMethod.POST), backend).block(Duration.ofSeconds(15));
+
+        assertThat(response.statusCode(), is(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(calls.get(), is(21));
+    }
+
+    @Test
+    void keepsWithinTheBudget() {
+        HedgingExchangeFilter filter = new HedgingExchangeFilter(policy(0.01));
+        ExchangeFunction backend = backend(21);
+        warmUp(filter, backend);
+
+        ClientResponse response = filter.filter(request(HttpMethod.GET), backend).block(Duration.ofSeconds(15));
+
+        assertThat(response.statusCode(), is(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(calls.get(), is(21));
+        assertThat(hedges("over_budget"), is(1.0));
+    }
+
+    private HedgingPolicy policy(double budgetRatio) {
+        return new HedgingPolicy(registry, 95, Duration.ofMillis(50), budgetRatio);
+    }
+
+    private void warmUp(HedgingExchangeFilter filter, ExchangeFunction backend) {
+        for (int i = 0; i < 20; i++) {
+            filter.filter(request(HttpMethod.GET), backend).block(Duration.ofSeconds(5));
+        }
+    }
+
+    private double hedges(String outcome) {
+        return registry.get("connectors.backend.hedges").tag("outcome", outcome).counter().count();
+    }
+
+    private static ClientRequest request(HttpMethod method) {
+        return ClientRequest.method(method, URI.create(URL)).build();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.test.load;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * A local, non-blocking stand-in for a connector backend (Jira, GitHub,
+ * ServiceNow...), which answers with the recorded fixtures of the connector
+ * tests.
+ * <p>
+ * Every response is delayed by the configured latency, and a share of them is
+ * replaced with a 503 to see how a connector copes with a failing backend.
+ * The defaults come from the {@code load.backend.latency} (in milliseconds)
+ * and {@code load.backend.errorRate} system properties.
+ */
+public final class BackendSimulator implements AutoCloseable {
+
+    private final List<RouterFunction<ServerResponse>> routes = new ArrayList<>();
+    private final Map<String, Optional<byte[]>> fixtures = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+
+    private Duration latency = Duration.ofMillis(Long.getLong("load.backend.latency", 50));
+    private double errorRate = Double.parseDouble(System.getProperty("load.backend.errorRate", "0"));
+    private NettyContext server;
+
+    public BackendSimulator latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    public BackendSimulator errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    public BackendSimulator route(HttpMethod method, String pattern, String fixture) {
+        return route(method, pattern, request -> fixture);
+    }
+
+    /**
+     * @param pattern a path pattern, like {@code /rest/api/2/issue/{key}}
+     * @param fixture the classpath location of the fixture answering the request
+     */
+    public BackendSimulator route(HttpMethod method, String pattern, Function<ServerRequest, String> fixture) {
+        routes.add(RouterFunctions.route(
+                RequestPredicates.method(method).and(RequestPredicates.path(pattern)),
+                request -> respond(fixture.apply(request))));
+        return this;
+    }
+
+    public BackendSimulator start() {
+        RouterFunction<ServerResponse> router = routes.stream()
+                .reduce(RouterFunction::and)
+                .orElseThrow(() -> new IllegalStateException("A simulator needs at least one route"));
+        ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(router));
+        server = HttpServer.create("localhost", 0).newHandler(adapter).block();
+        return this;
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.address().getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.dispose();
+        }
+    }
+
+    private Mono<ServerResponse> respond(String fixture) {
+        requests.incrementAndGet();
+        Mono<ServerResponse> response;
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            response = ServerResponse.status(SERVICE_UNAVAILABLE).build();
+        } else {
+            response = fixtures.computeIfAbsent(fixture, BackendSimulator::load)
+                    .map(body -> ServerResponse.ok()
+                            .contentType(MediaTypeFactory.getMediaType(fixture).orElse(MediaType.APPLICATION_JSON))
+                            .syncBody(body))
+                    .orElseGet(() -> ServerResponse.notFound().build());
+        }
+        return latency.isZero() ? response : Mono.delay(latency).then(response);
+    }
+
+    private static Optional<byte[]> load(String fixture) {
+        Resource resource = new ClassPathResource(fixture);
+        if (!resource.isReadable()) {
+            return Optional.empty();
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return Optional.of(StreamUtils.copyToByteArray(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.test.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Sends requests at a fixed rate, whether or not the earlier ones have been
+ * answered (an open loop, like real users).
+ * <p>
+ * Each latency is measured from the time the request was meant to be sent,
+ * not from the time it was, so a stalled server can't hide its stalls by
+ * holding back the requests that would have measured them.
+ */
+public final class LoadGenerator {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Supplier<Mono<HttpStatus>> request;
+
+    /**
+     * @param request sends one request and emits its status, once the whole response is read
+     */
+    public LoadGenerator(Supplier<Mono<HttpStatus>> request) {
+        this.request = request;
+    }
+
+    /**
+     * Sends {@code rps} requests a second for the duration, then waits for
+     * the last responses, up to the timeout. The requests still unanswered
+     * then are errors, recorded at the latency they had when given up on.
+     */
+    public LoadReport run(int rps, Duration duration, Duration timeout) throws InterruptedException {
+        Histogram latencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        AtomicLong errors = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+        int total = (int) (rps * duration.getSeconds());
+        long interval = TimeUnit.SECONDS.toNanos(1) / rps;
+        // Each request is settled once, by its response or by the timeout
+        AtomicIntegerArray settled = new AtomicIntegerArray(total);
+        CountDownLatch done = new CountDownLatch(total);
+
+        List<MemoryPoolMXBean> heap = heapPools();
+        heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            int index = i;
+            long intended = start + i * interval;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            request.get()
+                    .map(HttpStatus::is2xxSuccessful)
+                    .onErrorReturn(false)
+                    .defaultIfEmpty(false)
+                    .subscribe(success -> {
+                        if (settled.compareAndSet(index, 0, 1)) {
+                            latencies.recordValue(System.nanoTime() - intended);
+                            completed.incrementAndGet();
+                            if (!success) {
+                                errors.incrementAndGet();
+                            }
+                            done.countDown();
+                        }
+                    });
+        }
+        if (!done.await(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            long givenUp = System.nanoTime();
+            for (int i = 0; i < total; i++) {
+                if (settled.compareAndSet(i, 0, 1)) {
+                    latencies.recordValue(givenUp - (start + i * interval));
+                    errors.incrementAndGet();
+                }
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        long peakHeap = heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        return new LoadReport(total, completed.get(), errors.get(), elapsed, latencies, peakHeap);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.test.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a {@link LoadGenerator} run measured. Latencies are in nanoseconds,
+ * from the time each request was meant to be sent.
+ * <p>
+ * The throughput counts the requests answered, whether with an error or not,
+ * before the run timed out.
+ */
+public final class LoadReport {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final long requests;
+    private final long completed;
+    private final long errors;
+    private final Duration elapsed;
+    private final Histogram latencies;
+    private final long peakHeapBytes;
+
+    LoadReport(long requests, long completed, long errors, Duration elapsed, Histogram latencies, long peakHeapBytes) {
+        this.requests = requests;
+        this.completed = completed;
+        this.errors = errors;
+        this.elapsed = elapsed;
+        this.latencies = latencies;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the requests answered before the run timed out
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getThroughput() {
+        return completed * 1000.0 / Math.max(1, elapsed.toMillis());
+    }
+
+    public long getLatencyAtPercentile(double percentile) {
+        return latencies.getValueAtPercentile(percentile);
+    }
+
+    public long getMaxLatency() {
+        return latencies.getMaxValue();
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "requests=%d completed=%d errors=%d throughput=%.1f/s p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms peakHeap=%dMB",
+                requests, completed, errors, getThroughput(),
+                millis(getLatencyAtPercentile(50)),
+                millis(getLatencyAtPercentile(99)),
+                millis(getLatencyAtPercentile(99.9)),
+                millis(getMaxLatency()),
+                peakHeapBytes / BYTES_PER_MB);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
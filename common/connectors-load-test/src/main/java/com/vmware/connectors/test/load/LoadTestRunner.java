@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.test.load;
+
+import com.vmware.connectors.test.JwtUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static com.vmware.connectors.test.ControllerTestsBase.fromFile;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Boots a connector against a {@link BackendSimulator} and drives its
+ * {@code /cards/requests} at a target rate, first to warm it up, then to
+ * measure it.
+ * <p>
+ * The rate and durations come from the {@code load.rps}, {@code load.warmup}
+ * and {@code load.duration} (in seconds) system properties. The connector
+ * runs in the same JVM as the load, so the peak heap accounts for both.
+ * <p>
+ * The connector runs with its production defaults, like its response cache,
+ * rather than the test ones: only the key verifying the test tokens is taken
+ * from {@code application-test.properties}.
+ * <p>
+ * Each connector has a {@code *LoadScenario} in its tests, whose main method
+ * runs it from the IDE, or from the test classpath after test-compile, with
+ * {@code -Dload.rps}, {@code -Dload.duration}, {@code -Dload.backend.latency}
+ * and {@code -Dload.backend.errorRate}.
+ */
+public final class LoadTestRunner {
+
+    // Replaced in the request body, for connectors that get backend URLs from tokens
+    public static final String BACKEND_PLACEHOLDER = "${backend}";
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private static final String ROUTING_PREFIX = "x-routing-prefix";
+
+    private static final String JWT_KEY_PROPERTY = "security.oauth2.resource.jwt.key-value";
+
+    private final int rps = Integer.getInteger("load.rps", 100);
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup", 15));
+    private final Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 60));
+    private final Duration timeout = Duration.ofSeconds(Long.getLong("load.timeout", 30));
+
+    private final Class<?> application;
+    private final List<String> args = new ArrayList<>();
+    private final List<String> configLocations = new ArrayList<>();
+    private final HttpHeaders headers = new HttpHeaders();
+    private String backendUrlHeader;
+    private String body;
+
+    public LoadTestRunner(Class<?> application) throws IOException {
+        this.application = application;
+        args.add("--server.port=0");
+        Properties testProperties = PropertiesLoaderUtils.loadAllProperties("application-test.properties");
+        args.add("--" + JWT_KEY_PROPERTY + "=" + testProperties.getProperty(JWT_KEY_PROPERTY));
+    }
+
+    /**
+     * Adds a properties file to the connector configuration, like the one
+     * of its tests.
+     */
+    public LoadTestRunner config(String location) {
+        configLocations.add(location);
+        return this;
+    }
+
+    /**
+     * Sets a connector property, like {@code greenbox.url=...}.
+     */
+    public LoadTestRunner property(String property) {
+        args.add("--" + property);
+        return this;
+    }
+
+    public LoadTestRunner header(String name, String value) {
+        headers.add(name, value);
+        return this;
+    }
+
+    /**
+     * The request header that tells the connector where its backend is.
+     */
+    public LoadTestRunner backendUrlHeader(String name) {
+        this.backendUrlHeader = name;
+        return this;
+    }
+
+    /**
+     * @param requestFile the classpath location of the card request
+     */
+    public LoadTestRunner body(String requestFile) throws IOException {
+        this.body = fromFile(requestFile);
+        return this;
+    }
+
+    /**
+     * Starts the simulator and the connector, runs the load and stops them.
+     *
+     * @return the report of the measured run
+     */
+    public LoadReport run(BackendSimulator backend) throws IOException, GeneralSecurityException, InterruptedException {
+        try (BackendSimulator simulator = backend.start();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(application, JwtUtils.class)
+                     .run(arguments())) {
+            String connectorUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            String token = context.getBean(JwtUtils.class).createAccessToken();
+
+            WebClient client = WebClient.builder()
+                    .baseUrl(connectorUrl)
+                    .defaultHeaders(defaults -> {
+                        defaults.addAll(headers);
+                        defaults.set(AUTHORIZATION, "Bearer " + token);
+                        defaults.set(ROUTING_PREFIX, connectorUrl + "/");
+                        if (backendUrlHeader != null) {
+                            defaults.set(backendUrlHeader, simulator.getBaseUrl());
+                        }
+                    })
+                    .build();
+            String cardRequest = body.replace(BACKEND_PLACEHOLDER, simulator.getBaseUrl());
+            LoadGenerator generator = new LoadGenerator(() -> requestCards(client, cardRequest));
+
+            logger.info("Warming up {} at {} requests/s for {}", application.getSimpleName(), rps, warmup);
+            logger.info("Warm-up: {}", generator.run(rps, warmup, timeout));
+
+            logger.info("Measuring {} at {} requests/s for {}", application.getSimpleName(), rps, duration);
+            LoadReport report = generator.run(rps, duration, timeout);
+            logger.info("{}: {} (backend requests: {})", application.getSimpleName(), report, simulator.getRequestCount());
+            return report;
+        }
+    }
+
+    private String[] arguments() {
+        List<String> all = new ArrayList<>(args);
+        if (!configLocations.isEmpty()) {
+            all.add("--spring.config.additional-location=" + String.join(",", configLocations));
+        }
+        return all.toArray(new String[0]);
+    }
+
+    private static Mono<HttpStatus> requestCards(WebClient client, String cardRequest) {
+        return client.post()
+                .uri("/cards/requests")
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .syncBody(cardRequest)
+                .exchange()
+                .flatMap(response -> response.toEntity(byte[].class))
+                .map(ResponseEntity::getStatusCode);
+    }
+}
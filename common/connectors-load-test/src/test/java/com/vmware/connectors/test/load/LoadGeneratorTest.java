@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.test.load;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class LoadGeneratorTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(200);
+
+    private final AtomicInteger sent = new AtomicInteger();
+
+    @Test
+    void countsErrorStatusesAndFailures() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(() -> {
+            switch (sent.getAndIncrement() % 4) {
+                case 1:
+                    return Mono.just(HttpStatus.INTERNAL_SERVER_ERROR);
+                case 2:
+                    return Mono.error(new IOException("Connection refused"));
+                default:
+                    return Mono.just(HttpStatus.OK);
+            }
+        });
+
+        LoadReport report = generator.run(20, Duration.ofSeconds(1), TIMEOUT);
+
+        assertThat(sent.get(), is(20));
+        assertThat(report.getRequests(), is(20L));
+        assertThat(report.getCompleted(), is(20L));
+        assertThat(report.getErrors(), is(10L));
+    }
+
+    @Test
+    void recordsTimedOutRequestsAsErrors() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(() -> sent.getAndIncrement() % 2 == 0
+                ? Mono.just(HttpStatus.OK)
+                : Mono.never());
+
+        LoadReport report = generator.run(10, Duration.ofSeconds(1), TIMEOUT);
+
+        assertThat(report.getRequests(), is(10L));
+        assertThat(report.getCompleted(), is(5L));
+        assertThat(report.getErrors(), is(5L));
+        // The answered half was fast, the other half is in the histogram at no less than the timeout
+        assertThat(report.getLatencyAtPercentile(40), lessThan(TIMEOUT.toNanos()));
+        assertThat(report.getLatencyAtPercentile(60), greaterThanOrEqualTo(TIMEOUT.toNanos()));
+    }
+
+    @Test
+    void measuresThroughputFromTheAnsweredRequests() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(() -> sent.getAndIncrement() % 2 == 0
+                ? Mono.just(HttpStatus.OK)
+                : Mono.never());
+
+        LoadReport report = generator.run(10, Duration.ofSeconds(1), TIMEOUT);
+
+        // 5 answered over the 1s run and the 200ms timeout
+        assertThat(report.getThroughput(), lessThan(5.0));
+        assertThat(report.getThroughput(), greaterThanOrEqualTo(3.0));
+    }
+}
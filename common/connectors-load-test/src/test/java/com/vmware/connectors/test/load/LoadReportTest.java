@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.test.load;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+public class LoadReportTest {
+
+    @Test
+    void throughputCountsTheCompletedRequests() {
+        LoadReport report = new LoadReport(100, 50, 10, Duration.ofSeconds(10), new Histogram(3), 0);
+
+        assertThat(report.getThroughput(), is(5.0));
+    }
+
+    @Test
+    void throughputOfAnInstantRun() {
+        LoadReport report = new LoadReport(1, 1, 0, Duration.ZERO, new Histogram(3), 0);
+
+        assertThat(report.getThroughput(), is(1000.0));
+    }
+
+    @Test
+    void reportsLatencyPercentiles() {
+        Histogram latencies = new Histogram(3);
+        for (long millis = 1; millis <= 1000; millis++) {
+            latencies.recordValue(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        LoadReport report = new LoadReport(1000, 1000, 0, Duration.ofSeconds(1), latencies, 64 * 1024 * 1024);
+
+        assertThat((double) report.getLatencyAtPercentile(50), closeTo(TimeUnit.MILLISECONDS.toNanos(500), 500_000));
+        assertThat((double) report.getLatencyAtPercentile(99), closeTo(TimeUnit.MILLISECONDS.toNanos(990), 990_000));
+        assertThat((double) report.getMaxLatency(), closeTo(TimeUnit.MILLISECONDS.toNanos(1000), 1_000_000));
+        assertThat(report.toString(), startsWith("requests=1000 completed=1000 errors=0 throughput=1000.0/s p50=500."));
+        assertThat(report.toString(), endsWith("peakHeap=64MB"));
+    }
+}
@@ -5,9 +5,9 @@
 
 package com.vmware.connectors.mock;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -22,64 +22,142 @@ import reactor.core.publisher.Mono;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.springframework.http.HttpHeaders.COOKIE;
 import static org.springframework.http.HttpHeaders.SET_COOKIE;
 
+/**
+ * Answers WebClient requests with a {@link RequestHandler}, usually the
+ * expectations of a {@link MockRestServiceServer}.
+ * <p>
+ * Nothing blocks: the request body is joined as it is written, the response
+ * body is streamed back in chunks, and a response can be delayed, so calls
+ * made in parallel by a connector really are in progress at the same time.
+ * Every call is recorded with its timing.
+ */
 public class MockClientHttpConnector implements ClientHttpConnector {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+    private final List<RecordedCall> calls = new CopyOnWriteArrayList<>();
     private final RequestHandler requestHandler;
 
+    private volatile Function<org.springframework.http.client.ClientHttpRequest, Duration> responseDelay = request -> Duration.ZERO;
+
     public MockClientHttpConnector(RequestHandler requestHandler) {
         this.requestHandler = requestHandler;
     }
 
+    /**
+     * Delays every response, without holding a thread.
+     */
+    public void setResponseDelay(Duration delay) {
+        setResponseDelay(request -> delay);
+    }
+
+    /**
+     * Delays each response by the duration returned for its request.
+     */
+    public void setResponseDelay(Function<org.springframework.http.client.ClientHttpRequest, Duration> responseDelay) {
+        this.responseDelay = responseDelay;
+    }
+
+    /**
+     * @return the calls made so far, in the order they started
+     */
+    public List<RecordedCall> getCalls() {
+        return new ArrayList<>(calls);
+    }
+
+    /**
+     * Forgets the recorded calls and removes the response delay.
+     */
+    public void reset() {
+        calls.clear();
+        setResponseDelay(Duration.ZERO);
+    }
+
     @Override
-    @SuppressWarnings("PMD") // Method is long but we can delete when Spring supports mocking WebClient https://jira.spring.io/browse/SPR-15286
     public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri, Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
-        try {
+        return Mono.defer(() -> {
+            RecordedCall call = new RecordedCall(method, uri, System.nanoTime());
+            calls.add(call);
             MockClientHttpRequest clientHttpRequest = new MockClientHttpRequest(method, uri);
-            requestCallback.apply(clientHttpRequest).block();
-            InputStream body = clientHttpRequest.getBody()
-                    .reduce((b1, b2) -> b2.write(b1))
-                    .map(DataBuffer::asInputStream)
-                    .block();
-            org.springframework.mock.http.client.MockClientHttpRequest request = new org.springframework.mock.http.client.MockClientHttpRequest();
-            request.setMethod(method);
-            request.setURI(uri);
-            clientHttpRequest.getHeaders().entrySet().stream()
-                    .filter(entry -> !entry.getKey().equals(COOKIE))
-                    .forEach(entry -> request.getHeaders().addAll(entry.getKey(), entry.getValue()));
-            String requestCookies = clientHttpRequest.getCookies().values().stream()
-                    .flatMap(Collection::stream)
-                    .map(cookie -> cookie.getName() + "=" + cookie.getValue())
-                    .collect(Collectors.joining("; "));
-            request.getHeaders().add(HttpHeaders.COOKIE, requestCookies);
-            if (body != null) {
-                IOUtils.copy(body, request.getBody());
-            }
-
-            org.springframework.http.client.ClientHttpResponse response = requestHandler.handle(request);
-
-            MockClientHttpResponse mockClientHttpResponse = new MockClientHttpResponse(response.getStatusCode());
-            mockClientHttpResponse.getHeaders().addAll(response.getHeaders());
-
-            List<String> responseCookies = Optional.ofNullable(
-                    response.getHeaders().get(SET_COOKIE)).orElse(Collections.emptyList());
-            responseCookies.forEach(cookie -> {
-                ResponseCookie responseCookie = toResponseCookie(cookie);
-                mockClientHttpResponse.getCookies().add(responseCookie.getName(), responseCookie);
-            });
-
-            DataBuffer bodyBuffer = new DefaultDataBufferFactory().allocateBuffer();
-            IOUtils.copy(response.getBody(), bodyBuffer.asOutputStream());
-            mockClientHttpResponse.setBody(Mono.just(bodyBuffer));
-            return Mono.just(mockClientHttpResponse);
+            return requestCallback.apply(clientHttpRequest)
+                    .then(Mono.defer(() -> readBody(clientHttpRequest)))
+                    .map(body -> toRequest(clientHttpRequest, body))
+                    .flatMap(this::respond)
+                    .doOnSuccess(response -> call.complete(System.nanoTime()))
+                    .doOnCancel(() -> call.cancel(System.nanoTime()));
+        });
+    }
+
+    private static Mono<byte[]> readBody(MockClientHttpRequest clientHttpRequest) {
+        return DataBufferUtils.join(clientHttpRequest.getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0]);
+    }
+
+    private static org.springframework.mock.http.client.MockClientHttpRequest toRequest(
+            MockClientHttpRequest clientHttpRequest, byte[] body) {
+        org.springframework.mock.http.client.MockClientHttpRequest request = new org.springframework.mock.http.client.MockClientHttpRequest();
+        request.setMethod(clientHttpRequest.getMethod());
+        request.setURI(clientHttpRequest.getURI());
+        clientHttpRequest.getHeaders().entrySet().stream()
+                .filter(entry -> !entry.getKey().equals(COOKIE))
+                .forEach(entry -> request.getHeaders().addAll(entry.getKey(), entry.getValue()));
+        String requestCookies = clientHttpRequest.getCookies().values().stream()
+                .flatMap(Collection::stream)
+                .map(cookie -> cookie.getName() + "=" + cookie.getValue())
+                .collect(Collectors.joining("; "));
+        request.getHeaders().add(HttpHeaders.COOKIE, requestCookies);
+        try {
+            request.getBody().write(body);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return request;
+    }
+
+    private Mono<ClientHttpResponse> respond(org.springframework.http.client.ClientHttpRequest request) {
+        ClientHttpResponse response;
+        try {
+            response = toResponse(requestHandler.handle(request));
         } catch (IOException e) {
             throw new AssertionError(e);
         }
+        Duration delay = responseDelay.apply(request);
+        if (delay.isZero()) {
+            return Mono.just(response);
+        }
+        return Mono.delay(delay).map(tick -> response);
+    }
+
+    private MockClientHttpResponse toResponse(org.springframework.http.client.ClientHttpResponse response) throws IOException {
+        MockClientHttpResponse mockClientHttpResponse = new MockClientHttpResponse(response.getStatusCode());
+        mockClientHttpResponse.getHeaders().addAll(response.getHeaders());
+
+        List<String> responseCookies = Optional.ofNullable(
+                response.getHeaders().get(SET_COOKIE)).orElse(Collections.emptyList());
+        responseCookies.forEach(cookie -> {
+            ResponseCookie responseCookie = toResponseCookie(cookie);
+            mockClientHttpResponse.getCookies().add(responseCookie.getName(), responseCookie);
+        });
+
+        InputStream body = response.getBody();
+        mockClientHttpResponse.setBody(DataBufferUtils.readInputStream(() -> body, bufferFactory, CHUNK_SIZE));
+        return mockClientHttpResponse;
     }
 
     private ResponseCookie toResponseCookie(String cookie) {
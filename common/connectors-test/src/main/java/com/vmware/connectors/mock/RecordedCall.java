@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.mock;
+
+import org.springframework.http.HttpMethod;
+
+import java.net.URI;
+
+/**
+ * A backend call made through the {@link MockClientHttpConnector}, with its
+ * timing in {@link System#nanoTime()} units: from the exchange to the
+ * response, or to its cancellation, like when a timeout fires first.
+ */
+public final class RecordedCall {
+
+    private final HttpMethod method;
+    private final URI uri;
+    private final long startNanos;
+    private volatile long endNanos;
+    private volatile boolean ended;
+    private volatile boolean cancelled;
+
+    RecordedCall(HttpMethod method, URI uri, long startNanos) {
+        this.method = method;
+        this.uri = uri;
+        this.startNanos = startNanos;
+    }
+
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return whether the call got its response or was cancelled
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Only meaningful once the call {@link #isEnded() ended}.
+     */
+    public long getEndNanos() {
+        return endNanos;
+    }
+
+    public boolean isCompleted() {
+        return ended && !cancelled;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return whether both calls were in progress at some point, which
+     * unfinished calls are assumed to still be
+     */
+    public boolean overlaps(RecordedCall other) {
+        return startNanos < end(other) && other.startNanos < end(this);
+    }
+
+    void complete(long nanos) {
+        // The end is written first, so whoever sees the call ended sees its end
+        endNanos = nanos;
+        ended = true;
+    }
+
+    void cancel(long nanos) {
+        endNanos = nanos;
+        cancelled = true;
+        ended = true;
+    }
+
+    private static long end(RecordedCall call) {
+        return call.ended ? call.endNanos : Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + uri;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.test;
+
+import com.vmware.connectors.mock.RecordedCall;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The backend calls a request made, and how they were spread over time.
+ * <p>
+ * With no response delay, the mock backend answers each call before the
+ * next one starts, so the depth and concurrency are only meaningful once
+ * the responses are delayed.
+ */
+public final class BackendTimeline {
+
+    private final List<RecordedCall> calls;
+
+    public BackendTimeline(List<RecordedCall> calls) {
+        this.calls = calls.stream()
+                .sorted(Comparator.comparingLong(RecordedCall::getStartNanos))
+                .collect(Collectors.toList());
+    }
+
+    public List<RecordedCall> getCalls() {
+        return calls;
+    }
+
+    public int getCallCount() {
+        return calls.size();
+    }
+
+    /**
+     * The longest chain of calls that each started after the previous one
+     * ended, which is the number of round trips the request waited for.
+     */
+    public int getSerialDepth() {
+        int[] depths = new int[calls.size()];
+        int max = 0;
+        for (int i = 0; i < calls.size(); i++) {
+            depths[i] = 1;
+            for (int j = 0; j < i; j++) {
+                if (endedBefore(calls.get(j), calls.get(i))) {
+                    depths[i] = Math.max(depths[i], depths[j] + 1);
+                }
+            }
+            max = Math.max(max, depths[i]);
+        }
+        return max;
+    }
+
+    /**
+     * The most calls that were in progress at the same time.
+     */
+    public int getPeakConcurrency() {
+        int peak = 0;
+        for (RecordedCall call : calls) {
+            // The peak is reached when some call starts
+            int inProgress = (int) calls.stream()
+                    .filter(other -> other.getStartNanos() <= call.getStartNanos() && !endedBefore(other, call))
+                    .count();
+            peak = Math.max(peak, inProgress);
+        }
+        return peak;
+    }
+
+    private static boolean endedBefore(RecordedCall first, RecordedCall second) {
+        return first.isEnded() && first.getEndNanos() <= second.getStartNanos();
+    }
+
+    @Override
+    public String toString() {
+        if (calls.isEmpty()) {
+            return "No backend calls";
+        }
+        long origin = calls.get(0).getStartNanos();
+        List<String> lines = new ArrayList<>();
+        for (RecordedCall call : calls) {
+            String end = call.isEnded() ? millis(call.getEndNanos() - origin) + "ms" : "...";
+            lines.add(String.format("%dms-%s %s%s", millis(call.getStartNanos() - origin), end, call,
+                    call.isCancelled() ? " (cancelled)" : ""));
+        }
+        return "Backend calls:\n" + String.join("\n", lines);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -6,6 +6,8 @@
 package com.vmware.connectors.test;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.vmware.connectors.common.web.BackendIsolation;
 import com.vmware.connectors.mock.MockClientHttpConnector;
 import com.vmware.connectors.mock.RequestHandlerHolder;
 import org.apache.commons.io.IOUtils;
@@ -13,12 +15,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientCodecCustomizer;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpMethod;
 import org.springframework.test.context.TestPropertySource;
@@ -43,10 +46,12 @@ import java.util.regex.Pattern;
 
 import static org.hamcrest.CoreMatchers.anything;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_STREAM_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
@@ -69,6 +74,15 @@ public class ControllerTestsBase {
     @Autowired
     protected RequestHandlerHolder requestHandlerHolder;
 
+    @Autowired
+    protected MockClientHttpConnector mockConnector;
+
+    @Autowired
+    protected InMemorySpanExporter spanExporter;
+
+    @Autowired
+    protected BackendIsolation backendIsolation;
+
     @Autowired
     protected JwtUtils jwt;
 
@@ -88,15 +102,35 @@ public class ControllerTestsBase {
         }
 
         @Bean
-        public WebClient.Builder webClientBuilder(WebClientCodecCustomizer codecCustomizer) {
+        public MockClientHttpConnector mockClientHttpConnector() {
+            return new MockClientHttpConnector(requestHandler());
+        }
+
+        @Bean
+        public InMemorySpanExporter spanExporter() {
+            return new InMemorySpanExporter();
+        }
+
+        /*
+         * Customized like the connector's own builder (codecs, filters), but
+         * connected to the mock backend.
+         */
+        @Bean
+        public WebClient.Builder webClientBuilder(List<WebClientCustomizer> customizers) {
             WebClient.Builder builder = WebClient.builder();
-            codecCustomizer.customize(builder);
-            builder.clientConnector(new MockClientHttpConnector(requestHandler()));
+            List<WebClientCustomizer> sorted = new ArrayList<>(customizers);
+            AnnotationAwareOrderComparator.sort(sorted);
+            sorted.forEach(customizer -> customizer.customize(builder));
+            builder.clientConnector(mockClientHttpConnector());
             return builder;
         }
     }
 
     protected void setup() throws Exception {
+        mockConnector.reset();
+        spanExporter.reset();
+        // The circuits are shared by the tests of a context, which may have made their backends fail
+        backendIsolation.reset();
         auth = jwt.createAccessToken();
     }
 
@@ -104,6 +138,30 @@ public class ControllerTestsBase {
         return auth;
     }
 
+    /**
+     * The backend calls made since {@link #setup()}.
+     */
+    protected BackendTimeline backendTimeline() {
+        return new BackendTimeline(mockConnector.getCalls());
+    }
+
+    /**
+     * Pins the backend round-trip budget of what a test just requested, so a
+     * batched call turning into one call per item, or parallel calls made one
+     * after the other, fail the test.
+     * <p>
+     * Delay the backend responses first, with {@code mockConnector.setResponseDelay},
+     * for calls made in parallel to overlap.
+     *
+     * @param maxCalls the most backend calls allowed
+     * @param maxSerialDepth the most round trips allowed to follow each other
+     */
+    protected void assertBackendRoundTrips(int maxCalls, int maxSerialDepth) {
+        BackendTimeline timeline = backendTimeline();
+        assertThat(timeline.toString(), timeline.getCallCount(), lessThanOrEqualTo(maxCalls));
+        assertThat(timeline.toString(), timeline.getSerialDepth(), lessThanOrEqualTo(maxSerialDepth));
+    }
+
     protected void testProtectedResource(HttpMethod method, String uri) throws Exception {
         // Try without authorization; should never work
         perform(request(method, uri))
@@ -127,6 +185,27 @@ public class ControllerTestsBase {
         return resultActions;
     }
 
+    /**
+     * Requests the cards as application/stream+json, one card per line.
+     *
+     * @return the streamed cards, wrapped like the buffered response: {"cards": [...]}
+     */
+    protected String performStreamed(MockHttpServletRequestBuilder builder) throws Exception {
+        String body = perform(builder.accept(APPLICATION_STREAM_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_STREAM_JSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        ArrayNode cards = mapper.createArrayNode();
+        for (String line : body.split("\n")) {
+            if (!line.trim().isEmpty()) {
+                cards.add(mapper.readTree(line));
+            }
+        }
+        return mapper.createObjectNode().set("cards", cards).toString();
+    }
+
     protected static RequestPostProcessor token(String accessToken) {
         return request -> {
             request.addHeader(AUTHORIZATION, "Bearer " + accessToken);
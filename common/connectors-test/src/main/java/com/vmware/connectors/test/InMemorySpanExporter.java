@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.test;
+
+import com.vmware.connectors.common.tracing.Span;
+import com.vmware.connectors.common.tracing.SpanExporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the spans in memory, in the order they ended. It stands in for a
+ * trace collector in the controller tests, which reset it between tests.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final List<Span> spans = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void export(Span span) {
+        spans.add(span);
+    }
+
+    public List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public List<Span> getTrace(String traceId) {
+        return spans.stream()
+                .filter(span -> span.getContext().getTraceId().equals(traceId))
+                .collect(Collectors.toList());
+    }
+
+    public List<Span> getChildren(Span parent) {
+        return spans.stream()
+                .filter(span -> parent.getContext().getSpanId().equals(span.getParentSpanId()))
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        spans.clear();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.test;
+
+import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.web.BackendIsolation;
+import com.vmware.connectors.mock.MockClientHttpConnector;
+import com.vmware.connectors.mock.RequestHandlerHolder;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Like {@link ControllerTestsBase}, but runs the connector on the WebFlux
+ * runtime, with {@code spring.main.web-application-type=reactive}, and
+ * requests it with a {@link WebTestClient}.
+ */
+@ExtendWith(SpringExtension.class)
+@AutoConfigureWebTestClient
+@TestPropertySource(locations = "classpath:application-test.properties")
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@Import({JwtUtils.class, ControllerTestsBase.ControllerTestConfiguration.class})
+@SuppressWarnings("PMD.SignatureDeclareThrowsException")
+public class ReactiveControllerTestsBase {
+
+    @Autowired
+    protected RequestHandlerHolder requestHandlerHolder;
+
+    @Autowired
+    protected MockClientHttpConnector mockConnector;
+
+    @Autowired
+    protected InMemorySpanExporter spanExporter;
+
+    @Autowired
+    protected BackendIsolation backendIsolation;
+
+    @Autowired
+    protected JwtUtils jwt;
+
+    @Autowired
+    protected WebTestClient webClient;
+
+    @Autowired
+    private MdcRecorder mdcRecorder;
+
+    private String auth;
+
+    @TestConfiguration
+    static class ReactiveControllerTestConfiguration {
+
+        @Bean
+        public MdcRecorder mdcRecorder() {
+            return new MdcRecorder();
+        }
+    }
+
+    /*
+     * Records the MDC that each backend call is made with, as the reactive
+     * context carries it.
+     */
+    static class MdcRecorder implements WebClientCustomizer {
+
+        private final List<Map<String, String>> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void customize(WebClient.Builder builder) {
+            builder.filter((request, next) -> Mono.just(request)
+                    .flatMap(Reactive.wrapMapper(ignored ->
+                            Optional.ofNullable(MDC.getCopyOfContextMap()).orElseGet(Collections::emptyMap)))
+                    .flatMap(mdc -> {
+                        calls.add(mdc);
+                        return next.exchange(request);
+                    }));
+        }
+    }
+
+    protected void setup() throws Exception {
+        mockConnector.reset();
+        spanExporter.reset();
+        backendIsolation.reset();
+        mdcRecorder.calls.clear();
+        auth = jwt.createAccessToken();
+    }
+
+    protected String accessToken() {
+        return auth;
+    }
+
+    /**
+     * The MDC of the backend calls made since {@link #setup()}.
+     */
+    protected List<Map<String, String>> backendMdc() {
+        return mdcRecorder.calls;
+    }
+
+    protected void testProtectedResource(HttpMethod method, String uri) throws Exception {
+        // Try without authorization; should never work
+        webClient.method(method).uri(uri)
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        // Try with expired token
+        webClient.method(method).uri(uri)
+                .header(AUTHORIZATION, "Bearer " + jwt.createAccessToken(Instant.now()))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+}
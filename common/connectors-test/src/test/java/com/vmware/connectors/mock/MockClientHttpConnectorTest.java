@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.mock;
+
+import com.vmware.connectors.test.BackendTimeline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+
+class MockClientHttpConnectorTest {
+
+    private MockClientHttpConnector connector;
+
+    private WebClient rest;
+
+    @BeforeEach
+    void setup() {
+        // Every response body is the path of its request
+        connector = new MockClientHttpConnector(request -> {
+            MockClientHttpResponse response = new MockClientHttpResponse(
+                    request.getURI().getPath().getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+            response.getHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE);
+            return response;
+        });
+        rest = WebClient.builder()
+                .baseUrl("https://backend.example.com")
+                .clientConnector(connector)
+                .build();
+    }
+
+    @Test
+    void perItemTimeoutsFire() {
+        connector.setResponseDelay(request -> "/slow".equals(request.getURI().getPath())
+                ? Duration.ofMillis(500)
+                : Duration.ofMillis(50));
+
+        List<String> bodies = Flux.just("/fast", "/slow")
+                .flatMap(path -> rest.get()
+                        .uri(path)
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .timeout(Duration.ofMillis(200))
+                        .onErrorResume(TimeoutException.class, e -> Mono.just("timed out")))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(bodies, contains("/fast", "timed out"));
+
+        List<RecordedCall> calls = connector.getCalls();
+        assertThat(calls, hasSize(2));
+        RecordedCall fast = calls.get(0);
+        RecordedCall slow = calls.get(1);
+        assertThat(fast.isCompleted(), is(true));
+        assertThat(slow.isEnded(), is(true));
+        assertThat(slow.isCancelled(), is(true));
+        assertThat(slow.isCompleted(), is(false));
+        long slowMillis = TimeUnit.NANOSECONDS.toMillis(slow.getEndNanos() - slow.getStartNanos());
+        assertThat(slowMillis, greaterThanOrEqualTo(200L));
+        assertThat(slowMillis, lessThan(500L));
+
+        BackendTimeline timeline = new BackendTimeline(calls);
+        assertThat(timeline.getPeakConcurrency(), is(2));
+        assertThat(timeline.getSerialDepth(), is(1));
+    }
+
+    @Test
+    void callsInProgressHaveNotEnded() {
+        connector.setResponseDelay(Duration.ofSeconds(10));
+
+        Disposable call = rest.get()
+                .uri("/pending")
+                .retrieve()
+                .bodyToMono(String.class)
+                .subscribe();
+
+        RecordedCall pending = connector.getCalls().get(0);
+        assertThat(pending.isEnded(), is(false));
+        assertThat(pending.isCompleted(), is(false));
+        assertThat(pending.overlaps(pending), is(true));
+
+        call.dispose();
+
+        assertThat(pending.isEnded(), is(true));
+        assertThat(pending.isCancelled(), is(true));
+    }
+}
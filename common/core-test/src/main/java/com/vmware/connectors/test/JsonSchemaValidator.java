@@ -5,48 +5,39 @@
 
 package com.vmware.connectors.test;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.fge.jsonschema.core.exceptions.ProcessingException;
-import com.github.fge.jsonschema.core.report.ProcessingReport;
-import com.github.fge.jsonschema.main.JsonSchema;
-import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.vmware.connectors.common.json.CardResponseValidator;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
 
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
-public class JsonSchemaValidator {
+public final class JsonSchemaValidator {
 
-    private static final Logger logger = LoggerFactory.getLogger(JsonSchemaValidator.class);
-
-    private static final String CONNECTOR_CARD_RESPONSE_SCHEMA_DOC = "/schemata/herocard-connector-response-schema.json";
-
-    private static final ObjectMapper mapper = new ObjectMapper();
-
-    private static final JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
+    /*
+     * The same validator as in production, checking every response. It
+     * compiles the schema once, the first time it's needed, and can be shared
+     * by all the tests, including parallel ones.
+     */
+    private static final class ConnectorCardResponse {
+        private static final CardResponseValidator VALIDATOR = new CardResponseValidator(new ObjectMapper(), 1);
+    }
 
-    private final JsonSchema schema;
+    private JsonSchemaValidator() {
+        // Do not construct
+    }
 
-    public static JsonSchemaValidator getConnectorCardResponseSchemaValidator() throws IOException, ProcessingException {
-        return new JsonSchemaValidator(new ClassPathResource(CONNECTOR_CARD_RESPONSE_SCHEMA_DOC));
+    public static CardResponseValidator getConnectorCardResponseSchemaValidator() {
+        return ConnectorCardResponse.VALIDATOR;
     }
 
     public static Matcher<String> isValidHeroCardConnectorResponse() {
         return new BaseMatcher<String>() {
             @Override
             public boolean matches(Object item) {
-                try {
-                    return getConnectorCardResponseSchemaValidator().validate(mapper.readTree(item.toString()));
-                } catch (ProcessingException | IOException e) {
-                    logger.error("Exception ", e);
-                    return false;
-                }
+                // Invalid responses are logged by the validator
+                return ConnectorCardResponse.VALIDATOR.validate(item.toString().getBytes(StandardCharsets.UTF_8));
             }
 
             @Override
@@ -55,23 +46,4 @@ public class JsonSchemaValidator {
             }
         };
     }
-
-    public JsonSchemaValidator(String jsonString) throws IOException, ProcessingException {
-        JsonNode schemaJson = mapper.readTree(jsonString);
-        schema = factory.getJsonSchema(schemaJson);
-    }
-
-    public JsonSchemaValidator(Resource res) throws IOException, ProcessingException {
-        JsonNode schemaJson = mapper.readTree(res.getInputStream());
-        schema = factory.getJsonSchema(schemaJson);
-    }
-
-    public boolean validate(JsonNode docNode) throws ProcessingException {
-        ProcessingReport report = schema.validate(docNode);
-        boolean valid = report.isSuccess();
-        if (!valid) {
-            logger.error("Processing report: {}", report);
-        }
-        return valid;
-    }
 }
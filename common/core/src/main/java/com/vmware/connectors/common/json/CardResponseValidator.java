@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Checks a sample of the card responses against the hero card response
+ * schema, to catch malformed cards in production without paying for the
+ * validation on every response.
+ * <p>
+ * The schema is compiled once. A compiled schema is immutable, so one
+ * validator serves all the requests. Invalid responses are logged, never
+ * rejected.
+ */
+public final class CardResponseValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardResponseValidator.class);
+
+    private static final String SCHEMA = "/schemata/herocard-connector-response-schema.json";
+
+    private final ObjectMapper mapper;
+    private final double sampleRate;
+    private final JsonSchema schema;
+
+    /**
+     * @param sampleRate the share of the responses to validate, from 0 (none) to 1 (all)
+     */
+    public CardResponseValidator(ObjectMapper mapper, double sampleRate) {
+        this.mapper = mapper;
+        this.sampleRate = sampleRate;
+        this.schema = sampleRate > 0 ? loadSchema(mapper) : null;
+    }
+
+    /**
+     * Decides whether this response is part of the sample.
+     */
+    public boolean isSampled() {
+        return sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    public boolean validate(Object response) {
+        return validate(mapper.valueToTree(response));
+    }
+
+    public boolean validate(byte[] response) {
+        try {
+            return validate(mapper.readTree(response));
+        } catch (IOException e) {
+            logger.warn("Card response is not JSON: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean validate(JsonNode response) {
+        if (schema == null) {
+            return true;
+        }
+        try {
+            ProcessingReport report = schema.validate(response);
+            if (!report.isSuccess()) {
+                logger.warn("Card response doesn't match the schema: {}", report);
+            }
+            return report.isSuccess();
+        } catch (ProcessingException e) {
+            logger.warn("Card response couldn't be validated", e);
+            return false;
+        }
+    }
+
+    private static JsonSchema loadSchema(ObjectMapper mapper) {
+        try (InputStream in = CardResponseValidator.class.getResourceAsStream(SCHEMA)) {
+            return JsonSchemaFactory.byDefault().getJsonSchema(mapper.readTree(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ProcessingException e) {
+            throw new IllegalStateException("Invalid schema " + SCHEMA, e);
+        }
+    }
+}
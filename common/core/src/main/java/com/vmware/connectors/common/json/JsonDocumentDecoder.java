@@ -7,6 +7,7 @@ package com.vmware.connectors.common.json;
 
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.vmware.connectors.common.utils.Reactive;
 import org.apache.commons.io.IOUtils;
 import org.reactivestreams.Publisher;
 import org.springframework.core.ResolvableType;
@@ -60,7 +61,16 @@ public class JsonDocumentDecoder implements HttpMessageDecoder<JsonDocument> {
                 })
                 .collect(StringBuilder::new, StringBuilder::append)
                 .map(StringBuilder::toString)
-                .map(message -> new JsonDocument(jsonProvider.parse(message)));
+                .flatMap(message -> Mono.subscriberContext()
+                        .map(context -> {
+                            // Only the parsing is timed, not the wait for the body
+                            long start = System.nanoTime();
+                            try {
+                                return new JsonDocument(jsonProvider.parse(message));
+                            } finally {
+                                Reactive.getServerTiming(context).recordDecode(System.nanoTime() - start);
+                            }
+                        }));
     }
 
     @Override
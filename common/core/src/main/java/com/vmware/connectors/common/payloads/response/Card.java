@@ -7,6 +7,8 @@ package com.vmware.connectors.common.payloads.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.vmware.connectors.common.utils.IdGenerator;
+import com.vmware.connectors.common.utils.IdGenerators;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
@@ -61,7 +63,6 @@ public class Card {
     // Don't instantiate directly -- use a Card.Builder
     private Card() {
         this.actions = new ArrayList<>();
-        this.id = UUID.randomUUID();
         this.creationDate = OffsetDateTime.now();
     }
 
@@ -168,12 +169,23 @@ public class Card {
      */
     public static class Builder {
 
+        private final IdGenerator idGenerator;
         private Card card;
 
         /**
-         * Create a new Builder instance.
+         * Create a new Builder instance, with the default id generator.
          */
         public Builder() {
+            this(IdGenerators.defaultGenerator());
+        }
+
+        /**
+         * Create a new Builder instance.
+         *
+         * @param idGenerator the generator of the ids of the Cards built
+         */
+        public Builder(IdGenerator idGenerator) {
+            this.idGenerator = idGenerator;
             this.card = new Card();
         }
 
@@ -251,6 +263,18 @@ public class Card {
             return this;
         }
 
+        /**
+         * Set the template of the Card under construction. Links are immutable, so the same one
+         * can be shared by all the Cards of a response.
+         *
+         * @param template the Card's template link
+         * @return this Builder instance, for method chaining
+         */
+        public Builder setTemplate(Link template) {
+            card.template = template;
+            return this;
+        }
+
         /**
          * Set connector image link.
          *
@@ -262,6 +286,17 @@ public class Card {
             return this;
         }
 
+        /**
+         * Set connector image link.
+         *
+         * @param image connector image link, which can be shared by all the Cards of a response.
+         * @return this Builder instance, for method chaining
+         */
+        public Builder setImage(Link image) {
+            card.image = image;
+            return this;
+        }
+
         /**
          * Set the header of the Card under construction.
          *
@@ -334,9 +369,12 @@ public class Card {
          *
          * @return The completed Card
          */
-        @SuppressWarnings("PMD.UnnecessaryLocalBeforeReturn")
         public Card build() {
             Card completedCard = this.card;
+            // Assigned here rather than in the constructor, as reset() creates an instance that may never be built
+            if (completedCard.id == null) {
+                completedCard.id = idGenerator.nextId();
+            }
             reset();
             return completedCard;
         }
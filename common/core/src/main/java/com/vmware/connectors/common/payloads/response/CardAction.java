@@ -7,6 +7,8 @@ package com.vmware.connectors.common.payloads.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.vmware.connectors.common.utils.IdGenerator;
+import com.vmware.connectors.common.utils.IdGenerators;
 import org.springframework.http.HttpMethod;
 
 import java.util.ArrayList;
@@ -69,7 +71,6 @@ public class CardAction {
         this.type = HttpMethod.GET;
         this.request = new HashMap<>();
         this.userInput = new ArrayList<>();
-        this.id = UUID.randomUUID();
         this.completedLabel = "Completed";
     }
 
@@ -197,6 +198,7 @@ public class CardAction {
      */
     public static class Builder {
 
+        private final IdGenerator idGenerator;
         private CardAction action;
 
         /**
@@ -212,9 +214,19 @@ public class CardAction {
         }
 
         /**
-         * Create a new Builder instance.
+         * Create a new Builder instance, with the default id generator.
          */
         public Builder() {
+            this(IdGenerators.defaultGenerator());
+        }
+
+        /**
+         * Create a new Builder instance.
+         *
+         * @param idGenerator the generator of the ids of the {@link CardAction}s built
+         */
+        public Builder(IdGenerator idGenerator) {
+            this.idGenerator = idGenerator;
             action = new CardAction();
         }
 
@@ -369,9 +381,12 @@ public class CardAction {
          *
          * @return The completed CardAction
          */
-        @SuppressWarnings("PMD.UnnecessaryLocalBeforeReturn")
         public CardAction build() {
             CardAction completedAction = this.action;
+            // Assigned here rather than in the constructor, as reset() creates an instance that may never be built
+            if (completedAction.id == null) {
+                completedAction.id = idGenerator.nextId();
+            }
             reset();
             return completedAction;
         }
@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A timed operation of a trace: a request to the connector, a backend call
+ * or a step in between. Ending a sampled span hands it to the
+ * {@link SpanExporter}.
+ * <p>
+ * A span may be ended from another thread than the one that started it.
+ */
+public final class Span {
+
+    /**
+     * The request attribute under which the servlet filter keeps the request's span.
+     */
+    public static final String ATTRIBUTE = Span.class.getName();
+
+    public enum Kind {
+        SERVER, CLIENT, INTERNAL
+    }
+
+    private final Tracer tracer;
+    private final String name;
+    private final Kind kind;
+    private final TraceContext context;
+    private final String parentSpanId;
+    private final long startEpochMicros;
+    private final long startNanos;
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private volatile long durationNanos = -1;
+    private volatile boolean error;
+
+    Span(Tracer tracer, String name, Kind kind, TraceContext context, String parentSpanId) {
+        this.tracer = tracer;
+        this.name = name;
+        this.kind = kind;
+        this.context = context;
+        this.parentSpanId = parentSpanId;
+        this.startEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a span of this one's trace, with this one as its parent.
+     */
+    public Span startChild(String name, Kind kind) {
+        return tracer.startSpan(name, kind, this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public TraceContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return the span id of the parent, or null for the root of a trace
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    /**
+     * @return -1 until the span is ended
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    public Map<String, String> getAttributes() {
+        synchronized (attributes) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+        }
+    }
+
+    public Span setAttribute(String key, Object value) {
+        if (context.isSampled() && value != null) {
+            synchronized (attributes) {
+                attributes.put(key, value.toString());
+            }
+        }
+        return this;
+    }
+
+    public Span setError(Throwable throwable) {
+        error = true;
+        return setAttribute("error", throwable.getClass().getName());
+    }
+
+    public Span setError() {
+        error = true;
+        return this;
+    }
+
+    /**
+     * Ends the span. Only the first call counts.
+     */
+    public void end() {
+        if (ended.compareAndSet(false, true)) {
+            durationNanos = System.nanoTime() - startNanos;
+            if (context.isSampled()) {
+                tracer.export(this);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + name + " " + context.getTraceId() + "/" + context.getSpanId()
+                + (parentSpanId == null ? "" : " <- " + parentSpanId)
+                + " " + TimeUnit.NANOSECONDS.toMicros(durationNanos) + "us"
+                + (error ? " error" : "") + " " + getAttributes();
+    }
+}
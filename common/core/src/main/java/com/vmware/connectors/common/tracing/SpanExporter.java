@@ -0,0 +1,19 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.tracing;
+
+/**
+ * Where the ended spans go: a log, a trace collector...
+ * <p>
+ * It is called on the thread that ended the span, often an event loop, so
+ * an exporter sending spans over the network should queue them and send
+ * them in the background.
+ */
+@FunctionalInterface
+public interface SpanExporter {
+
+    void export(Span span);
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.tracing;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.annotations.AutoProperty;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The identity of a span, as carried from service to service by the W3C
+ * trace-context headers:
+ * <pre>
+ * traceparent: 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01
+ * tracestate: vendor=opaque
+ * </pre>
+ * The {@code tracestate} is passed on untouched.
+ */
+@AutoProperty
+public final class TraceContext {
+
+    public static final String TRACEPARENT = "traceparent";
+    public static final String TRACESTATE = "tracestate";
+
+    private static final String VERSION = "00";
+    private static final int TRACEPARENT_LENGTH = 55;
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+    private static final String INVALID_SPAN_ID = "0000000000000000";
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+    private final String traceState;
+
+    private TraceContext(String traceId, String spanId, boolean sampled, String traceState) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+        this.traceState = traceState;
+    }
+
+    /**
+     * Starts a new trace.
+     */
+    static TraceContext newTrace(boolean sampled) {
+        return new TraceContext(randomId() + randomId(), randomId(), sampled, null);
+    }
+
+    /**
+     * @return the context of a new span in the same trace
+     */
+    TraceContext newChild() {
+        return new TraceContext(traceId, randomId(), sampled, traceState);
+    }
+
+    /**
+     * Reads the headers received from the caller.
+     *
+     * @param traceparent the traceparent header, may be null
+     * @param tracestate the tracestate header, may be null
+     * @return the caller's context, or empty when the traceparent is missing or invalid
+     */
+    public static Optional<TraceContext> parse(String traceparent, String tracestate) {
+        if (traceparent == null) {
+            return Optional.empty();
+        }
+        String value = traceparent.trim();
+        // Later versions may append fields, but must keep these ones
+        if (value.length() < TRACEPARENT_LENGTH
+                || value.length() > TRACEPARENT_LENGTH && value.charAt(TRACEPARENT_LENGTH) != '-'
+                || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-') {
+            return Optional.empty();
+        }
+        String version = value.substring(0, 2);
+        String traceId = value.substring(3, 35);
+        String spanId = value.substring(36, 52);
+        String flags = value.substring(53, 55);
+        if (!isHex(version) || "ff".equals(version)
+                || VERSION.equals(version) && value.length() != TRACEPARENT_LENGTH
+                || !isHex(traceId) || INVALID_TRACE_ID.equals(traceId)
+                || !isHex(spanId) || INVALID_SPAN_ID.equals(spanId)
+                || !isHex(flags)) {
+            return Optional.empty();
+        }
+        boolean sampled = (Integer.parseInt(flags, 16) & 1) == 1;
+        return Optional.of(new TraceContext(traceId, spanId, sampled, tracestate));
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * @return the caller's tracestate, or null
+     */
+    public String getTraceState() {
+        return traceState;
+    }
+
+    /**
+     * @return the traceparent header that makes this span the parent of the callee's
+     */
+    public String toTraceparent() {
+        return VERSION + '-' + traceId + '-' + spanId + (sampled ? "-01" : "-00");
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String randomId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return String.format("%016x", id);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return Pojomatic.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return Pojomatic.hashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return Pojomatic.toString(this);
+    }
+}
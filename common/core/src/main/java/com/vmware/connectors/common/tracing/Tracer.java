@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts the spans of the connector's traces, and passes the sampled ones to
+ * a {@link SpanExporter} when they end.
+ * <p>
+ * A request that comes with a W3C {@code traceparent} joins the caller's
+ * trace, and keeps its sampling decision. Other requests start a trace of
+ * their own, and a share of them, the sample rate, is recorded. Unsampled
+ * spans still propagate the trace to the backends, but record nothing.
+ */
+public class Tracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(Tracer.class);
+
+    private final SpanExporter exporter;
+    private final double sampleRate;
+
+    /**
+     * @param sampleRate the share of the new traces to record, from 0 (none) to 1 (all)
+     */
+    public Tracer(SpanExporter exporter, double sampleRate) {
+        this.exporter = exporter;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Starts the span of a request to the connector.
+     *
+     * @param traceparent the request's traceparent header, may be null
+     * @param tracestate the request's tracestate header, may be null
+     */
+    public Span startServerSpan(String name, String traceparent, String tracestate) {
+        return TraceContext.parse(traceparent, tracestate)
+                .map(parent -> new Span(this, name, Span.Kind.SERVER, parent.newChild(), parent.getSpanId()))
+                .orElseGet(() -> new Span(this, name, Span.Kind.SERVER, TraceContext.newTrace(isSampled()), null));
+    }
+
+    /**
+     * Starts a span of the parent's trace.
+     */
+    public Span startSpan(String name, Span.Kind kind, Span parent) {
+        return new Span(this, name, kind, parent.getContext().newChild(), parent.getContext().getSpanId());
+    }
+
+    private boolean isSampled() {
+        return sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    void export(Span span) {
+        try {
+            exporter.export(span);
+        } catch (RuntimeException e) {
+            // Losing a span mustn't fail the request
+            logger.warn("Failed to export {}", span, e);
+        }
+    }
+}
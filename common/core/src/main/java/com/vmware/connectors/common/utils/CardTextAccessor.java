@@ -9,6 +9,9 @@ import org.springframework.context.MessageSource;
 
 import java.util.Locale;
 
+import static com.vmware.connectors.common.utils.LocaleMessages.COMPLETED_LABEL_SUFFIX;
+import static com.vmware.connectors.common.utils.LocaleMessages.LABEL_SUFFIX;
+
 public class CardTextAccessor extends TextAccessorBase {
 
     public CardTextAccessor(MessageSource messageSource) {
@@ -16,18 +19,26 @@ public class CardTextAccessor extends TextAccessorBase {
     }
 
     public String getActionLabel(String actionId, Locale locale, Object... args) {
-        return messageSource.getMessage(actionId + ".label", args, locale);
+        MessageTemplate template = locale == null ? null : getLocaleMessages(locale).getLabel(actionId);
+        if (template == null) {
+            return messageSource.getMessage(actionId + LABEL_SUFFIX, args, locale);
+        }
+        return template.format(args);
     }
 
     public String getActionCompletedLabel(String actionId, Locale locale, Object... args) {
-        return messageSource.getMessage(actionId + ".completedLabel", args, locale);
+        MessageTemplate template = locale == null ? null : getLocaleMessages(locale).getCompletedLabel(actionId);
+        if (template == null) {
+            return messageSource.getMessage(actionId + COMPLETED_LABEL_SUFFIX, args, locale);
+        }
+        return template.format(args);
     }
 
     public String getHeader(Locale locale, Object... args) {
-        return messageSource.getMessage("header", args, locale);
+        return getMessage("header", locale, args);
     }
 
     public String getBody(Locale locale, Object... args) {
-        return messageSource.getMessage("body", args, locale);
+        return getMessage("body", locale, args);
     }
 }
@@ -0,0 +1,22 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import java.util.UUID;
+
+/**
+ * Generates the ids of cards and card actions.
+ *
+ * @see IdGenerators
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * @return a new id, unique across all the connector nodes with overwhelming probability
+     */
+    UUID nextId();
+}
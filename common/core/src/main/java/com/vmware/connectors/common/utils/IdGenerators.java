@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * The card id generation strategies, for the {@link IdGenerator} given to the
+ * {@link com.vmware.connectors.common.payloads.response.Card} and
+ * {@link com.vmware.connectors.common.payloads.response.CardAction} builders.
+ * <p>
+ * {@link UUID#randomUUID()} draws from a SecureRandom shared by all threads, which
+ * becomes a contention point when many cards are built concurrently. The default
+ * strategy instead gives every thread its own generator. Each one is split from a
+ * root generator that is seeded from SecureRandom once per JVM.
+ * <p>
+ * SplittableRandom isn't a cryptographic generator: its ids are unique only
+ * statistically, like any random UUID, and can be predicted from earlier ones.
+ * Use {@link Strategy#SECURE_RANDOM} where ids must not be guessable.
+ */
+public final class IdGenerators {
+
+    public enum Strategy {
+        /**
+         * Version 4 UUIDs from the shared SecureRandom, as {@link UUID#randomUUID()}.
+         */
+        SECURE_RANDOM,
+
+        /**
+         * Version 4 UUIDs from a per-thread, non-cryptographic generator.
+         */
+        RANDOM,
+
+        /**
+         * Version 7 style UUIDs: a millisecond timestamp followed by 74 random bits
+         * from a per-thread generator, so ids sort by creation time.
+         */
+        TIME_ORDERED
+    }
+
+    private static final long VERSION_MASK = 0xF000L;
+    private static final long VARIANT_MASK = 0xC000_0000_0000_0000L;
+    private static final long IETF_VARIANT = 0x8000_0000_0000_0000L;
+
+    private static final SplittableRandom ROOT = new SplittableRandom(new SecureRandom().nextLong());
+
+    private static final ThreadLocal<SplittableRandom> RANDOMS = ThreadLocal.withInitial(IdGenerators::split);
+
+    private static final IdGenerator SECURE_RANDOM = UUID::randomUUID;
+
+    private static final IdGenerator RANDOM = IdGenerators::randomId;
+
+    private static final IdGenerator TIME_ORDERED = IdGenerators::timeOrderedId;
+
+    private IdGenerators() {
+        // Do not construct
+    }
+
+    /**
+     * @return the generator of the builders that aren't given one
+     */
+    public static IdGenerator defaultGenerator() {
+        return RANDOM;
+    }
+
+    public static IdGenerator of(Strategy strategy) {
+        switch (strategy) {
+            case SECURE_RANDOM:
+                return SECURE_RANDOM;
+            case TIME_ORDERED:
+                return TIME_ORDERED;
+            default:
+                return RANDOM;
+        }
+    }
+
+    private static SplittableRandom split() {
+        // SplittableRandom isn't thread-safe; this only runs once per thread
+        synchronized (ROOT) {
+            return ROOT.split();
+        }
+    }
+
+    private static UUID randomId() {
+        SplittableRandom random = RANDOMS.get();
+        long msb = random.nextLong() & ~VERSION_MASK | 0x4000L;
+        return new UUID(msb, randomLeastSigBits(random));
+    }
+
+    private static UUID timeOrderedId() {
+        SplittableRandom random = RANDOMS.get();
+        long msb = System.currentTimeMillis() << 16 | 0x7000L | random.nextInt(0x1000);
+        return new UUID(msb, randomLeastSigBits(random));
+    }
+
+    private static long randomLeastSigBits(SplittableRandom random) {
+        return random.nextLong() & ~VARIANT_MASK | IETF_VARIANT;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import org.springframework.context.MessageSource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The immutable table of message templates for one locale, resolved once through
+ * the MessageSource so locale fallback works exactly as it does for direct lookups.
+ * <p>
+ * Action labels are also indexed by action id, so looking them up doesn't
+ * require building the "(action id).label" code.
+ */
+final class LocaleMessages {
+
+    static final String LABEL_SUFFIX = ".label";
+    static final String COMPLETED_LABEL_SUFFIX = ".completedLabel";
+
+    static final LocaleMessages EMPTY = new LocaleMessages(Collections.emptyMap());
+
+    private final Map<String, MessageTemplate> byCode;
+    private final Map<String, MessageTemplate> labels;
+    private final Map<String, MessageTemplate> completedLabels;
+
+    private LocaleMessages(Map<String, MessageTemplate> byCode) {
+        this.byCode = Collections.unmodifiableMap(byCode);
+        this.labels = Collections.unmodifiableMap(bySuffix(byCode, LABEL_SUFFIX));
+        this.completedLabels = Collections.unmodifiableMap(bySuffix(byCode, COMPLETED_LABEL_SUFFIX));
+    }
+
+    static LocaleMessages resolve(MessageSource messageSource, Set<String> codes, Locale locale) {
+        Map<String, MessageTemplate> byCode = new HashMap<>();
+        for (String code : codes) {
+            // Without args the MessageSource returns the message unformatted
+            String message = messageSource.getMessage(code, null, null, locale);
+            // When the code isn't available in this locale, lookups go to the MessageSource and fail there as before
+            if (message != null) {
+                byCode.put(code, new MessageTemplate(message, locale));
+            }
+        }
+        return new LocaleMessages(byCode);
+    }
+
+    MessageTemplate get(String code) {
+        return byCode.get(code);
+    }
+
+    MessageTemplate getLabel(String actionId) {
+        return labels.get(actionId);
+    }
+
+    MessageTemplate getCompletedLabel(String actionId) {
+        return completedLabels.get(actionId);
+    }
+
+    private static Map<String, MessageTemplate> bySuffix(Map<String, MessageTemplate> byCode, String suffix) {
+        Map<String, MessageTemplate> bySuffix = new HashMap<>();
+        byCode.forEach((code, template) -> {
+            if (code.endsWith(suffix)) {
+                bySuffix.put(code.substring(0, code.length() - suffix.length()), template);
+            }
+        });
+        return bySuffix;
+    }
+}
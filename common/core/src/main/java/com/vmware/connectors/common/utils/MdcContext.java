@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import org.slf4j.MDC;
+import org.slf4j.spi.MDCAdapter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * An immutable snapshot of a request's MDC values, kept in the reactive context
+ * once per request so that per-item work doesn't have to copy MDC maps around.
+ * <p>
+ * A wrapped call sees exactly these values in the thread's MDC: keys that
+ * aren't part of the context, like ones another request left on a pooled
+ * thread, are cleared for the call. Only the keys that differ are set, and
+ * only those are put back afterwards. The thread's MDC is compared key by key,
+ * reading Logback's own map rather than a copy, so on a thread that already
+ * carries the request's MDC nothing is set or copied. Elsewhere, the previous
+ * values of the keys that differ are kept in one small map, and Logback copies
+ * its own map once, on the first key set after reading it.
+ */
+public final class MdcContext {
+
+    private static final MdcContext EMPTY = new MdcContext(Collections.emptyMap());
+
+    private final Map<String, String> contextMap;
+
+    private MdcContext(Map<String, String> contextMap) {
+        this.contextMap = contextMap;
+    }
+
+    public static MdcContext empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param contextMap the MDC values, may be null
+     * @return a snapshot of the values
+     */
+    public static MdcContext of(Map<String, String> contextMap) {
+        if (contextMap == null || contextMap.isEmpty()) {
+            return empty();
+        }
+        Map<String, String> values = new HashMap<>(contextMap.size() * 2);
+        for (Map.Entry<String, String> entry : contextMap.entrySet()) {
+            if (entry.getValue() != null) {
+                values.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return values.isEmpty() ? empty() : new MdcContext(Collections.unmodifiableMap(values));
+    }
+
+    /**
+     * @return a snapshot of the MDC currently set on the thread
+     */
+    public static MdcContext current() {
+        return of(MDC.getCopyOfContextMap());
+    }
+
+    public boolean isEmpty() {
+        return contextMap.isEmpty();
+    }
+
+    /**
+     * Calls the supplier with exactly these values in the thread's MDC.
+     *
+     * @param supplier the call to make
+     * @param <R> the result type
+     * @return the supplier's result
+     */
+    public <R> R callWith(Supplier<R> supplier) {
+        Map<String, String> previous = apply();
+        try {
+            return supplier.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Runs the action with exactly these values in the thread's MDC.
+     *
+     * @param action the action to run
+     */
+    public void runWith(Runnable action) {
+        Map<String, String> previous = apply();
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /*
+     * Sets the keys whose values differ from this context's, and returns
+     * their previous values, a null value for a key that wasn't set, or
+     * null when nothing differed.
+     */
+    private Map<String, String> apply() {
+        Map<String, String> threadMap = threadMap();
+        Map<String, String> previous = null;
+        if (threadMap != null) {
+            for (Map.Entry<String, String> entry : threadMap.entrySet()) {
+                if (!contextMap.containsKey(entry.getKey())) {
+                    previous = put(previous, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        for (Map.Entry<String, String> entry : contextMap.entrySet()) {
+            String current = threadMap == null ? null : threadMap.get(entry.getKey());
+            if (!entry.getValue().equals(current)) {
+                previous = put(previous, entry.getKey(), current);
+            }
+        }
+        if (previous != null) {
+            // Once done reading the thread's map, which may be the adapter's own
+            for (String key : previous.keySet()) {
+                set(key, contextMap.get(key));
+            }
+        }
+        return previous;
+    }
+
+    private static void restore(Map<String, String> previous) {
+        if (previous != null) {
+            previous.forEach(MdcContext::set);
+        }
+    }
+
+    /*
+     * The adapter's own map with Logback, which only reads it, rather than a copy.
+     */
+    private static Map<String, String> threadMap() {
+        MDCAdapter adapter = MDC.getMDCAdapter();
+        if (adapter instanceof LogbackMDCAdapter) {
+            return ((LogbackMDCAdapter) adapter).getPropertyMap();
+        }
+        return adapter.getCopyOfContextMap();
+    }
+
+    private static Map<String, String> put(Map<String, String> values, String key, String value) {
+        Map<String, String> map = values == null ? new HashMap<>() : values;
+        map.put(key, value);
+        return map;
+    }
+
+    private static void set(String key, String value) {
+        if (value == null) {
+            MDC.remove(key);
+        } else {
+            MDC.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+
+/**
+ * A resolved message and its compiled formatter.
+ * <p>
+ * Formats the same way as Spring's AbstractMessageSource: the message is returned
+ * as is when there are no args, and through a MessageFormat otherwise. The pattern
+ * is parsed once, when first formatted with args. MessageFormat isn't thread-safe,
+ * so each call formats with a clone of the parsed one, which is never used itself.
+ */
+final class MessageTemplate {
+
+    private final String message;
+
+    private final Locale locale;
+
+    // Parsed at most a few times if threads race, never half-built
+    private volatile MessageFormat parsed;
+
+    MessageTemplate(String message, Locale locale) {
+        this.message = message;
+        this.locale = locale;
+    }
+
+    String format(Object... args) {
+        if (args == null || args.length == 0) {
+            return message;
+        }
+        MessageFormat format = parsed;
+        if (format == null) {
+            format = new MessageFormat(message, locale);
+            parsed = format;
+        }
+        return ((MessageFormat) format.clone()).format(args);
+    }
+}
@@ -5,22 +5,28 @@
 
 package com.vmware.connectors.common.utils;
 
-import org.slf4j.MDC;
+import com.vmware.connectors.common.tracing.Span;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.MimeType;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Signal;
 import reactor.util.context.Context;
 
+import javax.servlet.http.HttpServletRequest;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
 
 /**
  * Utility for Reactive operations
@@ -28,6 +34,28 @@ import java.util.function.Supplier;
  * @author Rob Worsnop
  */
 public final class Reactive {
+
+    /**
+     * The key under which the request's {@link MdcContext} is kept in the reactive context.
+     */
+    public static final String MDC_CONTEXT_KEY = "mdc";
+
+    /**
+     * The key under which the request's {@link ServerTiming} is kept in the reactive context.
+     */
+    public static final String SERVER_TIMING_KEY = "serverTiming";
+
+    /**
+     * The key under which the request's {@link Span} is kept in the reactive context.
+     */
+    public static final String SPAN_KEY = "span";
+
+    /**
+     * The key under which the backend base URL the request came with, like
+     * its {@code x-jira-base-url} header, is kept in the reactive context.
+     */
+    public static final String BASE_URL_KEY = "baseUrl";
+
     private Reactive() {
         // Do not construct
     }
@@ -39,13 +67,51 @@ public final class Reactive {
      * passed to Flux.subscriberContext
      * This is a temporary solution that works while we're still stuck on
      * Servlet 3.0 instead of being fully reactive.
-     * When we move to full-blown webflux we can set up the reactive context
-     * in a WebFilter, with no need to do anything in controllers at all.
+     * When running on WebFlux the reactive context is set up by
+     * {@link com.vmware.connectors.common.web.MdcWebFilter} instead; the thread
+     * has no MDC then, so this returns an empty context that leaves the
+     * filter's one in place.
+     * The request's {@link ServerTiming} and {@link Span}, when the servlet
+     * filters started them, are carried along the same way, and so is its
+     * backend base URL.
      * This method will be removed once we have gone fully reactive.
      * @return the reactive context
      */
     public static Context setupContext() {
-        return Context.empty().put("mdc", MDC.getCopyOfContextMap());
+        Context context = Context.empty();
+        MdcContext mdcContext = MdcContext.current();
+        if (!mdcContext.isEmpty()) {
+            context = context.put(MDC_CONTEXT_KEY, mdcContext);
+        }
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            Object serverTiming = requestAttributes.getAttribute(ServerTiming.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (serverTiming != null) {
+                context = context.put(SERVER_TIMING_KEY, serverTiming);
+            }
+            Object span = requestAttributes.getAttribute(Span.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (span != null) {
+                context = context.put(SPAN_KEY, span);
+            }
+        }
+        if (requestAttributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) requestAttributes).getRequest();
+            for (String name : Collections.list(request.getHeaderNames())) {
+                if (isBaseUrlHeader(name)) {
+                    context = context.put(BASE_URL_KEY, request.getHeader(name));
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * @return whether the header carries the base URL of the connector's
+     * backend, like {@code x-jira-base-url}
+     */
+    public static boolean isBaseUrlHeader(String name) {
+        String lowerCase = name.toLowerCase(Locale.ROOT);
+        return lowerCase.startsWith("x-") && lowerCase.endsWith("-base-url");
     }
 
     /**
@@ -59,10 +125,26 @@ public final class Reactive {
     public static <R> Consumer<Signal<R>> wrapForItem(Consumer<R> consumer) {
         return signal -> {
             if (signal.isOnNext()) {
-                wrapCall(signal.getContext(), () -> {
-                    consumer.accept(signal.get());
-                    return null;
-                });
+                getMdcContext(signal.getContext()).runWith(() -> consumer.accept(signal.get()));
+            }
+        };
+    }
+
+    /**
+     * Like {@link #wrapForItem(Consumer)}, but skips the item, and the MDC
+     * work, when the check says the output would be dropped. For example:
+     * <pre>
+     * .doOnEach(Reactive.wrapForItem(logger::isDebugEnabled, card -> logger.debug("Created card {}", card)))
+     * </pre>
+     * @param enabled whether the consumer would do anything, typically a log level check
+     * @param consumer the action to be performed on the emitted item
+     * @param <R> The item type
+     * @return a signal consumer to be passed to Flux.doOnEach
+     */
+    public static <R> Consumer<Signal<R>> wrapForItem(BooleanSupplier enabled, Consumer<R> consumer) {
+        return signal -> {
+            if (signal.isOnNext() && enabled.getAsBoolean()) {
+                getMdcContext(signal.getContext()).runWith(() -> consumer.accept(signal.get()));
             }
         };
     }
@@ -78,12 +160,62 @@ public final class Reactive {
      */
     public static <T, R> Function<T, Mono<R>> wrapMapper(Function<T, R> mapper) {
         return item -> Mono.subscriberContext()
-                .map(context -> wrapCall(context, () -> mapper.apply(item)));
+                .map(context -> getMdcContext(context).callWith(() -> mapper.apply(item)));
     }
 
     public static <T, R> Function<T, Mono<R>> wrapFlatMapper(Function<T, Mono<R>> mapper) {
         return item -> Mono.subscriberContext()
-                .flatMap(context -> wrapCall(context, () -> mapper.apply(item)));
+                .flatMap(context -> getMdcContext(context).callWith(() -> mapper.apply(item)));
+    }
+
+    /**
+     * Like {@link #wrapMapper(Function)}, for the step that turns the backend
+     * responses into a card, whose time is reported in the request's
+     * {@link ServerTiming}, and traced as a child of the request's {@link Span}.
+     * Replace .map(this::makeCard) with .flatMap(Reactive.wrapCardBuilder(this::makeCard))
+     *
+     * @param builder The function building the card
+     * @param <T> The type of the backend data
+     * @param <R> The card type
+     * @return
+     */
+    public static <T, R> Function<T, Mono<R>> wrapCardBuilder(Function<T, R> builder) {
+        return item -> Mono.subscriberContext()
+                .map(context -> getMdcContext(context).callWith(() -> {
+                    Span span = getSpan(context)
+                            .map(parent -> parent.startChild("build card", Span.Kind.INTERNAL))
+                            .orElse(null);
+                    long start = System.nanoTime();
+                    try {
+                        return builder.apply(item);
+                    } finally {
+                        getServerTiming(context).recordBuild(System.nanoTime() - start);
+                        if (span != null) {
+                            span.end();
+                        }
+                    }
+                }));
+    }
+
+    /**
+     * @return the request's timing, or one that records nothing outside of a request
+     */
+    public static ServerTiming getServerTiming(Context context) {
+        return context.getOrDefault(SERVER_TIMING_KEY, ServerTiming.none());
+    }
+
+    /**
+     * @return the span of the request, if it is traced
+     */
+    public static Optional<Span> getSpan(Context context) {
+        return context.getOrEmpty(SPAN_KEY);
+    }
+
+    /**
+     * @return the backend base URL the request came with, if any
+     */
+    public static Optional<String> getBaseUrl(Context context) {
+        return context.getOrEmpty(BASE_URL_KEY);
     }
 
     public static Mono<ClientResponse> checkStatus(ClientResponse response) {
@@ -108,6 +240,25 @@ public final class Reactive {
                 )));
     }
 
+    /**
+     * Retries a backend call that failed with a 502, 503 or 429, following
+     * the connector's {@link RetryPolicy} bean. Only for idempotent calls,
+     * like GETs:
+     * <pre>
+     * .retrieve()
+     * .bodyToMono(JsonDocument.class)
+     * .transform(Reactive.retryTransient(retryPolicy))
+     * </pre>
+     * The call must fail with a {@link WebClientResponseException}, like the
+     * ones of retrieve() and {@link #checkStatus(ClientResponse)}.
+     *
+     * @param <T> The type of the call's result
+     * @return a transformer to be passed to Mono.transform
+     */
+    public static <T> Function<Mono<T>, Mono<T>> retryTransient(RetryPolicy policy) {
+        return policy::apply;
+    }
+
     public static <R> Mono<R> skipOnStatus(Throwable throwable, Predicate<HttpStatus> statusPredicate) {
         if (throwable instanceof WebClientResponseException
                 && statusPredicate.test(WebClientResponseException.class.cast(throwable).getStatusCode())) {
@@ -141,18 +292,7 @@ public final class Reactive {
         return skipOnStatus(clientResponse, status -> status.equals(httpStatus));
     }
 
-    private static <R> R wrapCall(Context context, Supplier<R> supplier) {
-        Map<String, String> savedContextMap = MDC.getCopyOfContextMap();
-        MDC.setContextMap(context.get("mdc"));
-
-        try {
-            return supplier.get();
-        } finally {
-            if (savedContextMap == null) {
-                MDC.clear();
-            } else {
-                MDC.setContextMap(savedContextMap);
-            }
-        }
+    private static MdcContext getMdcContext(Context context) {
+        return context.getOrDefault(MDC_CONTEXT_KEY, MdcContext.empty());
     }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+
+/**
+ * How backend calls that failed with a transient status (502, 503 or 429)
+ * are retried. Use it through {@link Reactive#retryTransient(RetryPolicy)},
+ * and only on idempotent calls.
+ * <p>
+ * The wait before a retry grows exponentially, with full jitter so that the
+ * requests that failed together don't retry together. It is never shorter
+ * than the backend's {@code Retry-After}. No retry is made that would end
+ * after the deadline, counted from the start of the request when there is
+ * one. Retries also draw on a budget of their backend, the base URL the
+ * request came with: each call adds a fraction of a retry to it, so a backend
+ * that keeps failing doesn't get more calls than that fraction on top of the
+ * usual ones, and doesn't use up the retries of the others. The calls made
+ * without a base URL share one budget.
+ * <p>
+ * Metrics:
+ * <ul>
+ *     <li>{@code connectors.backend.retries}, tagged with the {@code status} that was retried</li>
+ *     <li>{@code connectors.backend.retry.giveups}, tagged {@code reason=attempts|deadline|budget}</li>
+ * </ul>
+ */
+public final class RetryPolicy {
+
+    private static final Set<HttpStatus> TRANSIENT = EnumSet.of(
+            HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.TOO_MANY_REQUESTS);
+
+    private static final double MAX_BUDGET = 10;
+    private static final long MAX_RETRY_AFTER_SECONDS = TimeUnit.DAYS.toSeconds(1);
+
+    private final MeterRegistry registry;
+    private final int maxAttempts;
+    private final long firstBackoffNanos;
+    private final long maxBackoffNanos;
+    private final long deadlineNanos;
+    private final double budgetRatio;
+    private final DoubleSupplier jitter;
+    private final LoadingCache<String, Budget> budgets;
+
+    private final Counter attemptsGiveUps;
+    private final Counter deadlineGiveUps;
+    private final Counter budgetGiveUps;
+
+    /**
+     * @param maxAttempts the most calls made, the first one included
+     * @param firstBackoff the longest wait before the first retry, doubled for each next one
+     * @param maxBackoff the longest wait before a retry, unless the backend asks for more
+     * @param deadline the time after which no more retries are made
+     * @param budgetRatio the share of the calls to each backend that may be retried, like 0.1
+     * @param maxBackends the backends whose budget is remembered, the least recently used are forgotten
+     */
+    public RetryPolicy(MeterRegistry registry, int maxAttempts, Duration firstBackoff, Duration maxBackoff,
+                       Duration deadline, double budgetRatio, long maxBackends) {
+        this(registry, maxAttempts, firstBackoff, maxBackoff, deadline, budgetRatio, maxBackends,
+                () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    RetryPolicy(MeterRegistry registry, int maxAttempts, Duration firstBackoff, Duration maxBackoff,
+                Duration deadline, double budgetRatio, long maxBackends, DoubleSupplier jitter) {
+        this.registry = registry;
+        this.maxAttempts = maxAttempts;
+        this.firstBackoffNanos = firstBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.deadlineNanos = deadline.toNanos();
+        this.budgetRatio = budgetRatio;
+        this.jitter = jitter;
+        // A forgotten backend starts again with a full budget
+        this.budgets = CacheBuilder.newBuilder()
+                .maximumSize(maxBackends)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build(CacheLoader.from(Budget::new));
+        this.attemptsGiveUps = giveUpsCounter("attempts");
+        this.deadlineGiveUps = giveUpsCounter("deadline");
+        this.budgetGiveUps = giveUpsCounter("budget");
+    }
+
+    private Counter giveUpsCounter(String reason) {
+        return Counter.builder("connectors.backend.retry.giveups")
+                .description("Backend calls that failed with a transient status and weren't retried")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * @return the call, retried as long as it fails with a transient status
+     */
+    public <T> Mono<T> apply(Mono<T> call) {
+        return Mono.subscriberContext().flatMap(context -> {
+            ServerTiming timing = Reactive.getServerTiming(context);
+            Budget budget = budgets.getUnchecked(Reactive.getBaseUrl(context)
+                    .map(baseUrl -> StringUtils.removeEnd(baseUrl, "/"))
+                    .orElse(""));
+            long firstAttempt = System.nanoTime();
+            AtomicInteger attempts = new AtomicInteger(1);
+            budget.deposit(budgetRatio);
+            return call.retryWhen(errors -> errors.concatMap(error ->
+                    retryDelay(error, attempts.getAndIncrement(),
+                            Math.max(timing.getElapsedNanos(), System.nanoTime() - firstAttempt), budget)));
+        });
+    }
+
+    /*
+     * A delay before the retry, or the error when there's none.
+     */
+    private Mono<Long> retryDelay(Throwable error, int attempt, long elapsedNanos, Budget budget) {
+        Optional<HttpStatus> status = transientStatus(error);
+        if (!status.isPresent()) {
+            return Mono.error(error);
+        }
+        if (attempt >= maxAttempts) {
+            attemptsGiveUps.increment();
+            return Mono.error(error);
+        }
+        long delay = Math.max(backoffNanos(attempt),
+                retryAfterNanos(((WebClientResponseException) error).getHeaders()));
+        if (elapsedNanos + delay >= deadlineNanos) {
+            deadlineGiveUps.increment();
+            return Mono.error(error);
+        }
+        if (!budget.tryWithdraw()) {
+            budgetGiveUps.increment();
+            return Mono.error(error);
+        }
+        Counter.builder("connectors.backend.retries")
+                .description("Backend calls retried after a transient status")
+                .tag("status", String.valueOf(status.get().value()))
+                .register(registry)
+                .increment();
+        return Mono.delay(Duration.ofNanos(delay));
+    }
+
+    private static Optional<HttpStatus> transientStatus(Throwable error) {
+        if (error instanceof WebClientResponseException) {
+            HttpStatus status = HttpStatus.resolve(((WebClientResponseException) error).getRawStatusCode());
+            if (status != null && TRANSIENT.contains(status)) {
+                return Optional.of(status);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /*
+     * Full jitter: anywhere from 0 to the exponential backoff of this retry.
+     */
+    private long backoffNanos(int retry) {
+        long backoff = firstBackoffNanos << Math.min(retry - 1, 30);
+        if (backoff <= 0 || backoff > maxBackoffNanos) {
+            backoff = maxBackoffNanos;
+        }
+        return (long) (backoff * jitter.getAsDouble());
+    }
+
+    /*
+     * Retry-After is either a number of seconds or an HTTP date.
+     */
+    static long retryAfterNanos(HttpHeaders headers) {
+        String retryAfter = StringUtils.trimToNull(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        if (retryAfter == null) {
+            return 0L;
+        }
+        if (StringUtils.isNumeric(retryAfter)) {
+            // Anything over a day is past any deadline anyway
+            long seconds = retryAfter.length() > 5 ? MAX_RETRY_AFTER_SECONDS : Long.parseLong(retryAfter);
+            return TimeUnit.SECONDS.toNanos(Math.min(seconds, MAX_RETRY_AFTER_SECONDS));
+        }
+        try {
+            long seconds = Duration.between(ZonedDateTime.now(),
+                    ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME)).getSeconds();
+            return TimeUnit.SECONDS.toNanos(Math.max(0L, Math.min(seconds, MAX_RETRY_AFTER_SECONDS)));
+        } catch (DateTimeParseException e) {
+            return 0L;
+        }
+    }
+
+    /*
+     * The retries a backend has left.
+     */
+    private static final class Budget {
+
+        private double retries = MAX_BUDGET;
+
+        synchronized void deposit(double ratio) {
+            retries = Math.min(MAX_BUDGET, retries + ratio);
+        }
+
+        synchronized boolean tryWithdraw() {
+            if (retries >= 1) {
+                retries--;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What a request spent its time on, reported to the client in a
+ * {@code Server-Timing} header:
+ * <pre>
+ * Server-Timing: backend;desc="3 calls";dur=412.7, decode;dur=3.2, build;dur=1.4, total;dur=168.9
+ * </pre>
+ * The backend time is the sum of the calls' durations, so it is larger than
+ * the total when the calls were made in parallel.
+ * <p>
+ * One is created per request, kept in the reactive context, and may be
+ * updated from any thread.
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+
+    /**
+     * The request attribute under which the servlet filter keeps the request's timing.
+     */
+    public static final String ATTRIBUTE = ServerTiming.class.getName();
+
+    private static final ServerTiming NONE = new ServerTiming(0L, false);
+
+    private final long startNanos;
+    private final boolean enabled;
+    private final LongAdder backendCalls = new LongAdder();
+    private final LongAdder backendNanos = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+    private final LongAdder buildNanos = new LongAdder();
+
+    private ServerTiming(long startNanos, boolean enabled) {
+        this.startNanos = startNanos;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts timing a request.
+     */
+    public static ServerTiming start() {
+        return new ServerTiming(System.nanoTime(), true);
+    }
+
+    /**
+     * @return a timing that records nothing, for work done outside of a request
+     */
+    public static ServerTiming none() {
+        return NONE;
+    }
+
+    public void recordBackendCall(long nanos) {
+        if (enabled) {
+            backendCalls.increment();
+            backendNanos.add(nanos);
+        }
+    }
+
+    public void recordDecode(long nanos) {
+        if (enabled) {
+            decodeNanos.add(nanos);
+        }
+    }
+
+    public void recordBuild(long nanos) {
+        if (enabled) {
+            buildNanos.add(nanos);
+        }
+    }
+
+    public long getBackendCalls() {
+        return backendCalls.sum();
+    }
+
+    public long getBackendNanos() {
+        return backendNanos.sum();
+    }
+
+    public long getDecodeNanos() {
+        return decodeNanos.sum();
+    }
+
+    public long getBuildNanos() {
+        return buildNanos.sum();
+    }
+
+    /**
+     * @return the time since the request started, or 0 for a timing that records nothing
+     */
+    public long getElapsedNanos() {
+        return enabled ? System.nanoTime() - startNanos : 0L;
+    }
+
+    /**
+     * @return the header value, with the total time up to now
+     */
+    public String toHeaderValue() {
+        long calls = getBackendCalls();
+        return String.format(Locale.ROOT, "backend;desc=\"%d %s\";dur=%s, decode;dur=%s, build;dur=%s, total;dur=%s",
+                calls, calls == 1 ? "call" : "calls",
+                millis(getBackendNanos()),
+                millis(getDecodeNanos()),
+                millis(getBuildNanos()),
+                millis(System.nanoTime() - startNanos));
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
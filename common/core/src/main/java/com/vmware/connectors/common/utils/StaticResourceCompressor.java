@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import com.google.common.collect.ImmutableSet;
+import com.vmware.connectors.common.web.ResponseCompression;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a gzipped copy (with a .gz extension) next to each text resource of a
+ * directory, at the best compression level. It is run by the build, on the
+ * static resources, so they are never compressed at request time.
+ * <p>
+ * Images are already compressed and are skipped, like copies that would not
+ * be smaller than the resource.
+ */
+public final class StaticResourceCompressor {
+
+    private static final Set<String> EXTENSIONS = ImmutableSet.of("hbs", "json", "xml", "html", "css", "js", "svg", "txt");
+
+    private static final ResponseCompression COMPRESSION = new ResponseCompression(0, Deflater.BEST_COMPRESSION);
+
+    private StaticResourceCompressor() {
+        // Only the main method
+    }
+
+    public static void main(String[] args) throws IOException {
+        for (String dir : args) {
+            compress(Paths.get(dir));
+        }
+    }
+
+    /**
+     * @return the gzipped copies written
+     */
+    public static List<Path> compress(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return Collections.emptyList();
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(file -> EXTENSIONS.contains(FilenameUtils.getExtension(file.toString())))
+                    .collect(Collectors.toList());
+        }
+        List<Path> written = new ArrayList<>();
+        for (Path file : files) {
+            byte[] content = Files.readAllBytes(file);
+            byte[] compressed = COMPRESSION.compress(content);
+            Path target = Paths.get(file + ".gz");
+            if (compressed.length < content.length) {
+                Files.write(target, compressed);
+                written.add(target);
+            } else {
+                Files.deleteIfExists(target);
+            }
+        }
+        return written;
+    }
+}
@@ -5,18 +5,97 @@
 
 package com.vmware.connectors.common.utils;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Looks up messages through a per-locale table of templates that is resolved once,
+ * instead of going through the MessageSource (bundle chain, format cache and lock) on
+ * every call. The codes are read from the message properties files at startup. Locales
+ * that have a file, and the default locale, are resolved then; others when first seen.
+ * Codes that aren't in the files still go straight to the MessageSource.
+ */
 public class TextAccessorBase {
+
+    private static final Logger logger = LoggerFactory.getLogger(TextAccessorBase.class);
+
+    private static final String DEFAULT_BASENAME = "cards/text";
+
+    // Accept-Language is client controlled, so don't keep a table for every locale ever seen
+    private static final int MAX_LOCALES = 64;
+
     protected final MessageSource messageSource;
 
+    private final Set<String> codes;
+
+    private final ConcurrentMap<Locale, LocaleMessages> messages = new ConcurrentHashMap<>();
+
     public TextAccessorBase(MessageSource messageSource) {
+        this(messageSource, DEFAULT_BASENAME);
+    }
+
+    /**
+     * @param messageSource the source of the messages
+     * @param basename the basename of the message properties files on the classpath,
+     *                 as given to the ResourceBundleMessageSource
+     */
+    public TextAccessorBase(MessageSource messageSource, String basename) {
         this.messageSource = messageSource;
+        Set<String> codes = new HashSet<>();
+        Set<Locale> locales = new HashSet<>();
+        locales.add(Locale.getDefault());
+        loadCodes(basename, codes, locales);
+        this.codes = Collections.unmodifiableSet(codes);
+        locales.forEach(this::getLocaleMessages);
     }
 
     public String getMessage(String code, Locale locale, Object... args) {
-        return messageSource.getMessage(code, args, locale);
+        MessageTemplate template = locale == null ? null : getLocaleMessages(locale).get(code);
+        if (template == null) {
+            return messageSource.getMessage(code, args, locale);
+        }
+        return template.format(args);
+    }
+
+    LocaleMessages getLocaleMessages(Locale locale) {
+        LocaleMessages localeMessages = messages.get(locale);
+        if (localeMessages != null) {
+            return localeMessages;
+        }
+        if (messages.size() >= MAX_LOCALES) {
+            return LocaleMessages.EMPTY;
+        }
+        return messages.computeIfAbsent(locale, key -> LocaleMessages.resolve(messageSource, codes, key));
+    }
+
+    private static void loadCodes(String basename, Set<String> codes, Set<Locale> locales) {
+        String name = StringUtils.getFilename(basename);
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver()
+                    .getResources("classpath*:" + basename + "*.properties");
+            for (Resource resource : resources) {
+                String suffix = StringUtils.stripFilenameExtension(resource.getFilename()).substring(name.length());
+                if (suffix.isEmpty() || suffix.charAt(0) == '_') {
+                    locales.add(suffix.isEmpty() ? Locale.ROOT : StringUtils.parseLocaleString(suffix.substring(1)));
+                    codes.addAll(PropertiesLoaderUtils.loadProperties(resource).stringPropertyNames());
+                }
+            }
+        } catch (IOException e) {
+            // Everything still works, just without the pre-resolved tables
+            logger.warn("Failed to read the message codes of {}", basename, e);
+        }
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.json.CardResponseValidator;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Validates a sample of the successful card responses of one path, before
+ * they are written, with a {@link CardResponseValidator}.
+ * <p>
+ * The cards are validated as objects, so the response is neither buffered
+ * nor parsed again.
+ */
+@ControllerAdvice
+public class CardResponseValidationAdvice implements ResponseBodyAdvice<Object> {
+
+    private final String path;
+    private final CardResponseValidator validator;
+
+    public CardResponseValidationAdvice(String path, CardResponseValidator validator) {
+        this.path = path;
+        this.validator = validator;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body != null && path.equals(request.getURI().getPath()) && isOk(response) && validator.isSampled()) {
+            validator.validate(body);
+        }
+        return body;
+    }
+
+    // Errors have a body of their own
+    private static boolean isOk(ServerHttpResponse response) {
+        return response instanceof ServletServerHttpResponse
+                && ((ServletServerHttpResponse) response).getServletResponse().getStatus() == HttpServletResponse.SC_OK;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.json.CardResponseValidator;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The WebFlux counterpart of {@link CardResponseValidationAdvice}. There is
+ * no advice for WebFlux, so the body of the sampled responses is read as it
+ * is written, and left as it is.
+ * <p>
+ * Only bodies written in one go are validated, like the ones
+ * {@link ResponseCompressionWebFilter} compresses, which this filter may
+ * see compressed.
+ */
+public class CardResponseValidationWebFilter implements WebFilter {
+
+    private final String path;
+    private final CardResponseValidator validator;
+
+    public CardResponseValidationWebFilter(String path, CardResponseValidator validator) {
+        this.path = path;
+        this.validator = validator;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!path.equals(exchange.getRequest().getPath().pathWithinApplication().value()) || !validator.isSampled()) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate().response(new ValidatingResponse(exchange.getResponse())).build());
+    }
+
+    private class ValidatingResponse extends ServerHttpResponseDecorator {
+
+        ValidatingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(body)
+                    .flatMap(buffer -> {
+                        HttpStatus status = getStatusCode();
+                        if (status == null || status == HttpStatus.OK) {
+                            validate(buffer);
+                        }
+                        return super.writeWith(Mono.just(buffer));
+                    });
+        }
+
+        private void validate(DataBuffer buffer) {
+            // Reads a view of the buffer, which is written untouched
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.asByteBuffer().get(bytes);
+            if (ResponseCompression.GZIP.equals(getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                    bytes = StreamUtils.copyToByteArray(in);
+                } catch (IOException e) {
+                    return;
+                }
+            }
+            validator.validate(bytes);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.utils.MdcContext;
+import com.vmware.connectors.common.utils.Reactive;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.vmware.connectors.common.utils.Reactive.BASE_URL_KEY;
+import static com.vmware.connectors.common.utils.Reactive.MDC_CONTEXT_KEY;
+
+/**
+ * The WebFlux counterpart of {@link MdcFilter}. Instead of setting the MDC on
+ * the thread, it puts the same values in the reactive context, where
+ * {@link Reactive} expects them, along
+ * with the request's backend base URL.
+ * <p>
+ * It must run after the security filters so the principal is known.
+ */
+@Order(MdcWebFilter.ORDER)
+public class MdcWebFilter implements WebFilter {
+
+    /**
+     * Right after the WebFlux security chain, which runs at -100, and before
+     * any filter that logs.
+     */
+    public static final int ORDER = -99;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return getMdcContext(exchange)
+                .flatMap(mdcContext -> chain.filter(exchange)
+                        .subscriberContext(context -> withBaseUrl(exchange, context.put(MDC_CONTEXT_KEY, mdcContext))));
+    }
+
+    private static Context withBaseUrl(ServerWebExchange exchange, Context context) {
+        Context result = context;
+        for (Map.Entry<String, List<String>> header : exchange.getRequest().getHeaders().entrySet()) {
+            if (Reactive.isBaseUrlHeader(header.getKey()) && !header.getValue().isEmpty()) {
+                result = result.put(BASE_URL_KEY, header.getValue().get(0));
+            }
+        }
+        return result;
+    }
+
+    private static Mono<MdcContext> getMdcContext(ServerWebExchange exchange) {
+        Map<String, String> contextMap = new HashMap<>();
+        String requestId = exchange.getRequest().getHeaders().getFirst("X-Request-Id");
+        if (requestId != null) {
+            contextMap.put("requestId", requestId);
+        }
+        return exchange.getPrincipal()
+                .filter(Authentication.class::isInstance)
+                .flatMap(principal -> Mono.justOrEmpty(Authentication.class.cast(principal).getPrincipal()))
+                .map(principal -> {
+                    contextMap.put("principal", principal.toString());
+                    return contextMap;
+                })
+                .defaultIfEmpty(contextMap)
+                .map(MdcContext::of);
+    }
+}
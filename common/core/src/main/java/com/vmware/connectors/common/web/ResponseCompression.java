@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips payloads of at least a minimum size at a given deflate level.
+ * <p>
+ * The servlet container and Reactor Netty compress with a fixed level, and with
+ * the same minimum size for every response. This lets a single endpoint, like
+ * the card requests, use its own.
+ */
+public final class ResponseCompression {
+
+    public static final String GZIP = "gzip";
+
+    private final int minSize;
+    private final int level;
+
+    public ResponseCompression(int minSize, int level) {
+        Validate.inclusiveBetween(Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION, level,
+                "The compression level must be between -1 and 9");
+        this.minSize = minSize;
+        this.level = level;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Same check as Spring's {@code GzipResourceResolver}, so a static resource
+     * and its ETag are picked the same way.
+     */
+    public static boolean isAccepted(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains(GZIP);
+    }
+
+    public boolean shouldCompress(int length) {
+        return length >= minSize;
+    }
+
+    public byte[] compress(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new LevelGzipOutputStream(out, level)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            // Not expected from an in-memory stream
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class LevelGzipOutputStream extends GZIPOutputStream {
+
+        LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out);
+            def.setLevel(level);
+        }
+    }
+}
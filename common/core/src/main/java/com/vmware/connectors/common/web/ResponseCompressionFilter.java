@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Compresses the responses of one path with its own {@link ResponseCompression}
+ * instead of the container's settings.
+ * <p>
+ * The response is buffered, the way {@code ShallowEtagHeaderFilter} does it,
+ * so streamed responses ({@code application/stream+json}) are left alone.
+ * Responses below the minimum size are passed on as they are, where
+ * {@code server.compression} still applies.
+ */
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final String path;
+    private final ResponseCompression compression;
+
+    public ResponseCompressionFilter(String path, ResponseCompression compression) {
+        this.path = path;
+        this.compression = compression;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!path.equals(urlPathHelper.getPathWithinApplication(request))) {
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return !ResponseCompression.isAccepted(request.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                || accept != null && accept.contains(MediaType.APPLICATION_STREAM_JSON_VALUE);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // The controllers return Monos, so the body is only written on the async dispatch
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpServletResponse responseToUse = response;
+        if (!isAsyncDispatch(request) && !(response instanceof ContentCachingResponseWrapper)) {
+            responseToUse = new ContentCachingResponseWrapper(response);
+        }
+        chain.doFilter(request, responseToUse);
+        if (!isAsyncStarted(request)) {
+            writeResponse(responseToUse);
+        }
+    }
+
+    private void writeResponse(HttpServletResponse response) throws IOException {
+        ContentCachingResponseWrapper wrapper =
+                WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (wrapper == null) {
+            return;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        HttpServletResponse rawResponse = (HttpServletResponse) wrapper.getResponse();
+        rawResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (wrapper.getStatusCode() != HttpServletResponse.SC_OK
+                || rawResponse.containsHeader(HttpHeaders.CONTENT_ENCODING)
+                || !compression.shouldCompress(body.length)) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        byte[] compressed = compression.compress(body);
+        wrapper.resetBuffer();
+        rawResponse.setHeader(HttpHeaders.CONTENT_ENCODING, ResponseCompression.GZIP);
+        rawResponse.setContentLength(compressed.length);
+        rawResponse.getOutputStream().write(compressed);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * The WebFlux counterpart of {@link ResponseCompressionFilter}.
+ * <p>
+ * Only bodies written in one go are compressed. Streamed ones go through
+ * {@code writeAndFlushWith}, which is left alone.
+ */
+public class ResponseCompressionWebFilter implements WebFilter {
+
+    private final String path;
+    private final ResponseCompression compression;
+
+    public ResponseCompressionWebFilter(String path, ResponseCompression compression) {
+        this.path = path;
+        this.compression = compression;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!path.equals(exchange.getRequest().getPath().pathWithinApplication().value())
+                || !ResponseCompression.isAccepted(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING))) {
+            return chain.filter(exchange);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        return chain.filter(exchange.mutate().response(new CompressingResponse(response)).build());
+    }
+
+    private class CompressingResponse extends ServerHttpResponseDecorator {
+
+        CompressingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(body)
+                    .flatMap(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        return super.writeWith(Mono.just(bufferFactory().wrap(compressIfWorthIt(bytes))));
+                    });
+        }
+
+        private byte[] compressIfWorthIt(byte[] bytes) {
+            HttpStatus status = getStatusCode();
+            if (status != null && status != HttpStatus.OK
+                    || getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)
+                    || !compression.shouldCompress(bytes.length)) {
+                return bytes;
+            }
+            byte[] compressed = compression.compress(bytes);
+            getHeaders().set(HttpHeaders.CONTENT_ENCODING, ResponseCompression.GZIP);
+            getHeaders().setContentLength(compressed.length);
+            return compressed;
+        }
+    }
+}
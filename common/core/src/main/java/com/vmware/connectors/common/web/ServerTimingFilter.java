@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.utils.ServerTiming;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Times each request with a {@link ServerTiming}, and reports it in a
+ * {@code Server-Timing} header.
+ * <p>
+ * The timing is kept as a request attribute, from where
+ * {@link com.vmware.connectors.common.utils.Reactive#setupContext()} puts it
+ * in the reactive context. The header is set just before the body is written,
+ * or when the request is done if it has no body. Streamed cards
+ * ({@code application/stream+json}) start being written with the first one,
+ * so their header only covers the work done up to then.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final List<String> excludedPaths;
+
+    /**
+     * @param excludedPaths the path prefixes of the requests not to time, like the static resources
+     */
+    public ServerTimingFilter(List<String> excludedPaths) {
+        this.excludedPaths = excludedPaths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = urlPathHelper.getPathWithinApplication(request);
+        return excludedPaths.stream().anyMatch(path::startsWith);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // The controllers return Monos, so the body is only written on the async dispatch
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ServerTiming serverTiming = (ServerTiming) request.getAttribute(ServerTiming.ATTRIBUTE);
+        if (serverTiming == null) {
+            serverTiming = ServerTiming.start();
+            request.setAttribute(ServerTiming.ATTRIBUTE, serverTiming);
+        }
+        ServerTimingResponse timingResponse = WebUtils.getNativeResponse(response, ServerTimingResponse.class);
+        if (timingResponse == null) {
+            timingResponse = new ServerTimingResponse(response, serverTiming);
+        }
+        chain.doFilter(request, timingResponse);
+        if (!isAsyncStarted(request)) {
+            timingResponse.setTimingHeader();
+        }
+    }
+
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final ServerTiming serverTiming;
+        private boolean headerSet;
+
+        ServerTimingResponse(HttpServletResponse response, ServerTiming serverTiming) {
+            super(response);
+            this.serverTiming = serverTiming;
+        }
+
+        void setTimingHeader() {
+            if (!headerSet && !isCommitted()) {
+                headerSet = true;
+                setHeader(ServerTiming.HEADER, serverTiming.toHeaderValue());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            setTimingHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            setTimingHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            setTimingHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            setTimingHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            setTimingHeader();
+            super.sendError(sc, msg);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.utils.ServerTiming;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.List;
+
+import static com.vmware.connectors.common.utils.Reactive.SERVER_TIMING_KEY;
+
+/**
+ * The WebFlux counterpart of {@link ServerTimingFilter}. The timing is put in
+ * the reactive context, and the header is set when the response is committed.
+ */
+public class ServerTimingWebFilter implements WebFilter {
+
+    private final List<String> excludedPaths;
+
+    public ServerTimingWebFilter(List<String> excludedPaths) {
+        this.excludedPaths = excludedPaths;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (excludedPaths.stream().anyMatch(path::startsWith)) {
+            return chain.filter(exchange);
+        }
+        ServerTiming serverTiming = ServerTiming.start();
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            response.getHeaders().set(ServerTiming.HEADER, serverTiming.toHeaderValue());
+            return Mono.empty();
+        });
+        return chain.filter(exchange)
+                .subscriberContext(Context.of(SERVER_TIMING_KEY, serverTiming));
+    }
+}
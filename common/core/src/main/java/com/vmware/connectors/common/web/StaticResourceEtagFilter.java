@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Sets the strong ETag of a static resource, and answers a matching
+ * If-None-Match with a 304 before the resource is even looked up.
+ * <p>
+ * The resource handlers only check Last-Modified, which changes with every
+ * build, even when the resource doesn't.
+ */
+public class StaticResourceEtagFilter extends OncePerRequestFilter {
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final StaticResourceEtags etags;
+
+    public StaticResourceEtagFilter(StaticResourceEtags etags) {
+        this.etags = etags;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !etags.isStatic(urlPathHelper.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Optional<String> etag = etags.getEtag(urlPathHelper.getPathWithinApplication(request),
+                request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // Sets the ETag header on GETs and HEADs, and the 304 if it matches
+        if (etag.isPresent() && new ServletWebRequest(request, response).checkNotModified(etag.get())) {
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * The WebFlux counterpart of {@link StaticResourceEtagFilter}.
+ */
+public class StaticResourceEtagWebFilter implements WebFilter {
+
+    private final StaticResourceEtags etags;
+
+    public StaticResourceEtagWebFilter(StaticResourceEtags etags) {
+        this.etags = etags;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Optional<String> etag = etags.getEtag(exchange.getRequest().getPath().pathWithinApplication().value(),
+                exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        if (etag.isPresent() && exchange.checkNotModified(etag.get())) {
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Strong ETags for the static resources, which are served from the classpath
+ * location of the same name as their path (like {@code /templates/generic.hbs}
+ * from {@code static/templates/generic.hbs}).
+ * <p>
+ * A resource can't change without a new build, so its content is hashed only
+ * once. The gzipped variant, pre-compressed at build time, has an ETag of its
+ * own, as it is a different representation.
+ */
+public final class StaticResourceEtags {
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private final String location;
+    private final List<String> paths;
+    private final LoadingCache<String, Optional<String>> etags;
+
+    /**
+     * @param location the classpath location of the resources, like {@code static}
+     * @param paths the request path prefixes served from there, like {@code /templates/}
+     * @param maxSize the number of ETags to keep, which bounds requests for missing resources too
+     */
+    public StaticResourceEtags(String location, List<String> paths, long maxSize) {
+        this.location = location;
+        this.paths = paths;
+        this.etags = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .build(CacheLoader.from(StaticResourceEtags::computeEtag));
+    }
+
+    public boolean isStatic(String path) {
+        return !path.contains("..") && paths.stream().anyMatch(path::startsWith);
+    }
+
+    /**
+     * The ETag of what will be served for the path: the gzipped variant if it
+     * exists and the client takes gzip, the resource itself otherwise.
+     */
+    public Optional<String> getEtag(String path, String acceptEncoding) {
+        if (!isStatic(path)) {
+            return Optional.empty();
+        }
+        String resourcePath = location + path;
+        if (ResponseCompression.isAccepted(acceptEncoding)) {
+            Optional<String> gzipped = etags.getUnchecked(resourcePath + GZIP_EXTENSION);
+            if (gzipped.isPresent()) {
+                return gzipped;
+            }
+        }
+        return etags.getUnchecked(resourcePath);
+    }
+
+    private static Optional<String> computeEtag(String resourcePath) {
+        Resource resource = new ClassPathResource(resourcePath);
+        if (!resource.isReadable()) {
+            return Optional.empty();
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return Optional.of("\"" + DigestUtils.md5DigestAsHex(in) + "\"");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.tracing.Span;
+import com.vmware.connectors.common.tracing.TraceContext;
+import com.vmware.connectors.common.tracing.Tracer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Traces each request in a server span, which joins the caller's trace when
+ * the request has a W3C {@code traceparent} header.
+ * <p>
+ * The span is kept as a request attribute, from where
+ * {@link com.vmware.connectors.common.utils.Reactive#setupContext()} puts it
+ * in the reactive context, so the backend calls and the card building are
+ * traced as its children. It ends when the request is done, on the async
+ * dispatch for the controllers returning Monos.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final Tracer tracer;
+    private final List<String> excludedPaths;
+
+    /**
+     * @param excludedPaths the path prefixes of the requests not to trace, like the static resources
+     */
+    public TracingFilter(Tracer tracer, List<String> excludedPaths) {
+        this.tracer = tracer;
+        this.excludedPaths = excludedPaths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = urlPathHelper.getPathWithinApplication(request);
+        return excludedPaths.stream().anyMatch(path::startsWith);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // The span of an async request ends on its async dispatch
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Span span = (Span) request.getAttribute(Span.ATTRIBUTE);
+        if (span == null) {
+            String path = urlPathHelper.getPathWithinApplication(request);
+            span = tracer.startServerSpan(request.getMethod() + " " + path,
+                    request.getHeader(TraceContext.TRACEPARENT), request.getHeader(TraceContext.TRACESTATE))
+                    .setAttribute("http.method", request.getMethod())
+                    .setAttribute("http.path", path);
+            request.setAttribute(Span.ATTRIBUTE, span);
+        }
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.setError(e);
+            span.end();
+            throw e;
+        }
+        if (!isAsyncStarted(request)) {
+            span.setAttribute("http.status_code", response.getStatus());
+            if (response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+                span.setError();
+            }
+            span.end();
+        }
+    }
+}
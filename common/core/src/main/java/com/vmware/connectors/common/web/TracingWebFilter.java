@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.vmware.connectors.common.tracing.Span;
+import com.vmware.connectors.common.tracing.TraceContext;
+import com.vmware.connectors.common.tracing.Tracer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.List;
+
+import static com.vmware.connectors.common.utils.Reactive.SPAN_KEY;
+
+/**
+ * The WebFlux counterpart of {@link TracingFilter}. The span is put in the
+ * reactive context, and ends when the response is complete.
+ */
+public class TracingWebFilter implements WebFilter {
+
+    private final Tracer tracer;
+    private final List<String> excludedPaths;
+
+    public TracingWebFilter(Tracer tracer, List<String> excludedPaths) {
+        this.tracer = tracer;
+        this.excludedPaths = excludedPaths;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        if (excludedPaths.stream().anyMatch(path::startsWith)) {
+            return chain.filter(exchange);
+        }
+        HttpHeaders headers = request.getHeaders();
+        Span span = tracer.startServerSpan(request.getMethodValue() + " " + path,
+                headers.getFirst(TraceContext.TRACEPARENT), headers.getFirst(TraceContext.TRACESTATE))
+                .setAttribute("http.method", request.getMethodValue())
+                .setAttribute("http.path", path);
+        return chain.filter(exchange)
+                .doOnError(span::setError)
+                .doFinally(signal -> {
+                    HttpStatus status = exchange.getResponse().getStatusCode();
+                    if (status != null) {
+                        span.setAttribute("http.status_code", status.value());
+                        if (status.is5xxServerError()) {
+                            span.setError();
+                        }
+                    }
+                    span.end();
+                })
+                .subscriberContext(Context.of(SPAN_KEY, span));
+    }
+}
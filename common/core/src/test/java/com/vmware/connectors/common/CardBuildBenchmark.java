@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common;
+
+import com.vmware.connectors.common.payloads.response.Card;
+import com.vmware.connectors.common.payloads.response.CardAction;
+import com.vmware.connectors.common.payloads.response.CardActionKey;
+import com.vmware.connectors.common.utils.IdGenerator;
+import com.vmware.connectors.common.utils.IdGenerators;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds cards (with one action, like most connectors) from many threads at
+ * once, with each of the id strategies.
+ * <p>
+ * Run the main method from the IDE, or from the test classpath after test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class CardBuildBenchmark {
+
+    @Param({"SECURE_RANDOM", "RANDOM", "TIME_ORDERED"})
+    private IdGenerators.Strategy strategy;
+
+    private IdGenerator idGenerator;
+
+    @Setup
+    public void setup() {
+        idGenerator = IdGenerators.of(strategy);
+    }
+
+    @Benchmark
+    public Card build() {
+        return new Card.Builder(idGenerator)
+                .setName("Benchmark")
+                .setHeader("Header", "Subtitle")
+                .addAction(new CardAction.Builder(idGenerator)
+                        .setLabel("Open")
+                        .setActionKey(CardActionKey.OPEN_IN)
+                        .setUrl("https://example.com/")
+                        .build())
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardBuildBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
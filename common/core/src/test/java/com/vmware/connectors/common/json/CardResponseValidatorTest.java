@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CardResponseValidatorTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void validatesObjectsAndBytes() {
+        CardResponseValidator validator = new CardResponseValidator(mapper, 1);
+
+        assertThat(validator.validate(ImmutableMap.of("cards", Collections.emptyList())), is(true));
+        assertThat(validator.validate("{\"cards\": []}".getBytes(UTF_8)), is(true));
+        assertThat(validator.validate("{\"cards\": [], \"unknown\": 1}".getBytes(UTF_8)), is(false));
+        assertThat(validator.validate("not json".getBytes(UTF_8)), is(false));
+    }
+
+    @Test
+    void isThreadSafe() {
+        CardResponseValidator validator = new CardResponseValidator(mapper, 1);
+
+        boolean allValid = IntStream.range(0, 1000).parallel()
+                .allMatch(i -> validator.validate("{\"cards\": []}".getBytes(UTF_8)));
+
+        assertThat(allValid, is(true));
+    }
+
+    @Test
+    void samplesNothingByDefault() {
+        CardResponseValidator validator = new CardResponseValidator(mapper, 0);
+
+        assertThat(IntStream.range(0, 1000).anyMatch(i -> validator.isSampled()), is(false));
+        // Not even loaded
+        assertThat(validator.validate("{\"cards\": [], \"unknown\": 1}".getBytes(UTF_8)), is(true));
+    }
+
+    @Test
+    void samplesTheConfiguredShare() {
+        CardResponseValidator validator = new CardResponseValidator(mapper, 0.1);
+
+        long sampled = IntStream.range(0, 100_000).filter(i -> validator.isSampled()).count();
+
+        assertThat(sampled > 9000 && sampled < 11_000, is(true));
+    }
+}
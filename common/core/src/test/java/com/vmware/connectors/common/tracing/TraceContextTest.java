@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TraceContextTest {
+
+    private static final String TRACEPARENT = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01";
+
+    @Test
+    void parsesTheTraceparent() {
+        TraceContext context = TraceContext.parse(TRACEPARENT, "acme=1").get();
+
+        assertThat(context.getTraceId(), is("0af7651916cd43dd8448eb211c80319c"));
+        assertThat(context.getSpanId(), is("b7ad6b7169203331"));
+        assertThat(context.isSampled(), is(true));
+        assertThat(context.getTraceState(), is("acme=1"));
+        assertThat(context.toTraceparent(), is(TRACEPARENT));
+    }
+
+    @Test
+    void readsTheSampledFlagOnly() {
+        assertThat(TraceContext.parse("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-00", null).get().isSampled(), is(false));
+        assertThat(TraceContext.parse("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-03", null).get().isSampled(), is(true));
+    }
+
+    @Test
+    void acceptsLaterVersions() {
+        Optional<TraceContext> context = TraceContext.parse("01-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01-extra", null);
+
+        assertThat(context.get().toTraceparent(), is(TRACEPARENT));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331",
+            "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01-extra",
+            "ff-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01",
+            "00-00000000000000000000000000000000-b7ad6b7169203331-01",
+            "00-0af7651916cd43dd8448eb211c80319c-0000000000000000-01",
+            "00-0AF7651916CD43DD8448EB211C80319C-b7ad6b7169203331-01",
+            "00-0af7651916cd43dd8448eb211c80319c_b7ad6b7169203331-01"})
+    void ignoresInvalidTraceparents(String traceparent) {
+        assertThat(TraceContext.parse(traceparent, null).isPresent(), is(false));
+    }
+
+    @Test
+    void ignoresMissingTraceparents() {
+        assertThat(TraceContext.parse(null, "acme=1").isPresent(), is(false));
+    }
+
+    @Test
+    void startsChildrenInTheSameTrace() {
+        TraceContext parent = TraceContext.parse(TRACEPARENT, "acme=1").get();
+        TraceContext child = parent.newChild();
+
+        assertThat(child.getTraceId(), is(parent.getTraceId()));
+        assertThat(child.getSpanId(), not(parent.getSpanId()));
+        assertThat(child.isSampled(), is(true));
+        assertThat(child.getTraceState(), is("acme=1"));
+    }
+
+    @Test
+    void startsNewTraces() {
+        TraceContext context = TraceContext.newTrace(false);
+
+        assertThat(context.getTraceId().length(), is(32));
+        assertThat(context.getSpanId().length(), is(16));
+        assertThat(context.isSampled(), is(false));
+        assertThat(context.getTraceState(), nullValue());
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import com.vmware.connectors.common.payloads.response.Card;
+import com.vmware.connectors.common.payloads.response.CardAction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IdGeneratorsTest {
+
+    @ParameterizedTest
+    @CsvSource({"SECURE_RANDOM, 4", "RANDOM, 4", "TIME_ORDERED, 7"})
+    void generatesUniqueIetfUuids(IdGenerators.Strategy strategy, int version) {
+        IdGenerator generator = IdGenerators.of(strategy);
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 100_000).parallel().forEach(i -> ids.add(generator.nextId()));
+
+        assertThat(ids.size(), is(100_000));
+        UUID id = generator.nextId();
+        assertThat(id.version(), is(version));
+        assertThat(id.variant(), is(2));
+    }
+
+    @Test
+    void buildersUseTheirGenerator() {
+        UUID id = UUID.fromString("00000000-0000-4000-8000-000000000001");
+        IdGenerator generator = () -> id;
+
+        assertThat(new Card.Builder(generator).build().getId(), is(id));
+        assertThat(new CardAction.Builder(generator).build().getId(), is(id));
+    }
+}
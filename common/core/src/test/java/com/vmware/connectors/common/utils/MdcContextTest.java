@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MdcContextTest {
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    void setsAndRemovesValuesOnThreadWithoutMdc() {
+        MdcContext context = MdcContext.of(contextMap("abc", "jdoe"));
+
+        String seen = context.callWith(() -> MDC.get("requestId") + "/" + MDC.get("principal"));
+
+        assertThat(seen, is("abc/jdoe"));
+        assertThat(MDC.get("requestId"), nullValue());
+        assertThat(MDC.get("principal"), nullValue());
+    }
+
+    @Test
+    void replacesAndRestoresTheThreadMdc() {
+        MDC.put("requestId", "other");
+        MDC.put("principal", "jdoe");
+        MDC.put("extra", "stale");
+        MdcContext context = MdcContext.of(contextMap("abc", "jdoe"));
+
+        context.runWith(() -> {
+            assertThat(MDC.get("requestId"), is("abc"));
+            assertThat(MDC.get("principal"), is("jdoe"));
+            assertThat(MDC.get("extra"), nullValue());
+        });
+
+        assertThat(MDC.get("requestId"), is("other"));
+        assertThat(MDC.get("principal"), is("jdoe"));
+        assertThat(MDC.get("extra"), is("stale"));
+    }
+
+    @Test
+    void leavesAMatchingMdcAlone() {
+        MDC.put("requestId", "abc");
+        MDC.put("principal", "jdoe");
+        MdcContext context = MdcContext.of(contextMap("abc", "jdoe"));
+
+        String seen = context.callWith(() -> MDC.get("requestId") + "/" + MDC.get("principal"));
+
+        assertThat(seen, is("abc/jdoe"));
+        assertThat(MDC.get("requestId"), is("abc"));
+        assertThat(MDC.get("principal"), is("jdoe"));
+    }
+
+    @Test
+    void restoresAfterFailure() {
+        MdcContext context = MdcContext.of(contextMap("abc", "jdoe"));
+
+        try {
+            context.runWith(() -> {
+                throw new IllegalStateException("boom");
+            });
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("boom"));
+        }
+
+        assertThat(MDC.get("requestId"), nullValue());
+    }
+
+    @Test
+    void emptyContextClearsStaleMdc() {
+        MDC.put("requestId", "stale");
+
+        MdcContext.of(null).runWith(() -> assertThat(MDC.get("requestId"), nullValue()));
+
+        assertThat(MdcContext.of(new HashMap<>()).isEmpty(), is(true));
+        assertThat(MDC.get("requestId"), is("stale"));
+    }
+
+    private static Map<String, String> contextMap(String requestId, String principal) {
+        Map<String, String> contextMap = new HashMap<>();
+        contextMap.put("requestId", requestId);
+        contextMap.put("principal", principal);
+        return contextMap;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MessageTemplateTest {
+
+    @Test
+    void returnsTheMessageAsIsWithoutArgs() {
+        MessageTemplate template = new MessageTemplate("It''s {0}", Locale.US);
+
+        assertThat(template.format(), is("It''s {0}"));
+        assertThat(template.format((Object[]) null), is("It''s {0}"));
+    }
+
+    @Test
+    void formatsWithArgs() {
+        MessageTemplate template = new MessageTemplate("It''s {0}", Locale.US);
+
+        assertThat(template.format("PROJ-1"), is("It's PROJ-1"));
+        assertThat(template.format("PROJ-2"), is("It's PROJ-2"));
+    }
+
+    @Test
+    void formatsInItsLocale() {
+        MessageTemplate template = new MessageTemplate("{0,number}", Locale.GERMANY);
+
+        assertThat(template.format(1234.5), is("1.234,5"));
+    }
+
+    @Test
+    void formatsFromManyThreads() throws Exception {
+        MessageTemplate template = new MessageTemplate("{0} has {1,number,integer} comments", Locale.US);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                int thread = i;
+                results.add(executor.submit(() -> {
+                    for (int n = 0; n < 1000; n++) {
+                        String expected = "PROJ-" + thread + " has " + n + " comments";
+                        if (!expected.equals(template.format("PROJ-" + thread, n))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(), is(true));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
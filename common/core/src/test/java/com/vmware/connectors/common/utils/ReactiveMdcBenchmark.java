@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.util.context.Context;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compares the MdcContext based propagation in {@link Reactive} with the
+ * previous one, which copied the whole MDC map around every item.
+ * <p>
+ * Run the main method from the IDE, or from the test classpath after test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReactiveMdcBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveMdcBenchmark.class);
+
+    private static final String LEGACY_KEY = "legacy-mdc";
+
+    // The fan-out of a typical card request
+    private static final int ITEMS = 100;
+
+    /*
+     * true: the items are processed on the request thread, which already has the MDC (servlet).
+     * false: they are processed on a thread without it (WebFlux event loop, WebClient threads).
+     */
+    @Param({"true", "false"})
+    private boolean threadHasMdc;
+
+    private Context context;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MDC.put("requestId", "0f8a6c1e-3c5b-4a47-9d7e-2b1f6e0c9a11");
+        MDC.put("principal", "jdoe@acme.com");
+        context = Reactive.setupContext().put(LEGACY_KEY, MDC.getCopyOfContextMap());
+        if (!threadHasMdc) {
+            MDC.clear();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    @Benchmark
+    public Integer mapLegacy() {
+        return Flux.range(0, ITEMS)
+                .flatMap(legacyWrapMapper(i -> i + MDC.get("requestId").length()))
+                .reduce(0, Integer::sum)
+                .subscriberContext(context)
+                .block();
+    }
+
+    @Benchmark
+    public Integer mapMdcContext() {
+        return Flux.range(0, ITEMS)
+                .flatMap(Reactive.wrapMapper(i -> i + MDC.get("requestId").length()))
+                .reduce(0, Integer::sum)
+                .subscriberContext(context)
+                .block();
+    }
+
+    // Trace logging is off, as it is in production
+    @Benchmark
+    public Long logLegacy() {
+        return Flux.range(0, ITEMS)
+                .doOnEach(legacyWrapForItem(i -> logger.trace("Item {}", i)))
+                .count()
+                .subscriberContext(context)
+                .block();
+    }
+
+    @Benchmark
+    public Long logMdcContext() {
+        return Flux.range(0, ITEMS)
+                .doOnEach(Reactive.wrapForItem(logger::isTraceEnabled, i -> logger.trace("Item {}", i)))
+                .count()
+                .subscriberContext(context)
+                .block();
+    }
+
+    private static <T, R> Function<T, Mono<R>> legacyWrapMapper(Function<T, R> mapper) {
+        return item -> Mono.subscriberContext()
+                .map(ctx -> legacyWrapCall(ctx, () -> mapper.apply(item)));
+    }
+
+    private static <R> Consumer<Signal<R>> legacyWrapForItem(Consumer<R> consumer) {
+        return signal -> {
+            if (signal.isOnNext()) {
+                legacyWrapCall(signal.getContext(), () -> {
+                    consumer.accept(signal.get());
+                    return null;
+                });
+            }
+        };
+    }
+
+    private static <R> R legacyWrapCall(Context ctx, Supplier<R> supplier) {
+        Map<String, String> savedContextMap = MDC.getCopyOfContextMap();
+        MDC.setContextMap(ctx.get(LEGACY_KEY));
+        try {
+            return supplier.get();
+        } finally {
+            if (savedContextMap == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(savedContextMap);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReactiveMdcBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
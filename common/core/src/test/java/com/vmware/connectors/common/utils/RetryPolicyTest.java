@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RetryPolicyTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void retriesTransientStatuses() {
+        RetryPolicy policy = policy(3, 0.1);
+        Mono<String> call = failing(2, HttpStatus.SERVICE_UNAVAILABLE, new HttpHeaders());
+
+        String result = call.transform(Reactive.retryTransient(policy)).block(Duration.ofSeconds(5));
+
+        assertThat(result, is("issue"));
+        assertThat(attempts.get(), is(3));
+        assertThat(registry.get("connectors.backend.retries").tag("status", "503").counter().count(), is(2.0));
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() {
+        RetryPolicy policy = policy(3, 0.1);
+        Mono<String> call = failing(5, HttpStatus.BAD_GATEWAY, new HttpHeaders());
+
+        assertThrows(WebClientResponseException.class,
+                () -> call.transform(Reactive.retryTransient(policy)).block(Duration.ofSeconds(5)));
+
+        assertThat(attempts.get(), is(3));
+        assertThat(giveUps("attempts"), is(1.0));
+    }
+
+    @Test
+    void doesNotRetryOtherStatuses() {
+        RetryPolicy policy = policy(3, 0.1);
+        Mono<String> call = failing(1, HttpStatus.INTERNAL_SERVER_ERROR, new HttpHeaders());
+
+        assertThrows(WebClientResponseException.class,
+                () -> call.transform(Reactive.retryTransient(policy)).block(Duration.ofSeconds(5)));
+
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    void givesUpWhenRetryAfterIsPastTheDeadline() {
+        RetryPolicy policy = policy(3, 0.1);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "120");
+        Mono<String> call = failing(1, HttpStatus.TOO_MANY_REQUESTS, headers);
+
+        assertThrows(WebClientResponseException.class,
+                () -> call.transform(Reactive.retryTransient(policy)).block(Duration.ofSeconds(5)));
+
+        assertThat(attempts.get(), is(1));
+        assertThat(giveUps("deadline"), is(1.0));
+    }
+
+    @Test
+    void readsRetryAfter() {
+        HttpHeaders seconds = new HttpHeaders();
+        seconds.set(HttpHeaders.RETRY_AFTER, "2");
+        assertThat(RetryPolicy.retryAfterNanos(seconds), is(TimeUnit.SECONDS.toNanos(2)));
+
+        HttpHeaders past = new HttpHeaders();
+        past.set(HttpHeaders.RETRY_AFTER, "Wed, 21 Oct 2015 07:28:00 GMT");
+        assertThat(RetryPolicy.retryAfterNanos(past), is(0L));
+
+        HttpHeaders invalid = new HttpHeaders();
+        invalid.set(HttpHeaders.RETRY_AFTER, "soon");
+        assertThat(RetryPolicy.retryAfterNanos(invalid), is(0L));
+    }
+
+    @Test
+    void keepsWithinTheBudget() {
+        RetryPolicy policy = policy(2, 0);
+        for (int i = 0; i < 10; i++) {
+            failing(1, HttpStatus.SERVICE_UNAVAILABLE, new HttpHeaders())
+                    .transform(Reactive.retryTransient(policy))
+                    .block(Duration.ofSeconds(5));
+        }
+        attempts.set(0);
+
+        assertThrows(WebClientResponseException.class,
+                () -> failing(1, HttpStatus.SERVICE_UNAVAILABLE, new HttpHeaders())
+                        .transform(Reactive.retryTransient(policy))
+                        .block(Duration.ofSeconds(5)));
+
+        assertThat(attempts.get(), is(1));
+        assertThat(giveUps("budget"), is(1.0));
+    }
+
+    @Test
+    void keepsABudgetPerBackend() {
+        RetryPolicy policy = policy(2, 0);
+        for (int i = 0; i < 10; i++) {
+            failing(1, HttpStatus.SERVICE_UNAVAILABLE, new HttpHeaders())
+                    .transform(Reactive.retryTransient(policy))
+                    .subscriberContext(Context.of(Reactive.BASE_URL_KEY, "https://jira.acme.com/"))
+                    .block(Duration.ofSeconds(5));
+        }
+        attempts.set(0);
+
+        String result = failing(1, HttpStatus.SERVICE_UNAVAILABLE, new HttpHeaders())
+                .transform(Reactive.retryTransient(policy))
+                .subscriberContext(Context.of(Reactive.BASE_URL_KEY, "https://jira.other.com"))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(result, is("issue"));
+        assertThat(attempts.get(), is(2));
+        assertThrows(WebClientResponseException.class,
+                () -> failing(1, HttpStatus.SERVICE_UNAVAILABLE, new HttpHeaders())
+                        .transform(Reactive.retryTransient(policy))
+                        .subscriberContext(Context.of(Reactive.BASE_URL_KEY, "https://jira.acme.com"))
+                        .block(Duration.ofSeconds(5)));
+    }
+
+    private RetryPolicy policy(int maxAttempts, double budgetRatio) {
+        return new RetryPolicy(registry, maxAttempts, Duration.ofMillis(100), Duration.ofSeconds(2),
+                Duration.ofSeconds(10), budgetRatio, 10, () -> 0.1);
+    }
+
+    /*
+     * Fails the first attempts with the status, then succeeds.
+     */
+    private Mono<String> failing(int failures, HttpStatus status, HttpHeaders headers) {
+        AtomicInteger calls = new AtomicInteger();
+        return Mono.defer(() -> {
+            attempts.incrementAndGet();
+            if (calls.incrementAndGet() <= failures) {
+                return Mono.error(new WebClientResponseException("Unexpected response", status.value(),
+                        status.getReasonPhrase(), headers, new byte[0], StandardCharsets.UTF_8));
+            }
+            return Mono.just("issue");
+        });
+    }
+
+    private double giveUps(String reason) {
+        return registry.get("connectors.backend.retry.giveups").tag("reason", reason).counter().count();
+    }
+}
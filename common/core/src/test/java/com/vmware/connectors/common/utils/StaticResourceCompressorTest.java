@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StaticResourceCompressorTest {
+
+    private final Path dir;
+
+    public StaticResourceCompressorTest() throws IOException {
+        dir = Files.createTempDirectory("static");
+    }
+
+    @AfterEach
+    void deleteDir() throws IOException {
+        FileUtils.deleteDirectory(dir.toFile());
+    }
+
+    @Test
+    void compressesTextResources() throws IOException {
+        String metadata = "{\"fields\":{" + StringUtils.repeat("\"field\":{\"regex\":\"[A-Z]+-[0-9]+\"},", 20) + "}}";
+        Path discovery = Files.createDirectories(dir.resolve("discovery"));
+        Files.write(discovery.resolve("metadata.json"), metadata.getBytes(UTF_8));
+        Files.write(discovery.resolve("tiny.json"), "{}".getBytes(UTF_8));
+        Files.write(Files.createDirectories(dir.resolve("images")).resolve("connector.png"), new byte[1024]);
+
+        List<Path> written = StaticResourceCompressor.compress(dir);
+
+        assertThat(written.size(), is(1));
+        assertThat(written.get(0), is(discovery.resolve("metadata.json.gz")));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(written.get(0)))) {
+            assertThat(IOUtils.toString(in, UTF_8), is(metadata));
+        }
+        assertThat(Files.exists(discovery.resolve("tiny.json.gz")), is(false));
+        assertThat(Files.exists(dir.resolve("images/connector.png.gz")), is(false));
+    }
+
+    @Test
+    void ignoresMissingDirectories() throws IOException {
+        assertThat(StaticResourceCompressor.compress(dir.resolve("missing")).isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TextAccessorBaseTest {
+
+    private static final String BASENAME = "messages/text";
+
+    private ResourceBundleMessageSource messageSource;
+
+    private TextAccessorBase accessor;
+
+    @BeforeEach
+    void setup() {
+        messageSource = new ResourceBundleMessageSource();
+        messageSource.setFallbackToSystemLocale(false);
+        messageSource.setBasename(BASENAME);
+        accessor = new TextAccessorBase(messageSource, BASENAME);
+    }
+
+    @Test
+    void formatsLikeTheMessageSource() {
+        for (Locale locale : new Locale[] {Locale.ENGLISH, Locale.FRENCH, Locale.CANADA_FRENCH}) {
+            assertThat(accessor.getMessage("header", locale, "PROJ-1"),
+                    is(messageSource.getMessage("header", new Object[] {"PROJ-1"}, locale)));
+            assertThat(accessor.getMessage("body", locale), is(messageSource.getMessage("body", null, locale)));
+        }
+    }
+
+    @Test
+    void fallsBackToTheBaseFile() {
+        assertThat(accessor.getMessage("header", Locale.FRENCH, "PROJ-1"), is("Ticket PROJ-1"));
+        assertThat(accessor.getMessage("header", Locale.CANADA_FRENCH, "PROJ-1"), is("Ticket PROJ-1"));
+        assertThat(accessor.getMessage("body", Locale.FRENCH), is("Nothing to see"));
+        assertThat(accessor.getMessage("header", Locale.JAPANESE, "PROJ-1"), is("Issue PROJ-1"));
+    }
+
+    @Test
+    void formatsChoices() {
+        assertThat(accessor.getMessage("count", Locale.ENGLISH, 0), is("There are no files"));
+        assertThat(accessor.getMessage("count", Locale.ENGLISH, 1), is("There is one file"));
+        assertThat(accessor.getMessage("count", Locale.ENGLISH, 3), is("There are 3 files"));
+    }
+
+    @Test
+    void unknownCodesGoToTheMessageSource() {
+        assertThrows(NoSuchMessageException.class, () -> accessor.getMessage("footer", Locale.ENGLISH));
+    }
+
+    @Test
+    void keepsWorkingPastTheLocaleLimit() {
+        for (int i = 0; i < 100; i++) {
+            Locale locale = new Locale("x" + i);
+            assertThat(accessor.getMessage("header", locale, "PROJ-" + i), is("Issue PROJ-" + i));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vmware.connectors.common.json.CardResponseValidator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CardResponseValidationWebFilterTest {
+
+    private static final String INVALID = "{\"cards\": [], \"unknown\": 1}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void writesSampledResponsesUntouched() {
+        CardResponseValidationWebFilter filter =
+                new CardResponseValidationWebFilter("/cards/requests", new CardResponseValidator(mapper, 1));
+        AtomicReference<ServerHttpResponse> written = new AtomicReference<>();
+
+        MockServerHttpResponse response = filter(filter, "/cards/requests", written, INVALID);
+
+        assertThat(written.get(), not(sameInstance(response)));
+        assertThat(body(response), is(INVALID));
+    }
+
+    @Test
+    void leavesResponsesOutsideOfTheSample() {
+        CardResponseValidationWebFilter filter =
+                new CardResponseValidationWebFilter("/cards/requests", new CardResponseValidator(mapper, 0));
+        AtomicReference<ServerHttpResponse> written = new AtomicReference<>();
+
+        MockServerHttpResponse response = filter(filter, "/cards/requests", written, INVALID);
+
+        assertThat(written.get(), sameInstance(response));
+        assertThat(body(response), is(INVALID));
+    }
+
+    @Test
+    void leavesOtherPaths() {
+        CardResponseValidationWebFilter filter =
+                new CardResponseValidationWebFilter("/cards/requests", new CardResponseValidator(mapper, 1));
+        AtomicReference<ServerHttpResponse> written = new AtomicReference<>();
+
+        MockServerHttpResponse response = filter(filter, "/api/v1/issues/1/comment", written, "{}");
+
+        assertThat(written.get(), sameInstance(response));
+    }
+
+    private static MockServerHttpResponse filter(CardResponseValidationWebFilter filter, String path,
+                                                 AtomicReference<ServerHttpResponse> written, String body) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post(path).build());
+        filter.filter(exchange, filtered -> {
+            ServerHttpResponse response = filtered.getResponse();
+            written.set(response);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(UTF_8))));
+        }).block(Duration.ofSeconds(5));
+        return exchange.getResponse();
+    }
+
+    private static String body(MockServerHttpResponse response) {
+        DataBuffer buffer = DataBufferUtils.join(response.getBody()).block(Duration.ofSeconds(5));
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
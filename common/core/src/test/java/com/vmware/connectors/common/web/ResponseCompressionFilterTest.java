@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ResponseCompressionFilterTest {
+
+    private static final String CARDS = "{\"cards\":[" + StringUtils.repeat("{\"name\":\"GithubPr\"},", 100) + "]}";
+
+    private final ResponseCompressionFilter filter =
+            new ResponseCompressionFilter("/cards/requests", new ResponseCompression(512, 9));
+
+    @Test
+    void compressesLargeResponses() throws Exception {
+        MockHttpServletResponse response = filter(request("/cards/requests", "gzip, deflate"), CARDS);
+
+        assertThat(response.getHeader("Content-Encoding"), is("gzip"));
+        assertThat(response.getHeader("Vary"), is("Accept-Encoding"));
+        assertThat(response.getContentLength(), is(response.getContentAsByteArray().length));
+        assertThat(gunzip(response.getContentAsByteArray()), is(CARDS));
+    }
+
+    @Test
+    void leavesSmallResponses() throws Exception {
+        MockHttpServletResponse response = filter(request("/cards/requests", "gzip"), "{\"cards\":[]}");
+
+        assertThat(response.getHeader("Content-Encoding"), nullValue());
+        assertThat(response.getContentAsString(), is("{\"cards\":[]}"));
+    }
+
+    @Test
+    void leavesClientsWithoutGzip() throws Exception {
+        MockHttpServletResponse response = filter(request("/cards/requests", null), CARDS);
+
+        assertThat(response.getHeader("Content-Encoding"), nullValue());
+        assertThat(response.getContentAsString(), is(CARDS));
+    }
+
+    @Test
+    void leavesStreamedCards() throws Exception {
+        MockHttpServletRequest request = request("/cards/requests", "gzip");
+        request.addHeader("Accept", "application/stream+json");
+
+        MockHttpServletResponse response = filter(request, CARDS);
+
+        assertThat(response.getHeader("Content-Encoding"), nullValue());
+        assertThat(response.getContentAsString(), is(CARDS));
+    }
+
+    @Test
+    void leavesOtherPaths() throws Exception {
+        MockHttpServletResponse response = filter(request("/discovery/metadata.json", "gzip"), CARDS);
+
+        assertThat(response.getHeader("Content-Encoding"), nullValue());
+        assertThat(response.getContentAsString(), is(CARDS));
+    }
+
+    @Test
+    void rejectsInvalidLevels() {
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCompression(512, 10));
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request, String body) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("application/json");
+                resp.getOutputStream().write(body.getBytes(UTF_8));
+            }
+        };
+        new MockFilterChain(servlet, filter).doFilter(request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        return request;
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(bytes)), UTF_8);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ResponseCompressionWebFilterTest {
+
+    private static final String CARDS = "{\"cards\":[" + StringUtils.repeat("{\"name\":\"GithubPr\"},", 100) + "]}";
+
+    private final ResponseCompressionWebFilter filter =
+            new ResponseCompressionWebFilter("/cards/requests", new ResponseCompression(512, 9));
+
+    @Test
+    void compressesLargeResponses() throws Exception {
+        MockServerHttpResponse response = filter(request("/cards/requests", "gzip, deflate"), CARDS);
+
+        assertThat(response.getHeaders().getFirst("Content-Encoding"), is("gzip"));
+        assertThat(response.getHeaders().getFirst("Vary"), is("Accept-Encoding"));
+        byte[] body = bytes(response);
+        assertThat(response.getHeaders().getContentLength(), is((long) body.length));
+        assertThat(gunzip(body), is(CARDS));
+    }
+
+    @Test
+    void leavesSmallResponses() {
+        MockServerHttpResponse response = filter(request("/cards/requests", "gzip"), "{\"cards\":[]}");
+
+        assertThat(response.getHeaders().getFirst("Content-Encoding"), nullValue());
+        assertThat(new String(bytes(response), UTF_8), is("{\"cards\":[]}"));
+    }
+
+    @Test
+    void leavesClientsWithoutGzip() {
+        MockServerHttpResponse response = filter(request("/cards/requests", null), CARDS);
+
+        assertThat(response.getHeaders().getFirst("Content-Encoding"), nullValue());
+        assertThat(new String(bytes(response), UTF_8), is(CARDS));
+    }
+
+    @Test
+    void leavesStreamedCards() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request("/cards/requests", "gzip"));
+
+        filter.filter(exchange, filtered -> {
+            ServerHttpResponse response = filtered.getResponse();
+            return response.writeAndFlushWith(Flux.just(Flux.just(buffer(response, CARDS))));
+        }).block(Duration.ofSeconds(5));
+
+        assertThat(exchange.getResponse().getHeaders().getFirst("Content-Encoding"), nullValue());
+        assertThat(new String(bytes(exchange.getResponse()), UTF_8), is(CARDS));
+    }
+
+    @Test
+    void leavesOtherPaths() {
+        MockServerHttpResponse response = filter(request("/discovery/metadata.json", "gzip"), CARDS);
+
+        assertThat(response.getHeaders().getFirst("Content-Encoding"), nullValue());
+        assertThat(new String(bytes(response), UTF_8), is(CARDS));
+    }
+
+    private MockServerHttpResponse filter(MockServerHttpRequest request, String body) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, filtered -> {
+            ServerHttpResponse response = filtered.getResponse();
+            return response.writeWith(Mono.just(buffer(response, body)));
+        }).block(Duration.ofSeconds(5));
+        return exchange.getResponse();
+    }
+
+    private static MockServerHttpRequest request(String path, String acceptEncoding) {
+        MockServerHttpRequest.BodyBuilder request = MockServerHttpRequest.post(path);
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return request.build();
+    }
+
+    private static DataBuffer buffer(ServerHttpResponse response, String body) {
+        return response.bufferFactory().wrap(body.getBytes(UTF_8));
+    }
+
+    private static byte[] bytes(MockServerHttpResponse response) {
+        DataBuffer buffer = DataBufferUtils.join(response.getBody()).block(Duration.ofSeconds(5));
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return bytes;
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(bytes)), UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.collect.ImmutableList;
+import com.vmware.connectors.common.utils.ServerTiming;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ServerTimingFilterTest {
+
+    private final ServerTimingFilter filter = new ServerTimingFilter(ImmutableList.of("/templates/", "/discovery/"));
+
+    @Test
+    void reportsTheRequestTiming() throws Exception {
+        MockHttpServletResponse response = filter("/cards/requests", timing -> {
+            timing.recordBackendCall(TimeUnit.MILLISECONDS.toNanos(120));
+            timing.recordBackendCall(TimeUnit.MILLISECONDS.toNanos(80));
+            timing.recordDecode(TimeUnit.MICROSECONDS.toNanos(2500));
+            timing.recordBuild(TimeUnit.MICROSECONDS.toNanos(400));
+        }, "{\"cards\":[]}");
+
+        assertThat(response.getHeader("Server-Timing"),
+                startsWith("backend;desc=\"2 calls\";dur=200.0, decode;dur=2.5, build;dur=0.4, total;dur="));
+        assertThat(response.getContentAsString(), is("{\"cards\":[]}"));
+    }
+
+    @Test
+    void reportsResponsesWithoutBody() throws Exception {
+        MockHttpServletResponse response = filter("/api/v1/issues/1/watchers", timing ->
+                timing.recordBackendCall(TimeUnit.MILLISECONDS.toNanos(10)), null);
+
+        assertThat(response.getHeader("Server-Timing"),
+                startsWith("backend;desc=\"1 call\";dur=10.0, decode;dur=0.0, build;dur=0.0, total;dur="));
+    }
+
+    @Test
+    void leavesExcludedPaths() throws Exception {
+        MockHttpServletResponse response = filter("/discovery/metadata.json", timing -> {
+        }, "{}");
+
+        assertThat(response.getHeader("Server-Timing"), nullValue());
+    }
+
+    private MockHttpServletResponse filter(String path, Consumer<ServerTiming> work, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                ServerTiming timing = (ServerTiming) req.getAttribute(ServerTiming.ATTRIBUTE);
+                work.accept(timing == null ? ServerTiming.none() : timing);
+                if (body != null) {
+                    resp.getOutputStream().write(body.getBytes(UTF_8));
+                }
+            }
+        };
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+}
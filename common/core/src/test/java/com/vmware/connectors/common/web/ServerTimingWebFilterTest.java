@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.collect.ImmutableList;
+import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.utils.ServerTiming;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ServerTimingWebFilterTest {
+
+    private final ServerTimingWebFilter filter = new ServerTimingWebFilter(ImmutableList.of("/templates/", "/discovery/"));
+
+    @Test
+    void reportsTheRequestTiming() {
+        MockServerHttpResponse response = filter("/cards/requests", timing -> {
+            timing.recordBackendCall(TimeUnit.MILLISECONDS.toNanos(120));
+            timing.recordBackendCall(TimeUnit.MILLISECONDS.toNanos(80));
+            timing.recordDecode(TimeUnit.MICROSECONDS.toNanos(2500));
+            timing.recordBuild(TimeUnit.MICROSECONDS.toNanos(400));
+        }, "{\"cards\":[]}");
+
+        assertThat(response.getHeaders().getFirst("Server-Timing"),
+                startsWith("backend;desc=\"2 calls\";dur=200.0, decode;dur=2.5, build;dur=0.4, total;dur="));
+        assertThat(response.getBodyAsString().block(Duration.ofSeconds(5)), is("{\"cards\":[]}"));
+    }
+
+    @Test
+    void reportsResponsesWithoutBody() {
+        MockServerHttpResponse response = filter("/api/v1/issues/1/watchers", timing ->
+                timing.recordBackendCall(TimeUnit.MILLISECONDS.toNanos(10)), null);
+
+        assertThat(response.getHeaders().getFirst("Server-Timing"),
+                startsWith("backend;desc=\"1 call\";dur=10.0, decode;dur=0.0, build;dur=0.0, total;dur="));
+    }
+
+    @Test
+    void leavesExcludedPaths() {
+        MockServerHttpResponse response = filter("/discovery/metadata.json", timing -> {
+        }, "{}");
+
+        assertThat(response.getHeaders().getFirst("Server-Timing"), nullValue());
+    }
+
+    private MockServerHttpResponse filter(String path, Consumer<ServerTiming> work, String body) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post(path).build());
+        filter.filter(exchange, filtered -> Mono.subscriberContext().flatMap(context -> {
+            work.accept(Reactive.getServerTiming(context));
+            if (body == null) {
+                return filtered.getResponse().setComplete();
+            }
+            return filtered.getResponse().writeWith(
+                    Mono.just(filtered.getResponse().bufferFactory().wrap(body.getBytes(UTF_8))));
+        })).block(Duration.ofSeconds(5));
+        return exchange.getResponse();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StaticResourceEtagFilterTest {
+
+    private final StaticResourceEtags etags =
+            new StaticResourceEtags("static", ImmutableList.of("/templates/", "/discovery/", "/images/"), 100);
+
+    private final StaticResourceEtagFilter filter = new StaticResourceEtagFilter(etags);
+
+    @Test
+    void setsStrongEtag() throws Exception {
+        MockHttpServletResponse response = filter(new MockHttpServletRequest("GET", "/templates/generic.hbs"));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getHeader("ETag"), startsWith("\""));
+        assertThat(etags.getEtag("/templates/generic.hbs", null).get(), is(response.getHeader("ETag")));
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchWithNotModified() throws Exception {
+        String etag = etags.getEtag("/templates/generic.hbs", null).get();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/templates/generic.hbs");
+        request.addHeader("If-None-Match", etag);
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus(), is(304));
+        assertThat(chain.getRequest(), nullValue());
+    }
+
+    @Test
+    void passesOtherEtagsOn() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/templates/generic.hbs");
+        request.addHeader("If-None-Match", "\"stale\"");
+
+        MockHttpServletResponse response = filter(request);
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getHeader("ETag"), not("\"stale\""));
+    }
+
+    @Test
+    void ignoresMissingAndNonStaticResources() throws Exception {
+        assertThat(filter(new MockHttpServletRequest("GET", "/templates/missing.hbs")).getHeader("ETag"), nullValue());
+        assertThat(filter(new MockHttpServletRequest("GET", "/templates/../application.yaml")).getHeader("ETag"), nullValue());
+        assertThat(filter(new MockHttpServletRequest("GET", "/cards/requests")).getHeader("ETag"), nullValue());
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        assertThat(chain.getRequest(), notNullValue());
+        return response;
+    }
+}
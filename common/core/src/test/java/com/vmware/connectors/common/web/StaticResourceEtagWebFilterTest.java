@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StaticResourceEtagWebFilterTest {
+
+    private final StaticResourceEtags etags =
+            new StaticResourceEtags("static", ImmutableList.of("/templates/", "/discovery/", "/images/"), 100);
+
+    private final StaticResourceEtagWebFilter filter = new StaticResourceEtagWebFilter(etags);
+
+    @Test
+    void setsStrongEtag() {
+        MockServerHttpResponse response = filter(MockServerHttpRequest.get("/templates/generic.hbs").build(), true);
+
+        assertThat(response.getStatusCode(), nullValue());
+        assertThat(response.getHeaders().getETag(), startsWith("\""));
+        assertThat(etags.getEtag("/templates/generic.hbs", null).get(), is(response.getHeaders().getETag()));
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchWithNotModified() {
+        String etag = etags.getEtag("/templates/generic.hbs", null).get();
+
+        MockServerHttpResponse response = filter(MockServerHttpRequest.get("/templates/generic.hbs")
+                .ifNoneMatch(etag)
+                .build(), false);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.NOT_MODIFIED));
+    }
+
+    @Test
+    void passesOtherEtagsOn() {
+        MockServerHttpResponse response = filter(MockServerHttpRequest.get("/templates/generic.hbs")
+                .ifNoneMatch("\"stale\"")
+                .build(), true);
+
+        assertThat(response.getStatusCode(), nullValue());
+        assertThat(response.getHeaders().getETag(), not("\"stale\""));
+    }
+
+    @Test
+    void ignoresMissingAndNonStaticResources() {
+        assertThat(filter(MockServerHttpRequest.get("/templates/missing.hbs").build(), true)
+                .getHeaders().getETag(), nullValue());
+        assertThat(filter(MockServerHttpRequest.get("/templates/../application.yaml").build(), true)
+                .getHeaders().getETag(), nullValue());
+        assertThat(filter(MockServerHttpRequest.get("/cards/requests").build(), true)
+                .getHeaders().getETag(), nullValue());
+    }
+
+    private MockServerHttpResponse filter(MockServerHttpRequest request, boolean passedOn) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        AtomicBoolean called = new AtomicBoolean();
+        filter.filter(exchange, filtered -> {
+            called.set(true);
+            return filtered.getResponse().setComplete();
+        }).block(Duration.ofSeconds(5));
+        assertThat(called.get(), is(passedOn));
+        return exchange.getResponse();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.common.web;
+
+import com.google.common.collect.ImmutableList;
+import com.vmware.connectors.common.tracing.Span;
+import com.vmware.connectors.common.tracing.Tracer;
+import com.vmware.connectors.common.utils.Reactive;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TracingWebFilterTest {
+
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+
+    private final List<Span> spans = new CopyOnWriteArrayList<>();
+
+    private final TracingWebFilter filter =
+            new TracingWebFilter(new Tracer(spans::add, 1), ImmutableList.of("/templates/", "/discovery/"));
+
+    @Test
+    void tracesTheRequest() {
+        AtomicReference<Optional<Span>> inContext = new AtomicReference<>();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/cards/requests")
+                .header("traceparent", "00-" + TRACE_ID + "-b7ad6b7169203331-01")
+                .build());
+
+        filter.filter(exchange, filtered -> Mono.subscriberContext()
+                .flatMap(context -> {
+                    inContext.set(Reactive.getSpan(context));
+                    filtered.getResponse().setStatusCode(HttpStatus.OK);
+                    return filtered.getResponse().setComplete();
+                })).block(Duration.ofSeconds(5));
+
+        assertThat(spans.size(), is(1));
+        Span span = spans.get(0);
+        assertThat(inContext.get().get(), is(span));
+        assertThat(span.getName(), is("POST /cards/requests"));
+        assertThat(span.getKind(), is(Span.Kind.SERVER));
+        assertThat(span.getContext().getTraceId(), is(TRACE_ID));
+        assertThat(span.getParentSpanId(), is("b7ad6b7169203331"));
+        assertThat(span.getAttributes().get("http.status_code"), is("200"));
+        assertThat(span.isError(), is(false));
+    }
+
+    @Test
+    void marksServerErrors() {
+        filter(MockServerHttpRequest.post("/cards/requests").build(), filtered -> {
+            filtered.getResponse().setStatusCode(HttpStatus.BAD_GATEWAY);
+            return filtered.getResponse().setComplete();
+        });
+
+        assertThat(spans.get(0).isError(), is(true));
+    }
+
+    @Test
+    void marksFailures() {
+        assertThrows(IllegalStateException.class, () -> filter(MockServerHttpRequest.post("/cards/requests").build(),
+                filtered -> Mono.error(new IllegalStateException("Boom"))));
+
+        Span span = spans.get(0);
+        assertThat(span.isError(), is(true));
+        assertThat(span.getAttributes().get("error"), is(IllegalStateException.class.getName()));
+    }
+
+    @Test
+    void leavesExcludedPaths() {
+        filter(MockServerHttpRequest.get("/discovery/metadata.json").build(),
+                filtered -> filtered.getResponse().setComplete());
+
+        assertThat(spans.isEmpty(), is(true));
+    }
+
+    private void filter(MockServerHttpRequest request, WebFilterChain chain) {
+        filter.filter(MockServerWebExchange.from(request), chain).block(Duration.ofSeconds(5));
+    }
+}
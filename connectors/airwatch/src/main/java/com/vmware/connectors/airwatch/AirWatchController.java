@@ -12,13 +12,17 @@ import com.vmware.connectors.airwatch.exceptions.ManagedAppNotFound;
 import com.vmware.connectors.airwatch.exceptions.UdidException;
 import com.vmware.connectors.airwatch.exceptions.UnsupportedPlatform;
 import com.vmware.connectors.airwatch.greenbox.GreenBoxApp;
+import com.vmware.connectors.airwatch.greenbox.GreenBoxCache;
 import com.vmware.connectors.airwatch.greenbox.GreenBoxConnection;
 import com.vmware.connectors.airwatch.service.AppConfigService;
+import com.vmware.connectors.airwatch.service.DeviceAppsCache;
 import com.vmware.connectors.common.json.JsonDocument;
 import com.vmware.connectors.common.payloads.request.CardRequest;
 import com.vmware.connectors.common.payloads.response.*;
 import com.vmware.connectors.common.utils.CardTextAccessor;
+import com.vmware.connectors.common.utils.IdGenerator;
 import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.web.CardRequestContext;
 import net.minidev.json.JSONArray;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -71,20 +75,29 @@ public class AirWatchController {
 
     private final CardTextAccessor cardTextAccessor;
 
+    private final IdGenerator idGenerator;
+
     private final AppConfigService appConfig;
 
+    private final DeviceAppsCache deviceAppsCache;
+
+    private final GreenBoxCache greenBoxCache;
+
     // Metadata includes connector regex derived from app keywords.
     private final String connectorMetadata;
 
     private final URI gbBaseUri;
 
     @Autowired
-    public AirWatchController(WebClient rest, CardTextAccessor cardTextAccessor,
-                              AppConfigService appConfig, String connectorMetadata,
-                              URI gbBaseUri) {
+    public AirWatchController(WebClient rest, CardTextAccessor cardTextAccessor, IdGenerator idGenerator,
+                              AppConfigService appConfig, DeviceAppsCache deviceAppsCache,
+                              GreenBoxCache greenBoxCache, String connectorMetadata, URI gbBaseUri) {
         this.rest = rest;
         this.cardTextAccessor = cardTextAccessor;
+        this.idGenerator = idGenerator;
         this.appConfig = appConfig;
+        this.deviceAppsCache = deviceAppsCache;
+        this.greenBoxCache = greenBoxCache;
         this.connectorMetadata = connectorMetadata;
         this.gbBaseUri = gbBaseUri;
     }
@@ -101,7 +114,8 @@ public class AirWatchController {
             @RequestHeader(name = AIRWATCH_BASE_URL_HEADER) String baseUrl,
             @RequestHeader(name = ROUTING_PREFIX) String routingPrefix,
             Locale locale,
-            @Valid @RequestBody CardRequest cardRequest) {
+            @Valid @RequestBody CardRequest cardRequest,
+            CardRequestContext cardContext) {
 
         String udid = cardRequest.getTokenSingleValue(UDID_KEY);
         String clientPlatform = cardRequest.getTokenSingleValue(PLATFORM_KEY);
@@ -124,9 +138,10 @@ public class AirWatchController {
                 .map(Optional::get)
                 .collect(Collectors.toSet());
 
-        return Flux.fromIterable(managedApps)
-                .flatMap(app -> getCardForApp(awAuth, baseUrl, udid,
-                        app, routingPrefix, clientPlatform, locale))
+        return getInstallStatuses(awAuth, baseUrl, udid, managedApps)
+                .flatMapMany(installStatuses -> Flux.fromIterable(managedApps)
+                        .flatMap(Reactive.wrapFlatMapper(app -> getCard(installStatuses.get(app.getId()),
+                                routingPrefix, app.getName(), app.getId(), udid, clientPlatform, locale, cardContext))))
                 .collect(Cards::new, (cards, card) -> cards.getCards().add(card))
                 .map(ResponseEntity::ok)
                 .subscriberContext(Reactive.setupContext());
@@ -145,9 +160,15 @@ public class AirWatchController {
         logger.debug("Found managed app. {}:{} -> {}", platform, appName, app);
 
         String hznToken = awAuth.split("(?i)Bearer ")[1];
-        return getEucToken(gbBaseUri, udid, platform, hznToken)
-                .flatMap(eucToken -> getGbConnection(gbBaseUri, eucToken))
-                .flatMap(greenBoxConnection -> installGbAppByName(appName, greenBoxConnection))
+        return getGbConnection(udid, platform, hznToken)
+                .flatMap(greenBoxConnection -> installGbAppByName(appName, greenBoxConnection)
+                        .onErrorResume(AirWatchController::isGbSessionRejected, e -> {
+                            logger.debug("GreenBox rejected the session. Retrying the install of {} with a new one.", appName);
+                            greenBoxCache.invalidate(hznToken, udid, greenBoxConnection, appName);
+                            return getGbConnection(udid, platform, hznToken)
+                                    .flatMap(newConnection -> installGbAppByName(appName, newConnection));
+                        }))
+                .doOnSuccess(status -> deviceAppsCache.invalidate(udid))
                 .map(status -> ResponseEntity.status(OK).<Void>build())
                 .subscriberContext(Reactive.setupContext());
     }
@@ -161,10 +182,23 @@ public class AirWatchController {
         return Collections.singletonMap("error", e.getMessage());
     }
 
-    private Mono<Card> getCardForApp(String awAuth, String baseUrl, String udid,
-                                     ManagedApp app, String routingPrefix, String platform, Locale locale) {
-        String appName = app.getName();
-        String appBundle = app.getId();
+    /*
+     * Answers the install status of every app from the device's snapshot, only asking
+     * AirWatch about the bundles it has not seen for this device recently.
+     */
+    private Mono<Map<String, Boolean>> getInstallStatuses(String awAuth, String baseUrl, String udid,
+                                                          Set<ManagedApp> apps) {
+        Map<String, Boolean> snapshot = deviceAppsCache.getSnapshot(awAuth, udid);
+        return Flux.fromIterable(apps)
+                .map(ManagedApp::getId)
+                .distinct()
+                .filter(appBundle -> !snapshot.containsKey(appBundle))
+                .flatMap(appBundle -> getInstallStatus(awAuth, baseUrl, udid, appBundle)
+                        .doOnNext(installed -> snapshot.put(appBundle, installed)))
+                .then(Mono.just(snapshot));
+    }
+
+    private Mono<Boolean> getInstallStatus(String awAuth, String baseUrl, String udid, String appBundle) {
         logger.debug("Getting app installation status for bundleId: {} with air-watch base url: {}",
                 appBundle, baseUrl);
         return rest.get()
@@ -173,7 +207,7 @@ public class AirWatchController {
                 .retrieve()
                 .onStatus(HttpStatus::isError, response -> handleClientError(response, udid))
                 .bodyToMono(JsonDocument.class)
-                .flatMap(Reactive.wrapFlatMapper(body -> getCard(body, routingPrefix, appName, appBundle, udid, platform, locale)));
+                .map(body -> Optional.<Boolean>ofNullable(body.read("$.IsApplicationInstalled")).orElse(true));
     }
 
     private static Mono<Throwable> handleClientError(ClientResponse response, String udid) {
@@ -198,17 +232,16 @@ public class AirWatchController {
                 });
     }
 
-    private Mono<Card> getCard(JsonDocument installStatus, String routingPrefix,
-                               String appName, String appBundle, String udid, String platform, Locale locale) {
+    private Mono<Card> getCard(Boolean isAppInstalled, String routingPrefix,
+                               String appName, String appBundle, String udid, String platform, Locale locale,
+                               CardRequestContext cardContext) {
 
-        Boolean isAppInstalled = Optional.<Boolean>ofNullable(
-                installStatus.read("$.IsApplicationInstalled")).orElse(true);
-        if (isAppInstalled) {
+        if (isAppInstalled == null || isAppInstalled) {
             logger.debug("App with bundleId: {} is already installed. No card is created.", appBundle);
             return Mono.empty();
         }
         // Create card for app install
-        Card.Builder cardBuilder = new Card.Builder();
+        Card.Builder cardBuilder = new Card.Builder(idGenerator);
         CardBody.Builder cardBodyBuilder = new CardBody.Builder()
                 .setDescription(cardTextAccessor.getBody(locale));
 
@@ -217,7 +250,7 @@ public class AirWatchController {
 
         cardBuilder
                 .setName("AirWatch")
-                .setTemplate(routingPrefix + "templates/generic.hbs")
+                .setTemplate(cardContext.getGenericTemplate())
                 .setHeader(cardTextAccessor.getHeader(locale, appName))
                 .setBody(cardBodyBuilder.build())
                 .addAction(appInstallActionBuilder.build());
@@ -229,7 +262,7 @@ public class AirWatchController {
                                                        String udid,
                                                        String platform,
                                                        Locale locale) {
-        CardAction.Builder actionBuilder = new CardAction.Builder();
+        CardAction.Builder actionBuilder = new CardAction.Builder(idGenerator);
         actionBuilder.setLabel(cardTextAccessor.getActionLabel("installApp", locale))
                 .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("installApp", locale))
                 .setActionKey(CardActionKey.DIRECT)
@@ -251,13 +284,27 @@ public class AirWatchController {
                 .bodyToMono(JsonDocument.class)
                 .map(body -> body.read("$.eucToken"))
                 .cast(String.class)
-                .doOnEach(Reactive.wrapForItem(token -> logger.trace("Install app. Got EUC token: {}", token)));
+                .doOnEach(Reactive.wrapForItem(logger::isTraceEnabled, token -> logger.trace("Install app. Got EUC token: {}", token)));
+    }
+
+    private static boolean isGbSessionRejected(Throwable throwable) {
+        if (throwable instanceof WebClientResponseException) {
+            HttpStatus status = WebClientResponseException.class.cast(throwable).getStatusCode();
+            return status == HttpStatus.UNAUTHORIZED || status == HttpStatus.FORBIDDEN;
+        }
+        return false;
+    }
+
+    private Mono<GreenBoxConnection> getGbConnection(String udid, String platform, String hznToken) {
+        return greenBoxCache.getConnection(hznToken, udid,
+                () -> getEucToken(gbBaseUri, udid, platform, hznToken)
+                        .flatMap(eucToken -> getGbConnection(gbBaseUri, eucToken)));
     }
 
     private Mono<GreenBoxConnection> getGbConnection(URI gbBaseUri, String eucToken) {
         return getCsrfToken(gbBaseUri, eucToken)
                 .map(csrfToken -> new GreenBoxConnection(gbBaseUri, eucToken, csrfToken))
-                .doOnEach(Reactive.wrapForItem(gbc -> logger.trace("Install app. Got GB connection: {}", gbc)));
+                .doOnEach(Reactive.wrapForItem(logger::isTraceEnabled, gbc -> logger.trace("Install app. Got GB connection: {}", gbc)));
     }
 
     private Mono<String> installGbAppByName(
@@ -267,6 +314,10 @@ public class AirWatchController {
     }
 
     private Mono<GreenBoxApp> findGbApp(String appName, GreenBoxConnection gbSession) {
+        return greenBoxCache.getApp(gbSession, appName, () -> searchGbApp(appName, gbSession));
+    }
+
+    private Mono<GreenBoxApp> searchGbApp(String appName, GreenBoxConnection gbSession) {
         /*
          * Use search API to find GreenBox app by name.
          * Make sure response has only one entry.
@@ -279,7 +330,7 @@ public class AirWatchController {
                 .retrieve()
                 .bodyToMono(JsonDocument.class)
                 .map(document -> toGreenBoxApp(document, appName))
-                .doOnEach(Reactive.wrapForItem(gba -> logger.trace("Found GB app {} for {}", gba, appName)));
+                .doOnEach(Reactive.wrapForItem(logger::isTraceEnabled, gba -> logger.trace("Found GB app {} for {}", gba, appName)));
     }
 
     private GreenBoxApp toGreenBoxApp(JsonDocument document, String appName) {
@@ -308,7 +359,7 @@ public class AirWatchController {
                 .bodyToMono(JsonDocument.class)
                 .map(body -> body.read("$.status"))
                 .cast(String.class)
-                .doOnEach(Reactive.wrapForItem(status ->
+                .doOnEach(Reactive.wrapForItem(logger::isTraceEnabled, status ->
                         logger.trace("Install action status: {} for {}", status, gbApp)));
     }
 
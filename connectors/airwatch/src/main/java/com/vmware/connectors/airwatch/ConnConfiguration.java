@@ -6,7 +6,9 @@
 package com.vmware.connectors.airwatch;
 
 import com.vmware.connectors.airwatch.config.AppConfigurations;
+import com.vmware.connectors.airwatch.greenbox.GreenBoxCache;
 import com.vmware.connectors.airwatch.service.AppConfigService;
+import com.vmware.connectors.airwatch.service.DeviceAppsCache;
 import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -45,7 +47,18 @@ public class ConnConfiguration {
 
     @Bean
     public AppConfigService appConfigService() {
-        return new AppConfigService(appConfigurations);
+        return new AppConfigService(appConfigurations, environment);
+    }
+
+    @Bean
+    public DeviceAppsCache deviceAppsCache(@Value("${airwatch.installStatus.cacheTtlSeconds:30}") long ttlSeconds) {
+        return new DeviceAppsCache(ttlSeconds);
+    }
+
+    @Bean
+    public GreenBoxCache greenBoxCache(@Value("${greenbox.session.cacheTtlSeconds:300}") long sessionTtlSeconds,
+                                       @Value("${greenbox.appSearch.cacheTtlSeconds:3600}") long appTtlSeconds) {
+        return new GreenBoxCache(sessionTtlSeconds, appTtlSeconds);
     }
 
     /*
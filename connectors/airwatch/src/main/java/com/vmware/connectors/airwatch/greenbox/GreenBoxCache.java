@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.airwatch.greenbox;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Keeps GreenBox sessions (EUC token + CSRF token) per (HZN token, UDID) and
+ * GreenBox app search results per (session, app name), so repeat installs skip
+ * the handshake. The search results depend on the user's entitlements, so they
+ * are never shared between sessions.
+ */
+public class GreenBoxCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Cache<String, GreenBoxConnection> connections;
+
+    private final Cache<String, GreenBoxApp> apps;
+
+    public GreenBoxCache(long sessionTtlSeconds, long appTtlSeconds) {
+        this.connections = CacheBuilder.newBuilder()
+                .expireAfterWrite(sessionTtlSeconds, TimeUnit.SECONDS)
+                .maximumSize(MAX_ENTRIES)
+                .build();
+        this.apps = CacheBuilder.newBuilder()
+                .expireAfterWrite(appTtlSeconds, TimeUnit.SECONDS)
+                .maximumSize(MAX_ENTRIES)
+                .build();
+    }
+
+    public Mono<GreenBoxConnection> getConnection(String hznToken, String udid,
+                                                  Supplier<Mono<GreenBoxConnection>> loader) {
+        String key = connectionKey(hznToken, udid);
+        return Mono.justOrEmpty(connections.getIfPresent(key))
+                .switchIfEmpty(Mono.defer(loader)
+                        .doOnNext(connection -> connections.put(key, connection)));
+    }
+
+    public Mono<GreenBoxApp> getApp(GreenBoxConnection connection, String appName,
+                                    Supplier<Mono<GreenBoxApp>> loader) {
+        String key = appKey(connection, appName);
+        return Mono.justOrEmpty(apps.getIfPresent(key))
+                .switchIfEmpty(Mono.defer(loader)
+                        .doOnNext(app -> apps.put(key, app)));
+    }
+
+    /**
+     * Drops the session and the app lookup after GreenBox rejected them.
+     *
+     * @param hznToken the HZN token the session was created with
+     * @param udid the device the session was created for
+     * @param connection the rejected session
+     * @param appName the app that was being installed
+     */
+    public void invalidate(String hznToken, String udid, GreenBoxConnection connection, String appName) {
+        connections.invalidate(connectionKey(hznToken, udid));
+        apps.invalidate(appKey(connection, appName));
+    }
+
+    /**
+     * Forgets every session and app lookup.
+     */
+    public void reset() {
+        connections.invalidateAll();
+        apps.invalidateAll();
+    }
+
+    private static String connectionKey(String hznToken, String udid) {
+        // Don't hold on to the raw HZN tokens
+        return udid + ':' + Hashing.sha256().hashString(hznToken, UTF_8);
+    }
+
+    private static String appKey(GreenBoxConnection connection, String appName) {
+        return Hashing.sha256().hashString(connection.getEucToken(), UTF_8) + ":" + appName;
+    }
+}
@@ -8,29 +8,87 @@ package com.vmware.connectors.airwatch.service;
 import com.vmware.connectors.airwatch.config.AppConfiguration;
 import com.vmware.connectors.airwatch.config.AppConfigurations;
 import com.vmware.connectors.airwatch.config.ManagedApp;
+import com.vmware.connectors.airwatch.exceptions.UnsupportedPlatform;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
  * Created by harshas on 9/19/17.
  */
 public class AppConfigService {
 
-    private final AppConfigurations appConfigurations;
+    private static final String ANDROID = "android";
+    private static final String IOS = "ios";
+    private static final String APPS_PROPERTY = "airwatch.apps";
 
-    public AppConfigService(AppConfigurations appConfigurations) {
-        this.appConfigurations = appConfigurations;
+    private final Environment environment;
+
+    /*
+     * platform -> (case-folded app name or keyword -> app).
+     * The whole index is swapped in one write so lookups never see a half-built one.
+     */
+    private final AtomicReference<Map<String, Map<String, ManagedApp>>> index;
+
+    public AppConfigService(AppConfigurations appConfigurations, Environment environment) {
+        this.environment = environment;
+        this.index = new AtomicReference<>(buildIndex(appConfigurations.getApps()));
+    }
+
+    /**
+     * Binds the "airwatch.apps" properties again and rebuilds the lookup index
+     * from them, every airwatch.apps.refreshMillis, so changes to the
+     * environment's property sources are picked up without a restart.
+     */
+    @Scheduled(fixedDelayString = "${airwatch.apps.refreshMillis:60000}",
+            initialDelayString = "${airwatch.apps.refreshMillis:60000}")
+    public void refresh() {
+        List<AppConfiguration> apps = Binder.get(environment)
+                .bind(APPS_PROPERTY, Bindable.listOf(AppConfiguration.class))
+                .orElse(null);
+        index.set(buildIndex(apps));
     }
 
     public Optional<ManagedApp> findManagedApp(String keyword, String platform) {
-        for (AppConfiguration appConfiguration : appConfigurations.getApps()) {
-            ManagedApp app = appConfiguration.getApp(platform);
-            // If the keyword matches to the app's name or its configured keywords.
-            if (app.getName().equalsIgnoreCase(keyword) ||
-                    appConfiguration.getKeywords().stream().anyMatch(keyword::equalsIgnoreCase)) {
-                return Optional.of(app);
+        Map<String, ManagedApp> platformApps = index.get().get(platform.toLowerCase(Locale.ROOT));
+        if (platformApps == null) {
+            throw new UnsupportedPlatform(platform + " is not supported. It should be either android or ios.");
+        }
+        return Optional.ofNullable(platformApps.get(keyword.toLowerCase(Locale.ROOT)));
+    }
+
+    private static Map<String, Map<String, ManagedApp>> buildIndex(List<AppConfiguration> apps) {
+        Map<String, Map<String, ManagedApp>> platforms = new HashMap<>();
+        platforms.put(ANDROID, buildPlatformIndex(apps, AppConfiguration::getAndroid));
+        platforms.put(IOS, buildPlatformIndex(apps, AppConfiguration::getIos));
+        return Collections.unmodifiableMap(platforms);
+    }
+
+    private static Map<String, ManagedApp> buildPlatformIndex(List<AppConfiguration> apps,
+                                                              Function<AppConfiguration, ManagedApp> platformApp) {
+        Map<String, ManagedApp> keywords = new HashMap<>();
+        if (apps == null) {
+            return keywords;
+        }
+        for (AppConfiguration appConfiguration : apps) {
+            ManagedApp app = platformApp.apply(appConfiguration);
+            if (app != null) {
+                // The first configured app wins when a name or keyword is shared, as it did for the linear scan.
+                keywords.putIfAbsent(app.getName().toLowerCase(Locale.ROOT), app);
+                Optional.ofNullable(appConfiguration.getKeywords()).orElse(Collections.emptyList())
+                        .forEach(keyword -> keywords.putIfAbsent(keyword.toLowerCase(Locale.ROOT), app));
             }
         }
-        return Optional.empty();
+        return Collections.unmodifiableMap(keywords);
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.airwatch.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Short lived snapshot of a device's app installation statuses (bundle id -> installed).
+ * <p>
+ * Snapshots are keyed by the UDID and a hash of the caller's authorization,
+ * so a user never reads statuses that AirWatch checked on behalf of someone else.
+ */
+public class DeviceAppsCache {
+
+    private static final int MAX_DEVICES = 10_000;
+
+    private final Cache<String, ConcurrentMap<String, Boolean>> snapshots;
+
+    public DeviceAppsCache(long ttlSeconds) {
+        this.snapshots = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumSize(MAX_DEVICES)
+                .build();
+    }
+
+    /**
+     * Returns the live snapshot for the device, creating an empty one if needed.
+     * Callers add the statuses they fetch so later card requests can skip them.
+     *
+     * @param auth the AirWatch authorization header of the caller
+     * @param udid the device UDID
+     * @return the mutable snapshot of bundle id -> installed
+     */
+    public ConcurrentMap<String, Boolean> getSnapshot(String auth, String udid) {
+        return snapshots.asMap().computeIfAbsent(key(auth, udid), key -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Forgets everything known about the device, e.g. after an install was triggered on it.
+     *
+     * @param udid the device UDID
+     */
+    public void invalidate(String udid) {
+        String prefix = udid + ':';
+        snapshots.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private static String key(String auth, String udid) {
+        return udid + ':' + Hashing.sha256().hashString(auth, UTF_8);
+    }
+}
@@ -6,6 +6,7 @@
 package com.vmware.connectors.airwatch;
 
 import com.google.common.collect.ImmutableList;
+import com.vmware.connectors.airwatch.greenbox.GreenBoxCache;
 import com.vmware.connectors.mock.MockRestServiceServer;
 import com.vmware.connectors.test.ControllerTestsBase;
 import com.vmware.connectors.test.JsonReplacementsBuilder;
@@ -16,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
@@ -24,6 +26,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.client.ResponseActions;
 import org.springframework.test.web.client.match.MockRestRequestMatchers;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.util.List;
@@ -69,6 +72,9 @@ class AirWatchControllerTest extends ControllerTestsBase {
     @Value("classpath:greenbox/responses/installApp.json")
     private Resource gbInstallApp;
 
+    @Autowired
+    private GreenBoxCache greenBoxCache;
+
     private com.vmware.connectors.mock.MockRestServiceServer mockBackend;
 
     private final static String AIRWATCH_BASE_URL = "https://air-watch.acme.com";
@@ -77,6 +83,8 @@ class AirWatchControllerTest extends ControllerTestsBase {
     @BeforeEach
     void init() throws Exception {
         super.setup();
+        // The GreenBox sessions of a test mustn't serve the next one
+        greenBoxCache.reset();
         mockBackend = MockRestServiceServer.bindTo(requestHandlerHolder).ignoreExpectOrder(true).build();
     }
 
@@ -142,6 +150,18 @@ class AirWatchControllerTest extends ControllerTestsBase {
         testRequestCards(requestFile, responseFile, acceptLanguage);
     }
 
+    @Test
+    void testRequestCardsReusesDeviceSnapshot() throws Exception {
+        // The second request for the same device is answered without asking AirWatch again.
+        expectAWRequest("/deviceservices/AppInstallationStatus?Udid=ABCD&BundleId=com.android.boxer")
+                .andRespond(withSuccess(awAppNotInstalled, APPLICATION_JSON));
+        expectAWRequest("/deviceservices/AppInstallationStatus?Udid=ABCD&BundleId=com.concur.breeze")
+                .andRespond(withSuccess(awAppInstalled, APPLICATION_JSON));
+        testRequestCards("request.json", "success.json", null);
+        testRequestCards("request.json", "success.json", null);
+        mockBackend.verify();
+    }
+
     @Test
     void testInstallAction() throws Exception {
 
@@ -171,6 +191,62 @@ class AirWatchControllerTest extends ControllerTestsBase {
         mockBackend.verify();
     }
 
+    @Test
+    void testRepeatInstallReusesGreenBoxSession() throws Exception {
+        // The session and the app search are only done for the first install.
+        expectGBSessionRequests();
+
+        expectGBRequest(
+                "/catalog-portal/services/api/entitlements?q=Poison%20pill",
+                GET, gbCatalogContextCookie("euc123", null))
+                .andRespond(withSuccess().body(gbSearchApp).contentType(HAL_JSON_UTF8));
+
+        mockBackend.expect(times(2), requestTo(GREENBOX_BASE_URL + "/catalog-portal/services/api/activate/MDM-134-Native-Public"))
+                .andExpect(method(POST))
+                .andExpect(MockRestRequestMatchers.header(COOKIE, gbCatalogContextCookie("euc123", "csrf123")))
+                .andRespond(withSuccess().body(gbInstallApp).contentType(HAL_JSON_UTF8));
+
+        performInstall("Poison pill").andExpect(status().isOk());
+        performInstall("Poison pill").andExpect(status().isOk());
+
+        mockBackend.verify();
+    }
+
+    @Test
+    void testInstallRetriesWithNewGreenBoxSession() throws Exception {
+        // The first install caches a session that GreenBox later rejects.
+        expectGBSessionRequests();
+        expectGBRequest(
+                "/catalog-portal/services/api/entitlements?q=vmware%20boxer",
+                GET, gbCatalogContextCookie("euc123", null))
+                .andRespond(withSuccess().body(gbSearchApp).contentType(HAL_JSON_UTF8));
+        expectGBRequest(
+                "/catalog-portal/services/api/activate/MDM-134-Native-Public",
+                POST, gbCatalogContextCookie("euc123", "csrf123"))
+                .andRespond(withSuccess().body(gbInstallApp).contentType(HAL_JSON_UTF8));
+
+        performInstall("vmware boxer").andExpect(status().isOk());
+        mockBackend.verify();
+        mockBackend.reset();
+
+        expectGBRequest(
+                "/catalog-portal/services/api/activate/MDM-134-Native-Public",
+                POST, gbCatalogContextCookie("euc123", "csrf123"))
+                .andRespond(withStatus(UNAUTHORIZED));
+        expectGBSessionRequests();
+        expectGBRequest(
+                "/catalog-portal/services/api/entitlements?q=vmware%20boxer",
+                GET, gbCatalogContextCookie("euc123", null))
+                .andRespond(withSuccess().body(gbSearchApp).contentType(HAL_JSON_UTF8));
+        expectGBRequest(
+                "/catalog-portal/services/api/activate/MDM-134-Native-Public",
+                POST, gbCatalogContextCookie("euc123", "csrf123"))
+                .andRespond(withSuccess().body(gbInstallApp).contentType(HAL_JSON_UTF8));
+
+        performInstall("vmware boxer").andExpect(status().isOk());
+        mockBackend.verify();
+    }
+
     @Test
     void testMissingRequestHeaders() throws Exception {
         perform(post("/cards/requests").with(token(accessToken()))
@@ -245,6 +321,15 @@ class AirWatchControllerTest extends ControllerTestsBase {
                         fromFile("connector/responses/" + responseFile)).buildForCards()));
     }
 
+    private ResultActions performInstall(String appName) throws Exception {
+        return perform(post("/mdm/app/install").with(token(accessToken()))
+                .contentType(APPLICATION_FORM_URLENCODED)
+                .header("x-airwatch-base-url", AIRWATCH_BASE_URL)
+                .param("app_name", appName)
+                .param("udid", "ABCD")
+                .param("platform", "android"));
+    }
+
     private MockHttpServletRequestBuilder requestCards(String requestfile) throws Exception {
         return post("/cards/requests").with(token(accessToken()))
                 .contentType(APPLICATION_JSON)
@@ -0,0 +1,29 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.airwatch;
+
+import com.vmware.connectors.test.load.BackendSimulator;
+import com.vmware.connectors.test.load.LoadTestRunner;
+
+import static org.springframework.http.HttpMethod.GET;
+
+/**
+ * Drives the AirWatch connector's card requests against a simulated AirWatch.
+ */
+public final class AirWatchLoadScenario {
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner(AirWatchConnectorApplication.class)
+                .config("classpath:app.properties")
+                .backendUrlHeader("x-airwatch-base-url")
+                .body("/connector/requests/request.json")
+                .run(new BackendSimulator()
+                        .route(GET, "/deviceservices/AppInstallationStatus",
+                                request -> "com.android.boxer".equals(request.queryParam("BundleId").orElse(""))
+                                        ? "/airwatch/responses/awAppNotInstalled.json"
+                                        : "/airwatch/responses/awAppInstalled.json"));
+    }
+}
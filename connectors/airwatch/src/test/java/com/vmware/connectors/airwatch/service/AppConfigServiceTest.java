@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.airwatch.service;
+
+import com.vmware.connectors.airwatch.config.AppConfiguration;
+import com.vmware.connectors.airwatch.config.AppConfigurations;
+import com.vmware.connectors.airwatch.config.ManagedApp;
+import com.vmware.connectors.airwatch.exceptions.UnsupportedPlatform;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AppConfigServiceTest {
+
+    private final Map<String, Object> properties = new HashMap<>();
+
+    private AppConfigService service;
+
+    @BeforeEach
+    void setup() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("apps", properties));
+
+        AppConfigurations appConfigurations = new AppConfigurations();
+        appConfigurations.setApps(Arrays.asList(
+                app("vmware boxer", "com.android.boxer", "boxer", "email app"),
+                app("Concur", "com.concur.breeze", "concur", "boxer")));
+        service = new AppConfigService(appConfigurations, environment);
+    }
+
+    @Test
+    void findsAppsByNameAndKeywordIgnoringCase() {
+        assertThat(service.findManagedApp("VMware Boxer", "Android").map(ManagedApp::getId), is(Optional.of("com.android.boxer")));
+        assertThat(service.findManagedApp("Email App", "android").map(ManagedApp::getId), is(Optional.of("com.android.boxer")));
+        assertThat(service.findManagedApp("concur", "android").map(ManagedApp::getId), is(Optional.of("com.concur.breeze")));
+    }
+
+    @Test
+    void firstConfiguredAppWinsASharedKeyword() {
+        assertThat(service.findManagedApp("boxer", "android").map(ManagedApp::getId), is(Optional.of("com.android.boxer")));
+    }
+
+    @Test
+    void doesNotFindUnknownOrMissingPlatformApps() {
+        assertThat(service.findManagedApp("slack", "android"), is(Optional.empty()));
+        assertThat(service.findManagedApp("boxer", "ios"), is(Optional.empty()));
+    }
+
+    @Test
+    void rejectsUnsupportedPlatforms() {
+        assertThrows(UnsupportedPlatform.class, () -> service.findManagedApp("boxer", "windows"));
+    }
+
+    @Test
+    void refreshRebindsTheApps() {
+        properties.put("airwatch.apps[0].android.name", "Slack");
+        properties.put("airwatch.apps[0].android.id", "com.slack");
+        properties.put("airwatch.apps[0].keywords[0]", "chat");
+
+        service.refresh();
+
+        assertThat(service.findManagedApp("chat", "android").map(ManagedApp::getId), is(Optional.of("com.slack")));
+        assertThat(service.findManagedApp("boxer", "android"), is(Optional.empty()));
+    }
+
+    @Test
+    void refreshWithoutAppsFindsNothing() {
+        service.refresh();
+
+        assertThat(service.findManagedApp("boxer", "android"), is(Optional.empty()));
+    }
+
+    private static AppConfiguration app(String name, String id, String... keywords) {
+        ManagedApp android = new ManagedApp();
+        android.setName(name);
+        android.setId(id);
+        AppConfiguration app = new AppConfiguration();
+        app.setAndroid(android);
+        app.setKeywords(keywords.length == 0 ? Collections.emptyList() : Arrays.asList(keywords));
+        return app;
+    }
+}
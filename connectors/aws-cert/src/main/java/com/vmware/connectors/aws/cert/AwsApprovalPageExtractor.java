@@ -0,0 +1,447 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.aws.cert;
+
+import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.jsoup.parser.Parser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Pulls the table label/value pairs and the form inputs out of an AWS
+ * certificate approval page while its bytes arrive, without building a DOM.
+ * <p>
+ * The extractor only understands the simple layout of the approval page. When
+ * it sees anything else (nested tables, select/textarea inputs, missing fields,
+ * runaway tags) it reports itself incomplete and the caller should fall back to
+ * a full Jsoup parse of {@link #getHtml()}. Only pages up to a maximum size
+ * are kept for that; a larger page that isn't understood can't be parsed.
+ * <p>
+ * Not thread-safe; use one instance per response.
+ */
+class AwsApprovalPageExtractor {
+
+    private static final int MAX_TAG_LENGTH = 8 * 1024;
+
+    // Approval pages are a few KB
+    private static final int MAX_HTML_SIZE = 512 * 1024;
+
+    // Enough for the bytes of any character split across chunks
+    private static final int MAX_PENDING_BYTES = 16;
+
+    // Tags that Jsoup's text() separates with whitespace
+    private static final Set<String> BLOCK_TAGS = new HashSet<>(Arrays.asList(
+            "br", "p", "div", "li", "ul", "ol", "table", "tr", "td", "th", "form",
+            "h1", "h2", "h3", "h4", "h5", "h6"));
+
+    // Form controls whose values Jsoup computes in ways this extractor doesn't replicate
+    private static final Set<String> UNSUPPORTED_FORM_TAGS = new HashSet<>(Arrays.asList(
+            "select", "textarea", "keygen", "object"));
+
+    private enum State { TEXT, TAG_START, TAG }
+
+    private final Charset charset;
+    private final CharsetDecoder decoder;
+    private final CharBuffer chars = CharBuffer.allocate(4096);
+    private final ByteBuffer pending = ByteBuffer.allocate(MAX_PENDING_BYTES);
+
+    // The raw bytes are only kept so the Jsoup fallback has something to parse, and dropped past the maximum size
+    private final int maxHtmlSize;
+    private ByteArrayOutputStream raw = new ByteArrayOutputStream();
+    private WritableByteChannel rawChannel = Channels.newChannel(raw);
+
+    private State state = State.TEXT;
+    private final StringBuilder tag = new StringBuilder();
+    private char quote;
+    private boolean sawContent;
+    private boolean unsupported;
+
+    private int tableDepth;
+    private int formDepth;
+    private List<String> row;
+    private StringBuilder cell;
+
+    private final AwsCertCardInfo info = new AwsCertCardInfo();
+    private final Map<String, String> formParams = new HashMap<>();
+
+    AwsApprovalPageExtractor(Charset charset) {
+        this(charset, MAX_HTML_SIZE);
+    }
+
+    AwsApprovalPageExtractor(Charset charset, int maxHtmlSize) {
+        this.charset = charset;
+        this.maxHtmlSize = maxHtmlSize;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Feeds the next chunk of the page.
+     *
+     * @param bytes the chunk; it is fully consumed
+     */
+    void feed(ByteBuffer bytes) {
+        keepRaw(bytes.duplicate());
+
+        // Complete a character split across chunks a byte at a time, rather than copying the chunk behind it
+        while (pending.position() > 0 && bytes.hasRemaining()) {
+            pending.put(bytes.get());
+            pending.flip();
+            decode(pending, false);
+            pending.compact();
+        }
+        if (pending.position() == 0) {
+            decode(bytes, false);
+            // Keep the bytes of a character that is split across chunks for the next feed
+            pending.put(bytes);
+        }
+    }
+
+    /**
+     * Signals the end of the page.
+     */
+    void finish() {
+        pending.flip();
+        decode(pending, true);
+        decoder.flush(chars);
+        drain();
+        closeRow();
+    }
+
+    /**
+     * @return true if the page had no content at all
+     */
+    boolean isBlank() {
+        return !sawContent;
+    }
+
+    /**
+     * @return the extracted card info (with mutable form params), or null if the page
+     * didn't have the expected layout and the Jsoup fallback should be used
+     */
+    AwsCertCardInfo getCardInfo() {
+        if (unsupported || formParams.isEmpty()
+                || StringUtils.isAnyBlank(info.getDomain(), info.getAccountId(), info.getRegionName(), info.getCertIdentifier())) {
+            return null;
+        }
+        info.setFormParams(formParams);
+        return info;
+    }
+
+    /**
+     * @return the page, or empty if it was over the maximum size
+     */
+    Optional<String> getHtml() {
+        return Optional.ofNullable(raw).map(bytes -> new String(bytes.toByteArray(), charset));
+    }
+
+    private void keepRaw(ByteBuffer bytes) {
+        if (raw == null) {
+            return;
+        }
+        if (raw.size() + bytes.remaining() > maxHtmlSize) {
+            raw = null;
+            rawChannel = null;
+            return;
+        }
+        try {
+            rawChannel.write(bytes);
+        } catch (IOException e) {
+            // Can't happen, it's all in memory
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void decode(ByteBuffer in, boolean endOfInput) {
+        CoderResult result;
+        do {
+            result = decoder.decode(in, chars, endOfInput);
+            drain();
+        } while (result.isOverflow());
+    }
+
+    private void drain() {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            accept(chars.get());
+        }
+        chars.clear();
+    }
+
+    private void accept(char c) {
+        if (!sawContent && !Character.isWhitespace(c)) {
+            sawContent = true;
+        }
+        switch (state) {
+            case TEXT:
+                acceptText(c);
+                break;
+            case TAG_START:
+                acceptTagStart(c);
+                break;
+            default:
+                acceptTag(c);
+                break;
+        }
+    }
+
+    private void acceptText(char c) {
+        if (c == '<') {
+            state = State.TAG_START;
+        } else if (cell != null) {
+            cell.append(c);
+        }
+    }
+
+    private void acceptTagStart(char c) {
+        if (Character.isLetter(c) || c == '/' || c == '!' || c == '?') {
+            tag.setLength(0);
+            tag.append(c);
+            quote = 0;
+            state = State.TAG;
+        } else {
+            // Not a tag after all, e.g. "a < b"
+            state = State.TEXT;
+            acceptText('<');
+            acceptText(c);
+        }
+    }
+
+    private void acceptTag(char c) {
+        boolean isMarkupDeclaration = tag.charAt(0) == '!';
+        if (c == '>' && quote == 0 && !(isComment() && !endsWithCommentClose())) {
+            state = State.TEXT;
+            handleTag(tag.toString());
+            return;
+        }
+        if (!isMarkupDeclaration && (c == '"' || c == '\'')) {
+            if (quote == 0) {
+                quote = c;
+            } else if (quote == c) {
+                quote = 0;
+            }
+        }
+        tag.append(c);
+        if (tag.length() > MAX_TAG_LENGTH) {
+            unsupported = true;
+            tag.setLength(1);
+        }
+    }
+
+    private boolean isComment() {
+        return tag.length() >= 3 && tag.charAt(0) == '!' && tag.charAt(1) == '-' && tag.charAt(2) == '-';
+    }
+
+    private boolean endsWithCommentClose() {
+        int length = tag.length();
+        return length >= 5 && tag.charAt(length - 1) == '-' && tag.charAt(length - 2) == '-';
+    }
+
+    private void handleTag(String content) {
+        char first = content.charAt(0);
+        if (first == '!' || first == '?') {
+            return;
+        }
+        if (first == '/') {
+            handleEndTag(tagName(content, 1));
+        } else {
+            String name = tagName(content, 0);
+            handleStartTag(name, content.substring(name.length()));
+        }
+    }
+
+    private static String tagName(String content, int start) {
+        int end = start;
+        while (end < content.length() && !Character.isWhitespace(content.charAt(end))
+                && content.charAt(end) != '/') {
+            end++;
+        }
+        return content.substring(start, end).toLowerCase(Locale.US);
+    }
+
+    private void handleStartTag(String name, String attributes) {
+        if (cell != null && BLOCK_TAGS.contains(name)) {
+            cell.append(' ');
+        }
+        switch (name) {
+            case "table":
+            case "tr":
+            case "td":
+            case "th":
+                handleTableTag(name);
+                break;
+            case "form":
+                formDepth++;
+                break;
+            case "input":
+                if (formDepth > 0) {
+                    handleInput(parseAttributes(attributes));
+                }
+                break;
+            default:
+                if (formDepth > 0 && UNSUPPORTED_FORM_TAGS.contains(name)) {
+                    unsupported = true;
+                }
+                break;
+        }
+    }
+
+    private void handleTableTag(String name) {
+        if ("table".equals(name)) {
+            tableDepth++;
+            // Nested tables would need a real tree to tell whose rows are whose
+            unsupported |= tableDepth > 1;
+        } else if ("tr".equals(name)) {
+            if (tableDepth > 0) {
+                closeRow();
+                row = new ArrayList<>();
+            }
+        } else if (row != null) {
+            closeCell();
+            cell = new StringBuilder();
+        }
+    }
+
+    private void handleEndTag(String name) {
+        switch (name) {
+            case "td":
+            case "th":
+                closeCell();
+                break;
+            case "tr":
+                closeRow();
+                break;
+            case "table":
+                closeRow();
+                tableDepth = Math.max(0, tableDepth - 1);
+                break;
+            case "form":
+                formDepth = Math.max(0, formDepth - 1);
+                break;
+            default:
+                if (cell != null && BLOCK_TAGS.contains(name)) {
+                    cell.append(' ');
+                }
+                break;
+        }
+    }
+
+    private void closeCell() {
+        if (cell != null) {
+            row.add(StringUtils.normalizeSpace(Parser.unescapeEntities(cell.toString(), false)));
+            cell = null;
+        }
+    }
+
+    private void closeRow() {
+        closeCell();
+        if (row != null && row.size() >= 2) {
+            info.setFuzzyField(row.get(0).toLowerCase(Locale.US), row.get(1));
+        }
+        row = null;
+    }
+
+    // Mirrors Jsoup's FormElement.formData() for <input> elements
+    private void handleInput(Map<String, String> attributes) {
+        String name = attributes.get("name");
+        if (StringUtils.isEmpty(name) || attributes.containsKey("disabled")) {
+            return;
+        }
+        String type = attributes.getOrDefault("type", "");
+        if ("checkbox".equalsIgnoreCase(type) || "radio".equalsIgnoreCase(type)) {
+            if (attributes.containsKey("checked")) {
+                formParams.put(name, attributes.getOrDefault("value", "on"));
+            }
+        } else {
+            formParams.put(name, attributes.getOrDefault("value", ""));
+        }
+    }
+
+    private static Map<String, String> parseAttributes(String attributes) {
+        Map<String, String> parsed = new HashMap<>();
+        int i = 0;
+        while (i < attributes.length()) {
+            i = parseAttribute(attributes, i, parsed);
+        }
+        return parsed;
+    }
+
+    // Parses the attribute starting at (or after whitespace from) start and returns the index after it
+    private static int parseAttribute(String attributes, int start, Map<String, String> parsed) {
+        int i = skip(attributes, start, true);
+        int nameStart = i;
+        while (i < attributes.length() && attributes.charAt(i) != '=' && !isAttributeSeparator(attributes.charAt(i))) {
+            i++;
+        }
+        String name = attributes.substring(nameStart, i).toLowerCase(Locale.US);
+        i = skip(attributes, i, false);
+        String value = "";
+        if (i < attributes.length() && attributes.charAt(i) == '=') {
+            i = skip(attributes, i + 1, false);
+            int valueEnd = valueEnd(attributes, i);
+            boolean quoted = i < attributes.length() && isQuote(attributes.charAt(i));
+            value = Parser.unescapeEntities(attributes.substring(quoted ? i + 1 : i, valueEnd), true);
+            i = quoted ? valueEnd + 1 : valueEnd;
+        }
+        if (!name.isEmpty()) {
+            parsed.putIfAbsent(name, value);
+        }
+        return Math.max(i, start + 1);
+    }
+
+    private static int skip(String attributes, int start, boolean skipSlash) {
+        int i = start;
+        while (i < attributes.length()
+                && (Character.isWhitespace(attributes.charAt(i)) || skipSlash && attributes.charAt(i) == '/')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isAttributeSeparator(char c) {
+        return Character.isWhitespace(c) || c == '/';
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '"' || c == '\'';
+    }
+
+    private static int valueEnd(String attributes, int start) {
+        if (start >= attributes.length()) {
+            return start;
+        }
+        char first = attributes.charAt(start);
+        if (isQuote(first)) {
+            int end = attributes.indexOf(first, start + 1);
+            return end < 0 ? attributes.length() : end;
+        }
+        int end = start;
+        while (end < attributes.length() && !Character.isWhitespace(attributes.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+}
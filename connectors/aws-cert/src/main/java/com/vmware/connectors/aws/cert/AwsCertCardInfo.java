@@ -51,6 +51,27 @@ class AwsCertCardInfo {
         this.certIdentifier = certIdentifier;
     }
 
+    /**
+     * Sets whichever field the (lower case) label of an approval page table row refers to.
+     *
+     * @param label the row's label, lower cased
+     * @param value the row's value
+     */
+    public void setFuzzyField(String label, String value) {
+        if (label.contains("domain")) {
+            setDomain(value);
+        }
+        if (label.contains("account")) {
+            setAccountId(value);
+        }
+        if (label.contains("region")) {
+            setRegionName(value);
+        }
+        if (label.contains("certificate")) {
+            setCertIdentifier(value);
+        }
+    }
+
     public Map<String, String> getFormParams() {
         return formParams;
     }
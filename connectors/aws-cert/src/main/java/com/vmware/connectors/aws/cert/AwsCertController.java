@@ -8,32 +8,37 @@ package com.vmware.connectors.aws.cert;
 import com.vmware.connectors.common.payloads.request.CardRequest;
 import com.vmware.connectors.common.payloads.response.*;
 import com.vmware.connectors.common.utils.CardTextAccessor;
-import com.vmware.connectors.common.utils.CommonUtils;
+import com.vmware.connectors.common.utils.IdGenerator;
 import com.vmware.connectors.common.utils.Reactive;
-import org.apache.commons.lang3.tuple.Pair;
+import com.vmware.connectors.common.web.CardRequestContext;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.FormElement;
 import org.jsoup.select.Elements;
-import org.junit.platform.commons.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MimeType;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.*;
 import java.util.stream.Stream;
@@ -56,18 +61,21 @@ public class AwsCertController {
     private final String certificateApprovalPath;
     private final WebClient rest;
     private final CardTextAccessor cardTextAccessor;
+    private final IdGenerator idGenerator;
 
     @Autowired
     public AwsCertController(
             @Value("${aws.certificate.connector.approval.host}") String certificateApprovalHost,
             @Value("${aws.certificate.connector.approval.path}") String certificateApprovalPath,
             WebClient rest,
-            CardTextAccessor cardTextAccessor
+            CardTextAccessor cardTextAccessor,
+            IdGenerator idGenerator
     ) {
         this.certificateApprovalHost = certificateApprovalHost.toLowerCase(Locale.US);
         this.certificateApprovalPath = certificateApprovalPath;
         this.rest = rest;
         this.cardTextAccessor = cardTextAccessor;
+        this.idGenerator = idGenerator;
     }
 
     @PostMapping(
@@ -79,21 +87,33 @@ public class AwsCertController {
             @RequestHeader(ROUTING_PREFIX) String routingPrefix,
             final Locale locale,
             @Valid @RequestBody CardRequest cardRequest,
-            final HttpServletRequest request
+            final CardRequestContext cardContext
+    ) {
+        return streamCards(routingPrefix, locale, cardRequest, cardContext)
+                .collect(Cards::new, (cards, card) -> cards.getCards().add(card));
+    }
+
+    /*
+     * Opt-in with "Accept: application/stream+json": every card is written,
+     * as a line of JSON, as soon as its approval page has been read.
+     */
+    @PostMapping(
+            path = "/cards/requests",
+            produces = MediaType.APPLICATION_STREAM_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Flux<Card> streamCards(
+            @RequestHeader(ROUTING_PREFIX) String routingPrefix,
+            final Locale locale,
+            @Valid @RequestBody CardRequest cardRequest,
+            final CardRequestContext cardContext
     ) {
         logger.trace("getCards called, routingPrefix={}, request={}", routingPrefix, cardRequest);
 
         return Flux.fromStream(validateUrls(cardRequest.getTokens("approval_urls")))
                 .sort()
                 .flatMap(this::callForCardInfo)
-                .filter(pair -> pair.getRight().getStatusCode().is2xxSuccessful())
-                .filter(pair -> StringUtils.isNotBlank(pair.getRight().getBody()))
-                .map(this::parseCardInfoOutOfResponse)
-                .reduce(
-                        new Cards(),
-                        (cards, info) -> appendCard(cards, info, routingPrefix, locale, request)
-                )
-                .defaultIfEmpty(new Cards())
+                .flatMap(Reactive.wrapCardBuilder(info -> makeCard(info, routingPrefix, locale, cardContext)))
                 .subscriberContext(Reactive.setupContext());
     }
 
@@ -131,7 +151,7 @@ public class AwsCertController {
         return certificateApprovalPath.equals(uriComponents.getPath());
     }
 
-    private Mono<Pair<String, ResponseEntity<String>>> callForCardInfo(String approvalUrl) {
+    private Mono<AwsCertCardInfo> callForCardInfo(String approvalUrl) {
         logger.trace("callForCardInfo called: approvalUrl={}", approvalUrl);
 
         return rest.get()
@@ -143,16 +163,57 @@ public class AwsCertController {
                 // Don't let a bad AWS token skip the rest
                 .onErrorResume(Reactive::skipOnBadRequest) // Expired requests will return 400 bad request
                 .onErrorResume(Reactive::skipOnNotFound) // Non-existent contexts will return 404 not found
-                .flatMap(response -> response.toEntity(String.class))
-                .map(response -> Pair.of(approvalUrl, response));
+                .flatMap(response -> extractCardInfo(approvalUrl, response));
     }
 
-    private AwsCertCardInfo parseCardInfoOutOfResponse(Pair<String, ResponseEntity<String>> pair) {
-        String approvalUrl = pair.getLeft();
-        logger.trace("parseCardInfoOutOfResponse called: approvalUrl={}", approvalUrl);
+    private Mono<AwsCertCardInfo> extractCardInfo(String approvalUrl, ClientResponse response) {
+        Flux<DataBuffer> body = response.body(BodyExtractors.toDataBuffers());
+        if (!response.statusCode().is2xxSuccessful()) {
+            return body.doOnNext(DataBufferUtils::release).then(Mono.empty());
+        }
+
+        Charset charset = response.headers().contentType()
+                .map(MimeType::getCharset)
+                .orElse(StandardCharsets.UTF_8);
+        AwsApprovalPageExtractor extractor = new AwsApprovalPageExtractor(charset);
+
+        return body.doOnNext(buffer -> {
+                    try {
+                        extractor.feed(buffer.asByteBuffer());
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .then(Mono.fromCallable(() -> toCardInfo(approvalUrl, extractor)));
+    }
+
+    private AwsCertCardInfo toCardInfo(String approvalUrl, AwsApprovalPageExtractor extractor) {
+        logger.trace("toCardInfo called: approvalUrl={}", approvalUrl);
+
+        extractor.finish();
+        if (extractor.isBlank()) {
+            return null;
+        }
+
+        AwsCertCardInfo info = extractor.getCardInfo();
+        if (info == null) {
+            Optional<String> html = extractor.getHtml();
+            if (!html.isPresent()) {
+                // Only this card is skipped, not the whole response
+                logger.warn("Approval page layout not recognized, and too large to parse: approvalUrl={}", approvalUrl);
+                return null;
+            }
+            logger.debug("Approval page layout not recognized, falling back to a full parse: approvalUrl={}", approvalUrl);
+            info = parseCardInfoOutOfHtml(html.get());
+        }
+
+        // Supplement the form params with the approvalUrl so the client will tell the approve action who to POST to.
+        info.getFormParams().put(APPROVAL_URL_PARAM, approvalUrl);
 
-        String html = pair.getRight().getBody();
+        return info;
+    }
 
+    private AwsCertCardInfo parseCardInfoOutOfHtml(String html) {
         Document doc = Jsoup.parse(html);
         Elements elements = doc.body().children();
         Elements rows = elements.select("table > tbody > tr");
@@ -160,12 +221,7 @@ public class AwsCertController {
         AwsCertCardInfo info = collectInfo(rows);
 
         Elements formElements = elements.select("form");
-        Map<String, String> formParams = collectFormParams(formElements);
-
-        // Supplement the form params with the approvalUrl so the client will tell the approve action who to POST to.
-        formParams.put(APPROVAL_URL_PARAM, approvalUrl);
-
-        info.setFormParams(formParams);
+        info.setFormParams(collectFormParams(formElements));
 
         return info;
     }
@@ -177,39 +233,12 @@ public class AwsCertController {
             String label = row.child(0).text().toLowerCase(Locale.US);
             String value = row.child(1).text();
 
-            fuzzySetDomainName(info, label, value);
-            fuzzySetAccountId(info, label, value);
-            fuzzySetRegionName(info, label, value);
-            fuzzySetCertIdentifier(info, label, value);
+            info.setFuzzyField(label, value);
         });
 
         return info;
     }
 
-    private void fuzzySetDomainName(AwsCertCardInfo info, String label, String value) {
-        if (label.contains("domain")) {
-            info.setDomain(value);
-        }
-    }
-
-    private void fuzzySetAccountId(AwsCertCardInfo info, String label, String value) {
-        if (label.contains("account")) {
-            info.setAccountId(value);
-        }
-    }
-
-    private void fuzzySetRegionName(AwsCertCardInfo info, String label, String value) {
-        if (label.contains("region")) {
-            info.setRegionName(value);
-        }
-    }
-
-    private void fuzzySetCertIdentifier(AwsCertCardInfo info, String label, String value) {
-        if (label.contains("certificate")) {
-            info.setCertIdentifier(value);
-        }
-    }
-
     private Map<String, String> collectFormParams(Elements formElements) {
         Map<String, String> formParams = new HashMap<>();
         List<FormElement> forms = formElements.forms();
@@ -224,28 +253,15 @@ public class AwsCertController {
         return formParams;
     }
 
-    private Cards appendCard(Cards cards,
-                             AwsCertCardInfo info,
-                             String routingPrefix,
-                             Locale locale,
-                             HttpServletRequest request) {
-        logger.trace("appendCard called: info={}, routingPrefix={}", info, routingPrefix);
-
-        cards.getCards()
-                .add(makeCard(info, routingPrefix, locale, request));
-
-        return cards;
-    }
-
     private Card makeCard(
             AwsCertCardInfo info,
             String routingPrefix,
             Locale locale,
-            HttpServletRequest request
+            CardRequestContext cardContext
     ) {
         logger.trace("makeCard called: info={}, routingPrefix={}", info, routingPrefix);
 
-        CardAction.Builder approveAction = new CardAction.Builder()
+        CardAction.Builder approveAction = new CardAction.Builder(idGenerator)
                 .setLabel(cardTextAccessor.getActionLabel("approve", locale))
                 .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("approve", locale))
                 .setActionKey(CardActionKey.DIRECT)
@@ -261,7 +277,7 @@ public class AwsCertController {
 
         info.getFormParams().forEach(approveAction::addRequestParam);
 
-        final Card.Builder card = new Card.Builder()
+        final Card.Builder card = new Card.Builder(idGenerator)
                 .setName("AwsCert") // TODO - remove this in APF-536
                 .setCreationDate(OffsetDateTime.now())
                 /*
@@ -274,7 +290,7 @@ public class AwsCertController {
                  * be sending cards for expired cert requests.
                  */
                 .setExpirationDate(OffsetDateTime.now().plusDays(3))
-                .setTemplate(routingPrefix + "templates/generic.hbs")
+                .setTemplate(cardContext.getGenericTemplate())
                 .setHeader(cardTextAccessor.getHeader(locale), cardTextAccessor.getMessage("subtitle", locale, info.getDomain()))
                 .setBody(
                         new CardBody.Builder()
@@ -321,7 +337,7 @@ public class AwsCertController {
                 .addAction(dismissAction.build());
 
         // Set Image url.
-        CommonUtils.buildConnectorImageUrl(card, request);
+        card.setImage(cardContext.getImage());
 
         return card.build();
     }
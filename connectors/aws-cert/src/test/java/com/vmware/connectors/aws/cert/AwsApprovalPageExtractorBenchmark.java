@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.aws.cert;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.vmware.connectors.test.ControllerTestsBase.bytesFromFile;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares the streaming extractor with the Jsoup DOM path on the recorded approval pages.
+ * <p>
+ * Run the main method from the IDE, or from the test classpath after test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AwsApprovalPageExtractorBenchmark {
+
+    // Roughly what a Netty read delivers
+    private static final int CHUNK_SIZE = 1024;
+
+    @Param({"1", "2", "3"})
+    private int page;
+
+    private byte[] html;
+
+    @Setup
+    public void setup() throws IOException {
+        html = bytesFromFile("/awscert/fake/approval-page-" + page + ".html");
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) {
+        AwsApprovalPageExtractor extractor = new AwsApprovalPageExtractor(UTF_8);
+        for (int offset = 0; offset < html.length; offset += CHUNK_SIZE) {
+            extractor.feed(ByteBuffer.wrap(html, offset, Math.min(CHUNK_SIZE, html.length - offset)));
+        }
+        extractor.finish();
+        blackhole.consume(extractor.getCardInfo());
+    }
+
+    @Benchmark
+    public void jsoup(Blackhole blackhole) {
+        // The same work the controller did before the streaming extractor
+        Elements elements = Jsoup.parse(new String(html, UTF_8)).body().children();
+        AwsCertCardInfo info = new AwsCertCardInfo();
+        for (Element row : elements.select("table > tbody > tr")) {
+            info.setFuzzyField(row.child(0).text().toLowerCase(Locale.US), row.child(1).text());
+        }
+        elements.select("form").forms().forEach(form -> blackhole.consume(form.formData()));
+        blackhole.consume(info);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AwsApprovalPageExtractorBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
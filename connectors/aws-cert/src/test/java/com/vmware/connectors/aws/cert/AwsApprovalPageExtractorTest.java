@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.aws.cert;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static com.vmware.connectors.test.ControllerTestsBase.bytesFromFile;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class AwsApprovalPageExtractorTest {
+
+    @ParameterizedTest(name = "{index} ==> Page={0}, ChunkSize={1}")
+    @CsvSource({
+            "1, 1",
+            "1, 7",
+            "1, 100000",
+            "2, 3",
+            "3, 64"})
+    void testExtractsApprovalPage(int page, int chunkSize) throws IOException {
+        AwsApprovalPageExtractor extractor = extract(
+                bytesFromFile("/awscert/fake/approval-page-" + page + ".html"), chunkSize);
+
+        assertThat(extractor.isBlank(), is(false));
+        AwsCertCardInfo info = extractor.getCardInfo();
+        assertThat(info, is(notNullValue()));
+        assertThat(info.getDomain(), equalTo("test-subdomain-" + page + ".acme.com"));
+        assertThat(info.getAccountId(), equalTo("test-aws-account-number-" + page));
+        assertThat(info.getRegionName(), equalTo("test-aws-region-" + page));
+        assertThat(info.getCertIdentifier(), equalTo("test-certificate-id-" + page));
+        assertThat(info.getFormParams(), allOf(
+                hasEntry("utf8", "\u2713"),
+                hasEntry("authenticity_token", "test-csrf-token-" + page),
+                hasEntry("validation_token", "test-validation-token-" + page),
+                hasEntry("context", "test-context-" + page),
+                hasEntry("commit", "I Approve")));
+        assertThat(info.getFormParams().size(), equalTo(5));
+    }
+
+    @Test
+    void testUnknownLayoutNeedsFallback() {
+        String html = "<html><body><table><tr><td><table><tr><td>Domain</td><td>x</td></tr></table></td></tr></table>"
+                + "<form><input name=\"a\" value=\"b\"></form></body></html>";
+        AwsApprovalPageExtractor extractor = extract(html.getBytes(UTF_8), 16);
+
+        assertThat(extractor.getCardInfo(), is(nullValue()));
+        assertThat(extractor.getHtml().get(), equalTo(html));
+    }
+
+    @Test
+    void testPageTooLargeForFallback() {
+        String html = "<html><body><table><tr><td>Domain</td><td>x</td></tr></table></body></html>";
+        AwsApprovalPageExtractor extractor = new AwsApprovalPageExtractor(UTF_8, 32);
+        byte[] page = html.getBytes(UTF_8);
+        for (int offset = 0; offset < page.length; offset += 16) {
+            extractor.feed(ByteBuffer.wrap(page, offset, Math.min(16, page.length - offset)));
+        }
+        extractor.finish();
+
+        assertThat(extractor.getCardInfo(), is(nullValue()));
+        assertThat(extractor.getHtml().isPresent(), is(false));
+    }
+
+    @Test
+    void testCharacterSplitAcrossChunks() {
+        String html = "<table><tbody>"
+                + "<tr><td>Domain name</td><td>caf\u00e9.acme.com</td></tr>"
+                + "<tr><td>AWS account number</td><td>1</td></tr>"
+                + "<tr><td>AWS Region</td><td>r\u00e9gion</td></tr>"
+                + "<tr><td>Certificate identifier</td><td>c</td></tr>"
+                + "</tbody></table><form><input name=\"context\" value=\"\u2713\"></form>";
+        AwsApprovalPageExtractor extractor = extract(html.getBytes(UTF_8), 1);
+
+        AwsCertCardInfo info = extractor.getCardInfo();
+        assertThat(info.getDomain(), equalTo("caf\u00e9.acme.com"));
+        assertThat(info.getRegionName(), equalTo("r\u00e9gion"));
+        assertThat(info.getFormParams(), hasEntry("context", "\u2713"));
+    }
+
+    @Test
+    void testBlankPage() {
+        AwsApprovalPageExtractor extractor = extract(" \n\t ".getBytes(UTF_8), 2);
+
+        assertThat(extractor.isBlank(), is(true));
+    }
+
+    private static AwsApprovalPageExtractor extract(byte[] page, int chunkSize) {
+        AwsApprovalPageExtractor extractor = new AwsApprovalPageExtractor(UTF_8);
+        for (int offset = 0; offset < page.length; offset += chunkSize) {
+            extractor.feed(ByteBuffer.wrap(page, offset, Math.min(chunkSize, page.length - offset)));
+        }
+        extractor.finish();
+        return extractor;
+    }
+}
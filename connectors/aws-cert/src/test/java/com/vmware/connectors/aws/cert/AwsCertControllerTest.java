@@ -28,6 +28,7 @@ import org.springframework.util.MultiValueMap;
 import java.util.List;
 
 import static com.vmware.connectors.test.JsonSchemaValidator.isValidHeroCardConnectorResponse;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.springframework.http.HttpHeaders.ACCEPT_LANGUAGE;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
@@ -146,6 +147,16 @@ class AwsCertControllerTest extends ControllerTestsBase {
         mockAws.verify();
     }
 
+    @Test
+    void testRequestCardsStreamed() throws Exception {
+        trainAwsCertForCards();
+
+        String cards = performStreamed(setupPostRequest("/cards/requests", APPLICATION_JSON, "valid/cards/card.json"));
+
+        assertThat(cards, JsonReplacementsBuilder.from(fromFile("/awscert/responses/success/cards/card.json")).buildForCards());
+        mockAws.verify();
+    }
+
     @ParameterizedTest
     @EnumSource(
             value = HttpStatus.class,
@@ -178,6 +189,37 @@ class AwsCertControllerTest extends ControllerTestsBase {
         mockAws.verify();
     }
 
+    @Test
+    void testRequestCardsSkipsOversizeUnrecognizedPage() throws Exception {
+        // Not the approval page layout, and too large to fall back to a full parse
+        String oversizePage = "<html><body><div>" + StringUtils.repeat('x', 600 * 1024) + "</div></body></html>";
+
+        mockAws.expect(requestTo("https://test-aws-region-1.certificates.fake-amazon.com/approvals?code=test-auth-code-1&context=test-context-1"))
+                .andExpect(method(GET))
+                .andRespond(withSuccess(oversizePage, TEXT_HTML));
+
+        mockAws.expect(requestTo("https://test-aws-region-2.certificates.fake-amazon.com/approvals?code=test-auth-code-2&context=test-context-2"))
+                .andExpect(method(GET))
+                .andRespond(withSuccess(fromFile("awscert/fake/approval-page-2.html"), TEXT_HTML));
+
+        mockAws.expect(requestTo("https://certificates.FAKE-amazon.com/approvals?code=test-auth-code-3&context=test-context-3"))
+                .andExpect(method(GET))
+                .andRespond(withSuccess(oversizePage, TEXT_HTML));
+
+        requestCards("valid/cards/card.json")
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_JSON))
+                .andExpect(
+                        content().string(
+                                JsonReplacementsBuilder
+                                        .from(fromFile("/awscert/responses/success/cards/single-card.json"))
+                                        .buildForCards()
+                        )
+                );
+
+        mockAws.verify();
+    }
+
     private void trainAwsCertForCards() throws Exception {
         mockAws.expect(requestTo("https://test-aws-region-1.certificates.fake-amazon.com/approvals?code=test-auth-code-1&context=test-context-1"))
                 .andExpect(method(GET))
@@ -0,0 +1,31 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.aws.cert;
+
+import com.vmware.connectors.test.load.BackendSimulator;
+import com.vmware.connectors.test.load.LoadTestRunner;
+import org.apache.commons.lang3.StringUtils;
+
+import static org.springframework.http.HttpMethod.GET;
+
+/**
+ * Drives the AWS Certificate connector's card requests against simulated approval pages.
+ * <p>
+ * The approval URLs come from the card request tokens, so they point at the
+ * simulator, which is made the approval host.
+ */
+public final class AwsCertLoadScenario {
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner(AwsCertConnectorApplication.class)
+                .property("aws.certificate.connector.approval.host=localhost")
+                .body("/awscert/requests/load/card.json")
+                .run(new BackendSimulator()
+                        .route(GET, "/approvals",
+                                request -> "/awscert/fake/approval-page-"
+                                        + StringUtils.substringAfterLast(request.queryParam("code").orElse(""), "-") + ".html"));
+    }
+}
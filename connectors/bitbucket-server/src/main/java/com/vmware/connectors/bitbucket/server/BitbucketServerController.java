@@ -13,8 +13,9 @@ import com.vmware.connectors.common.json.JsonDocument;
 import com.vmware.connectors.common.payloads.request.CardRequest;
 import com.vmware.connectors.common.payloads.response.*;
 import com.vmware.connectors.common.utils.CardTextAccessor;
-import com.vmware.connectors.common.utils.CommonUtils;
+import com.vmware.connectors.common.utils.IdGenerator;
 import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.web.CardRequestContext;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,7 +29,6 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.util.HashSet;
 import java.util.List;
@@ -55,11 +55,13 @@ public class BitbucketServerController {
 
     private final WebClient rest;
     private final CardTextAccessor cardTextAccessor;
+    private final IdGenerator idGenerator;
 
     @Autowired
-    public BitbucketServerController(WebClient rest, CardTextAccessor cardTextAccessor) {
+    public BitbucketServerController(WebClient rest, CardTextAccessor cardTextAccessor, IdGenerator idGenerator) {
         this.rest = rest;
         this.cardTextAccessor = cardTextAccessor;
+        this.idGenerator = idGenerator;
     }
 
     @PostMapping(
@@ -73,7 +75,27 @@ public class BitbucketServerController {
             @RequestHeader(ROUTING_PREFIX) final String routingPrefix,
             final Locale locale,
             @Valid @RequestBody final CardRequest cardRequest,
-            final HttpServletRequest request) {
+            final CardRequestContext cardContext) {
+        return streamCards(authHeader, baseUrl, routingPrefix, locale, cardRequest, cardContext)
+                .collect(Cards::new, (cards, card) -> cards.getCards().add(card));
+    }
+
+    /*
+     * Opt-in with "Accept: application/stream+json": every card is written,
+     * as a line of JSON, as soon as its pull request has been fetched.
+     */
+    @PostMapping(
+            value = "/cards/requests",
+            produces = MediaType.APPLICATION_STREAM_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Flux<Card> streamCards(
+            @RequestHeader(AUTH_HEADER) final String authHeader,
+            @RequestHeader(BASE_URL_HEADER) final String baseUrl,
+            @RequestHeader(ROUTING_PREFIX) final String routingPrefix,
+            final Locale locale,
+            @Valid @RequestBody final CardRequest cardRequest,
+            final CardRequestContext cardContext) {
 
         logger.trace("Cards requests for bitbucket server connector - baseUrlHeader: {}, routingPrefix: {}",
                 baseUrl,
@@ -84,9 +106,7 @@ public class BitbucketServerController {
         final Set<BitbucketServerPullRequest> pullRequests = convertToBitbucketServerPR(cardTokens);
 
         return Flux.fromIterable(pullRequests)
-                .flatMap(pullRequest -> getCardForBitbucketServerPR(authHeader, pullRequest, baseUrl, routingPrefix, locale, request))
-                .collect(Cards::new, (cards, card) -> cards.getCards().add(card))
-                .defaultIfEmpty(new Cards())
+                .flatMap(pullRequest -> getCardForBitbucketServerPR(authHeader, pullRequest, baseUrl, routingPrefix, locale, cardContext))
                 .subscriberContext(Reactive.setupContext());
     }
 
@@ -232,7 +252,7 @@ public class BitbucketServerController {
                                                    final String baseUrl,
                                                    final String routingPrefix,
                                                    final Locale locale,
-                                                   final HttpServletRequest request) {
+                                                   final CardRequestContext cardContext) {
         logger.debug("Requesting pull request info from bitbucket server base url: {} and pull request info: {}", baseUrl, pullRequest);
 
         final Mono<JsonDocument> bitBucketServerResponse = getPullRequestInfo(authHeader, pullRequest, baseUrl);
@@ -240,7 +260,7 @@ public class BitbucketServerController {
 
         return Mono.zip(bitBucketServerResponse, comments, Pair::of)
                 .onErrorResume(Reactive::skipOnNotFound)
-                .map(pair -> convertResponseIntoCard(pair.getLeft(), pullRequest, routingPrefix, pair.getRight(), locale, request));
+                .flatMap(Reactive.wrapCardBuilder(pair -> convertResponseIntoCard(pair.getLeft(), pullRequest, routingPrefix, pair.getRight(), locale, cardContext)));
     }
 
     private Mono<JsonDocument> getPullRequestInfo(final String authHeader,
@@ -259,10 +279,10 @@ public class BitbucketServerController {
                                          final String routingPrefix,
                                          final List<String> comments,
                                          final Locale locale,
-                                         final HttpServletRequest request) {
+                                         final CardRequestContext cardContext) {
         final boolean isPROpen = OPEN.equalsIgnoreCase(bitBucketServerResponse.read("$.state"));
 
-        final Card.Builder card = new Card.Builder()
+        final Card.Builder card = new Card.Builder(idGenerator)
                 .setHeader(
                         this.cardTextAccessor.getHeader(locale),
                         this.cardTextAccessor.getMessage("subtitle", locale,
@@ -273,7 +293,7 @@ public class BitbucketServerController {
                 .setBody(makeCardBody(bitBucketServerResponse, comments, locale));
 
         // Set image url to card response.
-        CommonUtils.buildConnectorImageUrl(card, request);
+        card.setImage(cardContext.getImage());
 
         // Add comment action.
         addCommentAction(card, routingPrefix, pullRequest, locale);
@@ -311,7 +331,7 @@ public class BitbucketServerController {
                                       final BitbucketServerAction bitBucketServerAction,
                                       final Locale locale) {
         card.addAction(
-                new CardAction.Builder()
+                new CardAction.Builder(idGenerator)
                         .setLabel(this.cardTextAccessor.getActionLabel(BITBUCKET_PREFIX + bitBucketServerAction.getAction(), locale))
                         .setCompletedLabel(this.cardTextAccessor.getActionCompletedLabel(BITBUCKET_PREFIX + bitBucketServerAction.getAction(), locale))
                         .setActionKey(CardActionKey.DIRECT)
@@ -326,7 +346,7 @@ public class BitbucketServerController {
                                   final BitbucketServerPullRequest pullRequest,
                                   final Locale locale) {
         card.addAction(
-                new CardAction.Builder()
+                new CardAction.Builder(idGenerator)
                         .setLabel(this.cardTextAccessor.getActionLabel(BITBUCKET_SERVER_COMMENTS, locale))
                         .setCompletedLabel(this.cardTextAccessor.getActionCompletedLabel(BITBUCKET_SERVER_COMMENTS, locale))
                         .setActionKey(CardActionKey.USER_INPUT)
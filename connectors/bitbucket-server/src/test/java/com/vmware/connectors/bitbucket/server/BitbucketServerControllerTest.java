@@ -33,6 +33,7 @@ import java.util.stream.Stream;
 
 import static com.vmware.connectors.bitbucket.server.utils.BitbucketServerConstants.*;
 import static com.vmware.connectors.test.JsonSchemaValidator.isValidHeroCardConnectorResponse;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.springframework.http.HttpHeaders.*;
 import static org.springframework.http.HttpMethod.*;
 import static org.springframework.http.MediaType.*;
@@ -143,6 +144,16 @@ class BitbucketServerControllerTest extends ControllerTestsBase {
         this.mockBitbucketServer.verify();
     }
 
+    @Test
+    void testRequestCardsStreamed() throws Exception {
+        buildRequestForCards();
+
+        String cards = performStreamed(requestCard(BITBUCKET_SERVER_AUTH_TOKEN, "request.json"));
+
+        assertThat(cards, JsonReplacementsBuilder.from(fromFile("bitbucket/responses/success.json")).buildForCards());
+        this.mockBitbucketServer.verify();
+    }
+
     private void buildRequestForCards() {
         final String pr236Url = "https://stash.air-watch.com/rest/api/1.0/projects/UFO/repos/app-platform-server/pull-requests/" + PULL_REQUEST_ID_1;
         final String pr246Url = "https://stash.air-watch.com/rest/api/1.0/projects/UFO/repos/app-platform-server/pull-requests/" + PULL_REQUEST_ID_2;
@@ -0,0 +1,33 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.bitbucket.server;
+
+import com.vmware.connectors.test.load.BackendSimulator;
+import com.vmware.connectors.test.load.LoadTestRunner;
+
+import static com.vmware.connectors.bitbucket.server.utils.BitbucketServerConstants.AUTH_HEADER;
+import static com.vmware.connectors.bitbucket.server.utils.BitbucketServerConstants.BASE_URL_HEADER;
+import static org.springframework.http.HttpMethod.GET;
+
+/**
+ * Drives the Bitbucket Server connector's card requests against a simulated Bitbucket Server.
+ */
+public final class BitbucketServerLoadScenario {
+
+    private static final String PULL_REQUEST = "/rest/api/1.0/projects/{project}/repos/{repo}/pull-requests/{id}";
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner(BitbucketServerConnectorApplication.class)
+                .header(AUTH_HEADER, "Basic load-test")
+                .backendUrlHeader(BASE_URL_HEADER)
+                .body("/bitbucket/requests/request.json")
+                .run(new BackendSimulator()
+                        .route(GET, PULL_REQUEST,
+                                request -> "/bitbucket/responses/pr_" + request.pathVariable("id") + ".json")
+                        .route(GET, PULL_REQUEST + "/activities",
+                                request -> "/bitbucket/responses/activities_pr_" + request.pathVariable("id") + ".json"));
+    }
+}
@@ -5,34 +5,35 @@
 
 package com.vmware.connectors.concur;
 
+import com.vmware.connectors.common.cache.ConnectorCache;
 import com.vmware.connectors.common.json.JsonDocument;
 import com.vmware.connectors.common.payloads.request.CardRequest;
 import com.vmware.connectors.common.payloads.response.*;
 import com.vmware.connectors.common.utils.CardTextAccessor;
-import com.vmware.connectors.common.utils.CommonUtils;
+import com.vmware.connectors.common.utils.IdGenerator;
 import com.vmware.connectors.common.utils.Reactive;
-import org.apache.commons.io.IOUtils;
+import com.vmware.connectors.common.web.CardRequestContext;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.ReactiveHttpOutputMessage;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.function.BodyInserter;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.util.HtmlUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.util.Locale;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
 
 import static com.vmware.connectors.concur.ConcurConstants.ConcurRequestActions.*;
 import static com.vmware.connectors.concur.ConcurConstants.ConcurResponseActions.SUBMITTED_AND_PENDING_APPROVAL;
@@ -50,15 +51,21 @@ public class ConcurController {
 
     private final WebClient rest;
     private final CardTextAccessor cardTextAccessor;
-    private final Resource concurrRequestTemplate;
+    private final IdGenerator idGenerator;
+    private final ConcurRequestTemplate concurRequestTemplate;
+    private final ConnectorCache cache;
 
     @Autowired
     public ConcurController(WebClient rest,
                             CardTextAccessor cardTextAccessor,
-                            @Value("classpath:static/templates/concur-request-template.xml") Resource concurRequestTemplate) {
+                            IdGenerator idGenerator,
+                            ConnectorCache cache,
+                            @Value("classpath:static/templates/concur-request-template.xml") Resource concurRequestTemplate) throws IOException {
         this.rest = rest;
         this.cardTextAccessor = cardTextAccessor;
-        this.concurrRequestTemplate = concurRequestTemplate;
+        this.idGenerator = idGenerator;
+        this.cache = cache;
+        this.concurRequestTemplate = new ConcurRequestTemplate(concurRequestTemplate);
     }
 
     @PostMapping(path = "/cards/requests",
@@ -70,16 +77,34 @@ public class ConcurController {
             @RequestHeader(name = ROUTING_PREFIX) final String routingPrefix,
             final Locale locale,
             @Valid @RequestBody CardRequest cardRequest,
-            final HttpServletRequest request) {
+            final CardRequestContext cardContext,
+            final Principal principal) {
+        return streamCards(authHeader, baseUrl, routingPrefix, locale, cardRequest, cardContext, principal)
+                .collect(Cards::new, (cards, card) -> cards.getCards().add(card));
+    }
+
+    /*
+     * Opt-in with "Accept: application/stream+json": every card is written,
+     * as a line of JSON, as soon as its expense report has been fetched.
+     */
+    @PostMapping(path = "/cards/requests",
+            produces = APPLICATION_STREAM_JSON_VALUE,
+            consumes = APPLICATION_JSON_VALUE)
+    public Flux<Card> streamCards(
+            @RequestHeader(name = AUTHORIZATION_HEADER) final String authHeader,
+            @RequestHeader(name = BACKEND_BASE_URL_HEADER) final String baseUrl,
+            @RequestHeader(name = ROUTING_PREFIX) final String routingPrefix,
+            final Locale locale,
+            @Valid @RequestBody CardRequest cardRequest,
+            final CardRequestContext cardContext,
+            final Principal principal) {
 
         final Set<String> expenseReportIds = cardRequest.getTokens(EXPENSE_REPORT_ID);
 
         return Flux.fromIterable(expenseReportIds)
                 .flatMap(expenseReportId -> getCardForExpenseReport(
                         authHeader, expenseReportId, baseUrl,
-                        routingPrefix, locale, request))
-                .collect(Cards::new, (cards, card) -> cards.getCards().add(card))
-                .defaultIfEmpty(new Cards())
+                        routingPrefix, locale, cardContext, principal))
                 .subscriberContext(Reactive.setupContext());
     }
 
@@ -90,10 +115,11 @@ public class ConcurController {
             @RequestHeader(name = AUTHORIZATION_HEADER) final String authHeader,
             @RequestHeader(name = BACKEND_BASE_URL_HEADER) final String baseUrl,
             @RequestParam(name = REASON) final String reason,
-            @PathVariable(name = ConcurConstants.PathVariable.EXPENSE_REPORT_ID) final String workflowstepId) throws IOException, ExecutionException, InterruptedException {
+            @PathVariable(name = ConcurConstants.PathVariable.EXPENSE_REPORT_ID) final String workflowstepId,
+            final Principal principal) {
         logger.debug("Approving the concur expense for the base concur URL: {} and expense report with ID: {}", baseUrl, workflowstepId);
 
-        return makeConcurActionRequest(baseUrl, reason, workflowstepId, authHeader, APPROVE);
+        return makeConcurActionRequest(baseUrl, reason, workflowstepId, authHeader, APPROVE, principal);
     }
 
     @PostMapping(path = "/api/expense/reject/{expenseReportId}",
@@ -103,37 +129,41 @@ public class ConcurController {
             @RequestHeader(name = AUTHORIZATION_HEADER) final String authHeader,
             @RequestHeader(name = BACKEND_BASE_URL_HEADER) final String baseUrl,
             @RequestParam(name = REASON) final String reason,
-            @PathVariable(name = ConcurConstants.PathVariable.EXPENSE_REPORT_ID) final String workflowstepId) throws IOException, ExecutionException, InterruptedException {
+            @PathVariable(name = ConcurConstants.PathVariable.EXPENSE_REPORT_ID) final String workflowstepId,
+            final Principal principal) {
         logger.debug("Rejecting the concur expense for the base concur URL: {} and expense report with ID: {}", baseUrl, workflowstepId);
 
-        return makeConcurActionRequest(baseUrl, reason, workflowstepId, authHeader, REJECT);
+        return makeConcurActionRequest(baseUrl, reason, workflowstepId, authHeader, REJECT, principal);
     }
 
     private Mono<String> makeConcurActionRequest(final String baseUrl,
                                                  final String reason,
                                                  final String reportID,
                                                  final String authHeader,
-                                                 final String concurAction) throws IOException, ExecutionException, InterruptedException {
-        // Replace the placeholder in concur request template with appropriate action and comment.
-        final String concurRequestTemplate = getConcurRequestTemplate(reason, concurAction);
-
-        Mono<String> workFlowActionUrl = getWorkFlowActionUrl(authHeader, reportID, baseUrl);
+                                                 final String concurAction,
+                                                 final Principal principal) {
+        final String cacheKey = workFlowActionUrlKey(baseUrl, authHeader, reportID);
+        Mono<String> workFlowActionUrl = cache.get(principal, cacheKey,
+                () -> getWorkFlowActionUrl(authHeader, reportID, baseUrl));
+        // The URL is spent once the report has moved on, and may be why the action failed
+        Mono<Void> evict = cache.evict(principal, cacheKey);
         return workFlowActionUrl.flatMap(url -> rest.post()
                 .uri(url)
                 .header(AUTHORIZATION, authHeader)
                 .contentType(APPLICATION_XML)
                 .accept(APPLICATION_JSON)
-                .syncBody(concurRequestTemplate)
+                .body(concurRequestBody(reason, concurAction))
                 .retrieve()
-                .bodyToMono(String.class));
+                .bodyToMono(String.class))
+                .flatMap(result -> evict.thenReturn(result))
+                .onErrorResume(e -> evict.then(Mono.error(e)));
     }
 
-    private String getConcurRequestTemplate(final String reason,
-                                            final String concurAction) throws IOException {
-        String concurRequestTemplate = IOUtils.toString(this.concurrRequestTemplate.getInputStream(), StandardCharsets.UTF_8);
-        concurRequestTemplate = concurRequestTemplate.replace(ACTION_PLACEHOLDER, concurAction);
-        concurRequestTemplate = concurRequestTemplate.replace(COMMENT_PLACEHOLDER, HtmlUtils.htmlEscape(reason));
-        return concurRequestTemplate;
+    // Fill the precompiled template's action and comment slots directly into the request's own buffer.
+    private BodyInserter<DataBuffer, ReactiveHttpOutputMessage> concurRequestBody(final String reason,
+                                                                                  final String concurAction) {
+        return (outputMessage, context) -> outputMessage.writeWith(Mono.fromSupplier(
+                () -> concurRequestTemplate.write(outputMessage.bufferFactory(), concurAction, reason)));
     }
 
 
@@ -142,13 +172,15 @@ public class ConcurController {
                                                 final String baseUrl,
                                                 final String routingPrefix,
                                                 final Locale locale,
-                                                final HttpServletRequest request) {
+                                                final CardRequestContext cardContext,
+                                                final Principal principal) {
         logger.debug("Requesting expense request info from concur base URL: {} for ticket request id: {}", baseUrl, id);
 
         return getReportDetails(authHeader, id, baseUrl)
                 .onErrorResume(Reactive::skipOnNotFound)
-                .map(entity -> convertResponseIntoCard(entity, baseUrl, id,
-                        routingPrefix, locale, request));
+                .flatMap(entity -> cacheWorkFlowActionUrl(entity, baseUrl, authHeader, id, principal))
+                .flatMap(Reactive.wrapCardBuilder(entity -> convertResponseIntoCard(entity, baseUrl, id,
+                        routingPrefix, locale, cardContext)));
     }
 
     private Mono<ResponseEntity<JsonDocument>> getReportDetails(String authHeader, String id, String baseUrl) {
@@ -161,6 +193,25 @@ public class ConcurController {
                 .flatMap(response -> response.toEntity(JsonDocument.class));
     }
 
+    // The approve and reject actions of the card then skip fetching the report again
+    private Mono<ResponseEntity<JsonDocument>> cacheWorkFlowActionUrl(final ResponseEntity<JsonDocument> entity,
+                                                                      final String baseUrl,
+                                                                      final String authHeader,
+                                                                      final String id,
+                                                                      final Principal principal) {
+        final String url = entity.getBody().read("$.WorkflowActionURL");
+        if (url == null) {
+            return Mono.just(entity);
+        }
+        return cache.put(principal, workFlowActionUrlKey(baseUrl, authHeader, id), url)
+                .thenReturn(entity);
+    }
+
+    // The Concur credentials are part of the key, so a URL is only used with the ones that could fetch it
+    private static String workFlowActionUrlKey(final String baseUrl, final String authHeader, final String id) {
+        return "concur.workflowActionUrl|" + baseUrl + "|" + authHeader + "|" + id;
+    }
+
     private Mono<String> getWorkFlowActionUrl(final String authHeader,
                                                 final String id,
                                                 final String baseUrl) {
@@ -174,18 +225,18 @@ public class ConcurController {
                                          final String expenseReportId,
                                          final String routingPrefix,
                                          final Locale locale,
-                                         final HttpServletRequest request) {
+                                         final CardRequestContext cardContext) {
         final JsonDocument response = entity.getBody();
         final String approvalStatus = response.read("$.ApprovalStatusName");
 
-        final Card.Builder cardBuilder = new Card.Builder()
+        final Card.Builder cardBuilder = new Card.Builder(idGenerator)
                 .setName("Concur")
-                .setTemplate(routingPrefix + "templates/generic.hbs")
+                .setTemplate(cardContext.getGenericTemplate())
                 .setHeader(cardTextAccessor.getMessage("concur.title", locale))
                 .setBody(buildCardBodyBuilder(response, locale));
 
         // Set image url.
-        CommonUtils.buildConnectorImageUrl(cardBuilder, request);
+        cardBuilder.setImage(cardContext.getImage());
 
         // Add approve and reject actions only if the approval status is submitted and pending approval.
         if (SUBMITTED_AND_PENDING_APPROVAL.equalsIgnoreCase(approvalStatus)) {
@@ -233,7 +284,7 @@ public class ConcurController {
         final String approveUrl = "api/expense/approve/" + expenseReportId;
 
         // Approver has to enter the comment to approve the expense request.
-        return new CardAction.Builder()
+        return new CardAction.Builder(idGenerator)
                 .setLabel(this.cardTextAccessor.getActionLabel("concur.approve", locale))
                 .setCompletedLabel(this.cardTextAccessor.getActionCompletedLabel("concur.approve", locale))
                 .setActionKey(CardActionKey.USER_INPUT)
@@ -254,7 +305,7 @@ public class ConcurController {
         final String rejectUrl = "api/expense/reject/" + expenseReportId;
 
         // Approver has to enter the comment to reject the expense request.
-        return new CardAction.Builder()
+        return new CardAction.Builder(idGenerator)
                 .setLabel(this.cardTextAccessor.getActionLabel("concur.reject", locale))
                 .setCompletedLabel(this.cardTextAccessor.getActionCompletedLabel("concur.reject", locale))
                 .setActionKey(CardActionKey.USER_INPUT)
@@ -271,7 +322,7 @@ public class ConcurController {
 
     private CardAction.Builder getOpenActionBuilder(final String baseUrl, final Locale locale) {
         // Did not find any concur API to open the concur page with report directly. Only baseUrl is added.
-        return new CardAction.Builder()
+        return new CardAction.Builder(idGenerator)
                 .setLabel(this.cardTextAccessor.getActionLabel("concur.open", locale))
                 .setCompletedLabel(this.cardTextAccessor.getActionCompletedLabel("concur.open", locale))
                 .setActionKey(CardActionKey.OPEN_IN)
@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.concur;
+
+import org.apache.commons.io.IOUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.vmware.connectors.concur.ConcurConstants.ConcurRequestActions.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The Concur workflow action payload, parsed once from concur-request-template.xml.
+ * <p>
+ * The template is split into literal byte segments and typed slots so that each
+ * approve/reject writes its payload straight into a DataBuffer taken from the
+ * outgoing request's (pooled) buffer factory, without reading the resource or
+ * building intermediate Strings.
+ */
+final class ConcurRequestTemplate {
+
+    enum Slot {
+        ACTION(ACTION_PLACEHOLDER),
+        COMMENT(COMMENT_PLACEHOLDER);
+
+        private final String placeholder;
+
+        Slot(String placeholder) {
+            this.placeholder = placeholder;
+        }
+    }
+
+    private static final byte[] LT = "&lt;".getBytes(UTF_8);
+    private static final byte[] GT = "&gt;".getBytes(UTF_8);
+    private static final byte[] AMP = "&amp;".getBytes(UTF_8);
+    private static final byte[] QUOT = "&quot;".getBytes(UTF_8);
+    private static final byte[] APOS = "&#39;".getBytes(UTF_8);
+    private static final byte[] NONE = new byte[0];
+
+    // literals.length == slots.length + 1; the payload is literal[0] slot[0] literal[1] ... literal[n]
+    private final byte[][] literals;
+    private final Slot[] slots;
+    private final int literalsLength;
+
+    // The actions are a closed set of constants, so they are encoded up front.
+    private final Map<String, byte[]> encodedActions;
+
+    ConcurRequestTemplate(Resource resource) throws IOException {
+        this(read(resource));
+    }
+
+    ConcurRequestTemplate(String template) {
+        List<byte[]> literalList = new ArrayList<>();
+        List<Slot> slotList = new ArrayList<>();
+        int start = 0;
+        Slot next = nextSlot(template, start);
+        while (next != null) {
+            int index = template.indexOf(next.placeholder, start);
+            literalList.add(template.substring(start, index).getBytes(UTF_8));
+            slotList.add(next);
+            start = index + next.placeholder.length();
+            next = nextSlot(template, start);
+        }
+        literalList.add(template.substring(start).getBytes(UTF_8));
+
+        this.literals = literalList.toArray(new byte[0][]);
+        this.slots = slotList.toArray(new Slot[0]);
+        this.literalsLength = Arrays.stream(literals).mapToInt(literal -> literal.length).sum();
+
+        this.encodedActions = new HashMap<>();
+        for (String action : Arrays.asList(APPROVE, REJECT)) {
+            encodedActions.put(action, encodeEscaped(action));
+        }
+    }
+
+    private static String read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return IOUtils.toString(in, UTF_8);
+        }
+    }
+
+    private static Slot nextSlot(String template, int from) {
+        Slot found = null;
+        int foundIndex = Integer.MAX_VALUE;
+        for (Slot slot : Slot.values()) {
+            int index = template.indexOf(slot.placeholder, from);
+            if (index >= 0 && index < foundIndex) {
+                found = slot;
+                foundIndex = index;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Writes the payload for the given action and (unescaped) comment.
+     *
+     * @param bufferFactory the factory of the request the payload is written to
+     * @param action one of the ConcurRequestActions constants
+     * @param comment the user supplied comment, escaped while it is written
+     * @return a buffer holding the complete payload
+     */
+    DataBuffer write(DataBufferFactory bufferFactory, String action, String comment) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(literalsLength + action.length() + comment.length() + 16);
+        for (int i = 0; i < slots.length; i++) {
+            buffer.write(literals[i]);
+            if (slots[i] == Slot.ACTION) {
+                writeAction(buffer, action);
+            } else {
+                writeEscaped(buffer, comment);
+            }
+        }
+        buffer.write(literals[slots.length]);
+        return buffer;
+    }
+
+    private void writeAction(DataBuffer buffer, String action) {
+        byte[] encoded = encodedActions.get(action);
+        if (encoded == null) {
+            writeEscaped(buffer, action);
+        } else {
+            buffer.write(encoded);
+        }
+    }
+
+    private static byte[] encodeEscaped(String value) {
+        DataBuffer buffer = new DefaultDataBufferFactory().allocateBuffer(value.length() + 16);
+        writeEscaped(buffer, value);
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return bytes;
+    }
+
+    /*
+     * Escapes the XML markup characters (the same ones HtmlUtils.htmlEscape handled),
+     * copying the unescaped runs between them straight into the buffer.
+     */
+    private static void writeEscaped(DataBuffer buffer, String value) {
+        int runStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            byte[] entity = entityFor(value.charAt(i));
+            if (entity.length > 0) {
+                writeRun(buffer, value, runStart, i);
+                buffer.write(entity);
+                runStart = i + 1;
+            }
+        }
+        writeRun(buffer, value, runStart, value.length());
+    }
+
+    private static void writeRun(DataBuffer buffer, String value, int start, int end) {
+        if (start < end) {
+            buffer.write(UTF_8.encode(CharBuffer.wrap(value, start, end)));
+        }
+    }
+
+    private static byte[] entityFor(char c) {
+        switch (c) {
+            case '<':
+                return LT;
+            case '>':
+                return GT;
+            case '&':
+                return AMP;
+            case '"':
+                return QUOT;
+            case '\'':
+                return APOS;
+            default:
+                return NONE;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.concur;
+
+import com.vmware.connectors.mock.MockRestServiceServer;
+import com.vmware.connectors.test.ControllerTestsBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.client.match.MockRestRequestMatchers;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_XML;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The Concur connector with its cache on, as it runs in production. Each test
+ * uses its own Concur credentials, as the cache outlives the tests.
+ */
+@TestPropertySource(properties = "cache.ttl=300")
+class ConcurControllerCacheTest extends ControllerTestsBase {
+
+    private static final String REPORT_ID_1 = "79D89435DAE94F53BF60";
+    private static final String REPORT_ID_2 = "F49BD54084CE4C09BD65";
+
+    private static final String WORKFLOW_ACTION_URL_1 = "https://implementation.concursolutions.com/api/expense/expensereport/v1.1/report/gWujNPAb67r9LjhqgN7BEYYaQOWzavXBtUP1sej$sXfPQ/WorkFlowAction";
+
+    private MockRestServiceServer mockConcur;
+
+    @Value("classpath:concur/responses/report_id_1.json")
+    private Resource reportId1;
+
+    @Value("classpath:concur/responses/report_id_2.json")
+    private Resource reportId2;
+
+    @Value("classpath:concur/responses/approved.xml")
+    private Resource approved;
+
+    @BeforeEach
+    void init() throws Exception {
+        super.setup();
+        mockConcur = MockRestServiceServer.bindTo(requestHandlerHolder).ignoreExpectOrder(true).build();
+    }
+
+    @Test
+    void testApproveUsesTheUrlCachedByTheCardOnce() throws Exception {
+        String credentials = "OAuth card-then-approve";
+        expectReport(REPORT_ID_1, reportId1, credentials);
+        expectReport(REPORT_ID_2, reportId2, credentials);
+        requestCards(credentials);
+        mockConcur.verify();
+
+        // The card cached the workflow action URL, so the report isn't fetched again
+        mockConcur.reset();
+        expectWorkflowAction(credentials);
+        approve(credentials);
+        mockConcur.verify();
+
+        // The action spent the cached URL
+        mockConcur.reset();
+        expectReport(REPORT_ID_1, reportId1, credentials);
+        expectWorkflowAction(credentials);
+        approve(credentials);
+        mockConcur.verify();
+    }
+
+    @Test
+    void testOtherCredentialsDontUseTheCachedUrl() throws Exception {
+        expectReport(REPORT_ID_1, reportId1, "OAuth cached");
+        expectReport(REPORT_ID_2, reportId2, "OAuth cached");
+        requestCards("OAuth cached");
+        mockConcur.verify();
+
+        mockConcur.reset();
+        expectReport(REPORT_ID_1, reportId1, "OAuth other");
+        expectWorkflowAction("OAuth other");
+        approve("OAuth other");
+        mockConcur.verify();
+    }
+
+    private void expectReport(String reportId, Resource report, String credentials) {
+        mockConcur.expect(requestTo("https://implementation.concursolutions.com/api/expense/expensereport/v2.0/report/" + reportId))
+                .andExpect(method(GET))
+                .andExpect(MockRestRequestMatchers.header(AUTHORIZATION, credentials))
+                .andRespond(withSuccess(report, APPLICATION_JSON));
+    }
+
+    private void expectWorkflowAction(String credentials) {
+        mockConcur.expect(requestTo(WORKFLOW_ACTION_URL_1))
+                .andExpect(method(POST))
+                .andExpect(MockRestRequestMatchers.header(AUTHORIZATION, credentials))
+                .andRespond(withSuccess(approved, APPLICATION_XML));
+    }
+
+    private void requestCards(String credentials) throws Exception {
+        perform(post("/cards/requests").with(token(accessToken()))
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .header("x-concur-authorization", credentials)
+                .header("x-concur-base-url", "https://implementation.concursolutions.com")
+                .header("x-routing-prefix", "https://hero/connectors/concur/")
+                .content(fromFile("/concur/requests/request.json")))
+                .andExpect(status().isOk());
+    }
+
+    private void approve(String credentials) throws Exception {
+        perform(post("/api/expense/approve/" + REPORT_ID_1)
+                .with(token(accessToken()))
+                .contentType(APPLICATION_FORM_URLENCODED_VALUE)
+                .header("x-concur-authorization", credentials)
+                .header("x-concur-base-url", "https://implementation.concursolutions.com")
+                .param(ConcurConstants.RequestParam.REASON, "Approval Done"))
+                .andExpect(status().isOk());
+    }
+}
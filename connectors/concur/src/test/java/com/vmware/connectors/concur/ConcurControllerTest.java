@@ -22,10 +22,12 @@ import org.springframework.test.web.client.ResponseActions;
 import org.springframework.test.web.client.match.MockRestRequestMatchers;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
 import static com.vmware.connectors.test.JsonSchemaValidator.isValidHeroCardConnectorResponse;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.springframework.http.HttpHeaders.*;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
@@ -119,6 +121,30 @@ class ConcurControllerTest extends ControllerTestsBase {
         this.mockConcur.verify();
     }
 
+    @Test
+    void testRequestCardsRoundTrips() throws Exception {
+        mockConnector.setResponseDelay(Duration.ofMillis(100));
+        expect(REPORT_ID_1).andRespond(withSuccess(reportId1, APPLICATION_JSON));
+        expect(REPORT_ID_2).andRespond(withSuccess(reportId2, APPLICATION_JSON));
+
+        testRequestCards("request.json", "success.json", null);
+
+        this.mockConcur.verify();
+        // One call per report, all at once
+        assertBackendRoundTrips(2, 1);
+    }
+
+    @Test
+    void testRequestCardsStreamed() throws Exception {
+        expect(REPORT_ID_1).andRespond(withSuccess(reportId1, APPLICATION_JSON));
+        expect(REPORT_ID_2).andRespond(withSuccess(reportId2, APPLICATION_JSON));
+
+        String cards = performStreamed(requestCards("0_xxxxEKPk8cnYlWaos22OpPsLk=", "request.json"));
+
+        assertThat(cards, JsonReplacementsBuilder.from(fromFile("connector/responses/success.json")).buildForCards());
+        this.mockConcur.verify();
+    }
+
     @Test
     void testApproveRequest() throws Exception {
         expect(REPORT_ID_1).andRespond(withSuccess(reportId1, APPLICATION_JSON));
@@ -0,0 +1,31 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.concur;
+
+import com.vmware.connectors.test.load.BackendSimulator;
+import com.vmware.connectors.test.load.LoadTestRunner;
+
+import static org.springframework.http.HttpMethod.GET;
+
+/**
+ * Drives the Concur connector's card requests against a simulated Concur.
+ */
+public final class ConcurLoadScenario {
+
+    private static final String REPORT_ID_1 = "79D89435DAE94F53BF60";
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner(ConcurConnectorApplication.class)
+                .header("x-concur-authorization", "OAuth load-test")
+                .backendUrlHeader("x-concur-base-url")
+                .body("/concur/requests/request.json")
+                .run(new BackendSimulator()
+                        .route(GET, "/api/expense/expensereport/v2.0/report/{id}",
+                                request -> REPORT_ID_1.equals(request.pathVariable("id"))
+                                        ? "/concur/responses/report_id_1.json"
+                                        : "/concur/responses/report_id_2.json"));
+    }
+}
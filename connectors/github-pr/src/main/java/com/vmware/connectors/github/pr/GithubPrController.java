@@ -9,8 +9,9 @@ import com.google.common.collect.ImmutableMap;
 import com.vmware.connectors.common.payloads.request.CardRequest;
 import com.vmware.connectors.common.payloads.response.*;
 import com.vmware.connectors.common.utils.CardTextAccessor;
-import com.vmware.connectors.common.utils.CommonUtils;
+import com.vmware.connectors.common.utils.IdGenerator;
 import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.web.CardRequestContext;
 import com.vmware.connectors.github.pr.v3.PullRequest;
 import com.vmware.connectors.github.pr.v3.Review;
 import org.apache.commons.lang3.tuple.Pair;
@@ -27,7 +28,6 @@ import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
@@ -58,14 +58,17 @@ public class GithubPrController {
 
     private final WebClient rest;
     private final CardTextAccessor cardTextAccessor;
+    private final IdGenerator idGenerator;
 
     @Autowired
     public GithubPrController(
             WebClient rest,
-            CardTextAccessor cardTextAccessor
+            CardTextAccessor cardTextAccessor,
+            IdGenerator idGenerator
     ) {
         this.rest = rest;
         this.cardTextAccessor = cardTextAccessor;
+        this.idGenerator = idGenerator;
     }
 
     @PostMapping(
@@ -79,7 +82,28 @@ public class GithubPrController {
             @RequestHeader(ROUTING_PREFIX) String routingPrefix,
             Locale locale,
             @Valid @RequestBody CardRequest cardRequest,
-            final HttpServletRequest request
+            final CardRequestContext cardContext
+    ) {
+        return streamCards(auth, baseUrl, routingPrefix, locale, cardRequest, cardContext)
+                .collect(Cards::new, (cards, card) -> cards.getCards().add(card));
+    }
+
+    /*
+     * Opt-in with "Accept: application/stream+json": every card is written,
+     * as a line of JSON, as soon as its pull request has been fetched.
+     */
+    @PostMapping(
+            path = "/cards/requests",
+            produces = MediaType.APPLICATION_STREAM_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Flux<Card> streamCards(
+            @RequestHeader(AUTH_HEADER) String auth,
+            @RequestHeader(BASE_URL_HEADER) String baseUrl,
+            @RequestHeader(ROUTING_PREFIX) String routingPrefix,
+            Locale locale,
+            @Valid @RequestBody CardRequest cardRequest,
+            final CardRequestContext cardContext
     ) {
         logger.trace("getCards called: baseUrl={}, routingPrefix={}, request={}", baseUrl, routingPrefix, cardRequest);
 
@@ -97,15 +121,7 @@ public class GithubPrController {
 
         return Flux.fromStream(pullRequestIds)
                 .flatMap(pullRequestId -> fetchPullRequest(baseUrl, pullRequestId, auth))
-                .map(pair -> makeCard(routingPrefix, pair, locale, request))
-                .reduce(
-                        new Cards(),
-                        (cards, card) -> {
-                            cards.getCards().add(card);
-                            return cards;
-                        }
-                )
-                .defaultIfEmpty(new Cards())
+                .flatMap(Reactive.wrapCardBuilder(pair -> makeCard(routingPrefix, pair, locale, cardContext)))
                 .subscriberContext(Reactive.setupContext());
     }
 
@@ -178,7 +194,7 @@ public class GithubPrController {
             String routingPrefix,
             Pair<PullRequestId, PullRequest> info,
             Locale locale,
-            HttpServletRequest request
+            CardRequestContext cardContext
     ) {
         logger.trace("makeCard called: routingPrefix={}, info={}", routingPrefix, info);
 
@@ -186,9 +202,9 @@ public class GithubPrController {
         PullRequest pullRequest = info.getRight();
         boolean isOpen = OPEN_STATE.equalsIgnoreCase(pullRequest.getState());
 
-        Card.Builder card = new Card.Builder()
+        Card.Builder card = new Card.Builder(idGenerator)
                 .setName("GithubPr") // TODO - remove this in APF-536
-                .setTemplate(routingPrefix + "templates/generic.hbs")
+                .setTemplate(cardContext.getGenericTemplate())
                 .setHeader(
                         cardTextAccessor.getHeader(locale),
                         cardTextAccessor.getMessage(
@@ -201,7 +217,7 @@ public class GithubPrController {
                 .setBody(createBody(pullRequestId, pullRequest, locale));
 
         // Set image url.
-        CommonUtils.buildConnectorImageUrl(card, request);
+        card.setImage(cardContext.getImage());
 
         addCloseAction(card, routingPrefix, pullRequestId, isOpen, locale);
         addMergeAction(card, routingPrefix, pullRequestId, pullRequest, isOpen, locale);
@@ -308,7 +324,7 @@ public class GithubPrController {
     ) {
         if (isOpen) {
             card.addAction(
-                    new CardAction.Builder()
+                    new CardAction.Builder(idGenerator)
                             .setLabel(cardTextAccessor.getActionLabel("close", locale))
                             .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("close", locale))
                             .setActionKey(CardActionKey.USER_INPUT)
@@ -335,7 +351,7 @@ public class GithubPrController {
     ) {
         if (isOpen && Boolean.TRUE.equals(pullRequest.getMergeable())) {
             card.addAction(
-                    new CardAction.Builder()
+                    new CardAction.Builder(idGenerator)
                             .setLabel(cardTextAccessor.getActionLabel("merge", locale))
                             .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("merge", locale))
                             .setActionKey(CardActionKey.DIRECT)
@@ -356,7 +372,7 @@ public class GithubPrController {
     ) {
         if (isOpen) {
             card.addAction(
-                    new CardAction.Builder()
+                    new CardAction.Builder(idGenerator)
                             .setLabel(cardTextAccessor.getActionLabel("approve", locale))
                             .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("approve", locale))
                             .setActionKey(CardActionKey.DIRECT)
@@ -374,7 +390,7 @@ public class GithubPrController {
             Locale locale
     ) {
         card.addAction(
-                new CardAction.Builder()
+                new CardAction.Builder(idGenerator)
                         .setLabel(cardTextAccessor.getActionLabel("comment", locale))
                         .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("comment", locale))
                         .setActionKey(CardActionKey.USER_INPUT)
@@ -400,7 +416,7 @@ public class GithubPrController {
     ) {
         if (isOpen) {
             card.addAction(
-                    new CardAction.Builder()
+                    new CardAction.Builder(idGenerator)
                             .setLabel(cardTextAccessor.getActionLabel("requestChanges", locale))
                             .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("requestChanges", locale))
                             .setActionKey(CardActionKey.USER_INPUT)
@@ -23,9 +23,11 @@ import org.springframework.test.web.client.match.MockRestRequestMatchers;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.time.Duration;
 import java.util.List;
 
 import static com.vmware.connectors.test.JsonSchemaValidator.isValidHeroCardConnectorResponse;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.http.HttpHeaders.ACCEPT_LANGUAGE;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
@@ -247,6 +249,34 @@ class GithubPrControllerTest extends ControllerTestsBase {
                 );
     }
 
+    @Test
+    void testRequestCardsRoundTrips() throws Exception {
+        mockConnector.setResponseDelay(Duration.ofMillis(100));
+        trainGithubForCards();
+
+        requestCards(GITHUB_AUTH_TOKEN, fromFile("requests/valid/cards/card.json"))
+                .andExpect(status().isOk());
+
+        // One call per distinct pull request, all at once
+        assertBackendRoundTrips(4, 1);
+    }
+
+    @Test
+    void testRequestCardsStreamed() throws Exception {
+        trainGithubForCards();
+
+        String cards = performStreamed(
+                setupPostRequest(
+                        "/cards/requests",
+                        APPLICATION_JSON,
+                        GITHUB_AUTH_TOKEN,
+                        fromFile("requests/valid/cards/card.json")
+                )
+        );
+
+        assertThat(cards, JsonReplacementsBuilder.from(fromFile("responses/success/cards/card.json")).buildForCards());
+    }
+
     private void trainGithubForCards() throws Exception {
         mockGithub.expect(requestTo("https://api.github.com/repos/vmware/test-repo/pulls/1"))
                 .andExpect(header(AUTHORIZATION, "Bearer " + GITHUB_AUTH_TOKEN))
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.github.pr;
+
+import com.google.common.collect.ImmutableMap;
+import com.vmware.connectors.test.load.BackendSimulator;
+import com.vmware.connectors.test.load.LoadTestRunner;
+
+import java.util.Map;
+
+import static org.springframework.http.HttpMethod.GET;
+
+/**
+ * Drives the GitHub PR connector's card requests against a simulated GitHub.
+ */
+public final class GithubPrLoadScenario {
+
+    // The other pull requests of the card request are not found
+    private static final Map<String, String> PULL_REQUESTS = ImmutableMap.of(
+            "1", "fake/cards/small-merged-pr.json",
+            "2", "fake/cards/small-open-pr.json",
+            "3", "fake/cards/big-closed-pr.json"
+    );
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner(GithubPrConnectorApplication.class)
+                .header("x-github-pr-authorization", "Bearer load-test")
+                .backendUrlHeader("x-github-pr-base-url")
+                .body("/requests/valid/cards/card.json")
+                .run(new BackendSimulator()
+                        .route(GET, "/repos/{owner}/{repo}/pulls/{number}",
+                                request -> PULL_REQUESTS.getOrDefault(request.pathVariable("number"), "not-found")));
+    }
+}
@@ -9,8 +9,9 @@ import com.google.common.collect.ImmutableMap;
 import com.vmware.connectors.common.payloads.request.CardRequest;
 import com.vmware.connectors.common.payloads.response.*;
 import com.vmware.connectors.common.utils.CardTextAccessor;
-import com.vmware.connectors.common.utils.CommonUtils;
+import com.vmware.connectors.common.utils.IdGenerator;
 import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.web.CardRequestContext;
 import com.vmware.connectors.gitlab.pr.v4.MergeRequest;
 import com.vmware.connectors.gitlab.pr.v4.MergeRequestActionConstants;
 import org.apache.commons.lang3.tuple.Pair;
@@ -28,7 +29,6 @@ import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -64,16 +64,19 @@ public class GitlabPrController {
     private final boolean isEnterpriseEdition;
     private final WebClient rest;
     private final CardTextAccessor cardTextAccessor;
+    private final IdGenerator idGenerator;
 
     @Autowired
     public GitlabPrController(
             @Value("${gitlab.connector.enterprise:false}") boolean isEnterpriseEdition,
             WebClient rest,
-            CardTextAccessor cardTextAccessor
+            CardTextAccessor cardTextAccessor,
+            IdGenerator idGenerator
     ) {
         this.isEnterpriseEdition = isEnterpriseEdition;
         this.rest = rest;
         this.cardTextAccessor = cardTextAccessor;
+        this.idGenerator = idGenerator;
     }
 
     @PostMapping(
@@ -87,7 +90,28 @@ public class GitlabPrController {
             @RequestHeader(ROUTING_PREFIX) String routingPrefix,
             Locale locale,
             @Valid @RequestBody CardRequest cardRequest,
-            final HttpServletRequest request
+            final CardRequestContext cardContext
+    ) {
+        return streamCards(auth, baseUrl, routingPrefix, locale, cardRequest, cardContext)
+                .collect(Cards::new, (cards, card) -> cards.getCards().add(card));
+    }
+
+    /*
+     * Opt-in with "Accept: application/stream+json": every card is written,
+     * as a line of JSON, as soon as its merge request has been fetched.
+     */
+    @PostMapping(
+            path = "/cards/requests",
+            produces = MediaType.APPLICATION_STREAM_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Flux<Card> streamCards(
+            @RequestHeader(AUTH_HEADER) String auth,
+            @RequestHeader(BASE_URL_HEADER) String baseUrl,
+            @RequestHeader(ROUTING_PREFIX) String routingPrefix,
+            Locale locale,
+            @Valid @RequestBody CardRequest cardRequest,
+            final CardRequestContext cardContext
     ) {
         logger.trace("getCards called: baseUrl={}, routingPrefix={}, request={}", baseUrl, routingPrefix, cardRequest);
 
@@ -103,18 +127,10 @@ public class GitlabPrController {
                 .map(this::getMergeRequestId)
                 .filter(Objects::nonNull);
 
-       return Flux.fromStream(mergeRequestIds)
+        return Flux.fromStream(mergeRequestIds)
                 .flatMap(mergeRequestId -> fetchMergeRequest(baseUrl, mergeRequestId, auth))
-                .map(pair -> makeCard(routingPrefix, pair, locale, request))
-                .reduce(
-                        new Cards(),
-                        (cards, card) -> {
-                            cards.getCards().add(card);
-                            return cards;
-                        }
-                )
-               .defaultIfEmpty(new Cards())
-               .subscriberContext(Reactive.setupContext());
+                .flatMap(Reactive.wrapCardBuilder(pair -> makeCard(routingPrefix, pair, locale, cardContext)))
+                .subscriberContext(Reactive.setupContext());
     }
 
     private UriComponents parseUri(
@@ -202,16 +218,16 @@ public class GitlabPrController {
             String routingPrefix,
             Pair<MergeRequestId, MergeRequest> info,
             Locale locale,
-            HttpServletRequest request
+            CardRequestContext cardContext
     ) {
         logger.trace("makeCard called: routingPrefix={}, info={}", routingPrefix, info);
 
         MergeRequestId mergeRequestId = info.getLeft();
         MergeRequest mergeRequest = info.getRight();
 
-        Card.Builder card = new Card.Builder()
+        Card.Builder card = new Card.Builder(idGenerator)
                 .setName("GitlabPr") // TODO - remove this in APF-536
-                .setTemplate(routingPrefix + "templates/generic.hbs")
+                .setTemplate(cardContext.getGenericTemplate())
                 .setHeader(
                         cardTextAccessor.getHeader(locale),
                         cardTextAccessor.getMessage(
@@ -229,7 +245,7 @@ public class GitlabPrController {
         addCommentAction(card, routingPrefix, mergeRequestId, locale);
 
         // Set image url.
-        CommonUtils.buildConnectorImageUrl(card, request);
+        card.setImage(cardContext.getImage());
 
         return card.build();
     }
@@ -299,7 +315,7 @@ public class GitlabPrController {
     ) {
         if (mergeRequest.getState().isOpen()) {
             card.addAction(
-                    new CardAction.Builder()
+                    new CardAction.Builder(idGenerator)
                             .setLabel(cardTextAccessor.getActionLabel("close", locale))
                             .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("close", locale))
                             .setActionKey(CardActionKey.USER_INPUT)
@@ -325,7 +341,7 @@ public class GitlabPrController {
     ) {
         if (mergeRequest.getState().isOpen() && mergeRequest.getMergeStatus().canBeMerged()) {
             card.addAction(
-                    new CardAction.Builder()
+                    new CardAction.Builder(idGenerator)
                             .setLabel(cardTextAccessor.getActionLabel("merge", locale))
                             .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("merge", locale))
                             .setActionKey(CardActionKey.DIRECT)
@@ -346,7 +362,7 @@ public class GitlabPrController {
     ) {
         if (mergeRequest.getState().isOpen() && isEnterpriseEdition) {
             card.addAction(
-                    new CardAction.Builder()
+                    new CardAction.Builder(idGenerator)
                             .setLabel(cardTextAccessor.getActionLabel("approve", locale))
                             .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("approve", locale))
                             .setActionKey(CardActionKey.DIRECT)
@@ -365,7 +381,7 @@ public class GitlabPrController {
             Locale locale
     ) {
         card.addAction(
-                new CardAction.Builder()
+                new CardAction.Builder(idGenerator)
                         .setLabel(cardTextAccessor.getActionLabel("comment", locale))
                         .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("comment", locale))
                         .setActionKey(CardActionKey.USER_INPUT)
@@ -26,6 +26,7 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import java.util.List;
 
 import static com.vmware.connectors.test.JsonSchemaValidator.isValidHeroCardConnectorResponse;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.any;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.http.HttpHeaders.ACCEPT_LANGUAGE;
@@ -223,6 +224,22 @@ class GitlabPrControllerTest extends ControllerTestsBase {
                 );
     }
 
+    @Test
+    void testRequestCardsStreamed() throws Exception {
+        trainGitlabForCards();
+
+        String cards = performStreamed(
+                setupPostRequest(
+                        "/cards/requests",
+                        APPLICATION_JSON,
+                        GITLAB_AUTH_TOKEN,
+                        fromFile("requests/valid/cards/card.json")
+                )
+        );
+
+        assertThat(cards, JsonReplacementsBuilder.from(fromFile("responses/success/cards/card.json")).buildForCards());
+    }
+
     private void trainGitlabForCards() throws Exception {
         mockGitlab.expect(requestTo("https://gitlab.com/api/v4/projects/vmware%2Ftest-repo/merge_requests/1"))
                 .andExpect(header(AUTHORIZATION, "Bearer " + GITLAB_AUTH_TOKEN))
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.gitlab.pr;
+
+import com.google.common.collect.ImmutableMap;
+import com.vmware.connectors.test.load.BackendSimulator;
+import com.vmware.connectors.test.load.LoadTestRunner;
+
+import java.util.Map;
+
+import static org.springframework.http.HttpMethod.GET;
+
+/**
+ * Drives the GitLab PR connector's card requests against a simulated GitLab.
+ */
+public final class GitlabPrLoadScenario {
+
+    // The other merge requests of the card request are not found
+    private static final Map<String, String> MERGE_REQUESTS = ImmutableMap.of(
+            "1", "fake/cards/small-merged-pr.json",
+            "2", "fake/cards/small-open-pr.json",
+            "3", "fake/cards/big-closed-pr.json"
+    );
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner(GitlabPrConnectorApplication.class)
+                .header("x-gitlab-pr-authorization", "Bearer load-test")
+                .backendUrlHeader("x-gitlab-pr-base-url")
+                .body("/requests/valid/cards/card.json")
+                .run(new BackendSimulator()
+                        .route(GET, "/api/v4/projects/{project}/merge_requests/{number}",
+                                request -> MERGE_REQUESTS.getOrDefault(request.pathVariable("number"), "not-found")));
+    }
+}
@@ -6,12 +6,15 @@
 package com.vmware.connectors.jira;
 
 import com.google.common.collect.ImmutableMap;
+import com.vmware.connectors.common.cache.ConnectorCache;
 import com.vmware.connectors.common.json.JsonDocument;
 import com.vmware.connectors.common.payloads.request.CardRequest;
 import com.vmware.connectors.common.payloads.response.*;
 import com.vmware.connectors.common.utils.CardTextAccessor;
-import com.vmware.connectors.common.utils.CommonUtils;
+import com.vmware.connectors.common.utils.IdGenerator;
 import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.utils.RetryPolicy;
+import com.vmware.connectors.common.web.CardRequestContext;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,8 +28,8 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.security.Principal;
 import java.util.*;
 
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
@@ -48,11 +51,18 @@ public class JiraController {
 
     private final WebClient rest;
     private final CardTextAccessor cardTextAccessor;
+    private final IdGenerator idGenerator;
+    private final ConnectorCache cache;
+    private final RetryPolicy retryPolicy;
 
     @Autowired
-    public JiraController(WebClient rest, CardTextAccessor cardTextAccessor) {
+    public JiraController(WebClient rest, CardTextAccessor cardTextAccessor, IdGenerator idGenerator,
+                          ConnectorCache cache, RetryPolicy retryPolicy) {
         this.rest = rest;
         this.cardTextAccessor = cardTextAccessor;
+        this.idGenerator = idGenerator;
+        this.cache = cache;
+        this.retryPolicy = retryPolicy;
     }
 
     @PostMapping(path = "/cards/requests", produces = APPLICATION_JSON_VALUE, consumes = APPLICATION_JSON_VALUE)
@@ -62,15 +72,29 @@ public class JiraController {
             @RequestHeader(name = ROUTING_PREFIX) String routingPrefix,
             Locale locale,
             @Valid @RequestBody CardRequest cardRequest,
-            final HttpServletRequest request) {
+            final CardRequestContext cardContext) {
+        return streamCards(jiraAuth, baseUrl, routingPrefix, locale, cardRequest, cardContext)
+                .collect(Cards::new, (cards, card) -> cards.getCards().add(card));
+    }
+
+    /*
+     * Opt-in with "Accept: application/stream+json": every card is written,
+     * as a line of JSON, as soon as its issue has been fetched.
+     */
+    @PostMapping(path = "/cards/requests", produces = APPLICATION_STREAM_JSON_VALUE, consumes = APPLICATION_JSON_VALUE)
+    public Flux<Card> streamCards(
+            @RequestHeader(name = JIRA_AUTH_HEADER) String jiraAuth,
+            @RequestHeader(name = JIRA_BASE_URL_HEADER) String baseUrl,
+            @RequestHeader(name = ROUTING_PREFIX) String routingPrefix,
+            Locale locale,
+            @Valid @RequestBody CardRequest cardRequest,
+            final CardRequestContext cardContext) {
 
         Set<String> issueIds = cardRequest.getTokens("issue_id");
 
         return Flux.fromIterable(issueIds)
                 .flatMap(issueId -> getCardForIssue(jiraAuth, baseUrl, issueId,
-                        routingPrefix, locale, request))
-                .collect(Cards::new, (cards, card) -> cards.getCards().add(card))
-                .defaultIfEmpty(new Cards())
+                        routingPrefix, locale, cardContext))
                 .subscriberContext(Reactive.setupContext());
     }
 
@@ -95,16 +119,24 @@ public class JiraController {
     public Mono<ResponseEntity<Void>> addWatcher(
             @RequestHeader(name = JIRA_AUTH_HEADER) String jiraAuth,
             @RequestHeader(name = JIRA_BASE_URL_HEADER) String baseUrl,
-            @PathVariable String issueKey) {
+            @PathVariable String issueKey,
+            Principal principal) {
         logger.debug("Adding the user to watcher list for jira issue id : {} with jira server : {}", issueKey, baseUrl);
+        // The Jira user depends on the Jira credentials, so they are part of the key
+        return cache.get(principal, "jira.myself.name|" + baseUrl + "|" + jiraAuth,
+                () -> getJiraUserName(jiraAuth, baseUrl))
+                .flatMap(user -> addUserToWatcher(user, jiraAuth, baseUrl, issueKey))
+                .map(status -> ResponseEntity.status(status).<Void>build())
+                .subscriberContext(Reactive.setupContext());
+    }
+
+    private Mono<String> getJiraUserName(String jiraAuth, String baseUrl) {
         return rest.get()
                 .uri(baseUrl + "/rest/api/2/myself")
                 .header(AUTHORIZATION, jiraAuth)
                 .retrieve()
                 .bodyToMono(JsonDocument.class)
-                .flatMap(body -> addUserToWatcher(body, jiraAuth, baseUrl, issueKey))
-                .map(status -> ResponseEntity.status(status).<Void>build())
-                .subscriberContext(Reactive.setupContext());
+                .map(body -> body.read("$.name"));
     }
 
     @GetMapping("/test-auth")
@@ -119,9 +151,8 @@ public class JiraController {
                 .subscriberContext(Reactive.setupContext());
     }
 
-    private Mono<HttpStatus> addUserToWatcher(JsonDocument jiraUserDetails, String jiraAuth,
-                                                              String baseUrl, String issueKey) {
-        String user = jiraUserDetails.read("$.name");
+    private Mono<HttpStatus> addUserToWatcher(String user, String jiraAuth,
+                                              String baseUrl, String issueKey) {
         return rest.post()
                 .uri(baseUrl + "/rest/api/2/issue/{issueKey}/watchers", issueKey)
                 .header(AUTHORIZATION, jiraAuth)
@@ -136,17 +167,17 @@ public class JiraController {
                                        String issueId,
                                        String routingPrefix,
                                        Locale locale,
-                                       HttpServletRequest request) {
+                                       CardRequestContext cardContext) {
         return getIssue(jiraAuth, baseUrl, issueId)
                 // if an issue is not found, we'll just not bother creating a card
                 .onErrorResume(Reactive::skipOnNotFound)
-                .flatMap(Reactive.wrapMapper(jiraResponse -> transformIssueResponse(jiraResponse,
+                .flatMap(Reactive.wrapCardBuilder(jiraResponse -> transformIssueResponse(jiraResponse,
                         baseUrl,
                         issueId,
                         routingPrefix,
                         locale,
-                        request)))
-                .doOnEach(Reactive.wrapForItem(card -> logger.debug("Created card. {} -> {}", issueId, card.getHeader().getTitle())));
+                        cardContext)))
+                .doOnEach(Reactive.wrapForItem(logger::isDebugEnabled, card -> logger.debug("Created card. {} -> {}", issueId, card.getHeader().getTitle())));
 
     }
 
@@ -156,7 +187,8 @@ public class JiraController {
                 .uri(baseUrl + "/rest/api/2/issue/{issueId}", issueId)
                 .header(AUTHORIZATION, jiraAuth)
                 .retrieve()
-                .bodyToMono(JsonDocument.class);
+                .bodyToMono(JsonDocument.class)
+                .transform(Reactive.retryTransient(retryPolicy));
     }
 
     private Card transformIssueResponse(JsonDocument jiraResponse,
@@ -164,7 +196,7 @@ public class JiraController {
                                         String issueId,
                                         String routingPrefix,
                                         Locale locale,
-                                        HttpServletRequest request) {
+                                        CardRequestContext cardContext) {
         String issueKey = jiraResponse.read("$.key");
         String summary = jiraResponse.read("$.fields.summary");
         List<String> fixVersions = jiraResponse.read("$.fields.fixVersions[*].name");
@@ -187,9 +219,9 @@ public class JiraController {
 
         addCommentsField(cardBodyBuilder, allComments, locale);
 
-        final Card.Builder card = new Card.Builder()
+        final Card.Builder card = new Card.Builder(idGenerator)
                 .setName("Jira")
-                .setTemplate(routingPrefix + "templates/generic.hbs")
+                .setTemplate(cardContext.getGenericTemplate())
                 .setHeader(cardTextAccessor.getHeader(locale, summary), cardTextAccessor.getMessage("subtitle", locale, issueKey))
                 .setBody(cardBodyBuilder.build())
                 .addAction(commentActionBuilder.build())
@@ -197,7 +229,7 @@ public class JiraController {
                 .addAction(watchActionBuilder.build());
 
         // Set image url.
-        CommonUtils.buildConnectorImageUrl(card, request);
+        card.setImage(cardContext.getImage());
 
         return card.build();
     }
@@ -230,7 +262,7 @@ public class JiraController {
     }
 
     private CardAction.Builder getCommentActionBuilder(JsonDocument jiraResponse, String routingPrefix, Locale locale) {
-        CardAction.Builder actionBuilder = new CardAction.Builder();
+        CardAction.Builder actionBuilder = new CardAction.Builder(idGenerator);
         CardActionInputField.Builder inputFieldBuilder = new CardActionInputField.Builder();
         String commentLink = "api/v1/issues/" + jiraResponse.read("$.id") + "/comment";
         inputFieldBuilder.setId("body")
@@ -248,7 +280,7 @@ public class JiraController {
 
     private CardAction.Builder getWatchActionBuilder(JsonDocument jiraResponse,
                                                      String routingPrefix, Locale locale) {
-        CardAction.Builder actionBuilder = new CardAction.Builder();
+        CardAction.Builder actionBuilder = new CardAction.Builder(idGenerator);
         String watchLink = "api/v1/issues/" + jiraResponse.read("$.id") + "/watchers";
         actionBuilder.setLabel(cardTextAccessor.getActionLabel("actions.watch", locale))
                 .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("actions.watch", locale))
@@ -259,7 +291,7 @@ public class JiraController {
     }
 
     private CardAction.Builder getOpenInActionBuilder(String baseUrl, String issueId, Locale locale) {
-        CardAction.Builder actionBuilder = new CardAction.Builder();
+        CardAction.Builder actionBuilder = new CardAction.Builder(idGenerator);
         String jiraIssueWebUrl = baseUrl + "/browse/" + issueId;
         actionBuilder.setLabel(cardTextAccessor.getActionLabel("actions.openIn", locale))
                 .setCompletedLabel(this.cardTextAccessor.getActionCompletedLabel("actions.openIn", locale))
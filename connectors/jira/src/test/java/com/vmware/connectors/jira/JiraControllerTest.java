@@ -6,6 +6,7 @@
 package com.vmware.connectors.jira;
 
 import com.google.common.collect.ImmutableList;
+import com.vmware.connectors.common.tracing.Span;
 import com.vmware.connectors.mock.MockRestServiceServer;
 import com.vmware.connectors.test.ControllerTestsBase;
 import com.vmware.connectors.test.JsonReplacementsBuilder;
@@ -22,11 +23,18 @@ import org.springframework.test.web.client.ResponseActions;
 import org.springframework.test.web.client.match.MockRestRequestMatchers;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.time.Duration;
 import java.util.List;
 
 import static com.vmware.connectors.test.JsonSchemaValidator.isValidHeroCardConnectorResponse;
 import static org.hamcrest.CoreMatchers.any;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.springframework.http.HttpHeaders.*;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.HEAD;
@@ -145,6 +153,85 @@ class JiraControllerTest extends ControllerTestsBase {
         mockJira.verify();
     }
 
+    @Test
+    void testRequestCardsStreamed() throws Exception {
+        expect("APF-27").andRespond(withSuccess(apf27, APPLICATION_JSON));
+        expect("APF-28").andRespond(withSuccess(apf28, APPLICATION_JSON));
+
+        String cards = performStreamed(requestCards("abc", "request.json"));
+
+        assertThat(cards, JsonReplacementsBuilder.from(fromFile("connector/responses/success.json")).buildForCards());
+        mockJira.verify();
+    }
+
+    @Test
+    void testRequestCardsFetchesIssuesConcurrently() throws Exception {
+        mockConnector.setResponseDelay(Duration.ofMillis(200));
+        expect("APF-27").andRespond(withSuccess(apf27, APPLICATION_JSON));
+        expect("APF-28").andRespond(withSuccess(apf28, APPLICATION_JSON));
+        testRequestCards("request.json", "success.json", null);
+        mockJira.verify();
+
+        assertBackendRoundTrips(2, 1);
+        assertThat(backendTimeline().getPeakConcurrency(), is(2));
+    }
+
+    @Test
+    void testRequestCardsReportsServerTiming() throws Exception {
+        expect("APF-27").andRespond(withSuccess(apf27, APPLICATION_JSON));
+        expect("APF-28").andRespond(withSuccess(apf28, APPLICATION_JSON));
+        perform(requestCards("abc", "request.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", containsString("backend;desc=\"2 calls\";dur=")))
+                .andExpect(header().string("Server-Timing", containsString("decode;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("build;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("total;dur=")));
+        mockJira.verify();
+    }
+
+    @Test
+    void testRequestCardsIsTraced() throws Exception {
+        String traceId = "0af7651916cd43dd8448eb211c80319c";
+        expect("APF-27")
+                .andExpect(MockRestRequestMatchers.header("traceparent", startsWith("00-" + traceId + "-")))
+                .andExpect(MockRestRequestMatchers.header("tracestate", "acme=1"))
+                .andRespond(withSuccess(apf27, APPLICATION_JSON));
+        expect("APF-28")
+                .andExpect(MockRestRequestMatchers.header("traceparent", startsWith("00-" + traceId + "-")))
+                .andRespond(withSuccess(apf28, APPLICATION_JSON));
+        perform(requestCards("abc", "request.json")
+                .header("traceparent", "00-" + traceId + "-b7ad6b7169203331-01")
+                .header("tracestate", "acme=1"))
+                .andExpect(status().isOk());
+        mockJira.verify();
+
+        List<Span> trace = spanExporter.getTrace(traceId);
+        Span server = trace.stream().filter(span -> span.getKind() == Span.Kind.SERVER).findFirst().get();
+        assertThat(server.getName(), is("POST /cards/requests"));
+        assertThat(server.getParentSpanId(), is("b7ad6b7169203331"));
+        assertThat(server.getAttributes().get("http.status_code"), is("200"));
+
+        List<Span> children = spanExporter.getChildren(server);
+        assertThat(children.stream().filter(span -> span.getKind() == Span.Kind.CLIENT).count(), is(2L));
+        assertThat(children.stream().filter(span -> span.getName().equals("build card")).count(), is(2L));
+        assertThat(trace, hasSize(5));
+    }
+
+    @Test
+    void testRequestCardsIsNotRecordedWhenUnsampled() throws Exception {
+        String traceId = "0af7651916cd43dd8448eb211c80319c";
+        expect("APF-27")
+                .andExpect(MockRestRequestMatchers.header("traceparent", endsWith("-00")))
+                .andRespond(withSuccess(apf27, APPLICATION_JSON));
+        expect("APF-28").andRespond(withSuccess(apf28, APPLICATION_JSON));
+        perform(requestCards("abc", "request.json")
+                .header("traceparent", "00-" + traceId + "-b7ad6b7169203331-00"))
+                .andExpect(status().isOk());
+        mockJira.verify();
+
+        assertThat(spanExporter.getSpans(), empty());
+    }
+
     @Test
     void testAuthSuccess() throws Exception {
         mockJira.expect(requestTo("https://jira.acme.com/rest/api/2/myself"))
@@ -226,6 +313,15 @@ class JiraControllerTest extends ControllerTestsBase {
         mockJira.verify();
     }
 
+    @Test
+    void testRequestCardsRetriesUnavailableIssue() throws Exception {
+        expect("APF-27").andRespond(withStatus(SERVICE_UNAVAILABLE));
+        expect("APF-27").andRespond(withSuccess(apf27, APPLICATION_JSON));
+        expect("APF-28").andRespond(withSuccess(apf28, APPLICATION_JSON));
+        testRequestCards("request.json", "success.json", null);
+        mockJira.verify();
+    }
+
     @Test
     void testAddComment() throws Exception {
         mockJira.expect(requestTo("https://jira.acme.com/rest/api/2/issue/1234/comment"))
@@ -0,0 +1,27 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.jira;
+
+import com.vmware.connectors.test.load.BackendSimulator;
+import com.vmware.connectors.test.load.LoadTestRunner;
+
+import static org.springframework.http.HttpMethod.GET;
+
+/**
+ * Drives the Jira connector's card requests against a simulated Jira.
+ */
+public final class JiraLoadScenario {
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner(JiraConnectorApplication.class)
+                .header("x-jira-authorization", "Bearer load-test")
+                .backendUrlHeader("x-jira-base-url")
+                .body("/jira/requests/request.json")
+                .run(new BackendSimulator()
+                        .route(GET, "/rest/api/2/issue/{key}",
+                                request -> "/jira/responses/" + request.pathVariable("key") + ".json"));
+    }
+}
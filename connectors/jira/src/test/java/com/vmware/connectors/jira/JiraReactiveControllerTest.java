@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.jira;
+
+import com.vmware.connectors.common.tracing.Span;
+import com.vmware.connectors.mock.MockRestServiceServer;
+import com.vmware.connectors.test.JsonReplacementsBuilder;
+import com.vmware.connectors.test.ReactiveControllerTestsBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.test.web.client.match.MockRestRequestMatchers;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.vmware.connectors.test.ControllerTestsBase.fromFile;
+import static com.vmware.connectors.test.JsonSchemaValidator.isValidHeroCardConnectorResponse;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * The Jira connector on the WebFlux runtime.
+ */
+class JiraReactiveControllerTest extends ReactiveControllerTestsBase {
+
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+
+    @Value("classpath:jira/responses/APF-27.json")
+    private Resource apf27;
+
+    @Value("classpath:jira/responses/APF-28.json")
+    private Resource apf28;
+
+    private MockRestServiceServer mockJira;
+
+    @BeforeEach
+    void init() throws Exception {
+        super.setup();
+        mockJira = MockRestServiceServer.bindTo(requestHandlerHolder).ignoreExpectOrder(true).build();
+    }
+
+    @Test
+    void testProtectedResource() throws Exception {
+        testProtectedResource(POST, "/cards/requests");
+    }
+
+    @Test
+    void testDiscoveryIsPublic() throws Exception {
+        webClient.get().uri("/discovery/metadata.json")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json(fromFile("/static/discovery/metadata.json"));
+    }
+
+    @Test
+    void testRequestCardsSuccess() throws Exception {
+        expect("APF-27");
+        expect("APF-28");
+
+        requestCards()
+                .header("X-Request-Id", "req-1")
+                .header("traceparent", "00-" + TRACE_ID + "-b7ad6b7169203331-01")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueMatches("Server-Timing", ".*backend;desc=\"2 calls\";dur=.*")
+                .expectBody(String.class)
+                .value(isValidHeroCardConnectorResponse())
+                .value(JsonReplacementsBuilder.from(fromFile("connector/responses/success.json")).buildForCards());
+        mockJira.verify();
+
+        // The MDC of the request reaches the backend calls through the reactive context
+        List<Map<String, String>> backendMdc = backendMdc();
+        assertThat(backendMdc, hasSize(2));
+        for (Map<String, String> mdc : backendMdc) {
+            assertThat(mdc.get("requestId"), is("req-1"));
+            assertThat(mdc.get("principal"), is("fred@acme"));
+        }
+
+        Span server = spanExporter.getTrace(TRACE_ID).stream()
+                .filter(span -> span.getKind() == Span.Kind.SERVER)
+                .findFirst().get();
+        assertThat(server.getName(), is("POST /cards/requests"));
+        assertThat(server.getAttributes().get("http.status_code"), is("200"));
+    }
+
+    private void expect(String issue) {
+        mockJira.expect(requestTo("https://jira.acme.com/rest/api/2/issue/" + issue))
+                .andExpect(method(GET))
+                .andExpect(MockRestRequestMatchers.header(AUTHORIZATION, "Bearer abc"))
+                .andRespond(withSuccess("APF-27".equals(issue) ? apf27 : apf28, APPLICATION_JSON));
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> requestCards() throws Exception {
+        return webClient.post().uri("/cards/requests")
+                .header(AUTHORIZATION, "Bearer " + accessToken())
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .header("x-jira-authorization", "Bearer abc")
+                .header("x-jira-base-url", "https://jira.acme.com")
+                .header("x-routing-prefix", "https://hero/connectors/jira/")
+                .header("x-forwarded-host", "my-connector")
+                .header("x-forwarded-proto", "https")
+                .header("x-forwarded-port", "443")
+                .syncBody(fromFile("/jira/requests/request.json"));
+    }
+}
@@ -16,8 +16,9 @@ import com.vmware.connectors.common.model.UserRecord;
 import com.vmware.connectors.common.payloads.request.CardRequest;
 import com.vmware.connectors.common.payloads.response.*;
 import com.vmware.connectors.common.utils.CardTextAccessor;
-import com.vmware.connectors.common.utils.CommonUtils;
+import com.vmware.connectors.common.utils.IdGenerator;
 import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.web.CardRequestContext;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +33,6 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.io.IOException;
 import java.net.URI;
@@ -99,11 +99,13 @@ public class SalesforceController {
     private final WebClient rest;
 
     private final CardTextAccessor cardTextAccessor;
+    private final IdGenerator idGenerator;
 
     @Autowired
     public SalesforceController(
             WebClient rest,
             CardTextAccessor cardTextAccessor,
+            IdGenerator idGenerator,
             @Value("${sf.searchAccountsPath}") String sfSearchAccountPath,
             @Value("${sf.addContactPath}") String sfAddContactPath,
             @Value("${sf.opportunityContactLinkPath}") String sfOpportunityContactLinkPath,
@@ -112,6 +114,7 @@ public class SalesforceController {
     ) {
         this.rest = rest;
         this.cardTextAccessor = cardTextAccessor;
+        this.idGenerator = idGenerator;
         this.sfSearchAccountPath = sfSearchAccountPath;
         this.sfAddContactPath = sfAddContactPath;
         this.sfOpportunityContactLinkPath = sfOpportunityContactLinkPath;
@@ -176,7 +179,7 @@ public class SalesforceController {
             @RequestHeader(ROUTING_PREFIX) String routingPrefix,
             Locale locale,
             @Valid @RequestBody CardRequest cardRequest,
-            final HttpServletRequest request
+            final CardRequestContext cardContext
     ) {
         // Sender email and user email are required, and sender email has to at least have a non-final @ in it
         String sender = cardRequest.getTokenSingleValue("sender_email");
@@ -192,7 +195,7 @@ public class SalesforceController {
 
         return retrieveContactInfos(auth, baseUrl, user, sender)
                 .flatMap(contacts -> getCards(contacts, sender, baseUrl, routingPrefix, auth,
-                        user, senderDomain, locale, request))
+                        user, senderDomain, locale, cardContext))
                 .map(this::toCards)
                 .map(ResponseEntity::ok)
                 .subscriberContext(Reactive.setupContext());
@@ -220,19 +223,20 @@ public class SalesforceController {
             String userEmail,
             String senderDomain,
             Locale locale,
-            HttpServletRequest request
+            CardRequestContext cardContext
     ) {
         int contactsSize = contactDetails.read("$.totalSize");
         if (contactsSize > 0) {
             // Contact already exists in the salesforce account. Return a card to show the sender information.
             logger.debug("Returning contact info for email: {} ", senderEmail);
             return makeCardFromContactDetails(auth, baseUrl, routingPrefix, userEmail,
-                    senderEmail, contactDetails, locale, request)
+                    senderEmail, contactDetails, locale, cardContext)
                     .map(ImmutableList::of);
         } else {
             // Contact doesn't exist in salesforce. Return a card to show accounts that are related to sender domain.
             logger.debug("Returning accounts info for domain: {} ", senderDomain);
-            return makeCardsFromSenderDomain(auth, baseUrl, routingPrefix, userEmail, senderEmail, senderDomain, locale);
+            return makeCardsFromSenderDomain(auth, baseUrl, routingPrefix, userEmail, senderEmail, senderDomain, locale,
+                    cardContext);
         }
     }
 
@@ -244,10 +248,10 @@ public class SalesforceController {
             String senderEmail,
             JsonDocument contactDetails,
             Locale locale,
-            HttpServletRequest request
+            CardRequestContext cardContext
     ) {
         return retrieveOpportunities(auth, baseUrl, userEmail, senderEmail)
-                .map(body -> createUserDetailsCard(contactDetails, body, routingPrefix, locale, request));
+                .flatMap(Reactive.wrapCardBuilder(body -> createUserDetailsCard(contactDetails, body, routingPrefix, locale, cardContext)));
     }
 
     private Mono<JsonDocument> retrieveOpportunities(
@@ -270,7 +274,7 @@ public class SalesforceController {
             JsonDocument opportunityDetails,
             String routingPrefix,
             Locale locale,
-            HttpServletRequest request
+            CardRequestContext cardContext
     ) {
         String contactName = contactDetails.read("$.records[0].Name");
         String contactPhNo = contactDetails.read("$.records[0].MobilePhone");
@@ -284,14 +288,14 @@ public class SalesforceController {
 
         addOpportunities(cardBodyBuilder, opportunityDetails, locale);
 
-        final Card.Builder card = new Card.Builder()
+        final Card.Builder card = new Card.Builder(idGenerator)
                 .setName("Salesforce") // TODO - remove this in APF-536
-                .setTemplate(routingPrefix + "templates/generic.hbs")
+                .setTemplate(cardContext.getGenericTemplate())
                 .setHeader(cardTextAccessor.getMessage("senderinfo.header", locale))
                 .setBody(cardBodyBuilder.build());
 
         // Set image url.
-        CommonUtils.buildConnectorImageUrl(card, request);
+        card.setImage(cardContext.getImage());
 
         return card.build();
     }
@@ -345,13 +349,14 @@ public class SalesforceController {
             String userEmail,
             String senderEmail,
             String senderDomain,
-            Locale locale
+            Locale locale,
+            CardRequestContext cardContext
     ) {
         return retrieveAccountDetails(auth, baseUrl, userEmail, senderDomain)
                 .map(body -> body.<List<Map<String, Object>>>read("$.records"))
                 .map(contactRecords -> getUniqueAccounts(contactRecords, senderEmail))
                 .flatMap(accounts -> addRelatedOpportunities(accounts, baseUrl, auth))
-                .map(list -> createRelatedAccountsCards(list, senderEmail, routingPrefix, locale));
+                .flatMap(Reactive.wrapCardBuilder(list -> createRelatedAccountsCards(list, senderEmail, routingPrefix, locale, cardContext)));
     }
 
     private Mono<JsonDocument> retrieveAccountDetails(
@@ -462,14 +467,15 @@ public class SalesforceController {
             List<SFAccount> accounts,
             String contactEmail,
             String routingPrefix,
-            Locale locale
+            Locale locale,
+            CardRequestContext cardContext
     ) {
         return accounts
                 .stream()
                 .map(acct ->
-                        new Card.Builder()
+                        new Card.Builder(idGenerator)
                                 .setName("Salesforce")
-                                .setTemplate(routingPrefix + "templates/generic.hbs")
+                                .setTemplate(cardContext.getGenericTemplate())
                                 .setHeader(cardTextAccessor.getMessage("addcontact.header", locale))
                                 .setBody(cardTextAccessor.getMessage("addcontact.body", locale, contactEmail, acct.getName()))
                                 .addAction(createAddContactAction(routingPrefix, contactEmail, acct, locale))
@@ -487,7 +493,7 @@ public class SalesforceController {
         String acctId = acct.getId();
         String addContactLink = routingPrefix + ADD_CONTACT_PATH.replace("{accountId}", acctId);
 
-        CardAction.Builder actionBuilder = new CardAction.Builder()
+        CardAction.Builder actionBuilder = new CardAction.Builder(idGenerator)
                 .setLabel(cardTextAccessor.getActionLabel("addcontact.add", locale))
                 .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("addcontact.add", locale))
                 .setActionKey(CardActionKey.USER_INPUT)
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.salesforce;
+
+import com.vmware.connectors.test.load.BackendSimulator;
+import com.vmware.connectors.test.load.LoadTestRunner;
+import org.springframework.web.reactive.function.server.ServerRequest;
+
+import static org.springframework.http.HttpMethod.GET;
+
+/**
+ * Drives the Salesforce connector's card requests against a simulated Salesforce.
+ */
+public final class SalesforceLoadScenario {
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner(SalesForceConnectorApplication.class)
+                .header("x-salesforce-authorization", "Bearer load-test")
+                .backendUrlHeader("x-salesforce-base-url")
+                .body("/connector/requests/request.json")
+                .run(new BackendSimulator()
+                        .route(GET, "/services/data/v20.0/query", SalesforceLoadScenario::queryResult));
+    }
+
+    // The sender is a known contact, with opportunities
+    private static String queryResult(ServerRequest request) {
+        String soql = request.queryParam("q").orElse("");
+        if (soql.contains("FROM OpportunityContactRole")) {
+            return "/salesforce/response/successOpportunity.json";
+        } else if (soql.startsWith("SELECT name, account.name")) {
+            return "/salesforce/response/successContact.json";
+        }
+        return "/salesforce/response/zeroRecords.json";
+    }
+}
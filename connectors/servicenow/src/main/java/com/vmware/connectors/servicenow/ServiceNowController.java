@@ -6,12 +6,14 @@
 package com.vmware.connectors.servicenow;
 
 import com.google.common.collect.ImmutableMap;
+import com.vmware.connectors.common.cache.ConnectorCache;
 import com.vmware.connectors.common.json.JsonDocument;
 import com.vmware.connectors.common.payloads.request.CardRequest;
 import com.vmware.connectors.common.payloads.response.*;
 import com.vmware.connectors.common.utils.CardTextAccessor;
-import com.vmware.connectors.common.utils.CommonUtils;
+import com.vmware.connectors.common.utils.IdGenerator;
 import com.vmware.connectors.common.utils.Reactive;
+import com.vmware.connectors.common.web.CardRequestContext;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,8 +27,8 @@ import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.security.Principal;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -79,14 +81,20 @@ public class ServiceNowController {
 
     private final WebClient rest;
     private final CardTextAccessor cardTextAccessor;
+    private final IdGenerator idGenerator;
+    private final ConnectorCache cache;
 
     @Autowired
     public ServiceNowController(
             WebClient rest,
-            CardTextAccessor cardTextAccessor
+            CardTextAccessor cardTextAccessor,
+            IdGenerator idGenerator,
+            ConnectorCache cache
     ) {
         this.rest = rest;
         this.cardTextAccessor = cardTextAccessor;
+        this.idGenerator = idGenerator;
+        this.cache = cache;
     }
 
     @PostMapping(
@@ -100,32 +108,53 @@ public class ServiceNowController {
             @RequestHeader(ROUTING_PREFIX) String routingPrefix,
             Locale locale,
             @Valid @RequestBody CardRequest cardRequest,
-            final HttpServletRequest request
+            final CardRequestContext cardContext,
+            Principal principal
+    ) {
+        return streamCards(auth, baseUrl, routingPrefix, locale, cardRequest, cardContext, principal)
+                .collect(Cards::new, (cards, card) -> cards.getCards().add(card));
+    }
+
+    /*
+     * Opt-in with "Accept: application/stream+json": every card is written,
+     * as a line of JSON, as soon as its approval request and items have been fetched.
+     */
+    @PostMapping(
+            path = "/cards/requests",
+            produces = MediaType.APPLICATION_STREAM_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Flux<Card> streamCards(
+            @RequestHeader(AUTH_HEADER) String auth,
+            @RequestHeader(BASE_URL_HEADER) String baseUrl,
+            @RequestHeader(ROUTING_PREFIX) String routingPrefix,
+            Locale locale,
+            @Valid @RequestBody CardRequest cardRequest,
+            final CardRequestContext cardContext,
+            Principal principal
     ) {
         logger.trace("getCards called, baseUrl={}, routingPrefix={}, request={}", baseUrl, routingPrefix, cardRequest);
 
         Set<String> requestNumbers = cardRequest.getTokens("ticket_id");
 
         if (CollectionUtils.isEmpty(requestNumbers)) {
-            return Mono.just(new Cards());
+            return Flux.empty();
         }
 
         String email = cardRequest.getTokenSingleValue("email");
 
         if (email == null) {
-            return Mono.just(new Cards());
+            return Flux.empty();
         }
 
-        return callForUserSysId(baseUrl, email, auth)
+        return cache.get(principal, "servicenow.sysId|" + baseUrl + "|" + email,
+                () -> callForUserSysId(baseUrl, email, auth))
                 .flux()
                 .flatMap(userSysId -> callForApprovalRequests(baseUrl, auth, userSysId))
                 .flatMap(approvalRequest -> callForAndAggregateRequestInfo(baseUrl, auth, approvalRequest))
                 .filter(info -> requestNumbers.contains(info.getInfo().getNumber()))
                 .flatMap(approvalRequestWithInfo -> callForAndAggregateRequestedItems(baseUrl, auth, approvalRequestWithInfo))
-                .reduce(
-                        new Cards(),
-                        (cards, info) -> appendCard(cards, info, routingPrefix, locale, request)
-                )
+                .flatMap(Reactive.wrapCardBuilder(info -> makeCard(routingPrefix, info, locale, cardContext)))
                 .subscriberContext(Reactive.setupContext());
     }
 
@@ -342,38 +371,24 @@ public class ServiceNowController {
         );
     }
 
-    private Cards appendCard(Cards cards,
-                             ApprovalRequestWithItems info,
-                             String routingPrefix,
-                             Locale locale,
-                             HttpServletRequest request) {
-        logger.trace("appendCard called: cards={}, info={}, routingPrefix={}", cards, info, routingPrefix);
-
-        cards.getCards().add(
-                makeCard(routingPrefix, info, locale, request)
-        );
-
-        return cards;
-    }
-
     private Card makeCard(
             String routingPrefix,
             ApprovalRequestWithItems info,
             Locale locale,
-            HttpServletRequest request
+            CardRequestContext cardContext
     ) {
         logger.trace("makeCard called: routingPrefix={}, info={}", routingPrefix, info);
 
-        final Card.Builder card = new Card.Builder()
+        final Card.Builder card = new Card.Builder(idGenerator)
                 .setName("ServiceNow") // TODO - remove this in APF-536
-                .setTemplate(routingPrefix + "templates/generic.hbs")
+                .setTemplate(cardContext.getGenericTemplate())
                 .setHeader(
                         cardTextAccessor.getHeader(locale),
                         cardTextAccessor.getMessage("subtitle", locale, info.getInfo().getNumber())
                 )
                 .setBody(makeBody(info, locale))
                 .addAction(
-                        new CardAction.Builder()
+                        new CardAction.Builder(idGenerator)
                                 .setPrimary(true)
                                 .setLabel(cardTextAccessor.getActionLabel("approve", locale))
                                 .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("approve", locale))
@@ -384,7 +399,7 @@ public class ServiceNowController {
                                 .build()
                 )
                 .addAction(
-                        new CardAction.Builder()
+                        new CardAction.Builder(idGenerator)
                                 .setLabel(cardTextAccessor.getActionLabel("reject", locale))
                                 .setCompletedLabel(cardTextAccessor.getActionCompletedLabel("reject", locale))
                                 .setRemoveCardOnCompletion(true)
@@ -401,7 +416,7 @@ public class ServiceNowController {
                                 .build()
                 );
         // Set image url.
-        CommonUtils.buildConnectorImageUrl(card, request);
+        card.setImage(cardContext.getImage());
 
         return card.build();
     }
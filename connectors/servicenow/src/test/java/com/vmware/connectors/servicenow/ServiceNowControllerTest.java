@@ -24,6 +24,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static com.vmware.connectors.test.JsonSchemaValidator.isValidHeroCardConnectorResponse;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.any;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.http.HttpHeaders.ACCEPT_LANGUAGE;
@@ -215,6 +216,22 @@ class ServiceNowControllerTest extends ControllerTestsBase {
                 );
     }
 
+    @Test
+    void testRequestCardsStreamed() throws Exception {
+        trainServiceNowForCards();
+
+        String cards = performStreamed(
+                setupPostRequest(
+                        "/cards/requests",
+                        APPLICATION_JSON,
+                        SNOW_AUTH_TOKEN,
+                        "valid/cards/card.json"
+                )
+        );
+
+        assertThat(cards, JsonReplacementsBuilder.from(fromFile("/servicenow/responses/success/cards/card.json")).buildForCards());
+    }
+
     private void trainServiceNowForCards() throws Exception {
         mockServiceNow.expect(requestTo("https://snow.acme.com/api/now/table/sys_user?sysparm_fields=sys_id&sysparm_limit=1&email=jbard@vmware.com"))
                 .andExpect(header(AUTHORIZATION, "Bearer " + SNOW_AUTH_TOKEN))
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2018 VMware, Inc. All Rights Reserved.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.connectors.servicenow;
+
+import com.vmware.connectors.test.load.BackendSimulator;
+import com.vmware.connectors.test.load.LoadTestRunner;
+import org.apache.commons.lang3.StringUtils;
+
+import static org.springframework.http.HttpMethod.GET;
+
+/**
+ * Drives the ServiceNow connector's card requests against a simulated ServiceNow.
+ */
+public final class ServiceNowLoadScenario {
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner(ServiceNowConnectorApplication.class)
+                .header("x-servicenow-authorization", "Bearer load-test")
+                .backendUrlHeader("x-servicenow-base-url")
+                .body("/servicenow/requests/valid/cards/card.json")
+                .run(new BackendSimulator()
+                        .route(GET, "/api/now/table/sys_user", "/servicenow/fake/user.json")
+                        .route(GET, "/api/now/table/sysapproval_approver", "/servicenow/fake/approval-requests.json")
+                        // The recorded requests are test-sc-request-id-1 to 3
+                        .route(GET, "/api/now/table/sc_request/{id}",
+                                request -> "/servicenow/fake/request-"
+                                        + StringUtils.substringAfterLast(request.pathVariable("id"), "-") + ".json")
+                        .route(GET, "/api/now/table/sc_req_item",
+                                request -> "/servicenow/fake/requested-items-"
+                                        + StringUtils.substringAfterLast(request.queryParam("request").orElse(""), "-") + ".json"));
+    }
+}